@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.ContentAssembler;
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.Counters;
+import com.opentext.ia.sdk.sip.DigitalObject;
+import com.opentext.ia.sdk.support.io.Compression;
+import com.opentext.ia.sdk.support.io.CompressionPolicy;
+import com.opentext.ia.sdk.support.io.DefaultZipAssembler;
+import com.opentext.ia.sdk.support.io.Encoding;
+import com.opentext.ia.sdk.support.io.HashFunction;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.sdk.support.io.ZipAssembler;
+
+
+/**
+ * Measures the time and memory it takes to add a small digital object to a SIP. Run with <code>-prof gc</code> and
+ * look at <code>gc.alloc.rate.norm</code> for the number of bytes allocated per digital object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContentAssemblyAllocationBenchmark {
+
+  private static final long SEED = 313;
+  private static final int NUM_ENTRIES_PER_ZIP = 4096;
+
+  @Param({ "16384" })
+  public int objectSize;
+
+  @Param({ "true", "false" })
+  public boolean deflate;
+
+  private byte[] content;
+  private DigitalObject[] digitalObjects;
+  private ContentAssembler<DigitalObject> contentAssembler;
+  private ZipAssembler zip;
+  private int next;
+
+  @Setup
+  public void createContent() throws IOException {
+    content = SyntheticContent.text(objectSize, SEED);
+    digitalObjects = new DigitalObject[NUM_ENTRIES_PER_ZIP];
+    for (int i = 0; i < NUM_ENTRIES_PER_ZIP; i++) {
+      digitalObjects[i] = new InMemoryDigitalObject("object-" + i);
+    }
+    contentAssembler = ContentAssembler.noDedup(ContentAssemblyAllocationBenchmark::singleton,
+        new SingleHashAssembler(HashFunction.SHA256, Encoding.BASE64));
+    zip = new DefaultZipAssembler(CompressionPolicy.always(deflate ? Compression.DEFLATED : Compression.STORED));
+    startZip();
+  }
+
+  private static Iterator<DigitalObject> singleton(DigitalObject digitalObject) {
+    return Collections.singletonList(digitalObject)
+      .iterator();
+  }
+
+  private void startZip() throws IOException {
+    zip.begin(new NullOutputStream());
+    contentAssembler.begin(zip, new Counters());
+    next = 0;
+  }
+
+  @TearDown
+  public void closeZip() throws IOException {
+    zip.close();
+  }
+
+  @Benchmark
+  public Map<String, ContentInfo> addDigitalObject() throws IOException {
+    if (next == NUM_ENTRIES_PER_ZIP) {
+      // Entry names must be unique within a ZIP
+      closeZip();
+      startZip();
+    }
+    return contentAssembler.addContentsOf(digitalObjects[next++]);
+  }
+
+
+  private final class InMemoryDigitalObject implements DigitalObject {
+
+    private final String referenceInformation;
+
+    InMemoryDigitalObject(String referenceInformation) {
+      this.referenceInformation = referenceInformation;
+    }
+
+    @Override
+    public String getReferenceInformation() {
+      return referenceInformation;
+    }
+
+    @Override
+    public InputStream get() {
+      return new ByteArrayInputStream(content);
+    }
+
+  }
+
+}
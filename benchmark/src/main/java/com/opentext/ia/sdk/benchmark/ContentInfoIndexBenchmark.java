@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.ContentInfoIndex;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Compares the heap needed to keep track of the digital objects in a SIP using hash maps, like
+ * <code>ContentAssemblerWithDedupOnRi</code> used to, and using a {@linkplain ContentInfoIndex}. The retained heap is
+ * reported as the secondary result <code>heapBytes</code>; JMH sums it over iterations, so there is only one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 1, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class ContentInfoIndexBenchmark {
+
+  private static final long SEED = 313;
+  private static final int HASH_SIZE = 32;
+
+  @Param({ "1000000" })
+  public int numEntries;
+
+  @Benchmark
+  public Object hashMaps(Heap heap) {
+    heap.start();
+    Map<String, ContentInfo> riToContentInfo = new HashMap<>();
+    Map<Collection<EncodedHash>, String> hashesToRi = new HashMap<>();
+    Random random = new Random(SEED);
+    for (int i = 0; i < numEntries; i++) {
+      ContentInfo contentInfo = contentInfo(i, random);
+      riToContentInfo.put(contentInfo.getReferenceInformation(), contentInfo);
+      hashesToRi.put(contentInfo.getContentHashes(), contentInfo.getReferenceInformation());
+    }
+    heap.stop();
+    return new Object[] { riToContentInfo, hashesToRi };
+  }
+
+  private static ContentInfo contentInfo(int index, Random random) {
+    byte[] hash = new byte[HASH_SIZE];
+    random.nextBytes(hash);
+    return new ContentInfo("content/" + index + ".pdf", Collections.singletonList(
+        new EncodedHash("SHA-256", "base64", Base64.getEncoder().encodeToString(hash))));
+  }
+
+  @Benchmark
+  public Object compactIndex(Heap heap) {
+    heap.start();
+    return fill(new ContentInfoIndex(numEntries, true), heap);
+  }
+
+  private Object fill(ContentInfoIndex index, Heap heap) {
+    Random random = new Random(SEED);
+    for (int i = 0; i < numEntries; i++) {
+      index.put(contentInfo(i, random));
+    }
+    heap.stop();
+    return index;
+  }
+
+  @Benchmark
+  public Object compactIndexOffHeap(Heap heap) {
+    heap.start();
+    return fill(new ContentInfoIndex(numEntries, true, true, ContentInfoIndex.UNBOUNDED), heap);
+  }
+
+
+  /**
+   * Measures the heap that is retained between the start and the end of a benchmark.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Heap {
+
+    @SuppressWarnings("checkstyle:VisibilityModifier") // JMH reports the public fields of auxiliary counters
+    public long heapBytes;
+    private long usedAtStart;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      heapBytes = 0;
+    }
+
+    void start() {
+      usedAtStart = used();
+    }
+
+    void stop() {
+      heapBytes = used() - usedAtStart;
+    }
+
+    private static long used() {
+      MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+      for (int i = 0; i < 3; i++) {
+        memory.gc();
+      }
+      return memory.getHeapMemoryUsage()
+        .getUsed();
+    }
+
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.Encoding;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.HashFunction;
+import com.opentext.ia.sdk.support.io.MultiHashAssembler;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+
+
+/**
+ * Compares hashing content with SHA-256 only, with SHA-256 and MD5 one after the other, and with SHA-256 and MD5
+ * concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashAssemblerBenchmark {
+
+  private static final long SEED = 313;
+  private static final int CHUNK_SIZE = 8 * 1024;
+
+  @Param({ "16777216" })
+  public int contentSize;
+
+  private byte[] chunk;
+  private HashAssembler sha256;
+  private HashAssembler md5;
+  private HashAssembler multi;
+
+  @Setup
+  public void createAssemblers() {
+    chunk = new byte[CHUNK_SIZE];
+    new Random(SEED).nextBytes(chunk);
+    sha256 = new SingleHashAssembler(HashFunction.SHA256, Encoding.BASE64);
+    md5 = new SingleHashAssembler(HashFunction.MD5, Encoding.HEX);
+    Map<HashFunction, Encoding> encodingsByHashFunction = new EnumMap<>(HashFunction.class);
+    encodingsByHashFunction.put(HashFunction.SHA256, Encoding.BASE64);
+    encodingsByHashFunction.put(HashFunction.MD5, Encoding.HEX);
+    multi = new MultiHashAssembler(encodingsByHashFunction);
+  }
+
+  @Benchmark
+  public Collection<EncodedHash> singleHash() {
+    return hash(sha256);
+  }
+
+  private Collection<EncodedHash> hash(HashAssembler hashAssembler) {
+    hashAssembler.initialize();
+    for (int numHashed = 0; numHashed < contentSize; numHashed += CHUNK_SIZE) {
+      hashAssembler.add(chunk, CHUNK_SIZE);
+    }
+    return hashAssembler.get();
+  }
+
+  @Benchmark
+  public Collection<EncodedHash> twoHashesSequentially() {
+    Collection<EncodedHash> result = new ArrayList<>(hash(sha256));
+    result.addAll(hash(md5));
+    return result;
+  }
+
+  @Benchmark
+  public Collection<EncodedHash> twoHashesConcurrently() {
+    return hash(multi);
+  }
+
+}
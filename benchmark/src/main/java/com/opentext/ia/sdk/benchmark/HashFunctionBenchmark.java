@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.Encoding;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.HashFunction;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+
+
+/**
+ * Compares the hash functions that a {@linkplain SingleHashAssembler} supports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashFunctionBenchmark {
+
+  private static final long SEED = 313;
+
+  @Param({ "MD2", "MD5", "SHA1", "SHA256", "SHA384", "SHA512" })
+  public HashFunction hashFunction;
+
+  @Param({ "1024", "1048576" })
+  public int contentSize;
+
+  private byte[] content;
+  private HashAssembler hashAssembler;
+
+  @Setup
+  public void createContent() {
+    content = SyntheticContent.text(contentSize, SEED);
+    hashAssembler = new SingleHashAssembler(hashFunction, Encoding.BASE64);
+  }
+
+  @Benchmark
+  public Collection<EncodedHash> hash() {
+    hashAssembler.initialize();
+    hashAssembler.add(content, content.length);
+    return hashAssembler.get();
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.util.Date;
+
+import com.opentext.ia.sdk.sip.DigitalObject;
+
+
+/**
+ * Domain object for benchmarks: an invoice with a scanned copy as its digital object.
+ */
+public final class Invoice {
+
+  private final String id;
+  private final String customer;
+  private final Date date;
+  private final String amount;
+  private final String description;
+  private final byte[] scan;
+
+  Invoice(String id, String customer, Date date, String amount, String description, byte[] scan) {
+    this.id = id;
+    this.customer = customer;
+    this.date = new Date(date.getTime());
+    this.amount = amount;
+    this.description = description;
+    this.scan = scan.clone();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getCustomer() {
+    return customer;
+  }
+
+  public Date getDate() {
+    return new Date(date.getTime());
+  }
+
+  public String getAmount() {
+    return amount;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public String getScanName() {
+    return id + ".txt";
+  }
+
+  public DigitalObject getScan() {
+    return DigitalObject.fromBytes(getScanName(), scan);
+  }
+
+}
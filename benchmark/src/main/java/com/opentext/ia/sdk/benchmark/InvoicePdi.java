@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.net.URI;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.PdiAssembler;
+import com.opentext.ia.sdk.sip.TemplatePdiAssembler;
+import com.opentext.ia.sdk.sip.XmlPdiAssembler;
+import com.opentext.ia.sdk.support.datetime.Dates;
+import com.opentext.ia.sip.assembly.stringtemplate.StringTemplate;
+import com.opentext.ia.sip.assembly.velocity.VelocityTemplate;
+
+
+/**
+ * The different ways to render the PDI of {@linkplain Invoice invoices}. They all render the same XML.
+ */
+public enum InvoicePdi {
+
+  XML {
+    @Override
+    public PdiAssembler<Invoice> newAssembler() {
+      return new XmlPdiAssembler<Invoice>(NAMESPACE, DOCUMENT_ELEMENT, DOMAIN_OBJECT) {
+        @Override
+        protected void doAdd(Invoice invoice, Map<String, ContentInfo> contentInfo) {
+          getBuilder().element("id", invoice.getId())
+            .element("customer", invoice.getCustomer())
+            .element("date", Dates.toIso(invoice.getDate()))
+            .element("amount", invoice.getAmount())
+            .element("description", invoice.getDescription());
+          ContentInfo scan = contentInfo.get(invoice.getScanName());
+          if (scan != null) {
+            getBuilder().elements("hashes", "hash", scan.getContentHashes(), (hash, builder) -> builder
+              .attribute("algorithm", hash.getHashFunction())
+              .attribute("encoding", hash.getEncoding())
+              .attribute("value", hash.getValue()));
+          }
+        }
+      };
+    }
+  },
+
+  STRING_TEMPLATE {
+    @Override
+    public PdiAssembler<Invoice> newAssembler() {
+      return new TemplatePdiAssembler<>(new StringTemplate<>(HEADER, FOOTER, "<invoice><id>$model.id$</id>"
+          + "<customer>$model.customer$</customer><date>$model.date$</date><amount>$model.amount$</amount>"
+          + "<description>$model.description$</description></invoice>\n"));
+    }
+  },
+
+  VELOCITY {
+    @Override
+    public PdiAssembler<Invoice> newAssembler() {
+      return new TemplatePdiAssembler<>(new VelocityTemplate<>(HEADER, FOOTER, "<invoice><id>$model.id</id>"
+          + "<customer>$model.customer</customer><date>$isodate.format($model.date)</date>"
+          + "<amount>$model.amount</amount><description>$model.description</description></invoice>\n"));
+    }
+  };
+
+  private static final URI NAMESPACE = URI.create("urn:opentext:ia:benchmark:invoice");
+  private static final String DOCUMENT_ELEMENT = "invoices";
+  private static final String DOMAIN_OBJECT = "invoice";
+  private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<" + DOCUMENT_ELEMENT + " xmlns=\""
+      + NAMESPACE + "\">\n";
+  private static final String FOOTER = "</" + DOCUMENT_ELEMENT + ">\n";
+
+  /**
+   * Create an assembler that renders the PDI of invoices.
+   * @return The newly created assembler
+   */
+  public abstract PdiAssembler<Invoice> newAssembler();
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.HashedContents;
+import com.opentext.ia.sdk.sip.PdiAssembler;
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+
+
+/**
+ * Compares rendering the PDI of domain objects using {@linkplain com.opentext.ia.sdk.sip.XmlPdiAssembler XML
+ * builders}, StringTemplate, and Velocity. Each operation renders one domain object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PdiAssemblerBenchmark {
+
+  private static final long SEED = 313;
+  private static final int NUM_INVOICES = 1000;
+
+  @Param({ "XML", "STRING_TEMPLATE", "VELOCITY" })
+  public InvoicePdi pdi;
+
+  private List<Invoice> invoices;
+  private PdiAssembler<Invoice> pdiAssembler;
+
+  @Setup
+  public void createInvoices() {
+    invoices = SyntheticInvoices.generate(NUM_INVOICES, 0, 0, SEED);
+    pdiAssembler = pdi.newAssembler();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_INVOICES)
+  public long renderPdi() throws IOException {
+    MemoryBuffer buffer = new MemoryBuffer();
+    try {
+      pdiAssembler.start(buffer);
+      for (Invoice invoice : invoices) {
+        pdiAssembler.add(new HashedContents<>(invoice, Collections.emptyMap()));
+      }
+      pdiAssembler.end();
+      return buffer.length();
+    } finally {
+      buffer.release();
+    }
+  }
+
+}
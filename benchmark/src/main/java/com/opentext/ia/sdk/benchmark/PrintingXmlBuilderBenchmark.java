@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.support.datetime.Dates;
+import com.opentext.ia.sdk.support.xml.PrintingXmlBuilder;
+import com.opentext.ia.sdk.support.xml.XmlBuilder;
+
+
+/**
+ * Measures writing XML using a {@linkplain PrintingXmlBuilder}, with and without text that needs escaping. Each
+ * operation writes one element with a few child elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrintingXmlBuilderBenchmark {
+
+  private static final long SEED = 313;
+  private static final int NUM_INVOICES = 1000;
+
+  @Param({ "false", "true" })
+  public boolean escape;
+
+  private List<Invoice> invoices;
+  private String[] customers;
+  private String[] descriptions;
+
+  @Setup
+  public void createInvoices() {
+    invoices = SyntheticInvoices.generate(NUM_INVOICES, 0, 0, SEED);
+    String suffix = escape ? " & <more>" : "";
+    customers = new String[NUM_INVOICES];
+    descriptions = new String[NUM_INVOICES];
+    for (int i = 0; i < NUM_INVOICES; i++) {
+      customers[i] = invoices.get(i)
+        .getCustomer() + suffix;
+      descriptions[i] = invoices.get(i)
+        .getDescription() + suffix;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_INVOICES)
+  public void writeXml() {
+    XmlBuilder<Void> builder = new PrintingXmlBuilder(new PrintWriter(new NullWriter()), "  ");
+    builder.element("invoices");
+    for (int i = 0; i < NUM_INVOICES; i++) {
+      Invoice invoice = invoices.get(i);
+      builder.element("invoice")
+        .attribute("id", invoice.getId())
+        .element("customer", customers[i])
+        .element("date", Dates.toIso(invoice.getDate()))
+        .element("amount", invoice.getAmount())
+        .element("description", descriptions[i])
+        .end();
+    }
+    builder.build();
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Element;
+
+import com.opentext.ia.sdk.client.api.QueryResult;
+import com.opentext.ia.sdk.client.api.QueryResultReader;
+import com.opentext.ia.sdk.client.impl.DefaultQueryResult;
+import com.opentext.ia.sdk.sip.HashedContents;
+import com.opentext.ia.sdk.sip.PdiAssembler;
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.sdk.support.xml.XmlUtil;
+
+
+/**
+ * Compares reading the AIUs in a query result by parsing the whole result into a DOM document with reading them one
+ * at a time using a {@linkplain QueryResultReader}. Each operation reads all AIUs in the result. Run with
+ * <code>-prof gc</code> to compare how much memory each approach allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueryResultParsingBenchmark {
+
+  private static final long SEED = 313;
+  private static final String AIU = "invoice";
+  private static final String ID = "id";
+
+  @Param({ "1000", "100000" })
+  public int numAius;
+
+  private MemoryBuffer queryResult;
+
+  @Setup
+  public void createQueryResult() throws IOException {
+    queryResult = new MemoryBuffer();
+    PdiAssembler<Invoice> pdiAssembler = InvoicePdi.XML.newAssembler();
+    pdiAssembler.start(queryResult);
+    for (Invoice invoice : SyntheticInvoices.generate(numAius, 0, 0, SEED)) {
+      pdiAssembler.add(new HashedContents<>(invoice, Collections.emptyMap()));
+    }
+    pdiAssembler.end();
+  }
+
+  @TearDown
+  public void releaseQueryResult() {
+    queryResult.release();
+  }
+
+  @Benchmark
+  public long dom() throws IOException {
+    try (QueryResult result = newQueryResult()) {
+      return totalIdLength(XmlUtil.namedElementsIn(XmlUtil.parse(result.getResultStream())
+        .getDocumentElement(), AIU));
+    }
+  }
+
+  private QueryResult newQueryResult() throws IOException {
+    return new DefaultQueryResult(0, 0, 0, 0, false, queryResult.openForReading(), null);
+  }
+
+  private static long totalIdLength(Stream<Element> aius) {
+    return aius.map(aiu -> XmlUtil.getFirstChildElement(aiu, ID))
+      .mapToLong(id -> id.getTextContent()
+        .length())
+      .sum();
+  }
+
+  @Benchmark
+  public long stax() throws IOException {
+    try (Stream<Element> aius = QueryResultReader.elements(newQueryResult(), AIU)
+      .stream()) {
+      return totalIdLength(aius);
+    }
+  }
+
+}
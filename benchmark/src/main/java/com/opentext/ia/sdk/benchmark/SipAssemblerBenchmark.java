@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.ContentAssembler;
+import com.opentext.ia.sdk.sip.PackagingInformation;
+import com.opentext.ia.sdk.sip.SipAssembler;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+
+
+/**
+ * Measures assembling a complete SIP, with only PDI or with PDI and content using each of the ways to deduplicate
+ * content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SipAssemblerBenchmark {
+
+  private static final long SEED = 313;
+
+  @Param({ "1000" })
+  public int numInvoices;
+
+  @Param({ "16384" })
+  public int scanSize;
+
+  @Param({ "0.25" })
+  public double duplicateRatio;
+
+  @Param({ "PDI_ONLY", "NO_DEDUP", "DEDUP_ON_RI", "DEDUP_ON_HASH" })
+  public Content content;
+
+  private List<Invoice> invoices;
+  private PackagingInformation prototype;
+
+  @Setup
+  public void createInvoices() {
+    invoices = SyntheticInvoices.generate(numInvoices, scanSize, duplicateRatio, SEED);
+    prototype = PackagingInformation.builder()
+      .dss()
+        .application("benchmark")
+        .holding("invoices")
+        .producer("SIP SDK")
+        .entity("invoice")
+        .schema("urn:opentext:ia:benchmark:invoice")
+      .end()
+      .build();
+  }
+
+  @Benchmark
+  public long assembleSip() throws IOException {
+    SipAssembler<Invoice> sipAssembler = SipAssembler.forPdiAndContentWithHashing(prototype,
+        InvoicePdi.XML.newAssembler(), new SingleHashAssembler(), content.newAssembler());
+    MemoryBuffer sip = new MemoryBuffer();
+    try {
+      sipAssembler.start(sip);
+      for (Invoice invoice : invoices) {
+        sipAssembler.add(invoice);
+      }
+      sipAssembler.end();
+      return sipAssembler.getMetrics()
+        .sipFileSize();
+    } finally {
+      sip.release();
+    }
+  }
+
+
+  /**
+   * How to add the content of the invoices to the SIP.
+   */
+  public enum Content {
+
+    PDI_ONLY {
+      @Override
+      ContentAssembler<Invoice> newAssembler() {
+        return ContentAssembler.ignoreContent();
+      }
+    },
+
+    NO_DEDUP {
+      @Override
+      ContentAssembler<Invoice> newAssembler() {
+        return ContentAssembler.noDedup(SyntheticInvoices.scans(), newHashAssembler());
+      }
+    },
+
+    DEDUP_ON_RI {
+      @Override
+      ContentAssembler<Invoice> newAssembler() {
+        return ContentAssembler.withDedupOnRi(SyntheticInvoices.scans(), newHashAssembler());
+      }
+    },
+
+    DEDUP_ON_HASH {
+      @Override
+      ContentAssembler<Invoice> newAssembler() {
+        return ContentAssembler.withDedupOnHash(SyntheticInvoices.scans(), newHashAssembler());
+      }
+    };
+
+    abstract ContentAssembler<Invoice> newAssembler();
+
+    static HashAssembler newHashAssembler() {
+      return new SingleHashAssembler();
+    }
+
+  }
+
+}
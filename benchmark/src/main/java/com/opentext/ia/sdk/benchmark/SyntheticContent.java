@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+
+/**
+ * Generates reproducible content for benchmarks. The same seed always results in the same content.
+ */
+public final class SyntheticContent {
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+  private static final byte[][] WORDS = words("archive", "information", "package", "submission", "dissemination",
+      "preservation", "description", "content", "retention", "holding", "customer", "invoice", "order", "amount",
+      "date", "the", "of", "and", "a", "to");
+  private static final int MAX_NUMBER = 10_000;
+
+  private SyntheticContent() {
+    // Utility class
+  }
+
+  private static byte[][] words(String... words) {
+    byte[][] result = new byte[words.length][];
+    for (int i = 0; i < words.length; i++) {
+      result[i] = words[i].getBytes(StandardCharsets.US_ASCII);
+    }
+    return result;
+  }
+
+  /**
+   * Create a temporary file with text that compresses about as well as typical business documents.
+   * @param size The number of bytes to write
+   * @param seed The seed for the random generator
+   * @return The newly created file
+   * @throws IOException When an I/O error occurs
+   */
+  public static Path textFile(long size, long seed) throws IOException {
+    Path result = Files.createTempFile("text", ".txt");
+    try (OutputStream output = Files.newOutputStream(result)) {
+      writeText(output, size, seed);
+    }
+    return result;
+  }
+
+  /**
+   * Create text that compresses about as well as typical business documents.
+   * @param size The number of bytes to create
+   * @param seed The seed for the random generator
+   * @return The text
+   */
+  public static byte[] text(int size, long seed) {
+    ByteArrayOutputStream result = new ByteArrayOutputStream(size);
+    try {
+      writeText(result, size, seed);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write to memory", e);
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Write text that compresses about as well as typical business documents.
+   * @param output The stream to write the text to
+   * @param size The number of bytes to write
+   * @param seed The seed for the random generator
+   * @throws IOException When an I/O error occurs
+   */
+  public static void writeText(OutputStream output, long size, long seed) throws IOException {
+    Random random = new Random(seed);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long remaining = size;
+    while (remaining > 0) {
+      int length = (int)Math.min(buffer.length, remaining);
+      fillWithText(buffer, length, random);
+      output.write(buffer, 0, length);
+      remaining -= length;
+    }
+  }
+
+  private static void fillWithText(byte[] buffer, int length, Random random) {
+    int position = 0;
+    while (position < length) {
+      byte[] word = random.nextInt(4) == 0 ? Integer.toString(random.nextInt(MAX_NUMBER))
+        .getBytes(StandardCharsets.US_ASCII) : WORDS[random.nextInt(WORDS.length)];
+      int numCopied = Math.min(word.length, length - position);
+      System.arraycopy(word, 0, buffer, position, numCopied);
+      position += numCopied;
+      if (position < length) {
+        buffer[position++] = (byte)' ';
+      }
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.opentext.ia.sdk.sip.DigitalObjectsExtraction;
+
+
+/**
+ * Generates reproducible {@linkplain Invoice invoices} for benchmarks. The same seed always results in the same
+ * invoices.
+ */
+public final class SyntheticInvoices {
+
+  private static final String[] CUSTOMERS = { "Acme Corporation", "Globex", "Initech", "Umbrella", "Hooli",
+      "Stark Industries", "Wayne Enterprises", "Cyberdyne Systems", "Soylent", "Tyrell Corporation" };
+  private static final long START_DATE = 1_483_228_800_000L; // 2017-01-01
+  private static final int MAX_DAYS = 365;
+  private static final int MAX_CENTS = 1_000_000;
+  private static final int DESCRIPTION_SIZE = 100;
+  private static final int CENTS_PER_UNIT = 100;
+
+  private SyntheticInvoices() {
+    // Utility class
+  }
+
+  /**
+   * Create invoices.
+   * @param count The number of invoices to create
+   * @param scanSize The number of bytes in the scan of each invoice
+   * @param duplicateRatio The fraction of invoices whose scan has the same content as that of an earlier invoice, for
+   *          deduplication to find
+   * @param seed The seed for the random generator
+   * @return The invoices
+   */
+  public static List<Invoice> generate(int count, int scanSize, double duplicateRatio, long seed) {
+    Random random = new Random(seed);
+    List<byte[]> scans = new ArrayList<>();
+    List<Invoice> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] scan;
+      if (!scans.isEmpty() && random.nextDouble() < duplicateRatio) {
+        scan = scans.get(random.nextInt(scans.size()));
+      } else {
+        scan = SyntheticContent.text(scanSize, random.nextLong());
+        scans.add(scan);
+      }
+      int cents = random.nextInt(MAX_CENTS);
+      result.add(new Invoice(String.format("INV-%08d", i), CUSTOMERS[random.nextInt(CUSTOMERS.length)],
+          new Date(START_DATE + TimeUnit.DAYS.toMillis(random.nextInt(MAX_DAYS))),
+          String.format("%d.%02d", cents / CENTS_PER_UNIT, cents % CENTS_PER_UNIT),
+          new String(SyntheticContent.text(DESCRIPTION_SIZE, random.nextLong()), StandardCharsets.US_ASCII), scan));
+    }
+    return result;
+  }
+
+  /**
+   * Return how to get the digital objects of an invoice.
+   * @return How to get the digital objects of an invoice
+   */
+  public static DigitalObjectsExtraction<Invoice> scans() {
+    return invoice -> Collections.singletonList(invoice.getScan())
+      .iterator();
+  }
+
+}
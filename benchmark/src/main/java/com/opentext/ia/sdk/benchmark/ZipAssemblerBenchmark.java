@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.support.io.DefaultZipAssembler;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+import com.opentext.ia.sdk.support.io.ParallelDeflateZipAssembler;
+import com.opentext.ia.sdk.support.io.ZipAssembler;
+
+
+/**
+ * Compares sequential and parallel deflating of a single large entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ZipAssemblerBenchmark {
+
+  private static final long SEED = 313;
+
+  @Param({ "1073741824" })
+  public long entrySize;
+
+  private Path content;
+
+  @Setup
+  public void createContent() throws IOException {
+    content = SyntheticContent.textFile(entrySize, SEED);
+  }
+
+  @TearDown
+  public void deleteContent() throws IOException {
+    Files.deleteIfExists(content);
+  }
+
+  @Benchmark
+  public long sequentialDeflate() throws IOException {
+    return zip(new DefaultZipAssembler());
+  }
+
+  @Benchmark
+  public long parallelDeflate() throws IOException {
+    return zip(new ParallelDeflateZipAssembler());
+  }
+
+  private long zip(ZipAssembler zip) throws IOException {
+    try (InputStream stream = Files.newInputStream(content)) {
+      zip.begin(new NullOutputStream());
+      zip.addEntry("content", stream, new NoHashAssembler());
+    } finally {
+      zip.close();
+    }
+    return zip.getCompressedSize();
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.support.io.Compression;
+import com.opentext.ia.sdk.support.io.CompressionPolicy;
+import com.opentext.ia.sdk.support.io.DefaultZipAssembler;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+import com.opentext.ia.sdk.support.io.ZipAssembler;
+
+
+/**
+ * Measures adding entries of various sizes to a ZIP using the {@linkplain DefaultZipAssembler}, both deflated and
+ * stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipEntrySizeBenchmark {
+
+  private static final long SEED = 313;
+  private static final int NUM_ENTRIES_PER_ZIP = 1024;
+
+  @Param({ "1024", "65536", "1048576", "16777216" })
+  public int entrySize;
+
+  @Param({ "true", "false" })
+  public boolean deflate;
+
+  private byte[] content;
+  private String[] names;
+  private ZipAssembler zip;
+  private int next;
+
+  @Setup
+  public void createContent() throws IOException {
+    content = SyntheticContent.text(entrySize, SEED);
+    names = new String[NUM_ENTRIES_PER_ZIP];
+    for (int i = 0; i < NUM_ENTRIES_PER_ZIP; i++) {
+      names[i] = "entry-" + i;
+    }
+    zip = new DefaultZipAssembler(CompressionPolicy.always(deflate ? Compression.DEFLATED : Compression.STORED));
+    startZip();
+  }
+
+  private void startZip() throws IOException {
+    zip.begin(new NullOutputStream());
+    next = 0;
+  }
+
+  @TearDown
+  public void closeZip() throws IOException {
+    zip.close();
+  }
+
+  @Benchmark
+  public Collection<EncodedHash> addEntry() throws IOException {
+    if (next == NUM_ENTRIES_PER_ZIP) {
+      // Entry names must be unique within a ZIP
+      closeZip();
+      startZip();
+    }
+    return zip.addEntry(names[next++], new ByteArrayInputStream(content), new NoHashAssembler());
+  }
+
+}
@@ -5,15 +5,23 @@ package com.opentext.ia.sdk.client.api;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import com.opentext.ia.sdk.dto.OrderItem;
+import com.opentext.ia.sdk.dto.ReceptionResponse;
+import com.opentext.ia.sdk.dto.Row;
 import com.opentext.ia.sdk.dto.SearchComposition;
 import com.opentext.ia.sdk.dto.SearchResults;
 import com.opentext.ia.sdk.dto.export.ExportConfiguration;
 import com.opentext.ia.sdk.dto.export.ExportTransformation;
 import com.opentext.ia.sdk.dto.query.SearchQuery;
 import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.FileHashes;
 
 
 /**
@@ -29,6 +37,23 @@ public interface ArchiveClient {
    */
   String ingest(InputStream sip) throws IOException;
 
+  /**
+   * Upload a Submission Information Package (SIP) into the Archive without ingesting it yet. This is the first half of
+   * {@linkplain #ingest(InputStream) ingesting} a SIP; {@linkplain #ingestReceived(ReceptionResponse)} is the second.
+   * @param sip The SIP to upload to the Archive
+   * @return The reception of the SIP, which links to ingesting it
+   * @throws IOException When an I/O error occurs
+   */
+  ReceptionResponse receive(InputStream sip) throws IOException;
+
+  /**
+   * Ingest a Submission Information Package (SIP) that was {@linkplain #receive(InputStream) received} before.
+   * @param reception The reception of the SIP
+   * @return The ID of the Archival Information Package (AIP) that was generated from the SIP
+   * @throws IOException When an I/O error occurs
+   */
+  String ingestReceived(ReceptionResponse reception) throws IOException;
+
   /**
    * Ingest a Submission Information Package (SIP) into the Archive. Will take advantage of the ingestDirect resource if
    * present, otherwise will revert to receive + ingest.
@@ -41,6 +66,33 @@ public interface ArchiveClient {
    */
   String ingestDirect(InputStream sip) throws IOException;
 
+  /**
+   * Ingest many Submission Information Packages (SIPs) into the Archive concurrently, and wait until they're all
+   * processed. SIPs of the same Data Submission Session (DSS) are ingested in sequence number order.
+   * @param sips The SIPs to add to the Archive
+   * @param concurrency The number of SIPs that are uploaded concurrently
+   * @return The outcome of ingesting each SIP
+   * @throws IOException When interrupted while waiting for the SIPs to be ingested
+   * @see BulkIngester
+   */
+  default BulkIngestionResult ingestAll(Collection<Path> sips, int concurrency) throws IOException {
+    return new BulkIngester(this, concurrency, false).ingestAll(sips);
+  }
+
+  /**
+   * Ingest many Submission Information Packages (SIPs) into the Archive concurrently, and wait until they're all
+   * processed. The SIPs are taken from the stream as uploaders become available. SIPs of the same Data Submission
+   * Session (DSS) must appear in the stream in sequence number order.
+   * @param sips The SIPs to add to the Archive
+   * @param concurrency The number of SIPs that are uploaded concurrently
+   * @return The outcome of ingesting each SIP
+   * @throws IOException When interrupted while waiting for the SIPs to be ingested
+   * @see BulkIngester
+   */
+  default BulkIngestionResult ingestAll(Stream<Path> sips, int concurrency) throws IOException {
+    return new BulkIngester(this, concurrency, false).ingestAll(sips);
+  }
+
   /**
    * Execute a query against the Archive.
    * @param query The query.
@@ -68,6 +120,56 @@ public interface ArchiveClient {
    */
   ContentResult fetchOrderContent(OrderItem orderItem) throws IOException;
 
+  /**
+   * Download the content for the specified content id to a file, without holding it in memory.
+   * @param contentId The id of the content to download.
+   * @param target The file to write the content to. An existing file is replaced
+   * @return The number of bytes written
+   * @throws IOException When an I/O error occurs
+   */
+  default long downloadContent(String contentId, Path target) throws IOException {
+    return downloadContent(contentId, target, null);
+  }
+
+  /**
+   * Download the content for the specified content id to a file, without holding it in memory, and verify that the
+   * downloaded content has the expected hash.
+   * @param contentId The id of the content to download.
+   * @param target The file to write the content to. An existing file is replaced
+   * @param expectedHash The hash the content must have, or <code>null</code> when it's not known
+   * @return The number of bytes written
+   * @throws IOException When an I/O error occurs, or the content doesn't have the expected hash. The partially
+   *           written file is removed
+   */
+  default long downloadContent(String contentId, Path target, EncodedHash expectedHash) throws IOException {
+    long result;
+    try (ContentResult content = fetchContent(contentId)) {
+      result = content.writeTo(target);
+    }
+    if (expectedHash != null) {
+      try {
+        FileHashes.verify(target, expectedHash);
+      } catch (IOException e) {
+        Files.deleteIfExists(target);
+        throw e;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Download the content for the specified order item to a file, without holding it in memory.
+   * @param orderItem The order item.
+   * @param target The file to write the content to. An existing file is replaced
+   * @return The number of bytes written
+   * @throws IOException When an I/O error occurs
+   */
+  default long downloadOrderContent(OrderItem orderItem, Path target) throws IOException {
+    try (ContentResult content = fetchOrderContent(orderItem)) {
+      return content.writeTo(target);
+    }
+  }
+
   /**
    * Get the search results for the specified search query and composition.
    * @param searchQuery The search query.
@@ -77,6 +179,35 @@ public interface ArchiveClient {
    */
   SearchResults search(SearchQuery searchQuery, SearchComposition searchComposition) throws IOException;
 
+  /**
+   * Get the search results for the specified search query and composition one page at a time, so that the first page
+   * can be processed before the others are fetched. Close the stream when stopping early, to abandon fetching the
+   * remaining pages.
+   * @param searchQuery The search query.
+   * @param searchComposition The search composition.
+   * @return The pages of search results
+   * @throws IOException When an I/O error occurs while fetching the first page. Errors while fetching subsequent pages
+   *           are thrown from the stream as a {@linkplain com.opentext.ia.sdk.support.io.RuntimeIoException}
+   */
+  default Stream<SearchResults> searchPages(SearchQuery searchQuery, SearchComposition searchComposition)
+      throws IOException {
+    return Stream.of(search(searchQuery, searchComposition));
+  }
+
+  /**
+   * Get the rows of the search results for the specified search query and composition, fetching them one page at a
+   * time as they're consumed. Close the stream when stopping early, to abandon fetching the remaining pages.
+   * @param searchQuery The search query.
+   * @param searchComposition The search composition.
+   * @return The rows of the search results
+   * @throws IOException When an I/O error occurs while fetching the first page
+   * @see #searchPages(SearchQuery, SearchComposition)
+   */
+  default Stream<Row> searchRows(SearchQuery searchQuery, SearchComposition searchComposition) throws IOException {
+    return searchPages(searchQuery, searchComposition).flatMap(page -> page.getRows()
+      .stream());
+  }
+
   /**
    * Start the export of the search results for the specified export configuration.
    * @param searchResults The search results.
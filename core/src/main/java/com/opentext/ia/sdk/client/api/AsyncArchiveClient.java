@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.api;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.opentext.ia.sdk.dto.OrderItem;
+import com.opentext.ia.sdk.dto.SearchComposition;
+import com.opentext.ia.sdk.dto.SearchResults;
+import com.opentext.ia.sdk.dto.export.ExportConfiguration;
+import com.opentext.ia.sdk.dto.export.ExportTransformation;
+import com.opentext.ia.sdk.dto.query.SearchQuery;
+import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Client that interacts with an Archive without blocking the calling thread. Each operation starts immediately and
+ * returns a future that completes with the same result as the corresponding {@linkplain ArchiveClient} operation, or
+ * exceptionally with the exception it would throw.
+ * <p>
+ * Cancelling a future completes it exceptionally. When an operation takes longer than the client's timeout, its future
+ * completes exceptionally with a {@linkplain java.util.concurrent.TimeoutException}. Whether the operation itself stops
+ * depends on the implementation; any result it still produces is discarded.
+ * <p>
+ * {@linkplain #close() Close} the client to release its resources once all operations are done.
+ */
+public interface AsyncArchiveClient extends Closeable {
+
+  /**
+   * Ingest a Submission Information Package (SIP) into the Archive.
+   * @param sip The SIP to add to the Archive
+   * @return The ID of the Archival Information Package (AIP) that was generated from the SIP
+   * @see ArchiveClient#ingest(InputStream)
+   */
+  CompletableFuture<String> ingest(InputStream sip);
+
+  /**
+   * Ingest a Submission Information Package (SIP) into the Archive using the ingestDirect resource, if present.
+   * @param sip The SIP to add to the Archive
+   * @return The ID of the Archival Information Package (AIP) that was generated from the SIP
+   * @see ArchiveClient#ingestDirect(InputStream)
+   */
+  CompletableFuture<String> ingestDirect(InputStream sip);
+
+  /**
+   * Execute a query against the Archive.
+   * @param query The query.
+   * @param aic The name of the AIC.
+   * @param schema The result set schema.
+   * @param pageSize The page size of the result set.
+   * @return A QueryResult
+   * @see ArchiveClient#query(SearchQuery, String, String, int)
+   */
+  CompletableFuture<QueryResult> query(SearchQuery query, String aic, String schema, int pageSize);
+
+  /**
+   * Fetch the content for the specified content id.
+   * @param contentId The id of the content to fetch.
+   * @return A ContentResult
+   * @see ArchiveClient#fetchContent(String)
+   */
+  CompletableFuture<ContentResult> fetchContent(String contentId);
+
+  /**
+   * Fetch the content for the specified order item.
+   * @param orderItem The order item.
+   * @return A ContentResult
+   * @see ArchiveClient#fetchOrderContent(OrderItem)
+   */
+  CompletableFuture<ContentResult> fetchOrderContent(OrderItem orderItem);
+
+  /**
+   * Download the content for the specified content id to a file.
+   * @param contentId The id of the content to download.
+   * @param target The file to write the content to.
+   * @return The number of bytes written
+   * @see ArchiveClient#downloadContent(String, Path)
+   */
+  CompletableFuture<Long> downloadContent(String contentId, Path target);
+
+  /**
+   * Download the content for the specified content id to a file, and verify that it has the expected hash.
+   * @param contentId The id of the content to download.
+   * @param target The file to write the content to.
+   * @param expectedHash The hash the content must have.
+   * @return The number of bytes written
+   * @see ArchiveClient#downloadContent(String, Path, EncodedHash)
+   */
+  CompletableFuture<Long> downloadContent(String contentId, Path target, EncodedHash expectedHash);
+
+  /**
+   * Download the content for the specified order item to a file.
+   * @param orderItem The order item.
+   * @param target The file to write the content to.
+   * @return The number of bytes written
+   * @see ArchiveClient#downloadOrderContent(OrderItem, Path)
+   */
+  CompletableFuture<Long> downloadOrderContent(OrderItem orderItem, Path target);
+
+  /**
+   * Get the search results for the specified search query and composition.
+   * @param searchQuery The search query.
+   * @param searchComposition The search composition.
+   * @return A SearchResults
+   * @see ArchiveClient#search(SearchQuery, SearchComposition)
+   */
+  CompletableFuture<SearchResults> search(SearchQuery searchQuery, SearchComposition searchComposition);
+
+  /**
+   * Start the export of the search results for the specified export configuration.
+   * @param searchResults The search results.
+   * @param exportConfiguration The export configuration.
+   * @param outputName The output name of result package.
+   * @return An OrderItem object that contains information about exported package without link to download it
+   * @see ArchiveClient#export(SearchResults, ExportConfiguration, String)
+   */
+  CompletableFuture<OrderItem> export(SearchResults searchResults, ExportConfiguration exportConfiguration,
+      String outputName);
+
+  /**
+   * Start and wait the export of the search results for the specified export configuration.
+   * @param searchResults The search results.
+   * @param exportConfiguration The export configuration.
+   * @param outputName The output name of result package.
+   * @param timeUnit The unit of the <code>timeOut</code> value
+   * @param timeOut The time out of export process
+   * @return An OrderItem object that contains information about exported package and link to download it
+   * @see ArchiveClient#exportAndWaitForDownloadLink(SearchResults, ExportConfiguration, String, TimeUnit, long)
+   */
+  CompletableFuture<OrderItem> exportAndWaitForDownloadLink(SearchResults searchResults,
+      ExportConfiguration exportConfiguration, String outputName, TimeUnit timeUnit, long timeOut);
+
+  /**
+   * Upload the transformation zip with the stylesheet into the Archive.
+   * @param exportTransformation The export transformation.
+   * @param zip The input stream of zip with stylesheet.
+   * @return The uploaded transformation
+   * @see ArchiveClient#uploadTransformation(ExportTransformation, InputStream)
+   */
+  CompletableFuture<LinkContainer> uploadTransformation(ExportTransformation exportTransformation, InputStream zip);
+
+}
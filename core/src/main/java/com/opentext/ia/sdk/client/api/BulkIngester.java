@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.opentext.ia.sdk.support.io.RewindableFileInputStream;
+
+
+/**
+ * Ingest many SIPs concurrently.
+ * <p>
+ * SIPs of different Data Submission Sessions (DSSs) are ingested in parallel, by a fixed number of uploaders. SIPs of
+ * the same DSS are ingested one after the other, in the order of their sequence numbers, as InfoArchive requires. The
+ * DSS and sequence number of a SIP are {@linkplain SipPosition read} from its packaging information. Once a SIP fails
+ * to ingest, the remaining SIPs of its DSS are not uploaded, since InfoArchive would reject them anyway.
+ * <p>
+ * SIPs given as a {@linkplain #ingestAll(Collection) collection} are put in sequence number order within their DSS.
+ * SIPs given as a {@linkplain #ingestAll(Stream) stream} are read as the uploaders become available, so that a stream
+ * of any size can be ingested in bounded memory; SIPs of the same DSS must then appear in sequence number order.
+ */
+public class BulkIngester {
+
+  /**
+   * The default number of SIPs that are uploaded concurrently.
+   */
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  private final ArchiveClient archiveClient;
+  private final int concurrency;
+  private final boolean ingestDirect;
+
+  /**
+   * Create an instance that uploads the {@linkplain #DEFAULT_CONCURRENCY default number of SIPs} concurrently using
+   * {@linkplain ArchiveClient#ingest(InputStream)}.
+   * @param archiveClient The client that ingests the SIPs
+   */
+  public BulkIngester(ArchiveClient archiveClient) {
+    this(archiveClient, DEFAULT_CONCURRENCY, false);
+  }
+
+  /**
+   * Create an instance.
+   * @param archiveClient The client that ingests the SIPs
+   * @param concurrency The number of SIPs that are uploaded concurrently
+   * @param ingestDirect Whether to ingest SIPs that are the only SIP in their DSS using
+   *          {@linkplain ArchiveClient#ingestDirect(InputStream)}, which requires synchronous commit to be enabled on
+   *          the holding. Other SIPs are always ingested using {@linkplain ArchiveClient#ingest(InputStream)}
+   */
+  public BulkIngester(ArchiveClient archiveClient, int concurrency, boolean ingestDirect) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Need at least one uploader");
+    }
+    this.archiveClient = Objects.requireNonNull(archiveClient, "Missing archive client");
+    this.concurrency = concurrency;
+    this.ingestDirect = ingestDirect;
+  }
+
+  /**
+   * Ingest the given SIPs and wait until they're all processed.
+   * @param sips The SIPs to ingest
+   * @return The outcome of ingesting each SIP
+   * @throws IOException When interrupted while waiting for the SIPs to be ingested
+   */
+  public BulkIngestionResult ingestAll(Collection<Path> sips) throws IOException {
+    long start = System.nanoTime();
+    List<Sip> read = new ArrayList<>(sips.size());
+    for (Path path : sips) {
+      read.add(Sip.read(path, read.size()));
+    }
+    return ingest(inSequence(read).iterator(), start);
+  }
+
+  private static List<Sip> inSequence(List<Sip> sips) {
+    Map<String, List<Sip>> sipsByDss = sips.stream()
+      .collect(Collectors.groupingBy(Sip::getDssKey, LinkedHashMap::new, Collectors.toList()));
+    Sip[] result = new Sip[sips.size()];
+    sipsByDss.values()
+      .forEach(dssSips -> {
+        List<Sip> sorted = new ArrayList<>(dssSips);
+        sorted.sort(Comparator.comparingInt(Sip::getSequenceNumber));
+        for (int i = 0; i < dssSips.size(); i++) {
+          result[dssSips.get(i).index] = sorted.get(i);
+        }
+      });
+    return Arrays.asList(result);
+  }
+
+  /**
+   * Ingest the given SIPs and wait until they're all processed. The stream is consumed as uploaders become available.
+   * SIPs of the same DSS must appear in the stream in sequence number order.
+   * @param sips The SIPs to ingest
+   * @return The outcome of ingesting each SIP
+   * @throws IOException When interrupted while waiting for the SIPs to be ingested
+   */
+  public BulkIngestionResult ingestAll(Stream<Path> sips) throws IOException {
+    long start = System.nanoTime();
+    AtomicInteger index = new AtomicInteger();
+    return ingest(sips.map(path -> Sip.read(path, index.getAndIncrement()))
+      .iterator(), start);
+  }
+
+  private BulkIngestionResult ingest(Iterator<Sip> sips, long start) throws IOException {
+    Run run = new Run();
+    try {
+      while (sips.hasNext()) {
+        run.submit(sips.next());
+      }
+    } finally {
+      run.finish();
+    }
+    return new BulkIngestionResult(run.getResults(), System.nanoTime() - start);
+  }
+
+
+  private final class Run {
+
+    private final ExecutorService uploaders = Executors.newFixedThreadPool(concurrency);
+    private final Semaphore available = new Semaphore(2 * concurrency);
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final Set<String> failedDsss = new HashSet<>();
+    private final List<SipIngestion> results = new ArrayList<>();
+
+    void submit(Sip sip) throws IOException {
+      try {
+        available.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while submitting SIP", e);
+      }
+      synchronized (lanes) {
+        Lane lane = lanes.computeIfAbsent(sip.getDssKey(), Lane::new);
+        lane.waiting.add(sip);
+        if (!lane.running) {
+          lane.running = true;
+          uploaders.execute(lane);
+        }
+      }
+    }
+
+    void finish() throws IOException {
+      uploaders.shutdown();
+      try {
+        while (!uploaders.awaitTermination(1, TimeUnit.MINUTES)) {
+          // Keep waiting for the uploaders to finish
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        uploaders.shutdownNow();
+        throw new IOException("Interrupted while waiting for SIPs to be ingested", e);
+      }
+    }
+
+    List<SipIngestion> getResults() {
+      synchronized (results) {
+        return new ArrayList<>(results);
+      }
+    }
+
+    private void record(Sip sip, SipIngestion result) {
+      synchronized (results) {
+        while (results.size() <= sip.index) {
+          results.add(null);
+        }
+        results.set(sip.index, result);
+      }
+    }
+
+
+    /**
+     * The SIPs of one DSS, which are uploaded one after the other by a single uploader.
+     */
+    private final class Lane implements Runnable {
+
+      private final String dssKey;
+      private final Queue<Sip> waiting = new ArrayDeque<>();
+      private boolean running;
+
+      Lane(String dssKey) {
+        this.dssKey = dssKey;
+      }
+
+      @Override
+      public void run() {
+        for (Sip sip = next(); sip != null; sip = next()) {
+          try {
+            ingest(sip);
+          } finally {
+            available.release();
+          }
+        }
+      }
+
+      private Sip next() {
+        synchronized (lanes) {
+          Sip result = waiting.poll();
+          if (result == null) {
+            running = false;
+            lanes.remove(dssKey);
+          }
+          return result;
+        }
+      }
+
+      private void ingest(Sip sip) {
+        boolean previousFailed;
+        synchronized (lanes) {
+          previousFailed = failedDsss.contains(dssKey);
+        }
+        SipIngestion result = previousFailed ? skip(sip) : upload(sip);
+        if (!result.isIngested()) {
+          synchronized (lanes) {
+            failedDsss.add(dssKey);
+          }
+        }
+        record(sip, result);
+      }
+
+      private SipIngestion skip(Sip sip) {
+        return sip.toResult(null,
+            new IllegalStateException("Not ingested because a previous SIP in the same DSS failed to ingest"), 0);
+      }
+
+      private SipIngestion upload(Sip sip) {
+        long start = System.nanoTime();
+        try (InputStream stream = new RewindableFileInputStream(sip.path)) {
+          String aipId = ingestDirect && sip.isOnlyInDss() ? archiveClient.ingestDirect(stream)
+              : archiveClient.ingest(stream);
+          return sip.toResult(aipId, null, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+          return sip.toResult(null, e, System.nanoTime() - start);
+        }
+      }
+
+    }
+
+  }
+
+
+  /**
+   * A SIP to ingest, with its position in its DSS, which determines the order of ingestion.
+   */
+  private static final class Sip {
+
+    private final Path path;
+    private final int index;
+    private final SipPosition position;
+
+    Sip(Path path, int index, SipPosition position) {
+      this.path = Objects.requireNonNull(path, "Missing SIP");
+      this.index = index;
+      this.position = position;
+    }
+
+    static Sip read(Path path, int index) {
+      return new Sip(path, index, SipPosition.of(path));
+    }
+
+    String getDssKey() {
+      // SIPs without packaging information aren't ordered relative to any other SIP
+      return position.isKnown() ? position.getDssKey() : "#" + index;
+    }
+
+    int getSequenceNumber() {
+      return position.getSequenceNumber();
+    }
+
+    boolean isOnlyInDss() {
+      return position.isOnlyInDss();
+    }
+
+    SipIngestion toResult(String aipId, Exception failure, long latency) {
+      return new SipIngestion(path, position.getDssId(), position.getSequenceNumber(), aipId, failure, latency);
+    }
+
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+/**
+ * Outcome of {@linkplain BulkIngester ingesting many SIPs}.
+ */
+public class BulkIngestionResult {
+
+  private final List<SipIngestion> sipIngestions;
+  private final long elapsed;
+
+  BulkIngestionResult(List<SipIngestion> sipIngestions, long elapsed) {
+    this.sipIngestions = Collections.unmodifiableList(sipIngestions);
+    this.elapsed = elapsed;
+  }
+
+  /**
+   * Return the outcome of ingesting each SIP, in the order in which the SIPs were given.
+   * @return The outcome of ingesting each SIP
+   */
+  public List<SipIngestion> getSipIngestions() {
+    return sipIngestions;
+  }
+
+  /**
+   * Return the IDs of the Archival Information Packages (AIPs) that were generated from the SIPs that were ingested.
+   * @return The IDs of the generated AIPs
+   */
+  public List<String> getAipIds() {
+    return sipIngestions.stream()
+      .filter(SipIngestion::isIngested)
+      .map(SipIngestion::getAipId)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Return the outcome of ingesting the SIPs that couldn't be ingested.
+   * @return The outcome of the SIPs that failed to ingest
+   */
+  public List<SipIngestion> getFailures() {
+    return sipIngestions.stream()
+      .filter(sipIngestion -> !sipIngestion.isIngested())
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Return whether all SIPs were ingested.
+   * @return Whether all SIPs were ingested
+   */
+  public boolean isSuccessful() {
+    return sipIngestions.stream()
+      .allMatch(SipIngestion::isIngested);
+  }
+
+  /**
+   * Return how long it took to ingest all SIPs.
+   * @return The time it took to ingest all SIPs (ns)
+   */
+  public long getElapsed() {
+    return elapsed;
+  }
+
+  @Override
+  public String toString() {
+    long numFailed = sipIngestions.stream()
+      .filter(sipIngestion -> !sipIngestion.isIngested())
+      .count();
+    return String.format("%d SIPs ingested, %d failed", sipIngestions.size() - numFailed, numFailed);
+  }
+
+}
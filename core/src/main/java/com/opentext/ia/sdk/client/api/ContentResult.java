@@ -4,7 +4,11 @@
 package com.opentext.ia.sdk.client.api;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+
+import com.opentext.ia.sdk.support.io.IOStreams;
 
 
 /**
@@ -20,4 +24,14 @@ public interface ContentResult extends Closeable {
 
   String getName();
 
+  /**
+   * Write the content to a file. The content is streamed to disk, so it's never held in memory as a whole.
+   * @param target The file to write the content to. An existing file is replaced
+   * @return The number of bytes written
+   * @throws IOException When an I/O error occurs
+   */
+  default long writeTo(Path target) throws IOException {
+    return IOStreams.copy(getInputStream(), target);
+  }
+
 }
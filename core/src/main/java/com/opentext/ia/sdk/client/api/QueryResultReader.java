@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.sdk.support.xml.XmlUtil;
+
+
+/**
+ * Read the Archival Information Units (AIUs) in a {@linkplain QueryResult} one at a time, without loading the whole
+ * result into memory.
+ * <p>
+ * The result stream is read using StAX. Each AIU is turned into a detached DOM {@linkplain Element} that holds just
+ * that AIU, which is then mapped into the type the caller wants. Memory use therefore depends on the size of the
+ * largest AIU, rather than on the number of AIUs in the result.
+ * <p>
+ * AIUs are recognized by the local name of their element. When no name is given, every child element of the
+ * document element is an AIU. {@linkplain #close() Close} the reader to close the query result.
+ * @param <T> The type the AIUs are mapped into
+ */
+public class QueryResultReader<T> implements Iterator<T>, Closeable {
+
+  private static final XMLInputFactory INPUT_FACTORY = XmlUtil.newSecureXmlInputFactory();
+  private static final int AIU_DEPTH = 2;
+
+  private final QueryResult queryResult;
+  private final String aiuElementName;
+  private final Function<? super Element, ? extends T> mapper;
+  private final XMLStreamReader reader;
+  private final Document document = XmlUtil.newDocument();
+  private int depth;
+  private boolean atAiu;
+  private boolean ended;
+
+  /**
+   * Read the AIUs in the given query result as elements.
+   * @param queryResult The query result to read
+   * @param aiuElementName The local name of the elements that hold the AIUs, or <code>null</code> for all child
+   *          elements of the document element
+   * @return A reader for the AIUs in the query result
+   * @throws IOException When the query result can't be read
+   */
+  public static QueryResultReader<Element> elements(QueryResult queryResult, String aiuElementName)
+      throws IOException {
+    return new QueryResultReader<>(queryResult, aiuElementName, Function.identity());
+  }
+
+  /**
+   * Read the AIUs in the given query result and map them into the caller's type.
+   * @param queryResult The query result to read
+   * @param aiuElementName The local name of the elements that hold the AIUs, or <code>null</code> for all child
+   *          elements of the document element
+   * @param mapper How to map an AIU element into the caller's type. The element is detached from any document, so it
+   *          may be kept
+   * @throws IOException When the query result can't be read
+   */
+  public QueryResultReader(QueryResult queryResult, String aiuElementName,
+      Function<? super Element, ? extends T> mapper) throws IOException {
+    this.queryResult = Objects.requireNonNull(queryResult, "Missing query result");
+    this.aiuElementName = aiuElementName;
+    this.mapper = Objects.requireNonNull(mapper, "Missing mapper");
+    try {
+      this.reader = INPUT_FACTORY.createXMLStreamReader(queryResult.getResultStream());
+    } catch (XMLStreamException e) {
+      throw new IOException("Failed to read query result", e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (atAiu) {
+      return true;
+    }
+    if (ended) {
+      return false;
+    }
+    try {
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          if (isAiu()) {
+            atAiu = true;
+            return true;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("Failed to parse query result", e);
+    }
+    ended = true;
+    return false;
+  }
+
+  private boolean isAiu() {
+    return aiuElementName == null ? depth == AIU_DEPTH : aiuElementName.equals(reader.getLocalName());
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    atAiu = false;
+    try {
+      return mapper.apply(readAiu());
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("Failed to parse query result", e);
+    }
+  }
+
+  private Element readAiu() throws XMLStreamException {
+    Element result = startElement();
+    Node current = result;
+    for (int level = 1; level > 0;) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          current = current.appendChild(startElement());
+          level++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          current = current.getParentNode();
+          level--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          current.appendChild(document.createTextNode(reader.getText()));
+          break;
+        case XMLStreamConstants.CDATA:
+          current.appendChild(document.createCDATASection(reader.getText()));
+          break;
+        default:
+          // Comments and processing instructions are not part of the AIU's data
+          break;
+      }
+    }
+    depth--;
+    return result;
+  }
+
+  private Element startElement() {
+    Element result = document.createElementNS(emptyToNull(reader.getNamespaceURI()),
+        qualifiedName(reader.getPrefix(), reader.getLocalName()));
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      String prefix = emptyToNull(reader.getNamespacePrefix(i));
+      result.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix == null ? XMLConstants.XMLNS_ATTRIBUTE
+          : qualifiedName(XMLConstants.XMLNS_ATTRIBUTE, prefix), reader.getNamespaceURI(i));
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      result.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)),
+          qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+    }
+    return result;
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+
+  private static String qualifiedName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+  }
+
+  /**
+   * Return the AIUs as a stream that closes the query result when it's closed.
+   * @return The AIUs in the query result
+   */
+  public Stream<T> stream() {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+        false)
+      .onClose(() -> {
+        try {
+          close();
+        } catch (IOException e) {
+          throw new RuntimeIoException(e);
+        }
+      });
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      throw new IOException("Failed to close query result", e);
+    } finally {
+      queryResult.close();
+    }
+  }
+
+}
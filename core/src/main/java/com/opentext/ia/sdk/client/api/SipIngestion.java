@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.api;
+
+import java.nio.file.Path;
+
+
+/**
+ * Outcome of ingesting one SIP as part of a {@linkplain BulkIngester bulk ingestion}: either the ID of the Archival
+ * Information Package (AIP) that was generated from it, or the reason why it couldn't be ingested.
+ */
+public class SipIngestion {
+
+  private final Path sip;
+  private final String dssId;
+  private final int sequenceNumber;
+  private final String aipId;
+  private final Exception failure;
+  private final long latency;
+
+  SipIngestion(Path sip, String dssId, int sequenceNumber, String aipId, Exception failure, long latency) {
+    this.sip = sip;
+    this.dssId = dssId;
+    this.sequenceNumber = sequenceNumber;
+    this.aipId = aipId;
+    this.failure = failure;
+    this.latency = latency;
+  }
+
+  /**
+   * Return the SIP that was ingested.
+   * @return The SIP that was ingested
+   */
+  public Path getSip() {
+    return sip;
+  }
+
+  /**
+   * Return the ID of the Data Submission Session (DSS) that the SIP is part of.
+   * @return The ID of the DSS, or <code>null</code> if the SIP's packaging information couldn't be read
+   */
+  public String getDssId() {
+    return dssId;
+  }
+
+  /**
+   * Return the position of the SIP within its Data Submission Session (DSS).
+   * @return The sequence number of the SIP, or <code>0</code> if the SIP's packaging information couldn't be read
+   */
+  public int getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  /**
+   * Return whether the SIP was ingested.
+   * @return Whether the SIP was ingested
+   */
+  public boolean isIngested() {
+    return failure == null;
+  }
+
+  /**
+   * Return the ID of the AIP that was generated from the SIP.
+   * @return The ID of the AIP, or <code>null</code> if ingestion failed
+   */
+  public String getAipId() {
+    return aipId;
+  }
+
+  /**
+   * Return the reason why the SIP couldn't be ingested.
+   * @return The reason why ingestion failed, or <code>null</code> if the SIP was ingested
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
+  /**
+   * Return how long it took to ingest the SIP, not counting the time it waited for an uploader.
+   * @return The time it took to ingest the SIP (ns)
+   */
+  public long getLatency() {
+    return latency;
+  }
+
+  @Override
+  public String toString() {
+    String result = isIngested() ? "AIP " + aipId : "failure " + failure;
+    return sip + ": " + result;
+  }
+
+}
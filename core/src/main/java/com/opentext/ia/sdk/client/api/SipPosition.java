@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.w3c.dom.Element;
+
+import com.opentext.ia.sdk.support.xml.XmlUtil;
+
+
+/**
+ * The position of a SIP within its Data Submission Session (DSS), as read from its packaging information. InfoArchive
+ * requires the SIPs of a DSS to be ingested one after the other, in the order of their sequence numbers.
+ */
+public final class SipPosition {
+
+  private static final String PACKAGING_INFORMATION_ENTRY = "eas_sip.xml";
+  private static final SipPosition UNKNOWN = new SipPosition(null, null, 0, true);
+
+  private final String holding;
+  private final String dssId;
+  private final int sequenceNumber;
+  private final boolean last;
+
+  private SipPosition(String holding, String dssId, int sequenceNumber, boolean last) {
+    this.holding = holding;
+    this.dssId = dssId;
+    this.sequenceNumber = sequenceNumber;
+    this.last = last;
+  }
+
+  /**
+   * Read the position of a SIP from its packaging information.
+   * @param sip The SIP to read
+   * @return The position of the SIP, which is {@linkplain #isKnown() unknown} if the SIP's packaging information
+   *         couldn't be read
+   */
+  public static SipPosition of(Path sip) {
+    try (ZipFile zip = new ZipFile(sip.toFile())) {
+      ZipEntry entry = zip.getEntry(PACKAGING_INFORMATION_ENTRY);
+      if (entry != null) {
+        try (InputStream packagingInformation = zip.getInputStream(entry)) {
+          return of(XmlUtil.parse(packagingInformation)
+            .getDocumentElement());
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // Not a valid SIP; let ingestion report that
+    }
+    return UNKNOWN;
+  }
+
+  private static SipPosition of(Element sip) {
+    Element dss = XmlUtil.getFirstChildElement(sip, "dss");
+    if (dss == null) {
+      throw new IllegalArgumentException("Missing DSS");
+    }
+    return new SipPosition(textOf(dss, "holding"), textOf(dss, "id"), Integer.parseInt(textOf(sip, "seqno")),
+        Boolean.parseBoolean(textOf(sip, "is_last")));
+  }
+
+  private static String textOf(Element parent, String childName) {
+    Element child = XmlUtil.getFirstChildElement(parent, childName);
+    if (child == null) {
+      throw new IllegalArgumentException("Missing " + childName);
+    }
+    return child.getTextContent()
+      .trim();
+  }
+
+  /**
+   * Return whether the SIP's packaging information could be read.
+   * @return Whether the position of the SIP is known
+   */
+  public boolean isKnown() {
+    return dssId != null;
+  }
+
+  /**
+   * Return a key that identifies the DSS of the SIP across holdings.
+   * @return The key of the DSS, or <code>null</code> if the position of the SIP isn't known
+   */
+  public String getDssKey() {
+    return isKnown() ? holding + '/' + dssId : null;
+  }
+
+  /**
+   * Return the ID of the DSS that the SIP is part of.
+   * @return The ID of the DSS, or <code>null</code> if the position of the SIP isn't known
+   */
+  public String getDssId() {
+    return dssId;
+  }
+
+  /**
+   * Return the sequence number of the SIP within its DSS.
+   * @return The sequence number of the SIP, or <code>0</code> if the position of the SIP isn't known
+   */
+  public int getSequenceNumber() {
+    return sequenceNumber;
+  }
+
+  /**
+   * Return whether the SIP is the last one of its DSS.
+   * @return Whether the SIP is the last one of its DSS, or <code>true</code> if the position of the SIP isn't known
+   */
+  public boolean isLast() {
+    return last;
+  }
+
+  /**
+   * Return whether the SIP is the only one in its DSS, which is required for ingesting it
+   * {@linkplain ArchiveClient#ingestDirect(InputStream) directly}.
+   * @return Whether the SIP is the only one in its DSS
+   */
+  public boolean isOnlyInDss() {
+    return sequenceNumber == 1 && last;
+  }
+
+}
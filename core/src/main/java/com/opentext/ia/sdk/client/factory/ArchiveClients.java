@@ -8,19 +8,26 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.opentext.ia.sdk.client.api.ArchiveClient;
 import com.opentext.ia.sdk.client.api.ArchiveConnection;
+import com.opentext.ia.sdk.client.api.AsyncArchiveClient;
 import com.opentext.ia.sdk.client.api.InfoArchiveLinkRelations;
 import com.opentext.ia.sdk.client.impl.ApplicationIngestionResourcesCache;
+import com.opentext.ia.sdk.client.impl.DispatchingAsyncArchiveClient;
 import com.opentext.ia.sdk.client.impl.InfoArchiveRestClient;
+import com.opentext.ia.sdk.client.impl.NonBlockingAsyncArchiveClient;
 import com.opentext.ia.sdk.dto.*;
 import com.opentext.ia.sdk.server.configuration.ApplicationConfigurer;
+import com.opentext.ia.sdk.support.http.AsyncHttpClient;
+import com.opentext.ia.sdk.support.http.apache.ApacheAsyncHttpClient;
 import com.opentext.ia.sdk.support.http.rest.LinkContainer;
 import com.opentext.ia.sdk.support.http.rest.RestClient;
 
 
 /**
- * Factory methods for creating {@linkplain ArchiveClient}s.
+ * Factory methods for creating {@linkplain ArchiveClient}s and {@linkplain AsyncArchiveClient}s.
  */
 public final class ArchiveClients {
 
@@ -54,6 +61,31 @@ public final class ArchiveClients {
     return new InfoArchiveRestClient(restClient, appResourceCache(applicationName, connection, restClient));
   }
 
+  /**
+   * Returns an {@linkplain AsyncArchiveClient} for an already configured application, which ingests SIPs without
+   * blocking a thread per ingest, so that it can ingest hundreds of SIPs concurrently.
+   * @param applicationName The name of the already configured application to use
+   * @param connection How to communicate with the InfoArchive server
+   * @return An AsyncArchiveClient
+   * @throws IOException When an I/O error occurs
+   * @see NonBlockingAsyncArchiveClient
+   */
+  public static AsyncArchiveClient asyncUsingAlreadyConfiguredApplication(String applicationName,
+      ArchiveConnection connection) throws IOException {
+    RestClient restClient = connection.getRestClient();
+    ApplicationIngestionResourcesCache resourceCache = appResourceCache(applicationName, connection, restClient);
+    return new NonBlockingAsyncArchiveClient(newAsyncHttpClient(connection), restClient, resourceCache,
+        new DispatchingAsyncArchiveClient(new InfoArchiveRestClient(restClient, resourceCache)));
+  }
+
+  private static AsyncHttpClient newAsyncHttpClient(ArchiveConnection connection) {
+    if (StringUtils.isBlank(connection.getProxyHost()) && StringUtils.isBlank(connection.getProxyPort())) {
+      return new ApacheAsyncHttpClient();
+    }
+    return new ApacheAsyncHttpClient(ApacheAsyncHttpClient.DEFAULT_MAX_CONNECTIONS, connection.getProxyHost(),
+        Integer.parseInt(connection.getProxyPort()));
+  }
+
   private static ApplicationIngestionResourcesCache appResourceCache(String applicationName,
       ArchiveConnection connection, RestClient restClient) throws IOException {
     ApplicationIngestionResourcesCache resourceCache = new ApplicationIngestionResourcesCache(applicationName);
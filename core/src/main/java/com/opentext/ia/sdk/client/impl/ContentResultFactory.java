@@ -24,7 +24,7 @@ public class ContentResultFactory extends ResponseBodyFactory<ContentResult> {
 
   @Override
   protected ContentResult doCreate(Response response, InputStream resultStream, Runnable closeResult) {
-    final int length = response.getHeaderValue("Content-Length", -1);
+    final long length = response.getHeaderValue("Content-Length", -1L);
     final String format = response.getHeaderValue(MIME.CONTENT_TYPE, MediaTypes.BINARY);
     final String name = extractFileNameFrom(response.getHeaderValue(MIME.CONTENT_DISPOSITION, ""));
     return new DefaultContentResult(name, length, format, resultStream, closeResult);
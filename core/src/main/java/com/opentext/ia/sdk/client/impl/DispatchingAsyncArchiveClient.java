@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.io.IOUtils;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.api.AsyncArchiveClient;
+import com.opentext.ia.sdk.client.api.ContentResult;
+import com.opentext.ia.sdk.client.api.QueryResult;
+import com.opentext.ia.sdk.dto.OrderItem;
+import com.opentext.ia.sdk.dto.SearchComposition;
+import com.opentext.ia.sdk.dto.SearchResults;
+import com.opentext.ia.sdk.dto.export.ExportConfiguration;
+import com.opentext.ia.sdk.dto.export.ExportTransformation;
+import com.opentext.ia.sdk.dto.query.SearchQuery;
+import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * {@linkplain AsyncArchiveClient} that dispatches operations to an {@linkplain ArchiveClient} on a fixed pool of
+ * threads. The wrapped client blocks a thread for the whole duration of each operation, so at most as many requests are
+ * in flight as there are threads in the pool. Operations beyond that wait in line, without occupying a thread, until a
+ * thread becomes available. Size the pool for the number of concurrent requests that are needed, not for the number
+ * of operations that callers start.
+ * <p>
+ * Cancelling a future, or its operation timing out, completes the future exceptionally and interrupts the thread that
+ * performs the operation. Most operations block in I/O that doesn't respond to interrupts, however, so that thread
+ * typically stays busy until the wrapped client's request finishes or hits its socket timeout. Until then, it counts
+ * against the size of the pool. A result that arrives after its future completed, like a {@linkplain ContentResult}
+ * that holds on to a connection, is closed.
+ * <p>
+ * Since every request in flight takes a thread, this client doesn't scale to hundreds of concurrent ingests;
+ * {@linkplain NonBlockingAsyncArchiveClient} does.
+ */
+public class DispatchingAsyncArchiveClient implements AsyncArchiveClient {
+
+  /**
+   * The default number of threads, and therefore of operations that are performed concurrently.
+   */
+  public static final int DEFAULT_NUM_THREADS = 8;
+
+  private final ArchiveClient archiveClient;
+  private final ExecutorService executor;
+  private final ScheduledExecutorService timer;
+  private final long timeout;
+  private final TimeUnit timeoutUnit;
+
+  /**
+   * Create an instance that performs the {@linkplain #DEFAULT_NUM_THREADS default number of operations} concurrently,
+   * without a timeout.
+   * @param archiveClient The client that performs the operations
+   */
+  public DispatchingAsyncArchiveClient(ArchiveClient archiveClient) {
+    this(archiveClient, DEFAULT_NUM_THREADS, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Create an instance.
+   * @param archiveClient The client that performs the operations
+   * @param numThreads The number of operations that are performed concurrently
+   * @param timeout The maximum time an operation may take, including the time it waits for a thread, or <code>0</code>
+   *          for no timeout
+   * @param timeoutUnit The unit of the timeout
+   */
+  public DispatchingAsyncArchiveClient(ArchiveClient archiveClient, int numThreads, long timeout,
+      TimeUnit timeoutUnit) {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("Need at least one thread");
+    }
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative");
+    }
+    this.archiveClient = Objects.requireNonNull(archiveClient, "Missing archive client");
+    this.executor = Executors.newFixedThreadPool(numThreads);
+    this.timer = timeout > 0 ? Executors.newSingleThreadScheduledExecutor() : null;
+    this.timeout = timeout;
+    this.timeoutUnit = Objects.requireNonNull(timeoutUnit, "Missing timeout unit");
+  }
+
+  @Override
+  public CompletableFuture<String> ingest(InputStream sip) {
+    return dispatch(() -> archiveClient.ingest(sip));
+  }
+
+  private <T> CompletableFuture<T> dispatch(Operation<T> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<?> running = executor.submit(() -> {
+      if (!result.isDone()) {
+        try {
+          T value = operation.perform();
+          if (!result.complete(value) && value instanceof Closeable) {
+            // Nobody will see the result, so release what it holds on to, like a pooled connection
+            IOUtils.closeQuietly((Closeable)value);
+          }
+        } catch (IOException | RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      }
+    });
+    result.whenComplete((value, failure) -> {
+      if (failure != null) {
+        running.cancel(true);
+      }
+    });
+    if (timer != null) {
+      ScheduledFuture<?> timeoutCheck = timer.schedule(() -> result.completeExceptionally(
+          new TimeoutException(String.format("Operation took more than %d %s", timeout, timeoutUnit))),
+          timeout, timeoutUnit);
+      result.whenComplete((value, failure) -> timeoutCheck.cancel(false));
+    }
+    return result;
+  }
+
+  @Override
+  public CompletableFuture<String> ingestDirect(InputStream sip) {
+    return dispatch(() -> archiveClient.ingestDirect(sip));
+  }
+
+  @Override
+  public CompletableFuture<QueryResult> query(SearchQuery query, String aic, String schema, int pageSize) {
+    return dispatch(() -> archiveClient.query(query, aic, schema, pageSize));
+  }
+
+  @Override
+  public CompletableFuture<ContentResult> fetchContent(String contentId) {
+    return dispatch(() -> archiveClient.fetchContent(contentId));
+  }
+
+  @Override
+  public CompletableFuture<ContentResult> fetchOrderContent(OrderItem orderItem) {
+    return dispatch(() -> archiveClient.fetchOrderContent(orderItem));
+  }
+
+  @Override
+  public CompletableFuture<Long> downloadContent(String contentId, Path target) {
+    return dispatch(() -> archiveClient.downloadContent(contentId, target));
+  }
+
+  @Override
+  public CompletableFuture<Long> downloadContent(String contentId, Path target, EncodedHash expectedHash) {
+    return dispatch(() -> archiveClient.downloadContent(contentId, target, expectedHash));
+  }
+
+  @Override
+  public CompletableFuture<Long> downloadOrderContent(OrderItem orderItem, Path target) {
+    return dispatch(() -> archiveClient.downloadOrderContent(orderItem, target));
+  }
+
+  @Override
+  public CompletableFuture<SearchResults> search(SearchQuery searchQuery, SearchComposition searchComposition) {
+    return dispatch(() -> archiveClient.search(searchQuery, searchComposition));
+  }
+
+  @Override
+  public CompletableFuture<OrderItem> export(SearchResults searchResults, ExportConfiguration exportConfiguration,
+      String outputName) {
+    return dispatch(() -> archiveClient.export(searchResults, exportConfiguration, outputName));
+  }
+
+  @Override
+  public CompletableFuture<OrderItem> exportAndWaitForDownloadLink(SearchResults searchResults,
+      ExportConfiguration exportConfiguration, String outputName, TimeUnit timeUnit, long timeOut) {
+    return dispatch(() -> archiveClient.exportAndWaitForDownloadLink(searchResults, exportConfiguration, outputName,
+        timeUnit, timeOut));
+  }
+
+  @Override
+  public CompletableFuture<LinkContainer> uploadTransformation(ExportTransformation exportTransformation,
+      InputStream zip) {
+    return dispatch(() -> archiveClient.uploadTransformation(exportTransformation, zip));
+  }
+
+  /**
+   * Stop accepting operations, and wait for the ones that were started to finish.
+   * @throws IOException When interrupted while waiting for operations to finish
+   */
+  @Override
+  public void close() throws IOException {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Keep waiting for the operations to finish
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+      throw new IOException("Interrupted while waiting for operations to finish", e);
+    } finally {
+      if (timer != null) {
+        timer.shutdownNow();
+      }
+    }
+  }
+
+
+  @FunctionalInterface
+  private interface Operation<T> {
+
+    T perform() throws IOException;
+
+  }
+
+}
@@ -7,10 +7,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.apache.http.client.utils.URIBuilder;
 
@@ -35,7 +37,12 @@ import com.opentext.ia.sdk.support.http.MediaTypes;
 import com.opentext.ia.sdk.support.http.ResponseFactory;
 import com.opentext.ia.sdk.support.http.TextPart;
 import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.http.rest.RangedDownloader;
 import com.opentext.ia.sdk.support.http.rest.RestClient;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
 
 
 /**
@@ -49,17 +56,34 @@ public class InfoArchiveRestClient implements ArchiveClient, InfoArchiveLinkRela
 
   private final RestClient restClient;
   private final ApplicationIngestionResourcesCache resourceCache;
+  private final RangedDownloader downloader;
 
   public InfoArchiveRestClient(RestClient restClient, ApplicationIngestionResourcesCache resourceCache) {
     this.restClient = restClient;
     this.resourceCache = resourceCache;
+    this.downloader = new RangedDownloader(restClient);
   }
 
   @Override
   public String ingest(InputStream sip) throws IOException {
-    ReceptionResponse response = restClient.post(resourceCache.getAipResourceUri(), ReceptionResponse.class,
-        new TextPart("format", "sip_zip"), new BinaryPart("sip", sip, "IASIP.zip"));
-    return restClient.post(response.getUri(LINK_INGEST), IngestionResponse.class).getAipId();
+    return ingestReceived(receive(sip));
+  }
+
+  @Override
+  public ReceptionResponse receive(InputStream sip) throws IOException {
+    Timer timer = Instrumentation.timer(MetricNames.UPLOAD);
+    long start = timer.start();
+    try {
+      return restClient.post(resourceCache.getAipResourceUri(), ReceptionResponse.class,
+          new TextPart("format", "sip_zip"), new BinaryPart("sip", sip, "IASIP.zip"));
+    } finally {
+      timer.stop(start);
+    }
+  }
+
+  @Override
+  public String ingestReceived(ReceptionResponse reception) throws IOException {
+    return restClient.post(reception.getUri(LINK_INGEST), IngestionResponse.class).getAipId();
   }
 
   @Override
@@ -67,9 +91,14 @@ public class InfoArchiveRestClient implements ArchiveClient, InfoArchiveLinkRela
     String ingestDirectUri = resourceCache.getAipIngestDirectResourceUri();
     if (ingestDirectUri == null) {
       return ingest(sip);
-    } else {
+    }
+    Timer timer = Instrumentation.timer(MetricNames.UPLOAD);
+    long start = timer.start();
+    try {
       return restClient.post(ingestDirectUri, IngestionResponse.class, new TextPart("format", "sip_zip"),
           new BinaryPart("sip", sip, "IASIP.zip")).getAipId();
+    } finally {
+      timer.stop(start);
     }
   }
 
@@ -85,12 +114,16 @@ public class InfoArchiveRestClient implements ArchiveClient, InfoArchiveLinkRela
 
   @Override
   public ContentResult fetchContent(String contentId) throws IOException {
+    return restClient.get(contentUri(contentId), contentResultFactory);
+  }
+
+  private String contentUri(String contentId) {
     try {
       String contentResource = resourceCache.getCiResourceUri();
       URIBuilder builder = new URIBuilder(contentResource);
       builder.setParameter("cid", contentId);
       URI uri = builder.build();
-      return restClient.get(uri.toString(), contentResultFactory);
+      return uri.toString();
     } catch (URISyntaxException e) {
       throw new IllegalStateException("Failed to create content resource uri.", e);
     }
@@ -98,12 +131,25 @@ public class InfoArchiveRestClient implements ArchiveClient, InfoArchiveLinkRela
 
   @Override
   public ContentResult fetchOrderContent(OrderItem orderItem) throws IOException {
+    return restClient.get(orderContentUri(orderItem), contentResultFactory);
+  }
+
+  private String orderContentUri(OrderItem orderItem) {
     String downloadUri = Objects.requireNonNull(
         Objects.requireNonNull(orderItem, "Missing order item").getUri(LINK_DOWNLOAD), "Missing download URI");
-    String fetchUri = restClient.uri(downloadUri)
+    return restClient.uri(downloadUri)
         .addParameter("downloadToken", "")
         .build();
-    return restClient.get(fetchUri, contentResultFactory);
+  }
+
+  @Override
+  public long downloadContent(String contentId, Path target, EncodedHash expectedHash) throws IOException {
+    return downloader.download(contentUri(contentId), target, expectedHash);
+  }
+
+  @Override
+  public long downloadOrderContent(OrderItem orderItem, Path target) throws IOException {
+    return downloader.download(orderContentUri(orderItem), target, null);
   }
 
   @Override
@@ -117,11 +163,24 @@ public class InfoArchiveRestClient implements ArchiveClient, InfoArchiveLinkRela
       for (SearchResult searchResult: onePageSearchResults.getResults()) {
         result.addResult(searchResult);
       }
-      searchResultBaseUri = onePageSearchResults.getUri("next");
+      searchResultBaseUri = onePageSearchResults.getUri(LINK_NEXT);
     }
     return result;
   }
 
+  /**
+   * Get the search results one page at a time. While the caller processes a page, the next page is fetched in the
+   * background.
+   */
+  @Override
+  public Stream<SearchResults> searchPages(SearchQuery searchQuery, SearchComposition searchComposition)
+      throws IOException {
+    SearchResults first = restClient.post(searchComposition.getSelfUri(), SearchResults.class,
+        getXmlStringFromSearchQuery(searchQuery), MediaTypes.XML);
+    return new PrefetchingPages<>(first, uri -> restClient.post(uri, SearchResults.class, "", MediaTypes.XML))
+      .stream();
+  }
+
   private String getXmlStringFromSearchQuery(SearchQuery searchQuery) {
     SearchDataBuilder searchDataBuilder = SearchDataBuilder.builder();
     for (Item item: searchQuery.getItems()) {
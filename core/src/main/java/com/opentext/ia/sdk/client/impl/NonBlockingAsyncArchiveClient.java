@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.opentext.ia.sdk.client.api.AsyncArchiveClient;
+import com.opentext.ia.sdk.client.api.ContentResult;
+import com.opentext.ia.sdk.client.api.InfoArchiveLinkRelations;
+import com.opentext.ia.sdk.client.api.QueryResult;
+import com.opentext.ia.sdk.dto.IngestionResponse;
+import com.opentext.ia.sdk.dto.OrderItem;
+import com.opentext.ia.sdk.dto.ReceptionResponse;
+import com.opentext.ia.sdk.dto.SearchComposition;
+import com.opentext.ia.sdk.dto.SearchResults;
+import com.opentext.ia.sdk.dto.export.ExportConfiguration;
+import com.opentext.ia.sdk.dto.export.ExportTransformation;
+import com.opentext.ia.sdk.dto.query.SearchQuery;
+import com.opentext.ia.sdk.support.http.AsyncHttpClient;
+import com.opentext.ia.sdk.support.http.BinaryPart;
+import com.opentext.ia.sdk.support.http.TextPart;
+import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.http.rest.RestClient;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
+
+
+/**
+ * {@linkplain AsyncArchiveClient} that ingests SIPs using an {@linkplain AsyncHttpClient}, so that a few I/O threads
+ * can drive hundreds of concurrent ingests. No thread waits for an ingest while it's in flight, so the number of
+ * concurrent ingests is bounded by the connection pool of the HTTP client rather than by a number of threads.
+ * Cancelling an ingest aborts its HTTP request.
+ * <p>
+ * SIPs are read on the I/O threads of the HTTP client, so they must be readable without blocking for long, like files.
+ * <p>
+ * Other operations are passed on to another client, e.g. a {@linkplain DispatchingAsyncArchiveClient}.
+ * {@linkplain #close() Closing} this client closes both the HTTP client, which aborts any ingests still in flight, and
+ * the other client.
+ */
+public class NonBlockingAsyncArchiveClient implements AsyncArchiveClient, InfoArchiveLinkRelations {
+
+  private final AsyncHttpClient httpClient;
+  private final RestClient restClient;
+  private final ApplicationIngestionResourcesCache resourceCache;
+  private final AsyncArchiveClient otherOperations;
+
+  /**
+   * Create an instance.
+   * @param httpClient The client that sends the ingestion requests
+   * @param restClient The client whose headers, including authorization, are sent with the ingestion requests
+   * @param resourceCache The URIs of the application's ingestion resources
+   * @param otherOperations The client that performs all operations other than ingestion
+   */
+  public NonBlockingAsyncArchiveClient(AsyncHttpClient httpClient, RestClient restClient,
+      ApplicationIngestionResourcesCache resourceCache, AsyncArchiveClient otherOperations) {
+    this.httpClient = Objects.requireNonNull(httpClient, "Missing HTTP client");
+    this.restClient = Objects.requireNonNull(restClient, "Missing REST client");
+    this.resourceCache = Objects.requireNonNull(resourceCache, "Missing resource cache");
+    this.otherOperations = Objects.requireNonNull(otherOperations, "Missing client for other operations");
+  }
+
+  @Override
+  public CompletableFuture<String> ingest(InputStream sip) {
+    return then(upload(resourceCache.getAipResourceUri(), ReceptionResponse.class, sip),
+        reception -> then(httpClient.post(reception.getUri(LINK_INGEST), restClient.getHeaders(),
+            IngestionResponse.class), ingestion -> CompletableFuture.completedFuture(ingestion.getAipId())));
+  }
+
+  private <T> CompletableFuture<T> upload(String uri, Class<T> type, InputStream sip) {
+    Timer timer = Instrumentation.timer(MetricNames.UPLOAD);
+    long start = timer.start();
+    CompletableFuture<T> result = httpClient.post(uri, restClient.getHeaders(), type, new TextPart("format", "sip_zip"),
+        new BinaryPart("sip", sip, "IASIP.zip"));
+    result.whenComplete((value, failure) -> timer.stop(start));
+    return result;
+  }
+
+  /**
+   * Continue with the next step once a step completes, such that cancelling the result cancels whichever step is in
+   * progress.
+   */
+  private static <S, T> CompletableFuture<T> then(CompletableFuture<S> step,
+      Function<S, CompletableFuture<T>> nextStep) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    cancelWith(result, step);
+    step.whenComplete((value, failure) -> {
+      if (failure != null) {
+        result.completeExceptionally(failure);
+        return;
+      }
+      if (result.isDone()) {
+        return;
+      }
+      CompletableFuture<T> next;
+      try {
+        next = nextStep.apply(value);
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+        return;
+      }
+      cancelWith(result, next);
+      next.whenComplete((nextValue, nextFailure) -> {
+        if (nextFailure == null) {
+          result.complete(nextValue);
+        } else {
+          result.completeExceptionally(nextFailure);
+        }
+      });
+    });
+    return result;
+  }
+
+  private static void cancelWith(CompletableFuture<?> result, CompletableFuture<?> step) {
+    result.whenComplete((value, failure) -> {
+      if (failure != null) {
+        step.cancel(false);
+      }
+    });
+  }
+
+  @Override
+  public CompletableFuture<String> ingestDirect(InputStream sip) {
+    String ingestDirectUri = resourceCache.getAipIngestDirectResourceUri();
+    if (ingestDirectUri == null) {
+      return ingest(sip);
+    }
+    return then(upload(ingestDirectUri, IngestionResponse.class, sip),
+        ingestion -> CompletableFuture.completedFuture(ingestion.getAipId()));
+  }
+
+  @Override
+  public CompletableFuture<QueryResult> query(SearchQuery query, String aic, String schema, int pageSize) {
+    return otherOperations.query(query, aic, schema, pageSize);
+  }
+
+  @Override
+  public CompletableFuture<ContentResult> fetchContent(String contentId) {
+    return otherOperations.fetchContent(contentId);
+  }
+
+  @Override
+  public CompletableFuture<ContentResult> fetchOrderContent(OrderItem orderItem) {
+    return otherOperations.fetchOrderContent(orderItem);
+  }
+
+  @Override
+  public CompletableFuture<Long> downloadContent(String contentId, Path target) {
+    return otherOperations.downloadContent(contentId, target);
+  }
+
+  @Override
+  public CompletableFuture<Long> downloadContent(String contentId, Path target, EncodedHash expectedHash) {
+    return otherOperations.downloadContent(contentId, target, expectedHash);
+  }
+
+  @Override
+  public CompletableFuture<Long> downloadOrderContent(OrderItem orderItem, Path target) {
+    return otherOperations.downloadOrderContent(orderItem, target);
+  }
+
+  @Override
+  public CompletableFuture<SearchResults> search(SearchQuery searchQuery, SearchComposition searchComposition) {
+    return otherOperations.search(searchQuery, searchComposition);
+  }
+
+  @Override
+  public CompletableFuture<OrderItem> export(SearchResults searchResults, ExportConfiguration exportConfiguration,
+      String outputName) {
+    return otherOperations.export(searchResults, exportConfiguration, outputName);
+  }
+
+  @Override
+  public CompletableFuture<OrderItem> exportAndWaitForDownloadLink(SearchResults searchResults,
+      ExportConfiguration exportConfiguration, String outputName, TimeUnit timeUnit, long timeOut) {
+    return otherOperations.exportAndWaitForDownloadLink(searchResults, exportConfiguration, outputName, timeUnit,
+        timeOut);
+  }
+
+  @Override
+  public CompletableFuture<LinkContainer> uploadTransformation(ExportTransformation exportTransformation,
+      InputStream zip) {
+    return otherOperations.uploadTransformation(exportTransformation, zip);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      otherOperations.close();
+    } finally {
+      httpClient.close();
+    }
+  }
+
+}
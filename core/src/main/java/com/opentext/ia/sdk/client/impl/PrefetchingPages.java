@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.http.rest.StandardLinkRelations;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Iterate over the pages of a paginated resource, fetching the next page in the background while the caller processes
+ * the current one. At most one page is fetched ahead, so a caller that stops early doesn't cause the remaining pages
+ * to be fetched. {@linkplain #close() Close} the iterator to abandon the page that's being fetched.
+ * @param <T> The type of pages
+ */
+class PrefetchingPages<T extends LinkContainer> implements Iterator<T>, Closeable {
+
+  private static final ExecutorService PREFETCHER = Executors.newCachedThreadPool(task -> {
+    Thread result = new Thread(task, "page-prefetcher");
+    result.setDaemon(true);
+    return result;
+  });
+
+  private final PageFetcher<T> fetcher;
+  private Future<T> next;
+  private T prefetched;
+
+  PrefetchingPages(T first, PageFetcher<T> fetcher) {
+    this.fetcher = fetcher;
+    this.prefetched = first;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return prefetched != null || next != null;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T result = prefetched == null ? await() : prefetched;
+    prefetched = null;
+    String nextUri = result.getUri(StandardLinkRelations.LINK_NEXT);
+    next = nextUri == null ? null : PREFETCHER.submit(() -> fetcher.fetch(nextUri));
+    return result;
+  }
+
+  private T await() {
+    Future<T> page = next;
+    next = null;
+    try {
+      return page.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      page.cancel(true);
+      throw new RuntimeIoException(new IOException("Interrupted while fetching page", e));
+    } catch (ExecutionException e) {
+      throw new RuntimeIoException(toIoException(e));
+    }
+  }
+
+  private static IOException toIoException(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException)cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException)cause;
+    }
+    return new IOException("Failed to fetch page", cause);
+  }
+
+  /**
+   * Return the pages as a stream that abandons the page that's being fetched when it's closed.
+   * @return The pages
+   */
+  Stream<T> stream() {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+        false)
+      .onClose(this::close);
+  }
+
+  @Override
+  public void close() {
+    prefetched = null;
+    if (next != null) {
+      next.cancel(true);
+      next = null;
+    }
+  }
+
+
+  @FunctionalInterface
+  interface PageFetcher<T> {
+
+    T fetch(String uri) throws IOException;
+
+  }
+
+}
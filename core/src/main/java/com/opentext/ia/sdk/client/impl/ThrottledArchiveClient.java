@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.api.ContentResult;
+import com.opentext.ia.sdk.client.api.QueryResult;
+import com.opentext.ia.sdk.dto.OrderItem;
+import com.opentext.ia.sdk.dto.ReceptionResponse;
+import com.opentext.ia.sdk.dto.SearchComposition;
+import com.opentext.ia.sdk.dto.SearchResults;
+import com.opentext.ia.sdk.dto.export.ExportConfiguration;
+import com.opentext.ia.sdk.dto.export.ExportTransformation;
+import com.opentext.ia.sdk.dto.query.SearchQuery;
+import com.opentext.ia.sdk.support.datetime.Clock;
+import com.opentext.ia.sdk.support.datetime.DefaultClock;
+import com.opentext.ia.sdk.support.http.AdaptiveConcurrencyLimit;
+import com.opentext.ia.sdk.support.http.HttpException;
+import com.opentext.ia.sdk.support.http.rest.LinkContainer;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.RewindableFileInputStream;
+
+
+/**
+ * {@linkplain ArchiveClient} that limits the number of concurrent ingests to what the server can handle, by wrapping
+ * another client.
+ * <p>
+ * Ingests wait for an {@linkplain AdaptiveConcurrencyLimit adaptive concurrency limit}, which grows while the server
+ * keeps up and shrinks when it doesn't. The server is considered overloaded when it responds with
+ * <code>503 Service Unavailable</code> or <code>429 Too Many Requests</code>, or when it can't be connected to. An
+ * overloaded request is retried after a random delay of up to an exponentially growing maximum ("full jitter"), so that
+ * clients that were rejected together don't retry together. Other failures, like read timeouts, aren't retried, since
+ * the server may have processed the request already and ingestion isn't idempotent.
+ * <p>
+ * An {@linkplain #ingest(InputStream) ingest} consists of a {@linkplain #receive(InputStream) receive} and an
+ * {@linkplain #ingestReceived(ReceptionResponse) ingest of the received SIP}, which are throttled and retried
+ * separately, so that an overloaded ingest doesn't upload the SIP again. Only SIPs in a
+ * {@linkplain RewindableFileInputStream} can be uploaded again, since other streams would have to be buffered in
+ * memory; others fail on the first overload. Since the transport may close the stream it sends, e.g. a multipart body,
+ * each attempt gets a view on the SIP that can't close it; closing the SIP remains up to the caller.
+ * <p>
+ * Other operations are passed on to the wrapped client unchanged.
+ */
+public class ThrottledArchiveClient implements ArchiveClient {
+
+  /**
+   * The default number of times an overloaded ingest is retried.
+   */
+  public static final int DEFAULT_MAX_RETRIES = 5;
+
+  private static final int SERVICE_UNAVAILABLE = 503;
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final long BASE_BACKOFF_MS = 250;
+  private static final long MAX_BACKOFF_MS = 30_000;
+
+  private final ArchiveClient archiveClient;
+  private final AdaptiveConcurrencyLimit limit;
+  private final int maxRetries;
+  private final Clock clock;
+
+  /**
+   * Create an instance with a {@linkplain AdaptiveConcurrencyLimit#AdaptiveConcurrencyLimit() default limit} that
+   * retries overloaded ingests the {@linkplain #DEFAULT_MAX_RETRIES default number of times}.
+   * @param archiveClient The client to throttle
+   */
+  public ThrottledArchiveClient(ArchiveClient archiveClient) {
+    this(archiveClient, new AdaptiveConcurrencyLimit(), DEFAULT_MAX_RETRIES, new DefaultClock());
+  }
+
+  /**
+   * Create an instance.
+   * @param archiveClient The client to throttle
+   * @param limit The limit on the number of concurrent ingests
+   * @param maxRetries The number of times an overloaded ingest is retried
+   * @param clock The clock to wait before retrying with
+   */
+  public ThrottledArchiveClient(ArchiveClient archiveClient, AdaptiveConcurrencyLimit limit, int maxRetries,
+      Clock clock) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("Number of retries must not be negative");
+    }
+    this.archiveClient = Objects.requireNonNull(archiveClient, "Missing archive client");
+    this.limit = Objects.requireNonNull(limit, "Missing limit");
+    this.maxRetries = maxRetries;
+    this.clock = Objects.requireNonNull(clock, "Missing clock");
+  }
+
+  public AdaptiveConcurrencyLimit getLimit() {
+    return limit;
+  }
+
+  @Override
+  public String ingest(InputStream sip) throws IOException {
+    return ingestReceived(receive(sip));
+  }
+
+  @Override
+  public ReceptionResponse receive(InputStream sip) throws IOException {
+    return upload(sip, archiveClient::receive);
+  }
+
+  @Override
+  public String ingestReceived(ReceptionResponse reception) throws IOException {
+    return throttle(() -> archiveClient.ingestReceived(reception), true);
+  }
+
+  @Override
+  public String ingestDirect(InputStream sip) throws IOException {
+    return upload(sip, archiveClient::ingestDirect);
+  }
+
+  private <T> T upload(InputStream sip, Upload<T> upload) throws IOException {
+    if (!(sip instanceof RewindableFileInputStream)) {
+      return throttle(() -> upload.send(sip), false);
+    }
+    sip.mark(0);
+    return throttle(() -> {
+      sip.reset();
+      return upload.send(new CloseShieldInputStream(sip));
+    }, true);
+  }
+
+  private <T> T throttle(Request<T> request, boolean repeatable) throws IOException {
+    for (int retry = 0;; retry++) {
+      long ticket = acquire();
+      long start = System.nanoTime();
+      try {
+        T result = request.send();
+        limit.onSuccess(ticket, System.nanoTime() - start);
+        return result;
+      } catch (IOException e) {
+        if (!isOverloaded(e)) {
+          limit.onFailure(ticket);
+          throw e;
+        }
+        limit.onOverload(ticket);
+        if (!repeatable || retry >= maxRetries) {
+          throw e;
+        }
+      } catch (RuntimeException e) {
+        limit.onFailure(ticket);
+        throw e;
+      }
+      backOff(retry);
+    }
+  }
+
+  private long acquire() throws IOException {
+    try {
+      return limit.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to ingest", e);
+    }
+  }
+
+  private static boolean isOverloaded(IOException exception) {
+    for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+      if (cause instanceof HttpException) {
+        int statusCode = ((HttpException)cause).getStatusCode();
+        if (statusCode == SERVICE_UNAVAILABLE || statusCode == TOO_MANY_REQUESTS) {
+          return true;
+        }
+      } else if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+        // The request never reached the server, so it's safe to send again
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void backOff(int retry) throws IOException {
+    long maxBackoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(retry, 20));
+    clock.sleep(ThreadLocalRandom.current()
+      .nextLong(maxBackoff + 1), TimeUnit.MILLISECONDS);
+    if (Thread.currentThread()
+      .isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while waiting to retry ingest");
+    }
+  }
+
+  @Override
+  public QueryResult query(SearchQuery query, String aic, String schema, int pageSize) throws IOException {
+    return archiveClient.query(query, aic, schema, pageSize);
+  }
+
+  @Override
+  public ContentResult fetchContent(String contentId) throws IOException {
+    return archiveClient.fetchContent(contentId);
+  }
+
+  @Override
+  public ContentResult fetchOrderContent(OrderItem orderItem) throws IOException {
+    return archiveClient.fetchOrderContent(orderItem);
+  }
+
+  @Override
+  public long downloadContent(String contentId, Path target, EncodedHash expectedHash) throws IOException {
+    return archiveClient.downloadContent(contentId, target, expectedHash);
+  }
+
+  @Override
+  public long downloadOrderContent(OrderItem orderItem, Path target) throws IOException {
+    return archiveClient.downloadOrderContent(orderItem, target);
+  }
+
+  @Override
+  public SearchResults search(SearchQuery searchQuery, SearchComposition searchComposition) throws IOException {
+    return archiveClient.search(searchQuery, searchComposition);
+  }
+
+  @Override
+  public Stream<SearchResults> searchPages(SearchQuery searchQuery, SearchComposition searchComposition)
+      throws IOException {
+    return archiveClient.searchPages(searchQuery, searchComposition);
+  }
+
+  @Override
+  public OrderItem export(SearchResults searchResults, ExportConfiguration exportConfiguration, String outputName)
+      throws IOException {
+    return archiveClient.export(searchResults, exportConfiguration, outputName);
+  }
+
+  @Override
+  public OrderItem exportAndWaitForDownloadLink(SearchResults searchResults, ExportConfiguration exportConfiguration,
+      String outputName, TimeUnit timeUnit, long timeOut) throws IOException {
+    return archiveClient.exportAndWaitForDownloadLink(searchResults, exportConfiguration, outputName, timeUnit,
+        timeOut);
+  }
+
+  @Override
+  public LinkContainer uploadTransformation(ExportTransformation exportTransformation, InputStream zip)
+      throws IOException {
+    return archiveClient.uploadTransformation(exportTransformation, zip);
+  }
+
+
+  @FunctionalInterface
+  private interface Request<T> {
+
+    T send() throws IOException;
+
+  }
+
+
+  @FunctionalInterface
+  private interface Upload<T> {
+
+    T send(InputStream sip) throws IOException;
+
+  }
+
+}
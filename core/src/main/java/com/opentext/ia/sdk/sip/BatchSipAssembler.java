@@ -85,7 +85,7 @@ public class BatchSipAssembler<D> {
   }
 
   private boolean shouldStartNewSip(D component) {
-    return current == null || segmentationStrategy.shouldStartNewSip(component, assembler.getMetrics());
+    return current == null || segmentationStrategy.shouldStartNewSip(component, assembler.getLiveMetrics());
   }
 
   private void startSip() throws IOException {
@@ -5,9 +5,14 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
+import com.opentext.ia.sdk.support.io.DataBuffer;
 import com.opentext.ia.sdk.support.io.HashAssembler;
 import com.opentext.ia.sdk.support.io.NoHashAssembler;
+import com.opentext.ia.sdk.support.io.SpillingBuffer;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
 
 /**
@@ -33,6 +38,23 @@ public interface ContentAssembler<D> {
    */
   Map<String, ContentInfo> addContentsOf(D domainObject) throws IOException;
 
+  /**
+   * Make the content that was added to the current SIP available for deduplication in later SIPs. Call this once it's
+   * certain that the SIP will be ingested, since later SIPs may refer to its content.
+   * @throws IOException If an exception occurs while remembering the content
+   */
+  default void commit() throws IOException {
+    // Nothing is remembered across SIPs by default
+  }
+
+  /**
+   * Forget the content that was added to the current SIP, because the SIP won't be ingested. Content that was
+   * neither committed nor discarded is discarded when the next SIP {@linkplain #begin(ZipAssembler, Counters) begins}.
+   */
+  default void discard() {
+    // Nothing is remembered across SIPs by default
+  }
+
   /**
    * Do not deduplicate the digital objects but perform the specified hash calculations.
    * @param contentsExtraction Extraction of content from domain objects added to the SIP
@@ -55,6 +77,36 @@ public interface ContentAssembler<D> {
     return new ContentAssemblerDefault<>(contentsExtraction, new NoHashAssembler());
   }
 
+  /**
+   * Do not deduplicate the digital objects, but read, hash, and compress them concurrently. The digital objects are
+   * added to the SIP in the order in which they are extracted.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssemblerSupplier Supplier of assemblers that build up an encoded hash for the extracted content
+   * @param executor The executor that prepares the digital objects
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> noDedupInParallel(DigitalObjectsExtraction<D> contentsExtraction,
+      Supplier<? extends HashAssembler> contentHashAssemblerSupplier, Executor executor) {
+    return noDedupInParallel(contentsExtraction, contentHashAssemblerSupplier, executor,
+        2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Do not deduplicate the digital objects, but read, hash, and compress them concurrently. The digital objects are
+   * added to the SIP in the order in which they are extracted.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssemblerSupplier Supplier of assemblers that build up an encoded hash for the extracted content
+   * @param executor The executor that prepares the digital objects
+   * @param maxInFlight The maximum number of digital objects that are prepared but not yet added to the SIP
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> noDedupInParallel(DigitalObjectsExtraction<D> contentsExtraction,
+      Supplier<? extends HashAssembler> contentHashAssemblerSupplier, Executor executor, int maxInFlight) {
+    return new ContentAssemblerInParallel<>(contentsExtraction, contentHashAssemblerSupplier, executor, maxInFlight);
+  }
+
   /**
    * Ignore all digital objects, the SIP will contain structured data only.
    * @param <D> The type of domain objects to assemble the SIP from
@@ -101,6 +153,21 @@ public interface ContentAssembler<D> {
         estimatedMaxDigitalObjects);
   }
 
+  /**
+   * Deduplicate digital objects based on the reference information and perform the specified hash calculations,
+   * keeping track of the digital objects in a SIP using the given index.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param contentInfoIndex The index that holds the content information of the digital objects in a SIP
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> withDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, ContentInfoIndex contentInfoIndex) {
+    return new ContentAssemblerWithDedupOnRi<>(contentsExtraction, contentHashAssembler, false, false,
+        contentInfoIndex);
+  }
+
   /**
    * Deduplicate digital objects based on the reference information and perform the specified hash calculations and
    * optionally validate that the same reference information is always used to refer to the same content.
@@ -181,4 +248,39 @@ public interface ContentAssembler<D> {
       HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects) {
     return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects);
   }
+
+  /**
+   * Deduplicate digital objects based on their hash value, spooling their content to the given buffers while it's
+   * being hashed.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param estimatedMaxDigitalObjects a hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param spoolSupplier Supplier of buffers to spool the content of digital objects to while it's being hashed
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> withDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects,
+      Supplier<? extends DataBuffer> spoolSupplier) {
+    return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects,
+        spoolSupplier);
+  }
+
+  /**
+   * Deduplicate digital objects based on their hash value, both within a SIP and across the SIPs that share the given
+   * content index.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param contentIndex Index of the content added to previous SIPs
+   * @param hitPolicy What to do with content that is found in the index
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> withDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, ContentIndex contentIndex, ContentIndexHitPolicy hitPolicy) {
+    return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, 64000, SpillingBuffer::new,
+        Objects.requireNonNull(contentIndex, "Missing content index"), hitPolicy);
+  }
+
 }
@@ -5,6 +5,8 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -16,6 +18,8 @@ import com.opentext.ia.sdk.support.io.EncodedHash;
 import com.opentext.ia.sdk.support.io.HashAssembler;
 import com.opentext.ia.sdk.support.io.IOStreams;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
 
 
 /**
@@ -27,14 +31,14 @@ public class ContentAssemblerDefault<D> implements ContentAssembler<D> {
   private static final int BUFFER_SIZE = 4096;
 
   private final DigitalObjectsExtraction<D> contentsExtraction;
-  private final HashAssembler contentHashAssembler;
+  private final TimedHashAssembler contentHashAssembler;
 
   private ZipAssembler zip;
   private Counters metrics;
 
   public ContentAssemblerDefault(DigitalObjectsExtraction<D> contentsExtraction, HashAssembler contentHashAssembler) {
     this.contentsExtraction = contentsExtraction;
-    this.contentHashAssembler = contentHashAssembler;
+    this.contentHashAssembler = new TimedHashAssembler(contentHashAssembler);
   }
 
   @Override
@@ -66,6 +70,7 @@ public class ContentAssemblerDefault<D> implements ContentAssembler<D> {
     while (digitalObjects.hasNext()) {
       DigitalObject digitalObject = digitalObjects.next();
       incMetric(SipMetrics.NUM_DIGITAL_OBJECTS, 1);
+      Instrumentation.counter(MetricNames.CONTENT_OBJECTS).inc();
       String entry = digitalObject.getReferenceInformation();
       result.put(entry, addContent(entry, digitalObject));
     }
@@ -83,18 +88,65 @@ public class ContentAssemblerDefault<D> implements ContentAssembler<D> {
     if (zip == null) {
       throw new IllegalStateException("Missing zip; did youc call begin()?");
     }
-    try (InputStream stream = digitalObject.get()) {
-      Collection<EncodedHash> hashes =
-          zip.addEntry(digitalObject.getReferenceInformation(), stream, contentHashAssembler);
-      incMetric(SipMetrics.SIZE_DIGITAL_OBJECTS, contentHashAssembler.numBytesHashed());
-      return new ContentInfo(ri, hashes);
+    long start = System.nanoTime();
+    long readTime = 0;
+    Collection<EncodedHash> hashes;
+    Path path = digitalObject.getPath();
+    if (path == null) {
+      try (TimedInputStream stream = TimedInputStream.open(digitalObject)) {
+        hashes = zip.addEntry(digitalObject.getReferenceInformation(), digitalObject.getMediaType(), stream,
+            contentHashAssembler);
+        readTime = stream.getNanos();
+      }
+    } else {
+      long fileReadStart = zip.getFileReadNanos();
+      hashes = zip.addEntry(digitalObject.getReferenceInformation(), digitalObject.getMediaType(), path,
+          contentHashAssembler);
+      readTime = zip.getFileReadNanos() - fileReadStart;
     }
+    incMetric(SipMetrics.SIZE_DIGITAL_OBJECTS, contentHashAssembler.numBytesHashed());
+    addContentTimes(start, readTime);
+    return new ContentInfo(ri, hashes);
+  }
+
+  /**
+   * Add the time spent adding a digital object to the metrics. Whatever time wasn't spent reading or hashing the
+   * content is attributed to writing it to the ZIP.
+   * @param start When adding the digital object started, as returned by {@linkplain System#nanoTime()}
+   * @param readTime The time spent reading the content of the digital object, in nanoseconds
+   */
+  protected void addContentTimes(long start, long readTime) {
+    addContentTimes(start, readTime, contentHashAssembler.getNanos());
+  }
+
+  /**
+   * Add the time spent adding a digital object to the metrics. Whatever time wasn't spent reading or hashing the
+   * content is attributed to writing it to the ZIP.
+   * @param start When adding the digital object started, as returned by {@linkplain System#nanoTime()}
+   * @param readTime The time spent reading the content of the digital object, in nanoseconds
+   * @param hashTime The time spent hashing the content of the digital object, in nanoseconds
+   */
+  protected void addContentTimes(long start, long readTime, long hashTime) {
+    incMetric(SipMetrics.TIME_CONTENT_READ, readTime);
+    incMetric(SipMetrics.TIME_CONTENT_HASH, hashTime);
+    incMetric(SipMetrics.TIME_ZIP_WRITE, Math.max(0, System.nanoTime() - start - readTime - hashTime));
   }
 
   protected Collection<EncodedHash> contentHashFor(InputStream stream) throws IOException {
+    return contentHashFor(stream, NullOutputStream.NULL_OUTPUT_STREAM);
+  }
+
+  /**
+   * Compute the hashes of content while copying it.
+   * @param stream The content to hash
+   * @param copy The stream to copy the content to
+   * @return The hashes of the content
+   * @throws IOException When an I/O error occurs
+   */
+  protected Collection<EncodedHash> contentHashFor(InputStream stream, OutputStream copy) throws IOException {
     final HashAssembler hashAssembler = getContentHashAssembler();
     hashAssembler.initialize();
-    IOStreams.copy(stream, new NullOutputStream(), BUFFER_SIZE, hashAssembler);
+    IOStreams.copy(stream, copy, BUFFER_SIZE, hashAssembler);
     return hashAssembler.get();
   }
 
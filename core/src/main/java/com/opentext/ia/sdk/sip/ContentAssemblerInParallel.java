@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.io.CompressionPolicy;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+import com.opentext.ia.sdk.support.io.PreparedZipEntry;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+
+
+/**
+ * A ContentAssembler implementation that reads, hashes, and compresses the digital objects of a domain object
+ * concurrently, following the {@linkplain com.opentext.ia.sdk.support.io.ZipAssembler#getCompressionPolicy()
+ * compression policy} of the ZIP assembler. The digital objects are still added to the ZIP in the order in which they
+ * are extracted, so the resulting SIP and content information are the same as those of
+ * {@linkplain ContentAssemblerDefault}.
+ * <p>
+ * <b>Note</b> that the digital objects are opened on the threads of the executor and that the compressed content of
+ * up to <code>maxInFlight</code> digital objects is kept in memory.
+ * </p>
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class ContentAssemblerInParallel<D> extends ContentAssemblerDefault<D> {
+
+  private final Supplier<? extends HashAssembler> contentHashAssemblerSupplier;
+  private final Executor executor;
+  private final int maxInFlight;
+
+  /**
+   * Create an instance.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssemblerSupplier Supplier of assemblers that build up an encoded hash for the extracted content.
+   *          Every digital object gets its own assembler
+   * @param executor The executor that prepares the digital objects
+   * @param maxInFlight The maximum number of digital objects that are prepared but not yet added to the ZIP
+   */
+  public ContentAssemblerInParallel(DigitalObjectsExtraction<D> contentsExtraction,
+      Supplier<? extends HashAssembler> contentHashAssemblerSupplier, Executor executor, int maxInFlight) {
+    // Every digital object gets its own hash assembler, so the inherited one is never used
+    super(contentsExtraction, new NoHashAssembler());
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("Need at least one digital object in flight");
+    }
+    this.contentHashAssemblerSupplier = contentHashAssemblerSupplier;
+    this.executor = Objects.requireNonNull(executor, "Missing executor");
+    this.maxInFlight = maxInFlight;
+  }
+
+  @Override
+  public Map<String, ContentInfo> addContentsOf(D domainObject) throws IOException {
+    if (getZip() == null || getMetrics() == null) {
+      throw new IllegalStateException("Missing zip; did you call begin()?");
+    }
+    Map<String, ContentInfo> result = new TreeMap<>();
+    Deque<PendingContent> pending = new ArrayDeque<>(maxInFlight);
+    CompressionPolicy compressionPolicy = getZip().getCompressionPolicy();
+    try {
+      Iterator<? extends DigitalObject> digitalObjects = getContentsExtraction().apply(domainObject);
+      while (digitalObjects.hasNext()) {
+        DigitalObject digitalObject = digitalObjects.next();
+        getMetrics().inc(SipMetrics.NUM_DIGITAL_OBJECTS, 1);
+        Instrumentation.counter(MetricNames.CONTENT_OBJECTS).inc();
+        pending.add(new PendingContent(digitalObject.getReferenceInformation(),
+            prepare(digitalObject, compressionPolicy)));
+        if (pending.size() >= maxInFlight) {
+          addPrepared(pending.remove(), result);
+        }
+      }
+      while (!pending.isEmpty()) {
+        addPrepared(pending.remove(), result);
+      }
+    } finally {
+      pending.forEach(content -> content.entry.cancel(false));
+    }
+    return result;
+  }
+
+  private CompletableFuture<PreparedZipEntry> prepare(DigitalObject digitalObject,
+      CompressionPolicy compressionPolicy) {
+    return CompletableFuture.supplyAsync(() -> {
+      long start = System.nanoTime();
+      TimedHashAssembler hashAssembler = new TimedHashAssembler(contentHashAssemblerSupplier.get());
+      try (TimedInputStream stream = TimedInputStream.open(digitalObject)) {
+        PreparedZipEntry result = PreparedZipEntry.prepare(digitalObject.getReferenceInformation(),
+            digitalObject.getMediaType(), stream, compressionPolicy, hashAssembler);
+        addContentTimes(start, stream.getNanos(), hashAssembler.getNanos());
+        return result;
+      } catch (IOException e) {
+        throw new RuntimeIoException(e);
+      }
+    }, executor);
+  }
+
+  private void addPrepared(PendingContent content, Map<String, ContentInfo> contentInfos) throws IOException {
+    PreparedZipEntry entry = await(content.entry);
+    long start = System.nanoTime();
+    Collection<EncodedHash> hashes = getZip().addPreparedEntry(content.referenceInformation, entry);
+    getMetrics().inc(SipMetrics.TIME_ZIP_WRITE, System.nanoTime() - start);
+    getMetrics().inc(SipMetrics.SIZE_DIGITAL_OBJECTS, entry.getSize());
+    contentInfos.put(content.referenceInformation, new ContentInfo(content.referenceInformation, hashes));
+  }
+
+  private PreparedZipEntry await(CompletableFuture<PreparedZipEntry> entry) throws IOException {
+    try {
+      return entry.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while preparing content", e);
+    } catch (ExecutionException e) {
+      throw toIoException(e);
+    }
+  }
+
+  private IOException toIoException(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof RuntimeIoException) {
+      return ((RuntimeIoException)cause).getCause();
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException)cause;
+    }
+    return new IOException("Failed to prepare content", cause);
+  }
+
+
+  private static class PendingContent {
+
+    private final String referenceInformation;
+    private final CompletableFuture<PreparedZipEntry> entry;
+
+    PendingContent(String referenceInformation, CompletableFuture<PreparedZipEntry> entry) {
+      this.referenceInformation = referenceInformation;
+      this.entry = entry;
+    }
+
+  }
+
+}
@@ -5,70 +5,196 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 import com.opentext.ia.sdk.support.io.*;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
 
 /**
  * A ContentAssembler implementation which will perform deduplication based on the hash value of the content, i.e. a
  * digital object with a given hash is only included once in the SIP.
  * <p>
- * <b>Note</b>Important to note that this content assembler buffers the bytes that make up the digital object in memory
- * so it is not suitable to very large digital objects.
+ * The content of a digital object must be hashed before it's known whether it needs to be added to the SIP. Digital
+ * objects that are backed by a {@linkplain DigitalObject#getPath() file} are simply read twice. The content of other
+ * digital objects is spooled into a {@linkplain DataBuffer} while it's being hashed, and that buffer is discarded when
+ * the content turns out to be a duplicate. By default, the buffer is a {@linkplain SpillingBuffer} that moves large
+ * digital objects to disk, so that memory use stays bounded regardless of the size of the digital objects.
+ * </p>
+ * <p>
+ * Optionally, a {@linkplain ContentIndex} that is shared between SIPs extends deduplication across those SIPs. What
+ * happens with content that was added to a previous SIP depends on the {@linkplain ContentIndexHitPolicy hit policy}.
+ * The content of a SIP is only added to the index when the SIP is {@linkplain #commit() committed}, which a
+ * {@linkplain SipAssembler} does when it {@linkplain SipAssembler#end() ends} the SIP, unless asked to wait until the
+ * SIP is ingested. Note that with the {@linkplain ContentIndexHitPolicy#REFERENCE reference} policy, a SIP refers to
+ * content in previous SIPs, so those SIPs must all be ingested. Discard the index when any of them fails after it was
+ * committed.
  * </p>
  * @param <D> The type of domain object to assemble SIPs from
  */
 public class ContentAssemblerWithDedupOnHash<D> extends ContentAssemblerDefault<D> {
 
   private final Map<Collection<EncodedHash>, ContentInfo> hashesToContentInfo;
+  private final Map<Collection<EncodedHash>, String> uncommitted = new LinkedHashMap<>();
   private final HashAssembler noHashAssembler = new NoHashAssembler();
+  private final Supplier<? extends DataBuffer> spoolSupplier;
+  private final ContentIndex contentIndex;
+  private final ContentIndexHitPolicy hitPolicy;
 
   public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects) {
+    this(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects, SpillingBuffer::new);
+  }
+
+  /**
+   * Create an instance.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param estimatedMaxDigitalObjects a hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param spoolSupplier Supplier of buffers to spool the content of digital objects to while it's being hashed
+   */
+  public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects,
+      Supplier<? extends DataBuffer> spoolSupplier) {
+    this(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects, spoolSupplier, null, null);
+  }
+
+  /**
+   * Create an instance that deduplicates content across SIPs.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param estimatedMaxDigitalObjects a hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param spoolSupplier Supplier of buffers to spool the content of digital objects to while it's being hashed
+   * @param contentIndex Index of the content added to previous SIPs, or <code>null</code> to only deduplicate within a
+   *          SIP
+   * @param hitPolicy What to do with content that is found in the index
+   */
+  public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects, Supplier<? extends DataBuffer> spoolSupplier,
+      ContentIndex contentIndex, ContentIndexHitPolicy hitPolicy) {
     super(contentsExtraction, contentHashAssembler);
     hashesToContentInfo = new HashMap<>(estimatedMaxDigitalObjects);
+    this.spoolSupplier = Objects.requireNonNull(spoolSupplier, "Missing spool supplier");
+    this.contentIndex = contentIndex;
+    this.hitPolicy = contentIndex == null ? null : Objects.requireNonNull(hitPolicy, "Missing hit policy");
   }
 
   @Override
   public void begin(ZipAssembler zip, Counters metrics) {
     super.begin(zip, metrics);
     hashesToContentInfo.clear();
+    discard();
   }
 
   @Override
   protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
-    RepeatableInputStream memoryStream = memoryStreamOf(digitalObject);
-    // First compute hashes
-    Collection<EncodedHash> hashes = contentHashFor(memoryStream);
-
-    // Check if contentInfo exist of the collection of hashes.
-    // If yes, skip adding the content and return existing content info.
-    ContentInfo contentInfo = hashesToContentInfo.get(hashes);
-    if (contentInfo != null) {
-      return contentInfo;
+    Path path = digitalObject.getPath();
+    if (path != null) {
+      return addFileContent(ri, digitalObject, path);
+    }
+    long start = System.nanoTime();
+    long readTime;
+    DataBuffer spool = spoolSupplier.get();
+    try {
+      Collection<EncodedHash> hashes;
+      try (TimedInputStream stream = TimedInputStream.open(digitalObject);
+          OutputStream output = spool.openForWriting()) {
+        hashes = contentHashFor(stream, output);
+        readTime = stream.getNanos();
+      }
+      // If content with the same hashes was added before, skip adding the content and return existing content info
+      ContentInfo result = previouslyAdded(hashes);
+      if (result == null) {
+        try (InputStream stream = spool.openForReading()) {
+          getZip().addEntry(ri, digitalObject.getMediaType(), stream, noHashAssembler);
+        }
+        result = added(ri, hashes);
+      }
+      addContentTimes(start, readTime);
+      return result;
+    } finally {
+      spool.release();
     }
+  }
 
-    try (InputStream stream = memoryStream.get()) {
-      getZip().addEntry(ri, stream, noHashAssembler);
-      getMetrics().inc(SipMetrics.SIZE_DIGITAL_OBJECTS, getContentHashAssembler().numBytesHashed());
-      contentInfo = new ContentInfo(ri, hashes);
-      hashesToContentInfo.put(hashes, contentInfo);
+  private ContentInfo addFileContent(String ri, DigitalObject digitalObject, Path path) throws IOException {
+    long start = System.nanoTime();
+    long readTime;
+    Collection<EncodedHash> hashes;
+    try (TimedInputStream stream = new TimedInputStream(Files.newInputStream(path))) {
+      hashes = contentHashFor(stream);
+      readTime = stream.getNanos();
+    }
+    ContentInfo result = previouslyAdded(hashes);
+    if (result == null) {
+      long fileReadStart = getZip().getFileReadNanos();
+      getZip().addEntry(ri, digitalObject.getMediaType(), path, noHashAssembler);
+      readTime += getZip().getFileReadNanos() - fileReadStart;
+      result = added(ri, hashes);
     }
-    return contentInfo;
+    addContentTimes(start, readTime);
+    return result;
   }
 
-  private RepeatableInputStream memoryStreamOf(DigitalObject digitalObject) throws IOException {
-    try (InputStream raw = digitalObject.get()) {
-      return new RepeatableInputStream(raw);
+  private ContentInfo previouslyAdded(Collection<EncodedHash> hashes) throws IOException {
+    ContentInfo result = hashesToContentInfo.get(hashes);
+    if (result == null && contentIndex != null) {
+      String previousRi = lookUp(hashes);
+      if (previousRi != null && hitPolicy == ContentIndexHitPolicy.REFERENCE) {
+        result = new ContentInfo(previousRi, hashes);
+        hashesToContentInfo.put(hashes, result);
+      }
+    }
+    if (result != null) {
+      Instrumentation.counter(MetricNames.CONTENT_DEDUPLICATED).inc();
     }
+    return result;
   }
 
-  private Collection<EncodedHash> contentHashFor(RepeatableInputStream memoryStream) throws IOException {
-    try (InputStream stream = memoryStream.get()) {
-      return contentHashFor(stream);
+  private String lookUp(Collection<EncodedHash> hashes) throws IOException {
+    getMetrics().inc(SipMetrics.NUM_CONTENT_INDEX_LOOKUPS);
+    String result = contentIndex.get(hashes);
+    if (result != null) {
+      getMetrics().inc(SipMetrics.NUM_CONTENT_INDEX_HITS);
     }
+    return result;
+  }
+
+  private ContentInfo added(String ri, Collection<EncodedHash> hashes) throws IOException {
+    getMetrics().inc(SipMetrics.SIZE_DIGITAL_OBJECTS, getContentHashAssembler().numBytesHashed());
+    ContentInfo result = new ContentInfo(ri, hashes);
+    hashesToContentInfo.put(hashes, result);
+    if (contentIndex != null) {
+      uncommitted.put(hashes, ri);
+    }
+    return result;
+  }
+
+  @Override
+  public void commit() throws IOException {
+    if (contentIndex == null) {
+      return;
+    }
+    for (Map.Entry<Collection<EncodedHash>, String> entry : uncommitted.entrySet()) {
+      contentIndex.put(entry.getKey(), entry.getValue());
+    }
+    uncommitted.clear();
+    getMetrics().set(SipMetrics.SIZE_CONTENT_INDEX, contentIndex.size());
+  }
+
+  @Override
+  public void discard() {
+    uncommitted.clear();
   }
 
 }
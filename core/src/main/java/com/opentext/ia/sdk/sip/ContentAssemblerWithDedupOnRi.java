@@ -6,33 +6,54 @@ package com.opentext.ia.sdk.sip;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Objects;
 
 import com.opentext.ia.sdk.support.io.EncodedHash;
 import com.opentext.ia.sdk.support.io.HashAssembler;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
 
 /**
  * A ContentAssembler implementation which will deduplication based on the reference information of a digital object.
  * That is a digital object with a given reference information is only included once in the SIP. Optionally can also
  * validate that the same reference information is not used to reference different digital objects and that the same
  * digital object is not included twice with different reference information.
+ * <p>
+ * The content information of the digital objects in a SIP is kept in a compact {@linkplain ContentInfoIndex}, which is
+ * cleared at the start of each SIP.
+ * </p>
  * @param <D> The type of domain object to assemble SIPs from
  */
 public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D> {
 
-  private final Map<String, ContentInfo> riToContentInfo;
-  private final Map<Collection<EncodedHash>, String> hashesToRi;
+  private final ContentInfoIndex contentInfoIndex;
   private final boolean errorWhenEqualHashAndNotEqualRI;
   private final boolean errorWhenEqualRiAndNotEqualHash;
 
   public ContentAssemblerWithDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler, boolean errorWhenEqualRiAndNotEqualHash,
       boolean errorWhenEqualHashAndNotEqualRI, int estimatedMaxDigitalObjects) {
+    this(contentsExtraction, contentHashAssembler, errorWhenEqualRiAndNotEqualHash, errorWhenEqualHashAndNotEqualRI,
+        new ContentInfoIndex(estimatedMaxDigitalObjects, errorWhenEqualHashAndNotEqualRI));
+  }
+
+  /**
+   * Create an instance.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param errorWhenEqualRiAndNotEqualHash Throw an exception when the same reference information is used but the
+   *          actual content is different.
+   * @param errorWhenEqualHashAndNotEqualRI Throw an exception when the same content is included twice but using
+   *          different reference informations.
+   * @param contentInfoIndex The index that holds the content information of the digital objects in a SIP. It must
+   *          index content hashes when errorWhenEqualHashAndNotEqualRI is <code>true</code>
+   */
+  public ContentAssemblerWithDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, boolean errorWhenEqualRiAndNotEqualHash,
+      boolean errorWhenEqualHashAndNotEqualRI, ContentInfoIndex contentInfoIndex) {
     super(contentsExtraction, contentHashAssembler);
-    riToContentInfo = new HashMap<>(estimatedMaxDigitalObjects);
-    hashesToRi = new HashMap<>(estimatedMaxDigitalObjects);
+    this.contentInfoIndex = Objects.requireNonNull(contentInfoIndex, "Missing content info index");
     this.errorWhenEqualHashAndNotEqualRI = errorWhenEqualHashAndNotEqualRI;
     this.errorWhenEqualRiAndNotEqualHash = errorWhenEqualRiAndNotEqualHash;
   }
@@ -40,27 +61,27 @@ public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D>
   @Override
   public void begin(ZipAssembler zip, Counters metrics) {
     super.begin(zip, metrics);
-    riToContentInfo.clear();
+    contentInfoIndex.clear();
   }
 
   @Override
   protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
-    ContentInfo contentInfo = riToContentInfo.get(ri);
+    ContentInfo contentInfo = contentInfoIndex.get(ri);
     if (contentInfo == null) {
       ContentInfo newContentInfo = super.addContent(ri, digitalObject);
       checkNotAlreadyIncluded(newContentInfo);
-      riToContentInfo.put(ri, newContentInfo);
-      hashesToRi.put(newContentInfo.getContentHashes(), ri);
+      contentInfoIndex.put(newContentInfo);
       return newContentInfo;
     } else {
       checkSameRIMeansSameContent(ri, digitalObject, contentInfo.getContentHashes());
+      Instrumentation.counter(MetricNames.CONTENT_DEDUPLICATED).inc();
       return contentInfo;
     }
   }
 
   private void checkNotAlreadyIncluded(ContentInfo newContentInfo) {
     if (errorWhenEqualHashAndNotEqualRI) {
-      String ri = hashesToRi.get(newContentInfo.getContentHashes());
+      String ri = contentInfoIndex.referenceInformationFor(newContentInfo.getContentHashes());
       if (ri != null && !ri.equals(newContentInfo.getReferenceInformation())) {
         throw new IllegalStateException("Content already included with a different ri.");
       }
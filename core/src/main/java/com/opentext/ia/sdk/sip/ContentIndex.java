@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Index of the content that was added to SIPs, keyed on the hashes of the content. An index that is shared between
+ * the SIPs of a batch or a Data Submission Session (DSS) allows deduplication of content across those SIPs.
+ * @see ContentAssembler#withDedupOnHash(DigitalObjectsExtraction, com.opentext.ia.sdk.support.io.HashAssembler,
+ *      ContentIndex, ContentIndexHitPolicy)
+ */
+public interface ContentIndex extends Closeable {
+
+  /**
+   * Look up content in the index.
+   * @param hashes The hashes of the content to look up
+   * @return The reference information under which the content was added, or <code>null</code> if it wasn't
+   * @throws IOException When an I/O error occurs
+   */
+  String get(Collection<EncodedHash> hashes) throws IOException;
+
+  /**
+   * Add content to the index. Nothing happens if the index already contains content with the given hashes.
+   * @param hashes The hashes of the content to add
+   * @param referenceInformation The reference information under which the content was added
+   * @throws IOException When an I/O error occurs
+   */
+  void put(Collection<EncodedHash> hashes, String referenceInformation) throws IOException;
+
+  /**
+   * Return the number of entries in the index.
+   * @return The number of entries in the index
+   */
+  long size();
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+
+/**
+ * What to do with a digital object whose content is found in a {@linkplain ContentIndex}, because it was added to a
+ * previous SIP.
+ */
+public enum ContentIndexHitPolicy {
+
+  /**
+   * Don't add the content to the SIP again, but refer to the content in the previous SIP, using the reference
+   * information under which it was added there.
+   */
+  REFERENCE,
+
+  /**
+   * Add the content to the SIP again. The index then only provides metrics about how much content is duplicated across
+   * SIPs.
+   */
+  INCLUDE
+
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Compact index of the {@linkplain ContentInfo content information} of the digital objects in a SIP, keyed on
+ * reference information and optionally on content hashes.
+ * <p>
+ * Rather than keeping a {@linkplain ContentInfo} object with its strings and collections for each digital object, the
+ * index encodes the reference information and hashes as UTF-8 bytes in large chunks of memory, and looks them up using
+ * open-addressing hash tables of <code>long</code>s. The names of hash functions and encodings are stored only once.
+ * This takes a fraction of the memory of a {@linkplain java.util.HashMap}. The chunks can be allocated outside the
+ * heap, so that even indexes of millions of digital objects don't put pressure on the garbage collector.
+ * </p>
+ * <p>
+ * The index can be bounded to a maximum number of bytes, after which it refuses to grow. Use a
+ * {@linkplain SipSegmentationStrategy} to keep SIPs small enough to stay within that bound. {@linkplain #clear()
+ * Clear} the index between SIPs to reuse its memory.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class ContentInfoIndex {
+
+  /**
+   * The maximum number of bytes of an index that is not bounded.
+   */
+  public static final long UNBOUNDED = Long.MAX_VALUE;
+  private static final int CHUNK_SIZE = 1024 * 1024;
+  private static final int MIN_TABLE_SIZE = 16;
+  private static final int MAX_NAMES = 256;
+  private static final int MAX_HASH_LENGTH = 0xFFFF;
+  private static final int RI_HASH_POSITION = 0;
+  private static final int HASHES_HASH_POSITION = 4;
+  private static final int RI_LENGTH_POSITION = 8;
+  private static final int HASHES_LENGTH_POSITION = 12;
+  private static final int HASHES_CAPACITY_POSITION = 16;
+  private static final int RECORD_HEADER_SIZE = 20;
+
+  private final boolean indexHashes;
+  private final boolean offHeap;
+  private final long maxBytes;
+  private final int initialTableSize;
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private final List<String> names = new ArrayList<>();
+  private final Map<String, Integer> nameIndexes = new HashMap<>();
+  private long[] riTable;
+  private long[] hashesTable;
+  private int currentChunk;
+  private int size;
+  private int numHashes;
+
+  /**
+   * Create an unbounded index on the heap that can hold the given number of digital objects without reallocation.
+   * @param expectedEntries The number of digital objects the index is sized for
+   * @param indexHashes Whether to support looking up reference information by content hashes
+   */
+  public ContentInfoIndex(int expectedEntries, boolean indexHashes) {
+    this(expectedEntries, indexHashes, false, UNBOUNDED);
+  }
+
+  /**
+   * Create an index.
+   * @param expectedEntries The number of digital objects the index is sized for
+   * @param indexHashes Whether to support looking up reference information by content hashes
+   * @param offHeap Whether to store the encoded content information outside the heap
+   * @param maxBytes The maximum number of bytes the index may use
+   */
+  public ContentInfoIndex(int expectedEntries, boolean indexHashes, boolean offHeap, long maxBytes) {
+    this.indexHashes = indexHashes;
+    this.offHeap = offHeap;
+    this.maxBytes = maxBytes;
+    int tableSize = MIN_TABLE_SIZE;
+    while (tableSize < 2L * expectedEntries && tableSize < 1 << 30) {
+      tableSize <<= 1;
+    }
+    this.initialTableSize = tableSize;
+    clear();
+  }
+
+  /**
+   * Remove all content information from the index. Memory for a SIP of similar size is retained.
+   */
+  public void clear() {
+    chunks.forEach(ByteBuffer::clear);
+    currentChunk = 0;
+    if (riTable == null) {
+      riTable = new long[initialTableSize];
+      hashesTable = indexHashes ? new long[initialTableSize] : null;
+    } else {
+      Arrays.fill(riTable, 0);
+      if (hashesTable != null) {
+        Arrays.fill(hashesTable, 0);
+      }
+    }
+    size = 0;
+    numHashes = 0;
+  }
+
+  /**
+   * Return the number of digital objects in the index.
+   * @return The number of digital objects in the index
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return the number of bytes in use by the index.
+   * @return The number of bytes in use by the index
+   */
+  public long memoryUsed() {
+    long result = chunks.stream()
+      .mapToLong(ByteBuffer::capacity)
+      .sum();
+    result += (long)Long.BYTES * riTable.length;
+    if (hashesTable != null) {
+      result += (long)Long.BYTES * hashesTable.length;
+    }
+    return result;
+  }
+
+  /**
+   * Look up the content information of a digital object.
+   * @param referenceInformation The reference information of the digital object
+   * @return The content information of the digital object, or <code>null</code> if the index doesn't contain it
+   */
+  public ContentInfo get(String referenceInformation) {
+    byte[] ri = referenceInformation.getBytes(StandardCharsets.UTF_8);
+    long address = riTable[probe(riTable, hash(ri), ri, RI_HASH_POSITION, RI_LENGTH_POSITION)];
+    return address == 0 ? null : new ContentInfo(referenceInformation, decodeHashes(address - 1));
+  }
+
+  /**
+   * Look up the reference information under which content was added.
+   * @param hashes The hashes of the content
+   * @return The reference information under which the content was added, or <code>null</code> if the index doesn't
+   *         contain the content
+   * @throws IllegalStateException When the index was created without support for looking up content hashes
+   */
+  public String referenceInformationFor(Collection<EncodedHash> hashes) {
+    if (hashesTable == null) {
+      throw new IllegalStateException("Content hashes are not indexed");
+    }
+    byte[] encoded = encode(hashes, false);
+    if (encoded == null) {
+      return null;
+    }
+    long address = hashesTable[probe(hashesTable, hash(encoded), encoded, HASHES_HASH_POSITION,
+        HASHES_LENGTH_POSITION)];
+    return address == 0 ? null : decodeRi(address - 1);
+  }
+
+  /**
+   * Add the content information of a digital object to the index, replacing any previous content information for the
+   * same reference information.
+   * @param contentInfo The content information to add
+   * @throws IllegalStateException When adding the content information would exceed the maximum size of the index
+   */
+  public void put(ContentInfo contentInfo) {
+    byte[] ri = contentInfo.getReferenceInformation()
+      .getBytes(StandardCharsets.UTF_8);
+    byte[] hashes = encode(contentInfo.getContentHashes(), true);
+    ensureTableCapacity();
+    int riSlot = probe(riTable, hash(ri), ri, RI_HASH_POSITION, RI_LENGTH_POSITION);
+    long address = riTable[riSlot];
+    if (address == 0) {
+      address = append(ri, hashes) + 1;
+      riTable[riSlot] = address;
+      size++;
+    } else {
+      byte[] oldHashes = hashesAt(address - 1);
+      if (Arrays.equals(oldHashes, hashes)) {
+        return;
+      }
+      unindex(address, oldHashes);
+      if (fits(address - 1, hashes)) {
+        overwriteHashes(address - 1, hashes);
+      } else {
+        // Abandon the existing record. Record capacity only grows, so this happens a bounded number of times
+        address = append(ri, hashes) + 1;
+        riTable[riSlot] = address;
+      }
+    }
+    if (hashesTable != null) {
+      int hashesSlot = probe(hashesTable, hash(hashes), hashes, HASHES_HASH_POSITION, HASHES_LENGTH_POSITION);
+      if (hashesTable[hashesSlot] == 0) {
+        hashesTable[hashesSlot] = address;
+        numHashes++;
+      }
+    }
+  }
+
+  private void unindex(long address, byte[] hashes) {
+    // The content with the old hashes is no longer available under the reference information
+    if (hashesTable != null) {
+      int hashesSlot = probe(hashesTable, hash(hashes), hashes, HASHES_HASH_POSITION, HASHES_LENGTH_POSITION);
+      if (hashesTable[hashesSlot] == address) {
+        remove(hashesTable, hashesSlot, HASHES_HASH_POSITION);
+        numHashes--;
+      }
+    }
+  }
+
+  private boolean fits(long address, byte[] hashes) {
+    return hashes.length <= chunkAt(address).getInt(offsetOf(address) + HASHES_CAPACITY_POSITION);
+  }
+
+  private void overwriteHashes(long address, byte[] hashes) {
+    ByteBuffer chunk = chunkAt(address).duplicate();
+    int offset = offsetOf(address);
+    chunk.putInt(offset + HASHES_HASH_POSITION, hash(hashes))
+      .putInt(offset + HASHES_LENGTH_POSITION, hashes.length);
+    chunk.position(offset + RECORD_HEADER_SIZE + chunk.getInt(offset + RI_LENGTH_POSITION));
+    chunk.put(hashes);
+  }
+
+  private static int hash(byte[] bytes) {
+    int result = Arrays.hashCode(bytes);
+    return result ^ result >>> 16;
+  }
+
+  private byte[] encode(Collection<EncodedHash> hashes, boolean addNames) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      for (EncodedHash hash : hashes) {
+        Integer hashFunction = nameIndex(hash.getHashFunction(), addNames);
+        Integer encoding = nameIndex(hash.getEncoding(), addNames);
+        if (hashFunction == null || encoding == null) {
+          return null;
+        }
+        byte[] value = hash.getValue()
+          .getBytes(StandardCharsets.UTF_8);
+        if (value.length > MAX_HASH_LENGTH) {
+          throw new IllegalArgumentException("Hash value too long: " + hash.getValue());
+        }
+        output.writeByte(hashFunction);
+        output.writeByte(encoding);
+        output.writeShort(value.length);
+        output.write(value);
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private Integer nameIndex(String name, boolean add) {
+    Integer result = nameIndexes.get(name);
+    if (result == null && add) {
+      if (names.size() == MAX_NAMES) {
+        throw new IllegalStateException("Too many different hash functions and encodings");
+      }
+      result = names.size();
+      names.add(name);
+      nameIndexes.put(name, result);
+    }
+    return result;
+  }
+
+  private int probe(long[] table, int hash, byte[] key, int hashPosition, int lengthPosition) {
+    int mask = table.length - 1;
+    int result = hash & mask;
+    while (table[result] != 0 && !matches(table[result] - 1, hash, key, hashPosition, lengthPosition)) {
+      result = (result + 1) & mask;
+    }
+    return result;
+  }
+
+  private boolean matches(long address, int hash, byte[] key, int hashPosition, int lengthPosition) {
+    ByteBuffer chunk = chunkAt(address);
+    int offset = offsetOf(address);
+    if (chunk.getInt(offset + hashPosition) != hash || chunk.getInt(offset + lengthPosition) != key.length) {
+      return false;
+    }
+    int start = offset + RECORD_HEADER_SIZE;
+    if (lengthPosition == HASHES_LENGTH_POSITION) {
+      start += chunk.getInt(offset + RI_LENGTH_POSITION);
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (chunk.get(start + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void remove(long[] table, int slot, int hashPosition) {
+    // Shift back entries further along the probe sequence, so that lookups don't stop at the hole
+    int mask = table.length - 1;
+    int hole = slot;
+    for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+      int home = chunkAt(table[next] - 1).getInt(offsetOf(table[next] - 1) + hashPosition) & mask;
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        table[hole] = table[next];
+        hole = next;
+      }
+    }
+    table[hole] = 0;
+  }
+
+  private void ensureTableCapacity() {
+    // Keep the tables at most half full, so that probe sequences stay short
+    if (2 * (size + 1) > riTable.length) {
+      ensureWithinBounds(Long.BYTES * (long)riTable.length);
+      riTable = rehash(riTable, RI_HASH_POSITION);
+    }
+    if (hashesTable != null && 2 * (numHashes + 1) > hashesTable.length) {
+      ensureWithinBounds(Long.BYTES * (long)hashesTable.length);
+      hashesTable = rehash(hashesTable, HASHES_HASH_POSITION);
+    }
+  }
+
+  private long[] rehash(long[] table, int hashPosition) {
+    long[] result = new long[2 * table.length];
+    int mask = result.length - 1;
+    for (long address : table) {
+      if (address != 0) {
+        int slot = chunkAt(address - 1).getInt(offsetOf(address - 1) + hashPosition) & mask;
+        while (result[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        result[slot] = address;
+      }
+    }
+    return result;
+  }
+
+  private long append(byte[] ri, byte[] hashes) {
+    int recordSize = RECORD_HEADER_SIZE + ri.length + hashes.length;
+    // Fill chunks retained from before the last clear before allocating new ones
+    while (currentChunk < chunks.size() && chunks.get(currentChunk)
+      .remaining() < recordSize) {
+      currentChunk++;
+    }
+    if (currentChunk == chunks.size()) {
+      int chunkSize = Math.max(CHUNK_SIZE, recordSize);
+      ensureWithinBounds(chunkSize);
+      chunks.add(offHeap ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize));
+    }
+    ByteBuffer chunk = chunks.get(currentChunk);
+    long result = (long)currentChunk << Integer.SIZE | chunk.position();
+    chunk.putInt(hash(ri))
+      .putInt(hash(hashes))
+      .putInt(ri.length)
+      .putInt(hashes.length)
+      .putInt(hashes.length)
+      .put(ri)
+      .put(hashes);
+    return result;
+  }
+
+  private void ensureWithinBounds(long numBytesToAdd) {
+    if (memoryUsed() + numBytesToAdd > maxBytes) {
+      throw new IllegalStateException(String.format(
+          "Content information of %d digital objects exceeds the maximum of %d bytes; create smaller SIPs", size,
+          maxBytes));
+    }
+  }
+
+  private ByteBuffer chunkAt(long address) {
+    return chunks.get((int)(address >>> Integer.SIZE));
+  }
+
+  private static int offsetOf(long address) {
+    return (int)address;
+  }
+
+  private String decodeRi(long address) {
+    ByteBuffer chunk = chunkAt(address);
+    int offset = offsetOf(address);
+    byte[] result = new byte[chunk.getInt(offset + RI_LENGTH_POSITION)];
+    read(chunk, offset + RECORD_HEADER_SIZE, result);
+    return new String(result, StandardCharsets.UTF_8);
+  }
+
+  private byte[] hashesAt(long address) {
+    ByteBuffer chunk = chunkAt(address);
+    int offset = offsetOf(address);
+    byte[] result = new byte[chunk.getInt(offset + HASHES_LENGTH_POSITION)];
+    read(chunk, offset + RECORD_HEADER_SIZE + chunk.getInt(offset + RI_LENGTH_POSITION), result);
+    return result;
+  }
+
+  private Collection<EncodedHash> decodeHashes(long address) {
+    ByteBuffer chunk = chunkAt(address);
+    int offset = offsetOf(address);
+    int position = offset + RECORD_HEADER_SIZE + chunk.getInt(offset + RI_LENGTH_POSITION);
+    int end = position + chunk.getInt(offset + HASHES_LENGTH_POSITION);
+    Collection<EncodedHash> result = new ArrayList<>();
+    while (position < end) {
+      String hashFunction = names.get(Byte.toUnsignedInt(chunk.get(position)));
+      String encoding = names.get(Byte.toUnsignedInt(chunk.get(position + 1)));
+      byte[] value = new byte[Short.toUnsignedInt(chunk.getShort(position + 2))];
+      read(chunk, position + 4, value);
+      result.add(new EncodedHash(hashFunction, encoding, new String(value, StandardCharsets.UTF_8)));
+      position += 4 + value.length;
+    }
+    return result;
+  }
+
+  private static void read(ByteBuffer chunk, int position, byte[] bytes) {
+    ByteBuffer source = chunk.duplicate();
+    source.position(position);
+    source.get(bytes);
+  }
+
+}
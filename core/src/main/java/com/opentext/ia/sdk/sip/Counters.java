@@ -5,25 +5,58 @@ package com.opentext.ia.sdk.sip;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Set of related counters.
+ * <p>
+ * The {@linkplain SipMetrics SIP metrics} are kept in fixed slots of primitive longs, so that updating them neither
+ * locks nor boxes. Counters with other names are kept separately, and are also updated without locking. All counters
+ * may be updated from different threads concurrently.
+ * </p>
+ * <p>
+ * Use {@linkplain #view()} to read the counters while they're being updated, without copying them, and
+ * {@linkplain #forReading()} to take a snapshot that doesn't change afterwards.
+ * </p>
  */
 public class Counters {
 
-  private final Map<String, Long> values;
+  private static final Map<String, Integer> SLOTS = slots();
+
+  private final AtomicLongArray values;
+  private final ConcurrentMap<String, AtomicLong> custom;
+  private final boolean readOnly;
+
+  private static Map<String, Integer> slots() {
+    Map<String, Integer> result = new HashMap<>();
+    for (String name : SipMetrics.NAMES) {
+      result.put(name, result.size());
+    }
+    return Collections.unmodifiableMap(result);
+  }
 
   public Counters() {
-    this(new HashMap<>());
+    this(new AtomicLongArray(SLOTS.size()), new ConcurrentHashMap<>(), false);
   }
 
-  Counters(Map<String, Long> values) {
+  private Counters(AtomicLongArray values, ConcurrentMap<String, AtomicLong> custom, boolean readOnly) {
     this.values = values;
+    this.custom = custom;
+    this.readOnly = readOnly;
   }
 
   public long get(String name) {
-    return values.containsKey(name) ? values.get(name) : 0;
+    Integer slot = SLOTS.get(name);
+    if (slot != null) {
+      return values.get(slot);
+    }
+    AtomicLong value = custom.get(name);
+    return value == null ? 0 : value.get();
   }
 
   /**
@@ -40,7 +73,23 @@ public class Counters {
    * @param delta The amount to increase the metric with
    */
   public void inc(String name, long delta) {
-    set(name, get(name) + delta);
+    checkWritable();
+    Integer slot = SLOTS.get(name);
+    if (slot == null) {
+      customCounter(name).addAndGet(delta);
+    } else {
+      values.addAndGet(slot, delta);
+    }
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Counters are read-only");
+    }
+  }
+
+  private AtomicLong customCounter(String name) {
+    return custom.computeIfAbsent(name, ignored -> new AtomicLong());
   }
 
   /**
@@ -49,23 +98,62 @@ public class Counters {
    * @param value The value to set the metric to
    */
   public void set(String name, long value) {
-    values.put(name, value);
+    checkWritable();
+    Integer slot = SLOTS.get(name);
+    if (slot == null) {
+      customCounter(name).set(value);
+    } else {
+      values.set(slot, value);
+    }
   }
 
   /**
    * Reset all metrics to zero.
    */
   public void reset() {
-    values.clear();
+    checkWritable();
+    for (int i = 0; i < values.length(); i++) {
+      values.set(i, 0);
+    }
+    custom.clear();
   }
 
+  /**
+   * Return a read-only snapshot of the counters, which doesn't change when these counters do.
+   * @return A read-only copy of the counters
+   */
   public Counters forReading() {
-    return new Counters(Collections.unmodifiableMap(new HashMap<String, Long>(values)));
+    AtomicLongArray valuesCopy = new AtomicLongArray(values.length());
+    for (int i = 0; i < values.length(); i++) {
+      valuesCopy.set(i, values.get(i));
+    }
+    ConcurrentMap<String, AtomicLong> customCopy = new ConcurrentHashMap<>();
+    custom.forEach((name, value) -> customCopy.put(name, new AtomicLong(value.get())));
+    return new Counters(valuesCopy, customCopy, true);
+  }
+
+  /**
+   * Return a read-only view of the counters, which reflects changes to these counters as they happen.
+   * @return A read-only view of the counters
+   */
+  public Counters view() {
+    if (readOnly) {
+      return this;
+    }
+    return new Counters(values, custom, true);
   }
 
   @Override
   public String toString() {
-    return values.toString();
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (int i = 0; i < values.length(); i++) {
+      long value = values.get(i);
+      if (value != 0) {
+        result.put(SipMetrics.NAMES.get(i), value);
+      }
+    }
+    custom.forEach((name, value) -> result.put(name, value.get()));
+    return result.toString();
   }
 
 }
@@ -29,6 +29,55 @@ public interface DigitalObject extends Supplier<InputStream> {
    */
   String getReferenceInformation();
 
+  /**
+   * The media type of this object's bits, which may be used to decide how to compress them.
+   * @return The media type of this object, or <code>null</code> if unknown
+   */
+  default String getMediaType() {
+    return null;
+  }
+
+  /**
+   * The file that holds this object's bits, if any. The bits of objects that are backed by a file can be copied using
+   * file channels, which is more efficient than copying them using streams.
+   * @return The path to the file that holds this object's bits, or <code>null</code> if they don't come from a file
+   */
+  default Path getPath() {
+    return null;
+  }
+
+  /**
+   * Return a {@linkplain DigitalObject} with the same Reference Information and bits as this one, but with the given
+   * media type.
+   * @param mediaType The media type of the object's bits
+   * @return The newly created {@linkplain DigitalObject}
+   */
+  default DigitalObject withMediaType(String mediaType) {
+    DigitalObject decorated = this;
+    return new DigitalObject() {
+
+      @Override
+      public InputStream get() {
+        return decorated.get();
+      }
+
+      @Override
+      public String getReferenceInformation() {
+        return decorated.getReferenceInformation();
+      }
+
+      @Override
+      public String getMediaType() {
+        return mediaType;
+      }
+
+      @Override
+      public Path getPath() {
+        return decorated.getPath();
+      }
+    };
+  }
+
   /**
    * Create a {@linkplain DigitalObject} from a file.
    * @param referenceInformation The unique identifier to use as Reference Information
@@ -36,13 +85,7 @@ public interface DigitalObject extends Supplier<InputStream> {
    * @return The newly created {@linkplain DigitalObject}
    */
   static DigitalObject fromFile(String referenceInformation, File file) {
-    return fromSupplier(referenceInformation, () -> {
-      try {
-        return new FileInputStream(file);
-      } catch (FileNotFoundException e) {
-        throw new RuntimeIoException(e);
-      }
-    });
+    return fromPath(referenceInformation, file.toPath());
   }
 
   /**
@@ -74,7 +117,29 @@ public interface DigitalObject extends Supplier<InputStream> {
    * @return The newly created {@linkplain DigitalObject}
    */
   static DigitalObject fromPath(String referenceInformation, Path path) {
-    return fromFile(referenceInformation, path.toFile());
+    Objects.requireNonNull(referenceInformation, "Missing reference information");
+    Objects.requireNonNull(path, "Missing path");
+    return new DigitalObject() {
+
+      @Override
+      public InputStream get() {
+        try {
+          return new FileInputStream(path.toFile());
+        } catch (FileNotFoundException e) {
+          throw new RuntimeIoException(e);
+        }
+      }
+
+      @Override
+      public String getReferenceInformation() {
+        return referenceInformation;
+      }
+
+      @Override
+      public Path getPath() {
+        return path;
+      }
+    };
   }
 
   /**
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * {@linkplain BatchSipAssembler Assemble a batch of SIPs} and hand each SIP to a {@linkplain SipIngestionPipeline}
+ * as soon as it's finished, so that the next SIP is assembled while the previous ones are being ingested.
+ * {@linkplain #end() Ending} the batch waits until all its SIPs are ingested.
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class IngestingBatchSipAssembler<D> extends BatchSipAssembler<D> {
+
+  private final SipIngestionPipeline pipeline;
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory.
+   * @param assembler An assembler that builds up the SIPs in the batch
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param pipeline The pipeline that ingests the SIPs
+   */
+  public IngestingBatchSipAssembler(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy,
+      SipIngestionPipeline pipeline) {
+    this(assembler, segmentationStrategy, FileSupplier.fromTemporaryDirectory(), pipeline);
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param assembler An assembler that builds up the SIPs in the batch
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param fileSupplier A supplier of files in which to store the SIPs
+   * @param pipeline The pipeline that ingests the SIPs
+   */
+  public IngestingBatchSipAssembler(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy,
+      Supplier<File> fileSupplier, SipIngestionPipeline pipeline) {
+    super(assembler, segmentationStrategy, fileSupplier);
+    this.pipeline = Objects.requireNonNull(pipeline, "Missing pipeline");
+  }
+
+  @Override
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    super.sipEnded(metrics);
+    pipeline.accept(metrics);
+  }
+
+  /**
+   * End the batch assembly process, and wait until all SIPs in the batch are ingested.
+   * @throws IOException When an I/O error occurs
+   */
+  @Override
+  public synchronized void end() throws IOException {
+    try {
+      super.end();
+    } catch (RuntimeIoException e) {
+      throw e.getCause();
+    } finally {
+      pipeline.close();
+    }
+  }
+
+}
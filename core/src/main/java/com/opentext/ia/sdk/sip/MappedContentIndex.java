@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * {@linkplain ContentIndex} that is stored in memory-mapped files, so that it survives restarts of the JVM and can hold
+ * hundreds of millions of entries without using heap memory.
+ * <p>
+ * The index consists of two files in a directory. The first holds an open-addressing hash table in which each entry
+ * takes 24 bytes: a 128-bit fingerprint of the content hashes and the offset of the reference information in the
+ * second file, to which reference information is appended. The hash table doubles in size when it gets 70% full. Since
+ * that requires rehashing all entries, create the index with a good estimate of the number of entries it will hold.
+ * </p>
+ * <p>
+ * A grown hash table is written to a new file with a higher generation number, rather than replacing the old file,
+ * which may still be mapped until the garbage collector releases it. Old generations are deleted when possible, and
+ * otherwise the next time the index is opened.
+ * </p>
+ * <p>
+ * <b>Note</b> that the index only records content; it can't know whether the SIPs that contain that content are
+ * successfully ingested. Discard the index when a SIP that it refers to is abandoned.
+ * </p>
+ */
+public class MappedContentIndex implements ContentIndex {
+
+  /**
+   * The number of entries an index is sized for when no estimate is given.
+   */
+  public static final long DEFAULT_EXPECTED_ENTRIES = 1_000_000;
+  private static final String TABLE_FILE_PREFIX = "hashes.";
+  private static final String TABLE_FILE_SUFFIX = ".idx";
+  private static final String DATA_FILE = "ris.dat";
+  private static final double MAX_LOAD_FACTOR = 0.7;
+
+  private final Path directory;
+  private final FileChannel data;
+  private final MessageDigest digester;
+  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+  private Table table;
+  private long generation;
+
+  /**
+   * Open the index in the given directory, or create a new one sized for the
+   * {@linkplain #DEFAULT_EXPECTED_ENTRIES default number of entries}.
+   * @param directory The directory that holds the index files
+   * @throws IOException When an I/O error occurs
+   */
+  public MappedContentIndex(Path directory) throws IOException {
+    this(directory, DEFAULT_EXPECTED_ENTRIES);
+  }
+
+  /**
+   * Open the index in the given directory, or create a new one.
+   * @param directory The directory that holds the index files
+   * @param expectedEntries The number of entries a new index is sized for
+   * @throws IOException When an I/O error occurs
+   */
+  public MappedContentIndex(Path directory, long expectedEntries) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    try {
+      digester = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Missing message digest SHA-256", e);
+    }
+    table = openLatestTable(capacityFor(expectedEntries));
+    data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  private static long capacityFor(long numEntries) {
+    long result = Table.MIN_CAPACITY;
+    while (result * MAX_LOAD_FACTOR < numEntries) {
+      result <<= 1;
+    }
+    return result;
+  }
+
+  private Table openLatestTable(long capacity) throws IOException {
+    Table result = null;
+    for (long candidate : tableGenerations()) {
+      Path file = tableFile(candidate);
+      if (result == null) {
+        Table latest = Table.open(file, capacity);
+        if (latest.isComplete()) {
+          result = latest;
+          generation = candidate;
+          continue;
+        }
+        // Left behind by a failure while growing
+        latest.close();
+      }
+      deleteIfPossible(file);
+    }
+    if (result == null) {
+      generation = 0;
+      result = Table.open(tableFile(generation), capacity);
+      result.complete();
+    }
+    return result;
+  }
+
+  private List<Long> tableGenerations() throws IOException {
+    List<Long> result = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+        TABLE_FILE_PREFIX + '*' + TABLE_FILE_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName()
+          .toString();
+        try {
+          result.add(Long.valueOf(name.substring(TABLE_FILE_PREFIX.length(),
+              name.length() - TABLE_FILE_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          // Not a hash table file
+        }
+      }
+    }
+    result.sort(Collections.reverseOrder());
+    return result;
+  }
+
+  private Path tableFile(long tableGeneration) {
+    return directory.resolve(TABLE_FILE_PREFIX + tableGeneration + TABLE_FILE_SUFFIX);
+  }
+
+  private static void deleteIfPossible(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // Still mapped on a platform that doesn't allow deleting mapped files; retried when the index is next opened
+    }
+  }
+
+  @Override
+  public synchronized String get(Collection<EncodedHash> hashes) throws IOException {
+    Fingerprint fingerprint = fingerprintOf(hashes);
+    long offset = table.offsetAt(table.probe(fingerprint));
+    return offset == 0 ? null : readReferenceInformation(offset - 1);
+  }
+
+  private Fingerprint fingerprintOf(Collection<EncodedHash> hashes) {
+    hashes.stream()
+      .map(hash -> hash.getHashFunction() + ':' + hash.getEncoding() + ':' + hash.getValue() + '\n')
+      .sorted()
+      .forEach(hash -> digester.update(hash.getBytes(StandardCharsets.UTF_8)));
+    return new Fingerprint(ByteBuffer.wrap(digester.digest()));
+  }
+
+  private String readReferenceInformation(long offset) throws IOException {
+    lengthBuffer.clear();
+    readFully(lengthBuffer, offset);
+    ByteBuffer result = ByteBuffer.allocate(lengthBuffer.getInt(0));
+    readFully(result, offset + Integer.BYTES);
+    return new String(result.array(), StandardCharsets.UTF_8);
+  }
+
+  private void readFully(ByteBuffer buffer, long offset) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (data.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("Corrupt content index in " + directory);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void put(Collection<EncodedHash> hashes, String referenceInformation) throws IOException {
+    if (table.size + 1 > table.capacity * MAX_LOAD_FACTOR) {
+      grow();
+    }
+    Fingerprint fingerprint = fingerprintOf(hashes);
+    long slot = table.probe(fingerprint);
+    if (table.offsetAt(slot) == 0) {
+      table.put(slot, fingerprint, appendReferenceInformation(referenceInformation) + 1);
+    }
+  }
+
+  private long appendReferenceInformation(String referenceInformation) throws IOException {
+    byte[] bytes = referenceInformation.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+    record.putInt(bytes.length)
+      .put(bytes)
+      .flip();
+    long result = data.size();
+    while (record.hasRemaining()) {
+      data.write(record, result + record.position());
+    }
+    return result;
+  }
+
+  private void grow() throws IOException {
+    Path newFile = tableFile(generation + 1);
+    Files.deleteIfExists(newFile);
+    Table grown = Table.open(newFile, 2 * table.capacity);
+    try {
+      for (long slot = 0; slot < table.capacity; slot++) {
+        long offset = table.offsetAt(slot);
+        if (offset != 0) {
+          Fingerprint fingerprint = table.fingerprintAt(slot);
+          grown.put(grown.probe(fingerprint), fingerprint, offset);
+        }
+      }
+      grown.force();
+      grown.complete();
+    } catch (RuntimeException e) {
+      grown.close();
+      throw e;
+    }
+    Path oldFile = tableFile(generation);
+    table.close();
+    // Drop the last reference to the old mappings before deleting their file
+    table = grown;
+    generation++;
+    deleteIfPossible(oldFile);
+  }
+
+  @Override
+  public synchronized long size() {
+    return table.size;
+  }
+
+  /**
+   * Write all changes to disk and close the index files.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      table.force();
+      data.force(false);
+    } finally {
+      table.close();
+      data.close();
+    }
+  }
+
+
+  private static final class Fingerprint {
+
+    private final long high;
+    private final long low;
+
+    Fingerprint(ByteBuffer digest) {
+      this(digest.getLong(0), digest.getLong(Long.BYTES));
+    }
+
+    Fingerprint(long high, long low) {
+      this.high = high;
+      this.low = low;
+    }
+
+  }
+
+
+  private static final class Table {
+
+    private static final long MIN_CAPACITY = 1 << 10;
+    private static final int MAGIC = 0x49414349;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int CAPACITY_POSITION = 8;
+    private static final int SIZE_POSITION = 16;
+    private static final int COMPLETE_POSITION = 24;
+    private static final int SLOT_SIZE = 3 * Long.BYTES;
+    private static final int SEGMENT_SHIFT = 24;
+    private static final long SLOTS_PER_SEGMENT = 1L << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long capacity;
+    private long size;
+
+    private Table(FileChannel channel, MappedByteBuffer header, long capacity) throws IOException {
+      this.channel = channel;
+      this.header = header;
+      this.capacity = capacity;
+      this.size = header.getLong(SIZE_POSITION);
+      segments = new MappedByteBuffer[(int)((capacity + SLOTS_PER_SEGMENT - 1) >>> SEGMENT_SHIFT)];
+      for (int i = 0; i < segments.length; i++) {
+        long numSlots = Math.min(SLOTS_PER_SEGMENT, capacity - i * SLOTS_PER_SEGMENT);
+        segments[i] = channel.map(MapMode.READ_WRITE, HEADER_SIZE + i * SLOTS_PER_SEGMENT * SLOT_SIZE,
+            numSlots * SLOT_SIZE);
+      }
+    }
+
+    static Table open(Path file, long newCapacity) throws IOException {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      try {
+        boolean isNew = channel.size() == 0;
+        if (isNew) {
+          // Extend the file to its full size; the unwritten slots read as empty
+          channel.write(ByteBuffer.allocate(1), HEADER_SIZE + newCapacity * SLOT_SIZE - 1);
+        }
+        MappedByteBuffer header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (isNew) {
+          header.putInt(0, MAGIC);
+          header.putInt(Integer.BYTES, VERSION);
+          header.putLong(CAPACITY_POSITION, newCapacity);
+        } else if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+          throw new IOException("Not a content index: " + file);
+        }
+        return new Table(channel, header, header.getLong(CAPACITY_POSITION));
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    long probe(Fingerprint fingerprint) {
+      long mask = capacity - 1;
+      long result = fingerprint.high & mask;
+      while (true) {
+        long offset = offsetAt(result);
+        if (offset == 0 || fingerprint.high == longAt(result, 0) && fingerprint.low == longAt(result, 1)) {
+          return result;
+        }
+        result = (result + 1) & mask;
+      }
+    }
+
+    private long longAt(long slot, int index) {
+      return segments[(int)(slot >>> SEGMENT_SHIFT)].getLong(positionOf(slot, index));
+    }
+
+    private static int positionOf(long slot, int index) {
+      return (int)(slot & (SLOTS_PER_SEGMENT - 1)) * SLOT_SIZE + index * Long.BYTES;
+    }
+
+    long offsetAt(long slot) {
+      return longAt(slot, 2);
+    }
+
+    Fingerprint fingerprintAt(long slot) {
+      return new Fingerprint(longAt(slot, 0), longAt(slot, 1));
+    }
+
+    void put(long slot, Fingerprint fingerprint, long offset) {
+      MappedByteBuffer segment = segments[(int)(slot >>> SEGMENT_SHIFT)];
+      segment.putLong(positionOf(slot, 0), fingerprint.high);
+      segment.putLong(positionOf(slot, 1), fingerprint.low);
+      segment.putLong(positionOf(slot, 2), offset);
+      size++;
+      header.putLong(SIZE_POSITION, size);
+    }
+
+    boolean isComplete() {
+      return header.getInt(COMPLETE_POSITION) != 0;
+    }
+
+    void complete() {
+      header.putInt(COMPLETE_POSITION, 1);
+      header.force();
+    }
+
+    void force() {
+      for (MappedByteBuffer segment : segments) {
+        segment.force();
+      }
+      header.force();
+    }
+
+    void close() throws IOException {
+      channel.close();
+    }
+
+  }
+
+}
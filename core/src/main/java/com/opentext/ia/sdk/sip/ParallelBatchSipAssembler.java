@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.FileSupplier;
+
+
+/**
+ * Assemble a batch of SIPs using several workers that each build up their own SIPs concurrently. Domain objects are
+ * routed to the workers either round-robin or based on a key, so that domain objects with the same key end up in SIPs
+ * built by the same worker. Each worker applies the {@linkplain SipSegmentationStrategy segmentation strategy} to its
+ * own SIPs.
+ * <p>
+ * All workers share the same {@linkplain PackagingInformationFactory}, so the SIPs in the batch get consecutive
+ * sequence numbers in the order in which they are completed, and only the SIP that is completed last is marked as
+ * the last SIP in the Data Submission Session (DSS).
+ * <p>
+ * To create a batch of SIPs, simply {@linkplain #add(Object) add} domain objects and {@linkplain #end() end} the
+ * assembly process. Then access the generated files and metrics about them using {@linkplain #getSipsMetrics()}. Each
+ * worker runs on its own daemon thread until the assembly process is ended.
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class ParallelBatchSipAssembler<D> {
+
+  private static final int MAX_QUEUED_PER_WORKER = 64;
+  private static final AtomicInteger NUM_THREADS = new AtomicInteger();
+
+  private final Function<? super D, ?> routingKey;
+  private final List<Worker> workers = new ArrayList<>();
+  private final Collection<FileGenerationMetrics> sipsMetrics = new ArrayList<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private long numAdded;
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory and routes domain objects round-robin.
+   * @param assemblerFactory Creates an assembler for each worker, using the given shared packaging information factory
+   * @param packagingInformationFactory The factory that creates packaging information for all SIPs in the batch
+   * @param segmentationStrategy A strategy that determines when a worker starts a new SIP
+   * @param numWorkers The number of workers that assemble SIPs concurrently
+   */
+  public ParallelBatchSipAssembler(Function<PackagingInformationFactory, SipAssembler<D>> assemblerFactory,
+      PackagingInformationFactory packagingInformationFactory, SipSegmentationStrategy<D> segmentationStrategy,
+      int numWorkers) {
+    this(assemblerFactory, packagingInformationFactory, segmentationStrategy, FileSupplier.fromTemporaryDirectory(),
+        numWorkers, null);
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param assemblerFactory Creates an assembler for each worker, using the given shared packaging information factory
+   * @param packagingInformationFactory The factory that creates packaging information for all SIPs in the batch
+   * @param segmentationStrategy A strategy that determines when a worker starts a new SIP
+   * @param fileSupplier A supplier of files in which to store the SIPs
+   * @param numWorkers The number of workers that assemble SIPs concurrently
+   * @param routingKey Function that returns the key that determines which worker a domain object is routed to, or
+   *          <code>null</code> to route domain objects round-robin
+   */
+  public ParallelBatchSipAssembler(Function<PackagingInformationFactory, SipAssembler<D>> assemblerFactory,
+      PackagingInformationFactory packagingInformationFactory, SipSegmentationStrategy<D> segmentationStrategy,
+      Supplier<File> fileSupplier, int numWorkers, Function<? super D, ?> routingKey) {
+    if (numWorkers < 1) {
+      throw new IllegalArgumentException("Need at least one worker");
+    }
+    PackagingInformationFactory sharedFactory = new SharedPackagingInformationFactory(packagingInformationFactory);
+    this.routingKey = routingKey;
+    Supplier<File> sharedFileSupplier = synchronizedSupplier(fileSupplier);
+    for (int i = 0; i < numWorkers; i++) {
+      workers.add(new Worker(assemblerFactory.apply(sharedFactory), segmentationStrategy, sharedFileSupplier));
+    }
+  }
+
+  private static Supplier<File> synchronizedSupplier(Supplier<File> supplier) {
+    Objects.requireNonNull(supplier, "Missing file supplier");
+    return () -> {
+      synchronized (supplier) {
+        return supplier.get();
+      }
+    };
+  }
+
+  /**
+   * Add a domain object to the batch of SIPs. The domain object is assembled asynchronously by one of the workers;
+   * this method only blocks when that worker has too many domain objects waiting.
+   * @param domainObject The domain object to add
+   * @throws IOException When an I/O error occurred while assembling a previously added domain object
+   */
+  public synchronized void add(D domainObject) throws IOException {
+    checkNoFailure();
+    workerFor(domainObject).submit(domainObject);
+    numAdded++;
+  }
+
+  private Worker workerFor(D domainObject) {
+    int index;
+    if (routingKey == null) {
+      index = (int)(numAdded % workers.size());
+    } else {
+      index = Math.floorMod(Objects.hashCode(routingKey.apply(domainObject)), workers.size());
+    }
+    return workers.get(index);
+  }
+
+  private void checkNoFailure() throws IOException {
+    Throwable cause = failure.get();
+    if (cause instanceof IOException) {
+      throw new IOException("Failed to assemble SIP", cause);
+    }
+    if (cause != null) {
+      throw new IllegalStateException("Failed to assemble SIP", cause);
+    }
+  }
+
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    synchronized (sipsMetrics) {
+      sipsMetrics.add(metrics);
+    }
+  }
+
+  /**
+   * End the batch assembly process. The SIPs of all workers are completed, after which the workers are stopped.
+   * @throws IOException When an I/O error occurs
+   */
+  public synchronized void end() throws IOException {
+    List<Worker> used = new ArrayList<>();
+    for (Worker worker : workers) {
+      if (worker.isUsed()) {
+        used.add(worker);
+      }
+    }
+    Worker last = used.isEmpty() ? null : used.remove(used.size() - 1);
+    try {
+      used.forEach(Worker::submitEnd);
+    } finally {
+      stopWorkers();
+    }
+    checkNoFailure();
+    if (last != null) {
+      last.end();
+    }
+  }
+
+  private void stopWorkers() throws IOException {
+    IOException stopFailure = null;
+    for (Worker worker : workers) {
+      try {
+        worker.stop();
+      } catch (IOException e) {
+        // Keep stopping the other workers, which no longer wait once the current thread is interrupted
+        if (stopFailure == null) {
+          stopFailure = e;
+        }
+      }
+    }
+    if (stopFailure != null) {
+      throw stopFailure;
+    }
+  }
+
+  /**
+   * Returns the files that were generated as part of this batch and metrics about the SIPs stored in them.
+   * @return The files that were generated as part of this batch and metrics about the SIPs stored in them
+   */
+  public Collection<FileGenerationMetrics> getSipsMetrics() {
+    synchronized (sipsMetrics) {
+      return Collections.unmodifiableCollection(new ArrayList<>(sipsMetrics));
+    }
+  }
+
+
+  private static class SharedPackagingInformationFactory implements PackagingInformationFactory {
+
+    private final PackagingInformationFactory decorated;
+
+    SharedPackagingInformationFactory(PackagingInformationFactory decorated) {
+      this.decorated = Objects.requireNonNull(decorated, "Missing packaging information factory");
+    }
+
+    @Override
+    public synchronized PackagingInformation newInstance(long aiuCount, Optional<EncodedHash> pdiHash) {
+      return decorated.newInstance(aiuCount, pdiHash);
+    }
+
+    @Override
+    public synchronized void setFinalSipInDss(boolean finalSipInDss) {
+      decorated.setFinalSipInDss(finalSipInDss);
+    }
+
+  }
+
+
+  private class Worker extends BatchSipAssembler<D> {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread result = new Thread(runnable, "sip-assembler-" + NUM_THREADS.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    });
+    private final Semaphore available = new Semaphore(MAX_QUEUED_PER_WORKER);
+    private boolean used;
+
+    Worker(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy, Supplier<File> fileSupplier) {
+      super(assembler, segmentationStrategy, fileSupplier);
+    }
+
+    boolean isUsed() {
+      return used;
+    }
+
+    void submit(D domainObject) throws IOException {
+      used = true;
+      try {
+        available.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while adding domain object", e);
+      }
+      executor.execute(() -> {
+        try {
+          if (failure.get() == null) {
+            add(domainObject);
+          }
+        } catch (IOException | RuntimeException e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          available.release();
+        }
+      });
+    }
+
+    void submitEnd() {
+      executor.execute(() -> {
+        try {
+          if (failure.get() == null) {
+            closeCurrentSip();
+          }
+        } catch (IOException | RuntimeException e) {
+          failure.compareAndSet(null, e);
+        }
+      });
+    }
+
+    void stop() throws IOException {
+      executor.shutdown();
+      try {
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          // Keep waiting for the worker to process its queue
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        executor.shutdownNow();
+        throw new IOException("Interrupted while waiting for SIPs to complete", e);
+      }
+    }
+
+    @Override
+    protected void sipEnded(FileGenerationMetrics metrics) {
+      ParallelBatchSipAssembler.this.sipEnded(metrics);
+    }
+
+  }
+
+}
@@ -15,6 +15,9 @@ import javax.validation.ValidationException;
 import org.apache.commons.io.IOUtils;
 
 import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
 
 /**
  * Base class for assembling a product from domain objects by writing to a {@linkplain PrintWriter}.
@@ -89,6 +92,8 @@ public abstract class PrintWriterAssembler<D> implements Assembler<D> {
   }
 
   private void validate() throws IOException {
+    Timer timer = Instrumentation.timer(MetricNames.VALIDATE);
+    long start = timer.start();
     try (InputStream output = buffer.openForReading()) {
       try {
         validator.validate(output);
@@ -97,6 +102,8 @@ public abstract class PrintWriterAssembler<D> implements Assembler<D> {
           throw new IOException("Invalid content:\n" + IOUtils.toString(actual, StandardCharsets.UTF_8), e);
         }
       }
+    } finally {
+      timer.stop(start);
     }
   }
 
@@ -20,7 +20,11 @@ import com.opentext.ia.sdk.support.io.HashAssembler;
 import com.opentext.ia.sdk.support.io.MemoryBuffer;
 import com.opentext.ia.sdk.support.io.NoHashAssembler;
 import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.sdk.support.io.SpillingBuffer;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
 
 /**
  * Assembles a <a href="http://public.ccsds.org/publications/archive/650x0m2.pdf">Submission Information Package</a>
@@ -43,8 +47,10 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  * The PDI will be assembled from the domain objects by an {@linkplain Assembler} and added to the ZIP by a
  * {@linkplain ZipAssembler}. Each domain object may also contain zero or more {@linkplain DigitalObject}s, which are
  * extracted from the domain object using a {@linkplain DigitalObjectsExtraction} and added to the ZIP. The PDI is
- * written to a {@linkplain DataBuffer} until it is complete. For small PDIs, you can use a {@linkplain MemoryBuffer} to
- * hold this data, but for larger PDIs you should use a {@linkplain FileBuffer} to prevent running out of memory.
+ * written to a {@linkplain DataBuffer} until it is complete, after which the buffer is
+ * {@linkplain DataBuffer#release() released}. For small PDIs, you can use a {@linkplain MemoryBuffer} to hold this data,
+ * but for larger PDIs you should use a {@linkplain FileBuffer} to prevent running out of memory. A
+ * {@linkplain SpillingBuffer} combines the two by moving the PDI to disk once it grows beyond a threshold.
  * <p>
  * Use the following steps to assemble a SIP:
  * <ol>
@@ -73,10 +79,13 @@ public class SipAssembler<D> implements Assembler<D> {
   private final Supplier<? extends DataBuffer> pdiBufferSupplier;
   private final PackagingInformationFactory packagingInformationFactory;
   private final Counters metrics = new Counters();
+  private final SipMetrics liveMetrics = new SipMetrics(metrics.view());
   private final ContentAssembler<D> contentAssembler;
   private DataBuffer pdiBuffer;
   private DataBuffer sipFileBuffer;
   private Optional<EncodedHash> pdiHash;
+  private Timer assemblyTimer = Instrumentation.timer(MetricNames.SIP_ASSEMBLY);
+  private long assemblyStart;
 
   /**
    * Assemble a SIP that contains only structured data and is the only SIP in its DSS.
@@ -264,6 +273,41 @@ public class SipAssembler<D> implements Assembler<D> {
         contentAssembler);
   }
 
+  /**
+   * Assemble a SIP that is the only SIP in its DSS and that stores its PDI in the given type of buffer. Use a
+   * {@linkplain SpillingBuffer} to keep small PDIs in memory while moving large ones to disk.
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @param prototype Prototype for the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param contentAssembler ContentAssembler that adds the digital objects to the SIP
+   * @return The newly created SIP assembler
+   */
+  public static <D> SipAssembler<D> forPdiAndContentWithHashing(PackagingInformation prototype,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, ContentAssembler<D> contentAssembler) {
+    return new SipAssembler<>(new DefaultPackagingInformationFactory(prototype), pdiAssembler, pdiHashAssembler,
+        pdiBufferSupplier, contentAssembler);
+  }
+
+  /**
+   * Assemble a SIP that stores its PDI in the given type of buffer. Use a {@linkplain SpillingBuffer} to keep small
+   * PDIs in memory while moving large ones to disk.
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @param factory Factory for creating the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param contentAssembler ContentAssembler that adds the digital objects to the SIP
+   * @return The newly created SIP assembler
+   */
+  public static <D> SipAssembler<D> forPdiAndContentWithHashing(PackagingInformationFactory factory,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, ContentAssembler<D> contentAssembler) {
+    return new SipAssembler<>(factory, pdiAssembler, pdiHashAssembler, pdiBufferSupplier, contentAssembler);
+  }
+
   /**
    * Create a new instance.
    * @param packagingInformationFactory Factory for creating the Packaging Information
@@ -279,6 +323,24 @@ public class SipAssembler<D> implements Assembler<D> {
         pdiBufferSupplier, new DefaultZipAssembler(), contentAssembler);
   }
 
+  /**
+   * Create a new instance that writes the SIP using the given ZIP assembler, for instance to control how its entries
+   * are compressed.
+   * @param packagingInformationFactory Factory for creating the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI and the unstructured data
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param zipAssembler Assembler that writes the entries of the SIP
+   * @param contentAssembler ContentAssembler that adds the digital objects to the SIP
+   */
+  public SipAssembler(PackagingInformationFactory packagingInformationFactory,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, ZipAssembler zipAssembler,
+      ContentAssembler<D> contentAssembler) {
+    this(packagingInformationFactory, new InfoArchivePackagingInformationAssembler(), pdiAssembler, pdiHashAssembler,
+        pdiBufferSupplier, zipAssembler, contentAssembler);
+  }
+
   SipAssembler(PackagingInformationFactory packagingInformationFactory,
       Assembler<PackagingInformation> packagingInformationAssembler, Assembler<HashedContents<D>> pdiAssembler,
       HashAssembler pdiHashAssembler, Supplier<? extends DataBuffer> pdiBufferSupplier, ZipAssembler zipAssembler,
@@ -298,6 +360,8 @@ public class SipAssembler<D> implements Assembler<D> {
     pdiHash = Optional.empty();
     metrics.reset();
     metrics.set(SipMetrics.ASSEMBLY_TIME, System.currentTimeMillis());
+    assemblyTimer = Instrumentation.timer(MetricNames.SIP_ASSEMBLY);
+    assemblyStart = assemblyTimer.start();
     zip.begin(sipFileBuffer.openForWriting());
     contentAssembler.begin(zip, metrics);
     startPdi();
@@ -313,9 +377,17 @@ public class SipAssembler<D> implements Assembler<D> {
     try {
       Map<String, ContentInfo> contentInfo;
       contentInfo = contentAssembler.addContentsOf(domainObject);
+      long pdiStart = System.nanoTime();
       pdiAssembler.add(new HashedContents<>(domainObject, contentInfo));
+      long pdiTime = System.nanoTime() - pdiStart;
+      metrics.inc(SipMetrics.TIME_PDI_ADD, pdiTime);
+      Instrumentation.timer(MetricNames.PDI_RENDER)
+        .record(pdiTime);
       metrics.inc(SipMetrics.NUM_AIUS);
+      Instrumentation.counter(MetricNames.SIP_AIUS).inc();
       setPdiSize(pdiBuffer.length()); // Approximate PDI size until the end, when we know for sure
+      setPdiSpilledSize();
+      setCompressionSizes();
     } catch (IOException e) {
       throw new RuntimeIoException(e);
     }
@@ -326,23 +398,75 @@ public class SipAssembler<D> implements Assembler<D> {
     metrics.set(SipMetrics.SIZE_SIP, metrics.get(SipMetrics.SIZE_DIGITAL_OBJECTS) + metrics.get(SipMetrics.SIZE_PDI));
   }
 
+  private void setPdiSpilledSize() {
+    if (pdiBuffer instanceof SpillingBuffer) {
+      metrics.set(SipMetrics.SIZE_PDI_SPILLED, ((SpillingBuffer)pdiBuffer).spilledLength());
+    }
+  }
+
+  private void setCompressionSizes() {
+    metrics.set(SipMetrics.SIZE_UNCOMPRESSED, zip.getUncompressedSize());
+    metrics.set(SipMetrics.SIZE_COMPRESSED, zip.getCompressedSize());
+  }
+
   @Override
   public synchronized void end() throws IOException {
+    end(true);
+  }
+
+  /**
+   * End the SIP.
+   * @param commitContent Whether to {@linkplain ContentAssembler#commit() commit} the content of the SIP right away.
+   *          If not, call {@linkplain #commitContent()} once the SIP is ingested, or {@linkplain #discardContent()}
+   *          when it isn't
+   * @throws IOException When an I/O error occurs
+   */
+  public synchronized void end(boolean commitContent) throws IOException {
     try {
       endPdi();
       addPackagingInformation();
     } finally {
       IOUtils.closeQuietly(zip);
+      setCompressionSizes();
       metrics.set(SipMetrics.ASSEMBLY_TIME, System.currentTimeMillis() - metrics.get(SipMetrics.ASSEMBLY_TIME));
       metrics.set(SipMetrics.SIZE_SIP_FILE, sipFileBuffer.length());
+      assemblyTimer.stop(assemblyStart);
     }
+    if (commitContent) {
+      commitContent();
+    }
+  }
+
+  /**
+   * Make the content of the last SIP available for deduplication in later SIPs.
+   * @throws IOException When an I/O error occurs
+   * @see ContentAssembler#commit()
+   */
+  public synchronized void commitContent() throws IOException {
+    contentAssembler.commit();
+  }
+
+  /**
+   * Forget the content of the last SIP, because it won't be ingested.
+   * @see ContentAssembler#discard()
+   */
+  public synchronized void discardContent() {
+    contentAssembler.discard();
   }
 
   private synchronized void endPdi() throws IOException {
     try {
+      long start = System.nanoTime();
       pdiAssembler.end();
+      metrics.inc(SipMetrics.TIME_PDI_VALIDATION, System.nanoTime() - start);
+      setPdiSpilledSize();
+      start = System.nanoTime();
       addPdiToZip();
+      metrics.inc(SipMetrics.TIME_PDI_ZIP, System.nanoTime() - start);
     } finally {
+      if (pdiBuffer != null) {
+        pdiBuffer.release();
+      }
       pdiBuffer = null;
     }
   }
@@ -358,6 +482,7 @@ public class SipAssembler<D> implements Assembler<D> {
   }
 
   private void addPackagingInformation() throws IOException {
+    long start = System.nanoTime();
     DataBuffer buffer = new MemoryBuffer();
     packagingInformationAssembler.start(buffer);
     packagingInformationAssembler.add(packagingInformation());
@@ -365,9 +490,12 @@ public class SipAssembler<D> implements Assembler<D> {
     long packagingInformationSize = buffer.length();
     try (InputStream stream = buffer.openForReading()) {
       zip.addEntry(PACKAGING_INFORMATION_ENTRY, stream, new NoHashAssembler());
+    } finally {
+      buffer.release();
     }
     metrics.set(SipMetrics.SIZE_SIP,
         metrics.get(SipMetrics.SIZE_DIGITAL_OBJECTS) + metrics.get(SipMetrics.SIZE_PDI) + packagingInformationSize);
+    metrics.inc(SipMetrics.TIME_PACKAGING_INFORMATION, System.nanoTime() - start);
   }
 
   private PackagingInformation packagingInformation() {
@@ -379,6 +507,16 @@ public class SipAssembler<D> implements Assembler<D> {
     return new SipMetrics(metrics.forReading());
   }
 
+  /**
+   * Return metrics about the SIP assembly process that reflect the process as it happens. Unlike
+   * {@linkplain #getMetrics()}, this doesn't copy the metrics, so it's cheap enough to call for every domain object.
+   * The metrics are reset when the next SIP is {@linkplain #start(DataBuffer) started}.
+   * @return Live metrics about the SIP assembly process
+   */
+  public SipMetrics getLiveMetrics() {
+    return liveMetrics;
+  }
+
   public PackagingInformationFactory getPackagingInformationFactory() {
     return packagingInformationFactory;
   }
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.api.SipPosition;
+import com.opentext.ia.sdk.support.io.RewindableFileInputStream;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Ingest SIPs on background threads while new SIPs are being assembled, so that assembling one SIP overlaps with
+ * uploading the previous ones, instead of alternating between using the CPU and using the network.
+ * <p>
+ * Finished SIPs are handed to the pipeline using {@linkplain #submit(FileGenerationMetrics)}, or by using the pipeline
+ * as a callback for {@linkplain TimeBasedBatchSipAssembler} (via {@linkplain SipAssemblyTimer}) or
+ * {@linkplain IngestingBatchSipAssembler}. A fixed number of uploaders ingest them using an {@linkplain ArchiveClient}.
+ * When too many SIPs are waiting to be uploaded, submitting another one blocks until an uploader is done, so that SIP
+ * files don't pile up on disk when the network is slower than assembly.
+ * <p>
+ * SIPs of different Data Submission Sessions (DSSs) are uploaded in parallel, but SIPs of the same DSS are uploaded one
+ * after the other, in the order in which they were submitted, as InfoArchive requires. The DSS of a SIP is
+ * {@linkplain SipPosition read} from its packaging information. Once a SIP fails to ingest, the remaining SIPs of its
+ * DSS are reported as failed without being uploaded, since InfoArchive would reject them anyway.
+ * <p>
+ * The outcome of ingesting each SIP is reported to a callback on the uploader's thread. The SIP file is deleted once
+ * its SIP is ingested. When ingestion fails, the file is kept, so that it can be ingested again later.
+ * <p>
+ * {@linkplain #close() Close} the pipeline to wait for all submitted SIPs to be ingested and stop the uploaders.
+ */
+public class SipIngestionPipeline implements Consumer<FileGenerationMetrics>, Closeable {
+
+  /**
+   * The default number of SIPs that are uploaded concurrently.
+   */
+  public static final int DEFAULT_NUM_UPLOADERS = 2;
+  /**
+   * The default number of SIPs that may wait for an uploader before submitting another one blocks.
+   */
+  public static final int DEFAULT_MAX_WAITING = 4;
+
+  private final ArchiveClient archiveClient;
+  private final boolean ingestDirect;
+  private final Consumer<? super SipIngestionResult> callback;
+  private final ExecutorService uploaders;
+  private final Semaphore available;
+  private final Map<String, Lane> lanes = new HashMap<>();
+  private final Set<String> failedDsss = new HashSet<>();
+  private long numUnordered;
+  private volatile boolean closed;
+
+  /**
+   * Create an instance that uses the {@linkplain #DEFAULT_NUM_UPLOADERS default number of uploaders}, allows the
+   * {@linkplain #DEFAULT_MAX_WAITING default number of waiting SIPs}, and ingests using
+   * {@linkplain ArchiveClient#ingest(InputStream)}.
+   * @param archiveClient The client that ingests the SIPs
+   * @param callback The callback that is notified of the outcome of ingesting each SIP
+   */
+  public SipIngestionPipeline(ArchiveClient archiveClient, Consumer<? super SipIngestionResult> callback) {
+    this(archiveClient, false, DEFAULT_NUM_UPLOADERS, DEFAULT_MAX_WAITING, callback);
+  }
+
+  /**
+   * Create an instance.
+   * @param archiveClient The client that ingests the SIPs
+   * @param ingestDirect Whether to ingest using {@linkplain ArchiveClient#ingestDirect(InputStream)}, which only works
+   *          for SIPs that are the only SIP in their Data Submission Session (DSS), rather than
+   *          {@linkplain ArchiveClient#ingest(InputStream)}. SIPs of a DSS with multiple SIPs are then rejected
+   * @param numUploaders The number of SIPs that are uploaded concurrently
+   * @param maxWaiting The number of SIPs that may wait for an uploader before submitting another one blocks
+   * @param callback The callback that is notified of the outcome of ingesting each SIP
+   */
+  public SipIngestionPipeline(ArchiveClient archiveClient, boolean ingestDirect, int numUploaders, int maxWaiting,
+      Consumer<? super SipIngestionResult> callback) {
+    if (numUploaders < 1) {
+      throw new IllegalArgumentException("Need at least one uploader");
+    }
+    if (maxWaiting < 0) {
+      throw new IllegalArgumentException("Maximum number of waiting SIPs must not be negative");
+    }
+    this.archiveClient = Objects.requireNonNull(archiveClient, "Missing archive client");
+    this.ingestDirect = ingestDirect;
+    this.callback = Objects.requireNonNull(callback, "Missing callback");
+    this.uploaders = Executors.newFixedThreadPool(numUploaders);
+    this.available = new Semaphore(numUploaders + maxWaiting);
+  }
+
+  /**
+   * Ingest a SIP asynchronously. This method only blocks when too many SIPs are waiting to be uploaded. SIPs of the
+   * same DSS must be submitted in sequence number order.
+   * @param sip The SIP to ingest
+   * @throws IOException When interrupted while waiting for an uploader to become available
+   * @throws IllegalArgumentException When the pipeline ingests directly and the SIP is part of a DSS with multiple
+   *           SIPs
+   */
+  public void submit(FileGenerationMetrics sip) throws IOException {
+    Objects.requireNonNull(sip, "Missing SIP");
+    if (closed) {
+      throw new IllegalStateException("Pipeline is closed");
+    }
+    SipPosition position = SipPosition.of(sip.getFile()
+      .toPath());
+    if (ingestDirect && position.isKnown() && !position.isOnlyInDss()) {
+      throw new IllegalArgumentException("Can't ingest a SIP directly when its DSS has multiple SIPs: "
+          + sip.getFile());
+    }
+    try {
+      available.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while submitting SIP", e);
+    }
+    synchronized (lanes) {
+      // SIPs without packaging information aren't ordered relative to any other SIP
+      String dssKey = position.isKnown() ? position.getDssKey() : "#" + numUnordered++;
+      Lane lane = lanes.computeIfAbsent(dssKey, Lane::new);
+      lane.waiting.add(new PendingSip(sip, position));
+      if (!lane.running) {
+        try {
+          uploaders.execute(lane);
+        } catch (RuntimeException e) {
+          lanes.remove(dssKey);
+          available.release();
+          throw e;
+        }
+        lane.running = true;
+      }
+    }
+  }
+
+  private SipIngestionResult upload(FileGenerationMetrics sip) {
+    Path path = sip.getFile()
+      .toPath();
+    String aipId;
+    try (InputStream stream = new RewindableFileInputStream(path)) {
+      aipId = ingestDirect ? archiveClient.ingestDirect(stream) : archiveClient.ingest(stream);
+    } catch (IOException | RuntimeException e) {
+      return new SipIngestionResult(sip, null, e);
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // The SIP is ingested, so a left-over file doesn't warrant reporting a failure
+    }
+    return new SipIngestionResult(sip, aipId, null);
+  }
+
+  /**
+   * Ingest a SIP asynchronously, so that this pipeline can be used as a callback for finished SIPs.
+   * @param sip The SIP to ingest
+   * @throws RuntimeIoException When interrupted while waiting for an uploader to become available
+   */
+  @Override
+  public void accept(FileGenerationMetrics sip) {
+    try {
+      submit(sip);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  /**
+   * Wait for all submitted SIPs to be ingested and stop the uploaders.
+   * @throws IOException When interrupted while waiting for SIPs to be ingested
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    uploaders.shutdown();
+    try {
+      while (!uploaders.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Keep waiting for the uploaders to finish
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      uploaders.shutdownNow();
+      throw new IOException("Interrupted while waiting for SIPs to be ingested", e);
+    }
+  }
+
+
+
+  /**
+   * The SIPs of one DSS, which are uploaded one after the other by a single uploader.
+   */
+  private final class Lane implements Runnable {
+
+    private final String dssKey;
+    private final Queue<PendingSip> waiting = new ArrayDeque<>();
+    private boolean running;
+
+    Lane(String dssKey) {
+      this.dssKey = dssKey;
+    }
+
+    @Override
+    public void run() {
+      for (PendingSip sip = next(); sip != null; sip = next()) {
+        try {
+          callback.accept(ingest(sip));
+        } catch (RuntimeException e) {
+          // Keep ingesting the remaining SIPs of the DSS, but don't hide the failing callback
+          Thread thread = Thread.currentThread();
+          thread.getUncaughtExceptionHandler()
+            .uncaughtException(thread, e);
+        } finally {
+          available.release();
+        }
+      }
+    }
+
+    private PendingSip next() {
+      synchronized (lanes) {
+        PendingSip result = waiting.poll();
+        if (result == null) {
+          running = false;
+          lanes.remove(dssKey);
+        }
+        return result;
+      }
+    }
+
+    private SipIngestionResult ingest(PendingSip sip) {
+      boolean previousFailed;
+      synchronized (lanes) {
+        previousFailed = failedDsss.contains(dssKey);
+      }
+      SipIngestionResult result = previousFailed ? skip(sip.sip) : upload(sip.sip);
+      synchronized (lanes) {
+        if (sip.position.isLast()) {
+          failedDsss.remove(dssKey);
+        } else if (!result.isIngested()) {
+          failedDsss.add(dssKey);
+        }
+      }
+      return result;
+    }
+
+    private SipIngestionResult skip(FileGenerationMetrics sip) {
+      return new SipIngestionResult(sip, null,
+          new IllegalStateException("Not ingested because a previous SIP in the same DSS failed to ingest"));
+    }
+
+  }
+
+
+  private static final class PendingSip {
+
+    private final FileGenerationMetrics sip;
+    private final SipPosition position;
+
+    PendingSip(FileGenerationMetrics sip, SipPosition position) {
+      this.sip = sip;
+      this.position = position;
+    }
+
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+
+/**
+ * Outcome of ingesting a SIP: either the ID of the Archival Information Package (AIP) that was generated from it, or
+ * the reason why it couldn't be ingested.
+ */
+public class SipIngestionResult {
+
+  private final FileGenerationMetrics sip;
+  private final String aipId;
+  private final Exception failure;
+
+  SipIngestionResult(FileGenerationMetrics sip, String aipId, Exception failure) {
+    this.sip = sip;
+    this.aipId = aipId;
+    this.failure = failure;
+  }
+
+  /**
+   * Return the SIP that was ingested, and metrics about its assembly. The SIP file is deleted once the SIP is
+   * ingested, but kept when ingestion failed, so that it can be ingested again later.
+   * @return The SIP that was ingested
+   */
+  public FileGenerationMetrics getSip() {
+    return sip;
+  }
+
+  /**
+   * Return whether the SIP was ingested.
+   * @return Whether the SIP was ingested
+   */
+  public boolean isIngested() {
+    return failure == null;
+  }
+
+  /**
+   * Return the ID of the AIP that was generated from the SIP.
+   * @return The ID of the AIP, or <code>null</code> if ingestion failed
+   */
+  public String getAipId() {
+    return aipId;
+  }
+
+  /**
+   * Return the reason why the SIP couldn't be ingested.
+   * @return The reason why ingestion failed, or <code>null</code> if the SIP was ingested
+   */
+  public Exception getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    String result = isIngested() ? "AIP " + aipId : "failure " + failure;
+    return sip.getFile() + ": " + result;
+  }
+
+}
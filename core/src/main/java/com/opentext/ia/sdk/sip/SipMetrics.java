@@ -3,8 +3,21 @@
  */
 package com.opentext.ia.sdk.sip;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Metrics about the {@linkplain SipAssembler SIP assembly process}.
+ * <p>
+ * Depending on where they come from, the metrics are either a snapshot or a {@linkplain SipAssembler#getLiveMetrics()
+ * live view} that reflects the assembly process as it happens.
+ * </p>
+ * <p>
+ * Besides the total {@linkplain #assemblyTime() assembly time}, the time spent in each phase of the assembly is
+ * reported, cumulatively over all AIUs in the SIP and in nanoseconds. When content is assembled on multiple threads,
+ * the time spent on each thread is added up, so phases may take longer in total than the assembly itself.
+ * </p>
  */
 public class SipMetrics implements Metrics {
 
@@ -12,9 +25,26 @@ public class SipMetrics implements Metrics {
   static final String NUM_DIGITAL_OBJECTS = "# digitial objects";
   static final String SIZE_DIGITAL_OBJECTS = "size of digital objects";
   static final String SIZE_PDI = "size of PDI";
+  static final String SIZE_PDI_SPILLED = "size of PDI spilled to disk";
   static final String SIZE_SIP = "size of SIP";
+  static final String SIZE_UNCOMPRESSED = "size of SIP entries before compression";
+  static final String SIZE_COMPRESSED = "size of SIP entries after compression";
   static final String SIZE_SIP_FILE = "size of SIP file";
+  static final String NUM_CONTENT_INDEX_LOOKUPS = "# content index lookups";
+  static final String NUM_CONTENT_INDEX_HITS = "# content index hits";
+  static final String SIZE_CONTENT_INDEX = "# entries in content index";
   static final String ASSEMBLY_TIME = "time to assemble (ms)";
+  static final String TIME_CONTENT_READ = "time to read content (ns)";
+  static final String TIME_CONTENT_HASH = "time to hash content (ns)";
+  static final String TIME_ZIP_WRITE = "time to write content to ZIP (ns)";
+  static final String TIME_PDI_ADD = "time to add to PDI (ns)";
+  static final String TIME_PDI_VALIDATION = "time to end and validate PDI (ns)";
+  static final String TIME_PDI_ZIP = "time to add PDI to ZIP (ns)";
+  static final String TIME_PACKAGING_INFORMATION = "time to add packaging information (ns)";
+  static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(NUM_AIUS, NUM_DIGITAL_OBJECTS,
+      SIZE_DIGITAL_OBJECTS, SIZE_PDI, SIZE_PDI_SPILLED, SIZE_SIP, SIZE_UNCOMPRESSED, SIZE_COMPRESSED, SIZE_SIP_FILE,
+      NUM_CONTENT_INDEX_LOOKUPS, NUM_CONTENT_INDEX_HITS, SIZE_CONTENT_INDEX, ASSEMBLY_TIME, TIME_CONTENT_READ,
+      TIME_CONTENT_HASH, TIME_ZIP_WRITE, TIME_PDI_ADD, TIME_PDI_VALIDATION, TIME_PDI_ZIP, TIME_PACKAGING_INFORMATION));
 
   private final Counters counters;
 
@@ -38,18 +68,108 @@ public class SipMetrics implements Metrics {
     return counters.get(SIZE_PDI);
   }
 
+  public long pdiSpilledSize() {
+    return counters.get(SIZE_PDI_SPILLED);
+  }
+
   public long sipSize() {
     return counters.get(SIZE_SIP);
   }
 
+  public long uncompressedSize() {
+    return counters.get(SIZE_UNCOMPRESSED);
+  }
+
+  public long compressedSize() {
+    return counters.get(SIZE_COMPRESSED);
+  }
+
   public long sipFileSize() {
     return counters.get(SIZE_SIP_FILE);
   }
 
+  public long contentIndexLookups() {
+    return counters.get(NUM_CONTENT_INDEX_LOOKUPS);
+  }
+
+  public long contentIndexHits() {
+    return counters.get(NUM_CONTENT_INDEX_HITS);
+  }
+
+  /**
+   * Returns the fraction of digital objects looked up in the {@linkplain ContentIndex} that were found there.
+   * @return The fraction of content index lookups that were hits, or 0 when there were no lookups
+   */
+  public double contentIndexHitRate() {
+    long lookups = contentIndexLookups();
+    return lookups == 0 ? 0 : (double)contentIndexHits() / lookups;
+  }
+
+  public long contentIndexSize() {
+    return counters.get(SIZE_CONTENT_INDEX);
+  }
+
   public long assemblyTime() {
     return counters.get(ASSEMBLY_TIME);
   }
 
+  /**
+   * Returns the time spent opening and reading digital objects.
+   * @return The time spent reading content, in nanoseconds
+   */
+  public long contentReadTime() {
+    return counters.get(TIME_CONTENT_READ);
+  }
+
+  /**
+   * Returns the time spent hashing digital objects.
+   * @return The time spent hashing content, in nanoseconds
+   */
+  public long contentHashTime() {
+    return counters.get(TIME_CONTENT_HASH);
+  }
+
+  /**
+   * Returns the time spent adding digital objects to the ZIP, excluding reading and hashing them. This includes
+   * compressing them.
+   * @return The time spent writing content to the ZIP, in nanoseconds
+   */
+  public long zipWriteTime() {
+    return counters.get(TIME_ZIP_WRITE);
+  }
+
+  /**
+   * Returns the time spent adding AIUs to the PDI.
+   * @return The time spent adding to the PDI, in nanoseconds
+   */
+  public long pdiAddTime() {
+    return counters.get(TIME_PDI_ADD);
+  }
+
+  /**
+   * Returns the time spent ending the PDI, which is mostly validating it.
+   * @return The time spent validating the PDI, in nanoseconds
+   */
+  public long pdiValidationTime() {
+    return counters.get(TIME_PDI_VALIDATION);
+  }
+
+  /**
+   * Returns the time spent copying the PDI into the ZIP.
+   * @return The time spent adding the PDI to the ZIP, in nanoseconds
+   */
+  public long pdiZipTime() {
+    return counters.get(TIME_PDI_ZIP);
+  }
+
+  /**
+   * Returns the time spent assembling the packaging information and adding it to the ZIP.
+   * @return The time spent on packaging information, in nanoseconds
+   */
+  public long packagingInformationTime() {
+    return counters.get(TIME_PACKAGING_INFORMATION);
+  }
+
   @Override
   public String toString() {
     return counters.toString();
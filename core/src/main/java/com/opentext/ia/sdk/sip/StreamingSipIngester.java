@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.FileBuffer;
+import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.sdk.support.io.PipeBuffer;
+import com.opentext.ia.sdk.support.io.RewindableFileInputStream;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Assemble a SIP and {@linkplain ArchiveClient#ingestDirect(InputStream) ingest} it at the same time, by streaming
+ * the output of the {@linkplain SipAssembler} straight into the upload through a {@linkplain PipeBuffer}. The SIP is
+ * never written to disk, which suits environments with little disk space. Since the packaging information is the last
+ * entry that a {@linkplain SipAssembler} writes, it can be computed once all domain objects are added, while the
+ * upload is already under way.
+ * <p>
+ * A streamed SIP can't be uploaded again, so when streaming fails, the SIP can optionally be assembled again, from the
+ * same domain objects, into a file that is then ingested instead. That file is deleted once the SIP is ingested, and
+ * kept when ingesting it fails too, so that it can be ingested later.
+ * </p>
+ * <p>
+ * The content of a SIP is only {@linkplain SipAssembler#commitContent() committed} once the SIP is ingested, so that
+ * later SIPs never refer to content in a SIP that failed to ingest.
+ * </p>
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class StreamingSipIngester<D> implements Closeable {
+
+  private final SipAssembler<D> assembler;
+  private final ArchiveClient archiveClient;
+  private final int pipeCapacity;
+  private final Supplier<File> fallbackFileSupplier;
+  private final ExecutorService uploader = Executors.newSingleThreadExecutor();
+
+  /**
+   * Create an instance that doesn't fall back to assembling SIPs in files when streaming fails.
+   * @param assembler The assembler that builds up the SIPs
+   * @param archiveClient The client that ingests the SIPs
+   */
+  public StreamingSipIngester(SipAssembler<D> assembler, ArchiveClient archiveClient) {
+    this(assembler, archiveClient, PipeBuffer.DEFAULT_CAPACITY, null);
+  }
+
+  /**
+   * Create an instance that falls back to assembling SIPs in temporary files when streaming fails.
+   * @param assembler The assembler that builds up the SIPs
+   * @param archiveClient The client that ingests the SIPs
+   * @param fallbackDir Directory in which to assemble SIPs when streaming them fails
+   */
+  public StreamingSipIngester(SipAssembler<D> assembler, ArchiveClient archiveClient, File fallbackDir) {
+    this(assembler, archiveClient, PipeBuffer.DEFAULT_CAPACITY, FileSupplier.fromDirectory(fallbackDir));
+  }
+
+  /**
+   * Create an instance.
+   * @param assembler The assembler that builds up the SIPs
+   * @param archiveClient The client that ingests the SIPs
+   * @param pipeCapacity The number of bytes of the SIP that may be assembled ahead of the upload
+   * @param fallbackFileSupplier Supplier of files in which to assemble SIPs when streaming them fails, or
+   *          <code>null</code> to not fall back
+   */
+  public StreamingSipIngester(SipAssembler<D> assembler, ArchiveClient archiveClient, int pipeCapacity,
+      Supplier<File> fallbackFileSupplier) {
+    this.assembler = Objects.requireNonNull(assembler, "Missing assembler");
+    this.archiveClient = Objects.requireNonNull(archiveClient, "Missing archive client");
+    this.pipeCapacity = pipeCapacity;
+    this.fallbackFileSupplier = fallbackFileSupplier;
+  }
+
+  /**
+   * Assemble a SIP from the given domain objects and ingest it. The domain objects are iterated over a second time
+   * when streaming fails and this ingester falls back to assembling the SIP in a file.
+   * @param domainObjects The domain objects to assemble the SIP from
+   * @return The ID of the Archival Information Package (AIP) that was generated from the SIP
+   * @throws IOException When the SIP couldn't be assembled or ingested
+   */
+  public String ingest(Iterable<? extends D> domainObjects) throws IOException {
+    try {
+      return stream(domainObjects);
+    } catch (IOException e) {
+      if (fallbackFileSupplier == null) {
+        throw e;
+      }
+      try {
+        return ingestFromFile(domainObjects);
+      } catch (IOException fallbackFailure) {
+        fallbackFailure.addSuppressed(e);
+        throw fallbackFailure;
+      }
+    }
+  }
+
+  private String stream(Iterable<? extends D> domainObjects) throws IOException {
+    PipeBuffer pipe = new PipeBuffer(pipeCapacity);
+    InputStream sip = pipe.openForReading();
+    Future<String> upload = uploader.submit(() -> {
+      try (InputStream stream = sip) {
+        return archiveClient.ingestDirect(stream);
+      }
+    });
+    try {
+      assemble(domainObjects, pipe);
+    } catch (IOException | RuntimeException e) {
+      // When the upload fails first, the assembler can no longer write, so the upload failure is the real cause
+      boolean uploadFailedFirst = pipe.isClosedByReader();
+      // Fail the pipe before ending the assembler, so that the partial SIP is never mistaken for a complete one
+      pipe.fail(e);
+      endQuietly();
+      IOException failure = uploadFailure(upload);
+      if (failure != null && uploadFailedFirst) {
+        failure.addSuppressed(e);
+        throw failure;
+      }
+      if (failure != null) {
+        e.addSuppressed(failure);
+      }
+      throw e;
+    }
+    String result;
+    try {
+      result = await(upload);
+    } catch (IOException | RuntimeException e) {
+      assembler.discardContent();
+      throw e;
+    }
+    assembler.commitContent();
+    return result;
+  }
+
+  private void assemble(Iterable<? extends D> domainObjects, DataBuffer buffer) throws IOException {
+    assembler.start(buffer);
+    try {
+      for (D domainObject : domainObjects) {
+        assembler.add(domainObject);
+      }
+    } catch (RuntimeIoException e) {
+      throw e.getCause();
+    }
+    // Later SIPs may only refer to the content of this one once it's ingested
+    assembler.end(false);
+  }
+
+  private void endQuietly() {
+    try {
+      assembler.end(false);
+    } catch (IOException | RuntimeException e) {
+      // The SIP is incomplete anyway; this only releases resources
+    }
+    assembler.discardContent();
+  }
+
+  private IOException uploadFailure(Future<String> upload) {
+    try {
+      await(upload);
+      return null;
+    } catch (IOException e) {
+      return e;
+    }
+  }
+
+  private String await(Future<String> upload) throws IOException {
+    try {
+      return upload.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      upload.cancel(true);
+      throw new IOException("Interrupted while ingesting SIP", e);
+    } catch (ExecutionException e) {
+      throw toIoException(e);
+    }
+  }
+
+  private IOException toIoException(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException)cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException)cause;
+    }
+    return new IOException("Failed to ingest SIP", cause);
+  }
+
+  private String ingestFromFile(Iterable<? extends D> domainObjects) throws IOException {
+    File file = fallbackFileSupplier.get();
+    try {
+      assemble(domainObjects, new FileBuffer(file));
+    } catch (IOException | RuntimeException e) {
+      endQuietly();
+      throw e;
+    }
+    String result;
+    try (InputStream sip = new RewindableFileInputStream(file.toPath())) {
+      result = archiveClient.ingestDirect(sip);
+    } catch (IOException e) {
+      assembler.discardContent();
+      throw new IOException("Failed to ingest SIP; it's kept in " + file + " for later", e);
+    }
+    assembler.commitContent();
+    Files.deleteIfExists(file.toPath());
+    return result;
+  }
+
+  /**
+   * Stop the thread that uploads SIPs.
+   */
+  @Override
+  public void close() {
+    uploader.shutdown();
+  }
+
+}
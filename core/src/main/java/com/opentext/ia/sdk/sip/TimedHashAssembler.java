@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+
+
+/**
+ * {@linkplain HashAssembler} that keeps track of how long another hash assembler takes to hash content.
+ */
+final class TimedHashAssembler implements HashAssembler {
+
+  private final HashAssembler delegate;
+  private long nanos;
+
+  TimedHashAssembler(HashAssembler delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void initialize() {
+    nanos = 0;
+    delegate.initialize();
+  }
+
+  @Override
+  public void add(byte[] buffer, int length) {
+    long start = System.nanoTime();
+    delegate.add(buffer, length);
+    nanos += System.nanoTime() - start;
+  }
+
+  @Override
+  public void add(ByteBuffer buffer) {
+    long start = System.nanoTime();
+    delegate.add(buffer);
+    nanos += System.nanoTime() - start;
+  }
+
+  @Override
+  public Collection<EncodedHash> get() {
+    long start = System.nanoTime();
+    try {
+      return delegate.get();
+    } finally {
+      nanos += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public long numBytesHashed() {
+    return delegate.numBytesHashed();
+  }
+
+  /**
+   * Return the time spent hashing since the last {@linkplain #initialize() initialization}.
+   * @return The time spent hashing, in nanoseconds
+   */
+  long getNanos() {
+    return nanos;
+  }
+
+}
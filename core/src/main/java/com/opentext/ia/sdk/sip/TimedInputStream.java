@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+
+/**
+ * Stream that keeps track of how long it takes to read content, including opening it, so that time spent waiting on
+ * the source of a {@linkplain DigitalObject} can be told apart from time spent processing its content.
+ */
+final class TimedInputStream extends FilterInputStream {
+
+  private long nanos;
+
+  /**
+   * Time reading content that is already open.
+   * @param in The content to read
+   */
+  TimedInputStream(InputStream in) {
+    super(in);
+  }
+
+  /**
+   * Open content and time reading it.
+   * @param content The supplier of the content to read
+   * @return A stream that reads the content and times doing so
+   */
+  static TimedInputStream open(Supplier<? extends InputStream> content) {
+    long start = System.nanoTime();
+    TimedInputStream result = new TimedInputStream(content.get());
+    result.nanos = System.nanoTime() - start;
+    return result;
+  }
+
+  @Override
+  public int read() throws IOException {
+    long start = System.nanoTime();
+    try {
+      return super.read();
+    } finally {
+      nanos += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return super.read(buffer, offset, length);
+    } finally {
+      nanos += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return super.skip(n);
+    } finally {
+      nanos += System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Return the time spent opening and reading the content.
+   * @return The time spent opening and reading the content, in nanoseconds
+   */
+  long getNanos() {
+    return nanos;
+  }
+
+}
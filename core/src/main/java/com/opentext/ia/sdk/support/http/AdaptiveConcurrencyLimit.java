@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http;
+
+
+/**
+ * Limit on the number of concurrent requests to a server that adapts to how well the server copes, using Additive
+ * Increase / Multiplicative Decrease (AIMD).
+ * <p>
+ * Callers {@linkplain #acquire() acquire} a ticket before sending a request, which blocks while the limit is reached,
+ * and report the outcome of the request with that ticket. While requests succeed without their latency rising, the
+ * limit grows by one for every <em>limit</em> successful requests, as long as at least half of it is used. When the
+ * server is overloaded, e.g. when it responds with <code>503 Service Unavailable</code> or times out, the limit is
+ * halved. When latency rises well above the lowest latency seen recently, the limit is lowered more gently. Only
+ * requests that were sent after the last decrease can decrease the limit again, so that a burst of failures caused by
+ * the same overload doesn't collapse the limit.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  /**
+   * The default number of concurrent requests to start with.
+   */
+  public static final int DEFAULT_INITIAL_LIMIT = 2;
+  /**
+   * The default maximum number of concurrent requests.
+   */
+  public static final int DEFAULT_MAX_LIMIT = 64;
+
+  private static final double OVERLOAD_BACKOFF = 0.5;
+  private static final double LATENCY_BACKOFF = 0.9;
+  private static final double LATENCY_TOLERANCE = 2.0;
+  private static final double RECENT_LATENCY_WEIGHT = 0.2;
+  private static final double BASELINE_LATENCY_WEIGHT = 0.01;
+
+  private final Object lock = new Object();
+  private final int minLimit;
+  private final int maxLimit;
+  private double limit;
+  private int inFlight;
+  private long nextTicket;
+  private long firstTicketAfterDecrease;
+  private double recentLatency;
+  private double baselineLatency;
+
+  /**
+   * Create an instance that starts at the {@linkplain #DEFAULT_INITIAL_LIMIT default initial limit} and grows to at
+   * most the {@linkplain #DEFAULT_MAX_LIMIT default maximum limit}.
+   */
+  public AdaptiveConcurrencyLimit() {
+    this(DEFAULT_INITIAL_LIMIT, 1, DEFAULT_MAX_LIMIT);
+  }
+
+  /**
+   * Create an instance.
+   * @param initialLimit The number of concurrent requests to start with
+   * @param minLimit The number of concurrent requests that is always allowed
+   * @param maxLimit The maximum number of concurrent requests
+   */
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit < 1) {
+      throw new IllegalArgumentException("Minimum limit must be at least one");
+    }
+    if (initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Initial limit must be between minimum and maximum limit");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = initialLimit;
+  }
+
+  /**
+   * Wait until another request may be sent.
+   * @return The ticket to report the outcome of the request with
+   * @throws InterruptedException When interrupted while waiting
+   */
+  public long acquire() throws InterruptedException {
+    synchronized (lock) {
+      while (inFlight >= getLimit()) {
+        lock.wait();
+      }
+      inFlight++;
+      return nextTicket++;
+    }
+  }
+
+  /**
+   * Report that a request succeeded.
+   * @param ticket The ticket that was {@linkplain #acquire() acquired} for the request
+   * @param latency How long the request took (ns)
+   */
+  public void onSuccess(long ticket, long latency) {
+    synchronized (lock) {
+      boolean used = 2 * inFlight >= getLimit();
+      release();
+      updateLatency(latency);
+      if (recentLatency > LATENCY_TOLERANCE * baselineLatency) {
+        decrease(ticket, LATENCY_BACKOFF);
+      } else if (used) {
+        setLimit(Math.min(maxLimit, limit + 1 / limit));
+      }
+    }
+  }
+
+  private void release() {
+    inFlight--;
+    lock.notifyAll();
+  }
+
+  private void updateLatency(long latency) {
+    if (recentLatency == 0) {
+      recentLatency = latency;
+      baselineLatency = latency;
+      return;
+    }
+    recentLatency += RECENT_LATENCY_WEIGHT * (latency - recentLatency);
+    if (recentLatency < baselineLatency) {
+      baselineLatency = recentLatency;
+    } else {
+      // Let the baseline drift up slowly, so that a lasting change in the server's latency is eventually accepted
+      baselineLatency += BASELINE_LATENCY_WEIGHT * (recentLatency - baselineLatency);
+    }
+  }
+
+  private void decrease(long ticket, double backoff) {
+    if (ticket >= firstTicketAfterDecrease) {
+      setLimit(Math.max(minLimit, limit * backoff));
+      firstTicketAfterDecrease = nextTicket;
+    }
+  }
+
+  private void setLimit(double newLimit) {
+    boolean grows = (int)newLimit > getLimit();
+    limit = newLimit;
+    if (grows) {
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Report that a request failed because the server is overloaded.
+   * @param ticket The ticket that was {@linkplain #acquire() acquired} for the request
+   */
+  public void onOverload(long ticket) {
+    synchronized (lock) {
+      release();
+      decrease(ticket, OVERLOAD_BACKOFF);
+    }
+  }
+
+  /**
+   * Report that a request failed for a reason that says nothing about the load on the server.
+   * @param ticket The ticket that was {@linkplain #acquire() acquired} for the request
+   */
+  public void onFailure(long ticket) {
+    synchronized (lock) {
+      release();
+    }
+  }
+
+  /**
+   * Return the number of requests that may currently be sent concurrently.
+   * @return The current limit
+   */
+  public int getLimit() {
+    synchronized (lock) {
+      return (int)limit;
+    }
+  }
+
+  /**
+   * Return the number of requests that are currently being sent.
+   * @return The number of requests in flight
+   */
+  public int getInFlight() {
+    synchronized (lock) {
+      return inFlight;
+    }
+  }
+
+  @Override
+  public String toString() {
+    synchronized (lock) {
+      return String.format("%d/%d in flight", inFlight, getLimit());
+    }
+  }
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Client that communicates with a server over HTTP without blocking the calling thread, or any other thread, while a
+ * request is in flight.
+ */
+public interface AsyncHttpClient {
+
+  /**
+   * Post a multipart form. Cancelling the returned future aborts the request.
+   * @param <T> The type of the response
+   * @param uri The URI to post to
+   * @param headers The headers of the request
+   * @param type The type to map the JSON response to
+   * @param parts The parts of the form
+   * @return The response, or an {@linkplain HttpException} when the server responds with an error
+   */
+  <T> CompletableFuture<T> post(String uri, Collection<Header> headers, Class<T> type, Part... parts);
+
+  void close();
+
+}
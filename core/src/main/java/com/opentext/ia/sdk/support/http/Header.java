@@ -15,6 +15,8 @@ public class Header implements Comparable<Header> {
   private final String value;
   public static final String CONTENT_TYPE = "Content-Type";
   public static final String ACCEPT = "Accept";
+  public static final String RANGE = "Range";
+  public static final String CONTENT_RANGE = "Content-Range";
 
   public Header(String name, String value) {
     this.name = name;
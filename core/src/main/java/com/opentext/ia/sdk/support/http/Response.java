@@ -19,6 +19,8 @@ public interface Response extends Closeable {
 
   int getHeaderValue(String name, int defaultValue);
 
+  long getHeaderValue(String name, long defaultValue);
+
   InputStream getBody() throws IOException;
 
 }
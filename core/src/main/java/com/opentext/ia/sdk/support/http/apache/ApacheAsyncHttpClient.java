@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http.apache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opentext.ia.sdk.support.http.AsyncHttpClient;
+import com.opentext.ia.sdk.support.http.BinaryPart;
+import com.opentext.ia.sdk.support.http.Header;
+import com.opentext.ia.sdk.support.http.HttpException;
+import com.opentext.ia.sdk.support.http.Part;
+import com.opentext.ia.sdk.support.http.TextPart;
+
+
+/**
+ * Implementation of {@linkplain AsyncHttpClient} using the non-blocking
+ * <a href="https://hc.apache.org/httpcomponents-asyncclient-4.1.x/">Apache HttpAsyncClient</a> library. A few I/O
+ * threads multiplex all requests, so the number of requests in flight is bounded by the size of the connection pool,
+ * not by a number of threads.
+ * <p>
+ * The content of {@linkplain BinaryPart binary parts} is read on the I/O threads, so it must be readable without
+ * blocking for long, like a file. Multipart bodies are sent with chunked transfer encoding, like
+ * {@linkplain ApacheHttpClient} does for streamed content.
+ */
+public class ApacheAsyncHttpClient implements AsyncHttpClient {
+
+  /**
+   * The default maximum number of connections, and therefore of requests in flight.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS = 200;
+
+  private static final String MISSING_URI = "Missing URI";
+  private static final int STATUS_CODE_RANGE_MIN = 200;
+  private static final int STATUS_CODE_RANGE_MAX = 300;
+  private static final String CRLF = "\r\n";
+  private static final char[] BOUNDARY_CHARS = "-_1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+    .toCharArray();
+  private static final int BOUNDARY_LENGTH = 30;
+
+  private final CloseableHttpAsyncClient client;
+  private final ObjectMapper mapper;
+
+  public ApacheAsyncHttpClient() {
+    this(DEFAULT_MAX_CONNECTIONS);
+  }
+
+  public ApacheAsyncHttpClient(int maxConnections) {
+    this(HttpAsyncClients.custom()
+      .setMaxConnTotal(maxConnections)
+      .setMaxConnPerRoute(maxConnections));
+  }
+
+  public ApacheAsyncHttpClient(int maxConnections, String proxyHost, int proxyPort) {
+    this(HttpAsyncClients.custom()
+      .setMaxConnTotal(maxConnections)
+      .setMaxConnPerRoute(maxConnections)
+      .setProxy(new HttpHost(proxyHost, proxyPort)));
+  }
+
+  private ApacheAsyncHttpClient(HttpAsyncClientBuilder builder) {
+    client = builder.build();
+    client.start();
+    mapper = new ObjectMapper();
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> post(String uri, Collection<Header> headers, Class<T> type, Part... parts) {
+    Objects.requireNonNull(uri, MISSING_URI);
+    HttpPost request = new HttpPost(uri);
+    for (Header header : headers) {
+      request.addHeader(header.getName(), header.getValue());
+    }
+    request.setEntity(newMultipartEntity(parts));
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<HttpResponse> response = client.execute(request, new FutureCallback<HttpResponse>() {
+      @Override
+      public void completed(HttpResponse httpResponse) {
+        try {
+          result.complete(read(request, httpResponse, type));
+        } catch (IOException | RuntimeException e) {
+          result.completeExceptionally(e);
+        }
+      }
+
+      @Override
+      public void failed(Exception e) {
+        result.completeExceptionally(e instanceof IOException ? new HttpException(500, e) : e);
+      }
+
+      @Override
+      public void cancelled() {
+        result.cancel(false);
+      }
+    });
+    result.whenComplete((value, failure) -> {
+      if (failure != null) {
+        response.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private HttpEntity newMultipartEntity(Part... parts) {
+    String boundary = newBoundary();
+    List<InputStream> content = new ArrayList<>();
+    StringBuilder text = new StringBuilder();
+    for (Part part : parts) {
+      text.append("--")
+        .append(boundary)
+        .append(CRLF)
+        .append("Content-Disposition: form-data; name=\"")
+        .append(part.getName())
+        .append('"');
+      if (part instanceof BinaryPart) {
+        text.append("; filename=\"")
+          .append(((BinaryPart)part).getDownloadName())
+          .append('"');
+      }
+      text.append(CRLF)
+        .append("Content-Type: ")
+        .append(part.getMediaType())
+        .append(CRLF)
+        .append(CRLF);
+      if (part instanceof TextPart) {
+        text.append(((TextPart)part).getText());
+      } else {
+        content.add(toStream(text));
+        content.add(((BinaryPart)part).getData());
+      }
+      text.append(CRLF);
+    }
+    text.append("--")
+      .append(boundary)
+      .append("--")
+      .append(CRLF);
+    content.add(toStream(text));
+    InputStreamEntity result = new InputStreamEntity(new SequenceInputStream(Collections.enumeration(content)),
+        ContentType.create("multipart/form-data", new BasicNameValuePair("boundary", boundary)));
+    result.setChunked(true);
+    return result;
+  }
+
+  private String newBoundary() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    char[] result = new char[BOUNDARY_LENGTH];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = BOUNDARY_CHARS[random.nextInt(BOUNDARY_CHARS.length)];
+    }
+    return new String(result);
+  }
+
+  private InputStream toStream(StringBuilder text) {
+    InputStream result = new ByteArrayInputStream(text.toString()
+      .getBytes(StandardCharsets.UTF_8));
+    text.setLength(0);
+    return result;
+  }
+
+  private <T> T read(HttpPost request, HttpResponse response, Class<T> type) throws IOException {
+    StatusLine statusLine = response.getStatusLine();
+    int status = statusLine.getStatusCode();
+    HttpEntity entity = response.getEntity();
+    String body = entity == null ? "" : EntityUtils.toString(entity);
+    if (status < STATUS_CODE_RANGE_MIN || status >= STATUS_CODE_RANGE_MAX) {
+      throw new HttpException(status, String.format("%n%s %s%n==> %d %s%n%s", request.getMethod(), request.getURI(),
+          status, statusLine.getReasonPhrase(), body));
+    }
+    if (type == null || body.isEmpty()) {
+      return null;
+    }
+    if (type.equals(String.class)) {
+      return type.cast(body);
+    }
+    return mapper.readValue(body, type);
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(client);
+  }
+
+}
@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.http.apache;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -44,10 +45,11 @@ import com.opentext.ia.sdk.support.http.Header;
 import com.opentext.ia.sdk.support.http.HttpClient;
 import com.opentext.ia.sdk.support.http.HttpException;
 import com.opentext.ia.sdk.support.http.Part;
+import com.opentext.ia.sdk.support.http.Response;
+import com.opentext.ia.sdk.support.http.ResponseBodyFactory;
 import com.opentext.ia.sdk.support.http.ResponseFactory;
 import com.opentext.ia.sdk.support.http.TextPart;
 import com.opentext.ia.sdk.support.http.UriBuilder;
-import com.opentext.ia.sdk.support.io.ByteArrayInputOutputStream;
 import com.opentext.ia.sdk.support.io.RuntimeIoException;
 
 
@@ -127,6 +129,9 @@ public class ApacheHttpClient implements HttpClient {
   @SuppressWarnings("PMD.AvoidRethrowingException")
   protected <T> T execute(HttpRequestBase request, Class<T> type) throws IOException {
     Objects.requireNonNull(request, "Missing request");
+    if (InputStream.class.equals(type)) {
+      return type.cast(execute(request, new StreamingBodyFactory(request)));
+    }
     try {
       return client.execute(request, getResponseHandler(request.getMethod(), request.getURI().toString(),
           request.getAllHeaders(), type));
@@ -192,14 +197,12 @@ public class ApacheHttpClient implements HttpClient {
       try {
         StatusLine statusLine = response.getStatusLine();
         int status = statusLine.getStatusCode();
-        HttpEntity entity = response.getEntity();
-        boolean isBinary = InputStream.class.equals(type);
-        String body = isBinary ? "<binary>" : toString(entity);
+        String body = toString(response.getEntity());
         if (!isOk(status)) {
           throw new HttpException(status, String.format("%n%s %s%n%s==> %d %s%n%s%s", method, uri, toString(headers),
               status, statusLine.getReasonPhrase(), toString(response.getAllHeaders()), body));
         }
-        return isBinary ? binaryResponse(entity, type) : textResponse(body, type);
+        return textResponse(body, type);
       } finally {
         if (response instanceof CloseableHttpResponse) {
           IOUtils.closeQuietly((CloseableHttpResponse)response);
@@ -221,15 +224,6 @@ public class ApacheHttpClient implements HttpClient {
     return STATUS_CODE_RANGE_MIN <= status && status < STATUS_CODE_RANGE_MAX;
   }
 
-  private <T> T binaryResponse(HttpEntity entity, Class<T> type) throws IOException {
-    try (ByteArrayInputOutputStream output = new ByteArrayInputOutputStream()) {
-      try (InputStream input = entity.getContent()) {
-        IOUtils.copy(input, output);
-      }
-      return type.cast(output.getInputStream());
-    }
-  }
-
   private <T> T textResponse(String body, Class<T> type) {
     if (type == null) {
       return null;
@@ -340,4 +334,59 @@ public class ApacheHttpClient implements HttpClient {
     return new ApacheUriBuilder(baseUri);
   }
 
+
+  /**
+   * Returns the body of a response as a stream that reads directly from the connection, so that the body is never
+   * held in memory as a whole. Closing the stream releases the connection. When the body wasn't read completely, the
+   * request is aborted rather than reading the rest of the body just to be able to reuse the connection.
+   */
+  private static class StreamingBodyFactory extends ResponseBodyFactory<InputStream> {
+
+    private final HttpRequestBase request;
+
+    StreamingBodyFactory(HttpRequestBase request) {
+      this.request = request;
+    }
+
+    @Override
+    protected InputStream doCreate(Response response, InputStream resultStream, Runnable closeResult) {
+      return new FilterInputStream(resultStream) {
+
+        private boolean atEnd;
+        private boolean closed;
+
+        @Override
+        public int read() throws IOException {
+          return atEnd(super.read());
+        }
+
+        private int atEnd(int numRead) {
+          if (numRead < 0) {
+            atEnd = true;
+          }
+          return numRead;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+          return atEnd(super.read(buffer, offset, length));
+        }
+
+        @Override
+        public void close() {
+          if (closed) {
+            return;
+          }
+          closed = true;
+          if (!atEnd) {
+            request.abort();
+          }
+          closeResult.run();
+        }
+
+      };
+    }
+
+  }
+
 }
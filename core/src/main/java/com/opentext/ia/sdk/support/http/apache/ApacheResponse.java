@@ -46,6 +46,11 @@ public class ApacheResponse implements Response {
     return Integer.parseInt(getHeaderValue(name, Integer.toString(defaultValue)));
   }
 
+  @Override
+  public long getHeaderValue(String name, long defaultValue) {
+    return Long.parseLong(getHeaderValue(name, Long.toString(defaultValue)));
+  }
+
   @Override
   public InputStream getBody() throws IOException {
     HttpEntity entity = wrapped.getEntity();
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.opentext.ia.sdk.support.http.Header;
+import com.opentext.ia.sdk.support.http.HttpException;
+import com.opentext.ia.sdk.support.http.Response;
+import com.opentext.ia.sdk.support.http.ResponseBodyFactory;
+import com.opentext.ia.sdk.support.http.ResponseFactory;
+import com.opentext.ia.sdk.support.io.BufferPool;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.FileHashes;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Download a resource to a file in segments, using concurrent HTTP
+ * <a href="https://tools.ietf.org/html/rfc7233">range requests</a>. This gets around the throughput limit of a single
+ * TCP connection over links with high latency.
+ * <p>
+ * The first segment is fetched on the calling thread. Its <code>Content-Range</code> header gives the length of the
+ * resource, so that the file can be allocated and the remaining segments fetched concurrently, each written at its own
+ * position in the file. When the server ignores the range and sends the whole resource instead, or doesn't know its
+ * length, the resource is downloaded in one piece.
+ */
+public class RangedDownloader {
+
+  /**
+   * The default number of segments that are fetched concurrently.
+   */
+  public static final int DEFAULT_NUM_CONNECTIONS = 4;
+  /**
+   * The default size of a segment, in bytes.
+   */
+  public static final long DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int STATUS_RANGE_NOT_SATISFIABLE = 416;
+  private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+|\\*)");
+  private static final ResponseFactory<Segment> SEGMENT_FACTORY = new ResponseBodyFactory<Segment>() {
+    @Override
+    protected Segment doCreate(Response response, InputStream resultStream, Runnable closeResult) {
+      return new Segment(response.getHeaderValue(Header.CONTENT_RANGE, null), resultStream, closeResult);
+    }
+  };
+
+  private final RestClient restClient;
+  private final int numConnections;
+  private final long segmentSize;
+
+  /**
+   * Create an instance that fetches the {@linkplain #DEFAULT_NUM_CONNECTIONS default number of segments} of the
+   * {@linkplain #DEFAULT_SEGMENT_SIZE default size} concurrently.
+   * @param restClient The client to fetch segments with
+   */
+  public RangedDownloader(RestClient restClient) {
+    this(restClient, DEFAULT_NUM_CONNECTIONS, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Create an instance.
+   * @param restClient The client to fetch segments with
+   * @param numConnections The number of segments that are fetched concurrently
+   * @param segmentSize The size of a segment, in bytes
+   */
+  public RangedDownloader(RestClient restClient, int numConnections, long segmentSize) {
+    if (numConnections < 1) {
+      throw new IllegalArgumentException("Need at least one connection");
+    }
+    if (segmentSize < 1) {
+      throw new IllegalArgumentException("Segments must have at least one byte");
+    }
+    this.restClient = Objects.requireNonNull(restClient, "Missing REST client");
+    this.numConnections = numConnections;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Download a resource to a file.
+   * @param uri The URI of the resource
+   * @param target The file to write the resource to. An existing file is replaced
+   * @param expectedHash The hash the downloaded resource must have, or <code>null</code> when it's not known
+   * @return The number of bytes downloaded
+   * @throws IOException When the resource can't be downloaded, or doesn't have the expected hash. The partially
+   *           downloaded file is removed
+   */
+  public long download(String uri, Path target, EncodedHash expectedHash) throws IOException {
+    FileChannel file = FileChannel.open(Objects.requireNonNull(target, "Missing target"), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    boolean downloaded = false;
+    try {
+      long result;
+      try (FileChannel channel = file) {
+        result = download(uri, channel);
+      }
+      if (expectedHash != null) {
+        FileHashes.verify(target, expectedHash);
+      }
+      downloaded = true;
+      return result;
+    } finally {
+      if (!downloaded) {
+        Files.deleteIfExists(target);
+      }
+    }
+  }
+
+  private long download(String uri, FileChannel file) throws IOException {
+    long length;
+    try (Segment first = fetchFirst(uri)) {
+      if (first == null) {
+        return 0;
+      }
+      if (!first.isPartial()) {
+        // The server ignored the range and is sending the whole resource
+        return write(first, file, 0);
+      }
+      length = first.getTotalLength();
+      if (length >= 0) {
+        allocate(file, length);
+        write(first, file, 0, Math.min(segmentSize, length) - 1);
+      }
+    }
+    if (length < 0) {
+      try (Segment whole = fetch(uri, Collections.emptyList())) {
+        return write(whole, file, 0);
+      }
+    }
+    fetchRemainingSegments(uri, file, length);
+    return length;
+  }
+
+  private Segment fetchFirst(String uri) throws IOException {
+    try {
+      return fetch(uri, 0, segmentSize - 1);
+    } catch (HttpException | RuntimeIoException e) {
+      if (isRangeNotSatisfiable(e)) {
+        // Only an empty resource has no bytes to satisfy the range with
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  private static boolean isRangeNotSatisfiable(Exception e) {
+    Throwable failure = e instanceof RuntimeIoException ? e.getCause() : e;
+    return failure instanceof HttpException
+        && ((HttpException)failure).getStatusCode() == STATUS_RANGE_NOT_SATISFIABLE;
+  }
+
+  private Segment fetch(String uri, long start, long end) throws IOException {
+    return fetch(uri, Collections.singletonList(new Header(Header.RANGE, String.format("bytes=%d-%d", start, end))));
+  }
+
+  private Segment fetch(String uri, List<Header> headers) throws IOException {
+    return Objects.requireNonNull(restClient.get(uri, headers, SEGMENT_FACTORY), "Missing content");
+  }
+
+  private static void allocate(FileChannel file, long length) throws IOException {
+    if (length > 0) {
+      // Writing the last byte sets the size of the file, so segments can be written in any order
+      file.write(ByteBuffer.wrap(new byte[1]), length - 1);
+    }
+  }
+
+  private static long write(Segment segment, FileChannel file, long start, long end) throws IOException {
+    if (segment.getStart() != start) {
+      throw new IOException(String.format("Asked for bytes %d-%d but got %s", start, end, segment.getContentRange()));
+    }
+    long expected = end - start + 1;
+    long actual = write(segment, file, start);
+    if (actual != expected) {
+      throw new IOException(String.format("Expected %d bytes at offset %d but got %d", expected, start, actual));
+    }
+    return actual;
+  }
+
+  private static long write(Segment segment, FileChannel file, long position) throws IOException {
+    InputStream body = segment.getBody();
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] buffer = pool.acquire(BUFFER_SIZE);
+    try {
+      long result = 0;
+      int numRead = body.read(buffer);
+      while (numRead >= 0) {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, numRead);
+        while (bytes.hasRemaining()) {
+          result += file.write(bytes, position + result);
+        }
+        numRead = body.read(buffer);
+      }
+      return result;
+    } finally {
+      pool.release(buffer);
+    }
+  }
+
+  private void fetchRemainingSegments(String uri, FileChannel file, long length) throws IOException {
+    long numRemaining = (length - 1) / segmentSize;
+    if (numRemaining == 0) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool((int)Math.min(numConnections, numRemaining));
+    try {
+      List<Future<?>> segments = new ArrayList<>();
+      for (long start = segmentSize; start < length; start += segmentSize) {
+        long segmentStart = start;
+        long segmentEnd = Math.min(start + segmentSize, length) - 1;
+        segments.add(executor.submit(() -> {
+          try (Segment segment = fetch(uri, segmentStart, segmentEnd)) {
+            return write(segment, file, segmentStart, segmentEnd);
+          }
+        }));
+      }
+      await(segments);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(List<Future<?>> segments) throws IOException {
+    try {
+      for (Future<?> segment : segments) {
+        segment.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while downloading segments", e);
+    } catch (ExecutionException e) {
+      throw toIoException(e);
+    }
+  }
+
+  private static IOException toIoException(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException)cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException)cause;
+    }
+    return new IOException("Failed to download segment", cause);
+  }
+
+
+  private static final class Segment implements Closeable {
+
+    private final String contentRange;
+    private final InputStream body;
+    private final Runnable closer;
+    private final long start;
+    private final long totalLength;
+
+    Segment(String contentRange, InputStream body, Runnable closer) {
+      this.contentRange = contentRange;
+      this.body = body;
+      this.closer = closer;
+      Matcher matcher = CONTENT_RANGE.matcher(contentRange == null ? "" : contentRange.trim());
+      if (matcher.matches()) {
+        start = Long.parseLong(matcher.group(1));
+        totalLength = "*".equals(matcher.group(2)) ? -1 : Long.parseLong(matcher.group(2));
+      } else {
+        start = -1;
+        totalLength = -1;
+      }
+    }
+
+    boolean isPartial() {
+      return contentRange != null;
+    }
+
+    String getContentRange() {
+      return contentRange;
+    }
+
+    long getStart() {
+      return start;
+    }
+
+    long getTotalLength() {
+      return totalLength;
+    }
+
+    InputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public void close() {
+      closer.run();
+    }
+
+  }
+
+}
@@ -64,6 +64,12 @@ public class RestClient implements Closeable, StandardLinkRelations {
     return httpClient.get(uri, withAuthorization(headersNoFormat), factory);
   }
 
+  public <T> T get(String uri, Collection<Header> extraHeaders, ResponseFactory<T> factory) throws IOException {
+    Collection<Header> allHeaders = new ArrayList<>(headersNoFormat);
+    allHeaders.addAll(extraHeaders);
+    return httpClient.get(uri, withAuthorization(allHeaders), factory);
+  }
+
   public <T> T put(String uri, Class<T> type) throws IOException {
     return httpClient.put(uri, withAuthorization(headers), type);
   }
@@ -135,6 +141,15 @@ public class RestClient implements Closeable, StandardLinkRelations {
     return result;
   }
 
+  /**
+   * Return the headers this client sends with a request, including authorization, so that the request can be sent
+   * using another HTTP client.
+   * @return The headers to send with a request
+   */
+  public Collection<Header> getHeaders() {
+    return withAuthorization(headers);
+  }
+
   public Collection<Header> withContentType(String contentType) {
     Collection<Header> result = new ArrayList<>(headers);
     result.add(new Header(Header.CONTENT_TYPE, contentType));
@@ -10,6 +10,7 @@ package com.opentext.ia.sdk.support.http.rest;
  */
 public interface StandardLinkRelations {
 
+  String LINK_NEXT = "next";
   String LINK_SELF = "self";
 
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Pool of I/O buffers that is confined to a thread, so that code that copies data over and over again, like the
+ * assembly of each digital object in a SIP, doesn't allocate a new buffer every time. Since each thread has its own
+ * pool, acquiring and releasing buffers requires no synchronization.
+ * <p>
+ * Buffers are pooled in sizes that are powers of two, so an acquired buffer may be larger than requested. A few
+ * buffers of each size up to {@linkplain #MAX_POOLED_SIZE} are kept; larger buffers are simply allocated. Both heap
+ * buffers (<code>byte[]</code>) and direct {@linkplain ByteBuffer}s, for use with channels, are supported. Release a
+ * buffer in a <code>finally</code> block once it's no longer used:
+ * </p>
+ * <pre>
+ * BufferPool pool = BufferPool.forCurrentThread();
+ * byte[] buffer = pool.acquire(BUFFER_SIZE);
+ * try {
+ *   ...
+ * } finally {
+ *   pool.release(buffer);
+ * }
+ * </pre>
+ */
+public final class BufferPool {
+
+  /**
+   * The size of the largest buffers that are pooled.
+   */
+  public static final int MAX_POOLED_SIZE = 1024 * 1024;
+  private static final int MAX_POOLED_PER_SIZE = 4;
+  private static final int NUM_SIZES = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) + 1;
+  private static final ThreadLocal<BufferPool> POOLS = ThreadLocal.withInitial(BufferPool::new);
+
+  private final List<Deque<byte[]>> heapBuffers = new ArrayList<>(NUM_SIZES);
+  private final List<Deque<ByteBuffer>> directBuffers = new ArrayList<>(NUM_SIZES);
+
+  private BufferPool() {
+    for (int i = 0; i < NUM_SIZES; i++) {
+      heapBuffers.add(new ArrayDeque<>(MAX_POOLED_PER_SIZE));
+      directBuffers.add(new ArrayDeque<>(MAX_POOLED_PER_SIZE));
+    }
+  }
+
+  /**
+   * Return the pool of the current thread.
+   * @return The pool of the current thread
+   */
+  public static BufferPool forCurrentThread() {
+    return POOLS.get();
+  }
+
+  private static int sizeIndex(int size) {
+    return size <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  private static boolean isPoolable(int capacity) {
+    return capacity <= MAX_POOLED_SIZE && Integer.bitCount(capacity) == 1;
+  }
+
+  /**
+   * Acquire a heap buffer.
+   * @param minSize The minimum size of the buffer
+   * @return A buffer of at least the given size
+   */
+  public byte[] acquire(int minSize) {
+    if (minSize > MAX_POOLED_SIZE) {
+      return new byte[minSize];
+    }
+    int index = sizeIndex(minSize);
+    byte[] result = heapBuffers.get(index)
+      .poll();
+    return result == null ? new byte[1 << index] : result;
+  }
+
+  /**
+   * Make a heap buffer available for reuse. The buffer must not be used by the caller afterwards.
+   * @param buffer The buffer to release
+   */
+  public void release(byte[] buffer) {
+    if (isPoolable(buffer.length)) {
+      Deque<byte[]> pooled = heapBuffers.get(sizeIndex(buffer.length));
+      if (pooled.size() < MAX_POOLED_PER_SIZE) {
+        pooled.push(buffer);
+      }
+    }
+  }
+
+  /**
+   * Acquire a direct buffer. The buffer is {@linkplain ByteBuffer#clear() cleared}, so its limit is its capacity.
+   * @param minSize The minimum capacity of the buffer
+   * @return A buffer with at least the given capacity
+   */
+  public ByteBuffer acquireDirect(int minSize) {
+    if (minSize > MAX_POOLED_SIZE) {
+      return ByteBuffer.allocateDirect(minSize);
+    }
+    int index = sizeIndex(minSize);
+    ByteBuffer result = directBuffers.get(index)
+      .poll();
+    if (result == null) {
+      return ByteBuffer.allocateDirect(1 << index);
+    }
+    result.clear();
+    return result;
+  }
+
+  /**
+   * Make a direct buffer available for reuse. The buffer must not be used by the caller afterwards.
+   * @param buffer The buffer to release
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer.isDirect() && isPoolable(buffer.capacity())) {
+      Deque<ByteBuffer> pooled = directBuffers.get(sizeIndex(buffer.capacity()));
+      if (pooled.size() < MAX_POOLED_PER_SIZE) {
+        pooled.push(buffer);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.util.zip.Deflater;
+
+/**
+ * How to compress the content of a ZIP entry: either store it as is, or deflate it at a given level.
+ */
+public final class Compression {
+
+  /**
+   * Store the content without compressing it.
+   */
+  public static final Compression STORED = new Compression(true, Deflater.NO_COMPRESSION);
+
+  /**
+   * Deflate the content using the default compression level.
+   */
+  public static final Compression DEFLATED = new Compression(false, Deflater.DEFAULT_COMPRESSION);
+
+  private final boolean stored;
+  private final int level;
+
+  private Compression(boolean stored, int level) {
+    this.stored = stored;
+    this.level = level;
+  }
+
+  /**
+   * Deflate the content at the given compression level.
+   * @param level The compression level, from {@linkplain Deflater#BEST_SPEED} to {@linkplain Deflater#BEST_COMPRESSION}
+   * @return The compression
+   */
+  public static Compression deflated(int level) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    return new Compression(false, level);
+  }
+
+  /**
+   * Return whether the content is stored without compression.
+   * @return <code>true</code> if the content is stored without compression, <code>false</code> if it's deflated
+   */
+  public boolean isStored() {
+    return stored;
+  }
+
+  /**
+   * Return the compression level to deflate the content with.
+   * @return The compression level to deflate the content with
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Return a human-readable version of this object.
+   * @return A human-readable version of this object
+   */
+  @Override
+  public String toString() {
+    return stored ? "stored" : "deflated(" + level + ")";
+  }
+
+}
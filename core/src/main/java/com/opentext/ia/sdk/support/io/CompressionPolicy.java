@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Strategy for deciding how to {@linkplain Compression compress} a ZIP entry. Content that is already compressed, like
+ * JPEG images or ZIP files, barely shrinks when deflated, so it's cheaper to store it as is.
+ */
+@FunctionalInterface
+public interface CompressionPolicy {
+
+  /**
+   * The extensions of file formats that are compressed already.
+   */
+  Collection<String> COMPRESSED_EXTENSIONS = Arrays.asList("7z", "bz2", "docx", "gif", "gz", "jar", "jpeg", "jpg",
+      "mov", "mp3", "mp4", "odt", "png", "pptx", "rar", "xlsx", "xz", "zip");
+
+  /**
+   * The media types of file formats that are compressed already.
+   */
+  Collection<String> COMPRESSED_MEDIA_TYPES = Arrays.asList("application/gzip", "application/x-7z-compressed",
+      "application/x-bzip2", "application/zip", "audio/mpeg", "image/gif", "image/jpeg", "image/png", "video/mp4",
+      "video/quicktime");
+
+  /**
+   * The number of bits of information per byte above which content is considered compressed already.
+   */
+  double COMPRESSED_ENTROPY = 7.5;
+
+  /**
+   * Decide how to compress a ZIP entry.
+   * @param name The name of the entry
+   * @param mediaType The media type of the entry's content, or <code>null</code> if unknown
+   * @param firstBlock The first bytes of the entry's content
+   * @param length The number of bytes in <code>firstBlock</code>
+   * @return How to compress the entry
+   */
+  Compression compressionFor(String name, String mediaType, byte[] firstBlock, int length);
+
+  /**
+   * Deflate all entries using the default compression level.
+   * @return The newly created policy
+   */
+  static CompressionPolicy deflateAll() {
+    return always(Compression.DEFLATED);
+  }
+
+  /**
+   * Compress all entries the same way.
+   * @param compression How to compress the entries
+   * @return The newly created policy
+   */
+  static CompressionPolicy always(Compression compression) {
+    return (name, mediaType, firstBlock, length) -> compression;
+  }
+
+  /**
+   * Store entries whose content is compressed already, based on their name, media type, and the entropy of the first
+   * block of their content. Deflate all other entries at the given level.
+   * @param otherwise How to compress entries whose content isn't compressed already
+   * @return The newly created policy
+   */
+  static CompressionPolicy storeCompressed(Compression otherwise) {
+    return storeByExtension(COMPRESSED_EXTENSIONS,
+        storeByMediaType(COMPRESSED_MEDIA_TYPES, storeByEntropy(COMPRESSED_ENTROPY, always(otherwise))));
+  }
+
+  /**
+   * Store entries whose name ends with one of the given extensions.
+   * @param extensions The extensions, without leading period, of entries to store
+   * @param otherwise The policy for entries with other extensions
+   * @return The newly created policy
+   */
+  static CompressionPolicy storeByExtension(Collection<String> extensions, CompressionPolicy otherwise) {
+    Set<String> storedExtensions = extensions.stream()
+      .map(extension -> extension.toLowerCase(Locale.ENGLISH))
+      .collect(Collectors.toSet());
+    return (name, mediaType, firstBlock, length) -> {
+      int index = name.lastIndexOf('.');
+      if (index >= 0 && storedExtensions.contains(name.substring(index + 1)
+        .toLowerCase(Locale.ENGLISH))) {
+        return Compression.STORED;
+      }
+      return otherwise.compressionFor(name, mediaType, firstBlock, length);
+    };
+  }
+
+  /**
+   * Store entries with one of the given media types.
+   * @param mediaTypes The media types of entries to store
+   * @param otherwise The policy for entries with other or unknown media types
+   * @return The newly created policy
+   */
+  static CompressionPolicy storeByMediaType(Collection<String> mediaTypes, CompressionPolicy otherwise) {
+    Set<String> storedMediaTypes = mediaTypes.stream()
+      .map(mediaType -> mediaType.toLowerCase(Locale.ENGLISH))
+      .collect(Collectors.toSet());
+    return (name, mediaType, firstBlock, length) -> {
+      if (mediaType != null && storedMediaTypes.contains(mediaType.toLowerCase(Locale.ENGLISH))) {
+        return Compression.STORED;
+      }
+      return otherwise.compressionFor(name, mediaType, firstBlock, length);
+    };
+  }
+
+  /**
+   * Store entries whose first block of content has a high entropy, since such content is compressed or encrypted
+   * already.
+   * @param bitsPerByte The entropy, in bits of information per byte, above which to store entries
+   * @param otherwise The policy for entries with a lower entropy
+   * @return The newly created policy
+   */
+  static CompressionPolicy storeByEntropy(double bitsPerByte, CompressionPolicy otherwise) {
+    return (name, mediaType, firstBlock, length) -> {
+      if (Entropy.of(firstBlock, length) > bitsPerByte) {
+        return Compression.STORED;
+      }
+      return otherwise.compressionFor(name, mediaType, firstBlock, length);
+    };
+  }
+
+}
@@ -4,16 +4,13 @@
 package com.opentext.ia.sdk.support.io;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-
-import org.apache.commons.io.IOUtils;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 /**
- * Copy a file to a destination directory.
+ * Copy a file to a destination directory. The content is transferred between file channels, so that the operating
+ * system can copy it without passing it through the Java heap.
  */
 public final class CopyFile {
 
@@ -45,9 +42,17 @@ public final class CopyFile {
   }
 
   private void copyToFile(File destination) {
-    try (InputStream src = new FileInputStream(source)) {
-      try (OutputStream dst = new FileOutputStream(destination)) {
-        IOUtils.copy(src, dst);
+    try (FileChannel src = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+        FileChannel dst = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      long size = src.size();
+      long position = 0;
+      while (position < size) {
+        long numTransferred = src.transferTo(position, size - position, dst);
+        if (numTransferred <= 0) {
+          throw new IOException("Unexpected end of file: " + source);
+        }
+        position += numTransferred;
       }
     } catch (IOException e) {
       throw new RuntimeIoException(e);
@@ -33,4 +33,11 @@ public interface DataBuffer {
    */
   long length();
 
+  /**
+   * Release any resources held by the buffer. The buffer must not be used afterwards.
+   */
+  default void release() {
+    // Nothing to release by default
+  }
+
 }
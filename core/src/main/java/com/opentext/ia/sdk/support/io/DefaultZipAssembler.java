@@ -3,44 +3,226 @@
  */
 package com.opentext.ia.sdk.support.io;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
- * Default implementation of {@linkplain ZipAssembler}.
+ * Default implementation of {@linkplain ZipAssembler}. A {@linkplain CompressionPolicy} decides per entry whether to
+ * deflate its content, and at which level, or to store it as is. The content of stored entries is buffered, in memory
+ * or on disk depending on its size, to compute its CRC before the entry is written.
+ * <p>
+ * Stored entries whose content comes from a {@linkplain #addEntry(String, String, Path, HashAssembler) file} aren't
+ * buffered. Instead, their CRC and hash are computed by reading the file into a pooled direct buffer, after which the
+ * content is transferred using a file channel. When the ZIP is written to a {@linkplain java.io.FileOutputStream file}
+ * too, the content is copied by the operating system without passing through the Java heap.
+ * </p>
+ * <p>
+ * Adding an entry allocates as little memory as possible: buffers come from the {@linkplain BufferPool pool} of the
+ * current thread and the probe and CRC that are needed for each entry are reused.
+ * </p>
  */
 public class DefaultZipAssembler implements ZipAssembler {
 
   private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int PROBE_SIZE = 4 * 1024;
+  private static final int CHANNEL_BUFFER_SIZE = BufferPool.MAX_POOLED_SIZE;
 
-  private ZipOutputStream zip;
+  private final CompressionPolicy compressionPolicy;
+  private final byte[] probe = new byte[PROBE_SIZE];
+  private final ProbedInputStream probed = new ProbedInputStream();
+  private final CRC32 crc = new CRC32();
+  private ZipWriter zip;
+  private long fileReadNanos;
+
+  /**
+   * Create an instance that deflates all entries.
+   */
+  public DefaultZipAssembler() {
+    this(CompressionPolicy.deflateAll());
+  }
+
+  /**
+   * Create an instance that compresses entries according to the given policy.
+   * @param compressionPolicy The policy that decides how to compress each entry
+   */
+  public DefaultZipAssembler(CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = Objects.requireNonNull(compressionPolicy, "Missing compression policy");
+  }
 
   @Override
   public void begin(OutputStream stream) {
-    zip = new ZipOutputStream(new BufferedOutputStream(stream));
+    zip = new ZipWriter(stream);
   }
 
   @Override
   public Collection<EncodedHash> addEntry(String name, InputStream stream, HashAssembler hashAssembler)
       throws IOException {
+    return addEntry(name, null, stream, hashAssembler);
+  }
+
+  @Override
+  public Collection<EncodedHash> addEntry(String name, String mediaType, InputStream stream,
+      HashAssembler hashAssembler) throws IOException {
     hashAssembler.initialize();
-    zip.putNextEntry(new ZipEntry(name));
-    try {
-      try (InputStream input = new BufferedInputStream(stream)) {
-        IOStreams.copy(input, zip, BUFFER_SIZE, hashAssembler);
+    // No need for a BufferedInputStream: the probe and the copy buffers already read in large chunks
+    try (InputStream input = stream) {
+      int length = readProbe(input);
+      Compression compression = compressionPolicy.compressionFor(name, mediaType, probe, length);
+      InputStream content = probed.of(length, input);
+      if (compression.isStored()) {
+        addStoredEntry(name, content, hashAssembler);
+      } else {
+        addDeflatedEntry(name, compression.getLevel(), content, hashAssembler);
       }
     } finally {
-      zip.closeEntry();
+      probed.of(0, null);
     }
     return hashAssembler.get();
   }
 
+  @Override
+  public Collection<EncodedHash> addEntry(String name, String mediaType, Path file, HashAssembler hashAssembler)
+      throws IOException {
+    hashAssembler.initialize();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      int length = readProbe(channel);
+      Compression compression = compressionPolicy.compressionFor(name, mediaType, probe, length);
+      channel.position(0);
+      if (compression.isStored()) {
+        addStoredEntry(name, channel, hashAssembler);
+      } else {
+        addDeflatedEntry(name, compression.getLevel(), Channels.newInputStream(new TimedChannel(channel)),
+            hashAssembler);
+      }
+    }
+    return hashAssembler.get();
+  }
+
+  private int readProbe(FileChannel channel) throws IOException {
+    long start = System.nanoTime();
+    ByteBuffer buffer = ByteBuffer.wrap(probe);
+    int numRead = channel.read(buffer);
+    while (numRead > 0 && buffer.hasRemaining()) {
+      numRead = channel.read(buffer);
+    }
+    fileReadNanos += System.nanoTime() - start;
+    return buffer.position();
+  }
+
+  private void addStoredEntry(String name, FileChannel channel, HashAssembler hashAssembler) throws IOException {
+    // Mapping the file would leave it locked and its address space reserved until the mapping is garbage collected
+    long size = channel.size();
+    crc.reset();
+    BufferPool pool = BufferPool.forCurrentThread();
+    ByteBuffer buffer = pool.acquireDirect(CHANNEL_BUFFER_SIZE);
+    try {
+      for (long position = 0; position < size;) {
+        buffer.clear();
+        long start = System.nanoTime();
+        int numRead = channel.read(buffer, position);
+        fileReadNanos += System.nanoTime() - start;
+        if (numRead < 0) {
+          break;
+        }
+        position += numRead;
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        hashAssembler.add(buffer);
+      }
+    } finally {
+      pool.release(buffer);
+    }
+    zip.putStoredEntry(name, crc.getValue(), size, channel);
+  }
+
+  private int readProbe(InputStream input) throws IOException {
+    int result = 0;
+    int numRead = input.read(probe);
+    while (numRead > 0) {
+      result += numRead;
+      numRead = result < probe.length ? input.read(probe, result, probe.length - result) : -1;
+    }
+    return result;
+  }
+
+  /**
+   * Add an entry whose content is to be deflated.
+   * @param name The name of the entry to add
+   * @param level The compression level
+   * @param content The uncompressed content of the entry to add
+   * @param hashAssembler The hasher to will calculate the hash of the entry's content
+   * @throws IOException When an I/O error occurs
+   */
+  protected void addDeflatedEntry(String name, int level, InputStream content, HashAssembler hashAssembler)
+      throws IOException {
+    try (OutputStream entry = zip.putDeflatedEntry(name, level)) {
+      IOStreams.copy(content, entry, BUFFER_SIZE, hashAssembler);
+    }
+  }
+
+  ZipWriter getZipWriter() {
+    return zip;
+  }
+
+  private void addStoredEntry(String name, InputStream content, HashAssembler hashAssembler) throws IOException {
+    // A released buffer must not be used again, but its memory chunks and write buffer are pooled
+    DataBuffer storedContent = new SpillingBuffer();
+    try {
+      crc.reset();
+      try (OutputStream output = new CheckedOutputStream(storedContent.openForWriting(), crc)) {
+        IOStreams.copy(content, output, BUFFER_SIZE, hashAssembler);
+      }
+      try (InputStream stored = storedContent.openForReading()) {
+        zip.putStoredEntry(name, crc.getValue(), storedContent.length(), stored);
+      }
+    } finally {
+      storedContent.release();
+    }
+  }
+
+  @Override
+  public Collection<EncodedHash> addPreparedEntry(String name, PreparedZipEntry entry) throws IOException {
+    zip.putPreparedEntry(name, entry);
+    return entry.getHashes();
+  }
+
+  @Override
+  public CompressionPolicy getCompressionPolicy() {
+    return compressionPolicy;
+  }
+
+  @Override
+  public long getUncompressedSize() {
+    return zip == null ? 0 : zip.getUncompressedSize();
+  }
+
+  @Override
+  public long getCompressedSize() {
+    return zip == null ? 0 : zip.getCompressedSize();
+  }
+
+  /**
+   * Return the total time spent reading the content of entries that were added from files so far. The time the
+   * operating system spends copying stored entries from their files into the ZIP is part of writing the ZIP, and not
+   * included.
+   * @return The total time spent reading the content of entries that were added from files so far, in nanoseconds
+   */
+  @Override
+  public long getFileReadNanos() {
+    return fileReadNanos;
+  }
+
   /**
    * Close the ZIP to make it available for use.
    */
@@ -49,4 +231,76 @@ public class DefaultZipAssembler implements ZipAssembler {
     zip.close();
   }
 
+
+  /**
+   * Channel that keeps track of the time spent reading from a file.
+   */
+  private final class TimedChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel channel;
+
+    TimedChannel(ReadableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) throws IOException {
+      long start = System.nanoTime();
+      try {
+        return channel.read(buffer);
+      } finally {
+        fileReadNanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+  }
+
+
+  /**
+   * Stream that returns the probe followed by the rest of the content.
+   */
+  private final class ProbedInputStream extends InputStream {
+
+    private InputStream rest;
+    private int length;
+    private int position;
+
+    InputStream of(int probeLength, InputStream content) {
+      this.length = probeLength;
+      this.position = 0;
+      this.rest = content;
+      return this;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (position < length) {
+        return probe[position++] & 0xFF;
+      }
+      return rest.read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int numBytes) throws IOException {
+      if (position < length) {
+        int result = Math.min(numBytes, length - position);
+        System.arraycopy(probe, position, buffer, offset, result);
+        position += result;
+        return result;
+      }
+      return rest.read(buffer, offset, numBytes);
+    }
+
+  }
+
 }
@@ -3,10 +3,10 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.util.Base64;
 import java.util.Locale;
 import java.util.function.Function;
 
-import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
 
 /**
@@ -14,13 +14,16 @@ import org.apache.commons.codec.binary.Hex;
  */
 public enum Encoding {
 
-  BASE64(Base64::encodeBase64String),
+  // The JDK encoder doesn't allocate a working buffer for every call like Commons Codec does
+  BASE64(Base64.getEncoder()::encodeToString),
   HEX(Hex::encodeHexString);
 
   private final Function<byte[], String> encoder;
+  private final String displayName;
 
   Encoding(Function<byte[], String> encoder) {
     this.encoder = encoder;
+    this.displayName = name().toLowerCase(Locale.ENGLISH);
   }
 
   /**
@@ -38,7 +41,7 @@ public enum Encoding {
    */
   @Override
   public String toString() {
-    return super.toString().toLowerCase(Locale.ENGLISH);
+    return displayName;
   }
 
 }
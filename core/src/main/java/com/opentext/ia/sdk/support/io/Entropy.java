@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+/**
+ * Shannon entropy of binary data.
+ */
+final class Entropy {
+
+  private static final int NUM_BYTE_VALUES = 256;
+
+  private Entropy() {
+    // Utility class
+  }
+
+  /**
+   * Return the entropy of the given data.
+   * @param data The data to measure
+   * @param length The number of bytes in <code>data</code> to measure
+   * @return The number of bits of information per byte, from 0 to 8
+   */
+  static double of(byte[] data, int length) {
+    if (length <= 0) {
+      return 0;
+    }
+    int[] counts = new int[NUM_BYTE_VALUES];
+    for (int i = 0; i < length; i++) {
+      counts[data[i] & 0xFF]++;
+    }
+    double result = 0;
+    for (int count : counts) {
+      if (count > 0) {
+        double probability = (double)count / length;
+        result -= probability * Math.log(probability);
+      }
+    }
+    return result / Math.log(2);
+  }
+
+}
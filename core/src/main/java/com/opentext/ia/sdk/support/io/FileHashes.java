@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+
+/**
+ * Utility methods to work with the hashes of files.
+ */
+public final class FileHashes {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private FileHashes() {
+    // Utility class
+  }
+
+  /**
+   * Verify that a file has the expected hash.
+   * @param file The file to verify
+   * @param expected The expected hash of the file. Its hash function and encoding are matched by name, ignoring case
+   * @throws IOException When the file can't be read or doesn't have the expected hash
+   */
+  public static void verify(Path file, EncodedHash expected) throws IOException {
+    HashAssembler hashAssembler = new SingleHashAssembler(hashFunctionOf(expected), encodingOf(expected));
+    hashAssembler.initialize();
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        hashAssembler.add(buffer);
+        buffer.clear();
+      }
+    }
+    String actual = hashAssembler.get()
+      .iterator()
+      .next()
+      .getValue();
+    if (!actual.equals(expected.getValue())) {
+      throw new IOException(String.format("Hash of %s is %s instead of %s", file, actual, expected));
+    }
+  }
+
+  private static HashFunction hashFunctionOf(EncodedHash hash) {
+    return Arrays.stream(HashFunction.values())
+      .filter(hashFunction -> hashFunction.toString()
+        .equalsIgnoreCase(hash.getHashFunction())
+          || hashFunction.name()
+            .equalsIgnoreCase(hash.getHashFunction()))
+      .findAny()
+      .orElseThrow(() -> new IllegalArgumentException("Unknown hash function: " + hash.getHashFunction()));
+  }
+
+  private static Encoding encodingOf(EncodedHash hash) {
+    try {
+      return Encoding.valueOf(hash.getEncoding()
+        .toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown encoding: " + hash.getEncoding(), e);
+    }
+  }
+
+}
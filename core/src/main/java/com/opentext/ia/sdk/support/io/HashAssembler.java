@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.function.Supplier;
 
@@ -28,6 +29,25 @@ public interface HashAssembler extends Supplier<Collection<EncodedHash>> {
    */
   void add(byte[] buffer, int length);
 
+  /**
+   * Add the remaining data in a byte buffer to be hashed. This is useful for data that is read into direct buffers or
+   * mapped from files, since implementations can hash it without copying it onto the heap first.
+   * @param buffer The buffer of data to hash, which is fully consumed
+   */
+  default void add(ByteBuffer buffer) {
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] chunk = pool.acquire(8 * 1024);
+    try {
+      while (buffer.hasRemaining()) {
+        int length = Math.min(chunk.length, buffer.remaining());
+        buffer.get(chunk, 0, length);
+        add(chunk, length);
+      }
+    } finally {
+      pool.release(chunk);
+    }
+  }
+
   /**
    * Return the number of bytes hashed.
    * @return The number of bytes hashed
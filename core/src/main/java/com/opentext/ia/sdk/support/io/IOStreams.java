@@ -6,6 +6,11 @@ package com.opentext.ia.sdk.support.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 
@@ -14,31 +19,110 @@ import java.util.Objects;
  */
 public final class IOStreams {
 
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
   private IOStreams() {
     // Utility class
   }
 
   /**
    * Utility method to copy the bytes from an InputStream to an OutputStream while also assembling a hash value in the
-   * process.
+   * process. The buffer is taken from the {@linkplain BufferPool pool} of the current thread.
    * @param in The source stream
    * @param out The target stream
-   * @param bufferSize The size of the internal buffer
+   * @param bufferSize The minimum size of the internal buffer
    * @param hashAssembler The HashAssembler to use.
    * @throws IOException if an error occurs when copying the streams
    */
   public static void copy(InputStream in, OutputStream out, int bufferSize, HashAssembler hashAssembler)
       throws IOException {
-    byte[] buffer = new byte[bufferSize];
-    int numRead = Objects.requireNonNull(in, "Missing input").read(buffer);
-    if (numRead == 0) {
-      throw new IllegalArgumentException("Missing content");
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] buffer = pool.acquire(bufferSize);
+    try {
+      int numRead = Objects.requireNonNull(in, "Missing input").read(buffer);
+      if (numRead == 0) {
+        throw new IllegalArgumentException("Missing content");
+      }
+      Objects.requireNonNull(out, "Missing output");
+      while (numRead > 0) {
+        out.write(buffer, 0, numRead);
+        hashAssembler.add(buffer, numRead);
+        numRead = in.read(buffer);
+      }
+    } finally {
+      pool.release(buffer);
     }
+  }
+
+  /**
+   * Copy the bytes from an InputStream to an OutputStream, using a buffer from the {@linkplain BufferPool pool} of the
+   * current thread.
+   * @param in The source stream
+   * @param out The target stream
+   * @return The number of bytes copied
+   * @throws IOException if an error occurs when copying the streams
+   */
+  public static long copy(InputStream in, OutputStream out) throws IOException {
+    Objects.requireNonNull(in, "Missing input");
     Objects.requireNonNull(out, "Missing output");
-    while (numRead > 0) {
-      out.write(buffer, 0, numRead);
-      hashAssembler.add(buffer, numRead);
-      numRead = in.read(buffer);
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] buffer = pool.acquire(DEFAULT_BUFFER_SIZE);
+    try {
+      long result = 0;
+      int numRead = in.read(buffer);
+      while (numRead >= 0) {
+        out.write(buffer, 0, numRead);
+        result += numRead;
+        numRead = in.read(buffer);
+      }
+      return result;
+    } finally {
+      pool.release(buffer);
+    }
+  }
+
+  /**
+   * Copy the bytes from an InputStream to a file, writing them straight to a {@linkplain FileChannel} using a buffer
+   * from the {@linkplain BufferPool pool} of the current thread. An existing file is replaced. When copying fails, the
+   * partially written file is deleted.
+   * @param in The source stream
+   * @param target The file to write
+   * @return The number of bytes copied
+   * @throws IOException if an error occurs when copying the stream
+   */
+  public static long copy(InputStream in, Path target) throws IOException {
+    Objects.requireNonNull(in, "Missing input");
+    FileChannel out = FileChannel.open(Objects.requireNonNull(target, "Missing target"), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    boolean copied = false;
+    try (FileChannel channel = out) {
+      long result = copy(in, channel);
+      copied = true;
+      return result;
+    } finally {
+      if (!copied) {
+        Files.deleteIfExists(target);
+      }
+    }
+  }
+
+  private static long copy(InputStream in, FileChannel out) throws IOException {
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] buffer = pool.acquire(DEFAULT_BUFFER_SIZE);
+    try {
+      long result = 0;
+      int numRead = in.read(buffer);
+      while (numRead >= 0) {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, numRead);
+        while (bytes.hasRemaining()) {
+          out.write(bytes);
+        }
+        result += numRead;
+        numRead = in.read(buffer);
+      }
+      return result;
+    } finally {
+      pool.release(buffer);
     }
   }
 
@@ -6,27 +6,149 @@ package com.opentext.ia.sdk.support.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * In-memory buffer of data.
+ * In-memory buffer of data. The data is stored in fixed-size chunks from a {@linkplain MemoryChunkPool}, so that the
+ * buffer never copies data when it grows. The chunks are returned to the pool when the buffer is
+ * {@linkplain #release() released}.
  */
 public class MemoryBuffer implements DataBuffer {
 
-  private final ByteArrayInputOutputStream buffer = new ByteArrayInputOutputStream();
+  private final MemoryChunkPool pool;
+  private final int chunkSize;
+  private final List<byte[]> chunks = new ArrayList<>();
+  private final OutputStream output = new ChunksOutputStream();
+  private long length;
+
+  /**
+   * Store data in chunks from the {@linkplain MemoryChunkPool#shared() shared} pool.
+   */
+  public MemoryBuffer() {
+    this(MemoryChunkPool.shared());
+  }
+
+  /**
+   * Store data in chunks from the given pool.
+   * @param pool The pool that provides the chunks to store data in
+   */
+  public MemoryBuffer(MemoryChunkPool pool) {
+    this.pool = pool;
+    this.chunkSize = pool.getChunkSize();
+  }
 
   @Override
   public OutputStream openForWriting() throws IOException {
-    return buffer;
+    return output;
   }
 
   @Override
   public InputStream openForReading() throws IOException {
-    return buffer.getInputStream();
+    return new ChunksInputStream(length());
   }
 
   @Override
-  public long length() {
-    return buffer.size();
+  public synchronized long length() {
+    return length;
+  }
+
+  /**
+   * Return the chunks to the pool. The data in the buffer is discarded.
+   */
+  @Override
+  public synchronized void release() {
+    chunks.forEach(pool::release);
+    chunks.clear();
+    length = 0;
+  }
+
+  private synchronized void write(byte[] data, int offset, int size) {
+    int numWritten = 0;
+    while (numWritten < size) {
+      int chunkOffset = (int)(length % chunkSize);
+      if (chunkOffset == 0) {
+        chunks.add(pool.acquire());
+      }
+      int numToWrite = Math.min(size - numWritten, chunkSize - chunkOffset);
+      System.arraycopy(data, offset + numWritten, chunks.get(chunks.size() - 1), chunkOffset, numToWrite);
+      numWritten += numToWrite;
+      length += numToWrite;
+    }
+  }
+
+  private synchronized void write(int b) {
+    int chunkOffset = (int)(length % chunkSize);
+    if (chunkOffset == 0) {
+      chunks.add(pool.acquire());
+    }
+    chunks.get(chunks.size() - 1)[chunkOffset] = (byte)b;
+    length++;
+  }
+
+  private synchronized int read(long position, byte[] data, int offset, int size) {
+    int chunkOffset = (int)(position % chunkSize);
+    int numToRead = Math.min(size, chunkSize - chunkOffset);
+    System.arraycopy(chunks.get((int)(position / chunkSize)), chunkOffset, data, offset, numToRead);
+    return numToRead;
+  }
+
+
+  private class ChunksOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) {
+      MemoryBuffer.this.write(b);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int size) {
+      MemoryBuffer.this.write(data, offset, size);
+    }
+
+  }
+
+
+  private class ChunksInputStream extends InputStream {
+
+    private final long end;
+    private long position;
+
+    ChunksInputStream(long end) {
+      this.end = end;
+    }
+
+    @Override
+    public int read() {
+      byte[] data = new byte[1];
+      return read(data, 0, 1) < 0 ? -1 : data[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int size) {
+      if (size == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      int result = MemoryBuffer.this.read(position, data, offset, (int)Math.min(size, end - position));
+      position += result;
+      return result;
+    }
+
+    @Override
+    public long skip(long n) {
+      long result = Math.max(0, Math.min(n, end - position));
+      position += result;
+      return result;
+    }
+
+    @Override
+    public int available() {
+      return (int)Math.min(Integer.MAX_VALUE, end - position);
+    }
+
   }
 
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed-size chunks of memory, so that buffers that are filled and released over and over again, like the ones
+ * that hold the PDIs of a batch of SIPs, reuse the same memory.
+ */
+public class MemoryChunkPool {
+
+  /**
+   * The default size of a chunk.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  private static final int MAX_HEAP_FRACTION = 16;
+  private static final MemoryChunkPool SHARED = new MemoryChunkPool(DEFAULT_CHUNK_SIZE,
+      (int)Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / MAX_HEAP_FRACTION / DEFAULT_CHUNK_SIZE));
+
+  private final int chunkSize;
+  private final int maxPooledChunks;
+  private final Queue<byte[]> chunks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger numPooledChunks = new AtomicInteger();
+
+  /**
+   * Create a pool.
+   * @param chunkSize The size of the chunks in the pool
+   * @param maxPooledChunks The maximum number of released chunks that the pool holds on to for reuse
+   */
+  public MemoryChunkPool(int chunkSize, int maxPooledChunks) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive");
+    }
+    this.chunkSize = chunkSize;
+    this.maxPooledChunks = maxPooledChunks;
+  }
+
+  /**
+   * Return the pool that is shared by all {@linkplain MemoryBuffer}s that don't specify a pool. This pool holds on to
+   * at most 1/16 of the maximum heap size.
+   * @return The shared pool
+   */
+  public static MemoryChunkPool shared() {
+    return SHARED;
+  }
+
+  /**
+   * Return the size of the chunks in the pool.
+   * @return The size of the chunks in the pool
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Return the number of released chunks that are available for reuse.
+   * @return The number of released chunks that are available for reuse
+   */
+  public int getNumPooledChunks() {
+    return numPooledChunks.get();
+  }
+
+  /**
+   * Acquire a chunk, either one that was released before or a new one.
+   * @return The acquired chunk
+   */
+  public byte[] acquire() {
+    byte[] result = chunks.poll();
+    if (result == null) {
+      return new byte[chunkSize];
+    }
+    numPooledChunks.decrementAndGet();
+    return result;
+  }
+
+  /**
+   * Make a chunk available for reuse. The chunk must not be used by the caller afterwards.
+   * @param chunk The chunk to release
+   */
+  public void release(byte[] chunk) {
+    if (chunk.length != chunkSize) {
+      throw new IllegalArgumentException("Chunk doesn't belong to this pool");
+    }
+    if (numPooledChunks.incrementAndGet() <= maxPooledChunks) {
+      chunks.add(chunk);
+    } else {
+      numPooledChunks.decrementAndGet();
+    }
+  }
+
+}
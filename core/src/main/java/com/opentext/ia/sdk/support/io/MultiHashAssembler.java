@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
+
+
+/**
+ * Assemble hashes using several hash functions in a single pass over the data. Each hash function runs on its own
+ * thread, so that assembling all hashes takes about as long as assembling the slowest one.
+ * <p>
+ * Data that is added is copied into a ring of buffers that is shared by all hash functions. Each hash function consumes
+ * the buffers in order, and a buffer is only reused when all hash functions are done with it. Data that fits in a
+ * single buffer is hashed on the calling thread, since then handing it off to other threads costs more than it gains.
+ * The buffers are taken from the {@linkplain BufferPool pool} of the calling thread as they are needed, and returned
+ * to it once the hashes are assembled, so that an instance that is used for a single small digital object is cheap.
+ * </p>
+ * <p>
+ * This class is not thread-safe: like other hash assemblers, an instance should be used by one thread at a time.
+ * </p>
+ */
+public class MultiHashAssembler extends NoHashAssembler {
+
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final int NUM_BLOCKS = 8;
+  private static final Executor DEFAULT_EXECUTOR = newDaemonThreadPool();
+
+  private final List<Digest> digests = new ArrayList<>();
+  private final Executor executor;
+  private final byte[][] blocks = new byte[NUM_BLOCKS][];
+  private final int[] blockLengths = new int[NUM_BLOCKS];
+  private final Object ring = new Object();
+  private long numPublished;
+  private boolean ended;
+  private boolean failed;
+  private boolean started;
+  private int fillLength;
+
+  private static ExecutorService newDaemonThreadPool() {
+    AtomicInteger numThreads = new AtomicInteger();
+    return Executors.newCachedThreadPool(runnable -> {
+      Thread result = new Thread(runnable, "hash-" + numThreads.incrementAndGet());
+      result.setDaemon(true);
+      return result;
+    });
+  }
+
+  /**
+   * Assemble hashes using the given hash functions and encodings, running the hash functions on shared daemon threads.
+   * @param encodingsByHashFunction The encoding of the hash for each hash function to use
+   */
+  public MultiHashAssembler(Map<HashFunction, Encoding> encodingsByHashFunction) {
+    this(encodingsByHashFunction, DEFAULT_EXECUTOR);
+  }
+
+  /**
+   * Assemble hashes using the given hash functions and encodings.
+   * @param encodingsByHashFunction The encoding of the hash for each hash function to use. The hashes are returned in
+   *          the iteration order of this map
+   * @param executor The executor that runs the hash functions. It must be able to run all hash functions
+   *          concurrently, since they wait for each other
+   */
+  public MultiHashAssembler(Map<HashFunction, Encoding> encodingsByHashFunction, Executor executor) {
+    if (encodingsByHashFunction.isEmpty()) {
+      throw new IllegalArgumentException("Missing hash functions");
+    }
+    encodingsByHashFunction.forEach((hashFunction, encoding) -> digests.add(new Digest(hashFunction, encoding)));
+    this.executor = Objects.requireNonNull(executor, "Missing executor");
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    if (started) {
+      endHashing();
+    }
+    reset();
+  }
+
+  private void reset() {
+    digests.forEach(Digest::reset);
+    // All hash functions are done with the blocks by now
+    BufferPool pool = BufferPool.forCurrentThread();
+    for (int i = 0; i < NUM_BLOCKS; i++) {
+      if (blocks[i] != null) {
+        pool.release(blocks[i]);
+        blocks[i] = null;
+      }
+    }
+    numPublished = 0;
+    fillLength = 0;
+    ended = false;
+    failed = false;
+    started = false;
+  }
+
+  @Override
+  public void add(byte[] buffer, int length) {
+    super.add(buffer, length);
+    int offset = 0;
+    while (offset < length) {
+      int numToCopy = Math.min(BLOCK_SIZE - fillLength, length - offset);
+      System.arraycopy(buffer, offset, currentBlock(), fillLength, numToCopy);
+      offset += numToCopy;
+      fill(numToCopy);
+    }
+  }
+
+  private byte[] currentBlock() {
+    int index = (int)(numPublished % NUM_BLOCKS);
+    if (blocks[index] == null) {
+      blocks[index] = BufferPool.forCurrentThread()
+        .acquire(BLOCK_SIZE);
+    }
+    return blocks[index];
+  }
+
+  private void fill(int numBytes) {
+    fillLength += numBytes;
+    if (fillLength == BLOCK_SIZE) {
+      if (!started) {
+        startHashing();
+      }
+      publish();
+      awaitFreeBlock();
+    }
+  }
+
+  @Override
+  public void add(ByteBuffer buffer) {
+    super.add(buffer.duplicate());
+    while (buffer.hasRemaining()) {
+      int numToCopy = Math.min(BLOCK_SIZE - fillLength, buffer.remaining());
+      buffer.get(currentBlock(), fillLength, numToCopy);
+      fill(numToCopy);
+    }
+  }
+
+  private void startHashing() {
+    started = true;
+    digests.forEach(digest -> executor.execute(() -> consume(digest)));
+  }
+
+  private void consume(Digest digest) {
+    boolean completed = false;
+    try {
+      long next = 0;
+      while (awaitPublished(next)) {
+        int index = (int)(next % NUM_BLOCKS);
+        digest.update(blocks[index], blockLengths[index]);
+        next++;
+        synchronized (ring) {
+          digest.numConsumed = next;
+          ring.notifyAll();
+        }
+      }
+      completed = true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      synchronized (ring) {
+        failed |= !completed;
+        digest.done = true;
+        ring.notifyAll();
+      }
+    }
+  }
+
+  private boolean awaitPublished(long sequenceNumber) throws InterruptedException {
+    synchronized (ring) {
+      while (sequenceNumber >= numPublished && !ended) {
+        ring.wait();
+      }
+      return sequenceNumber < numPublished;
+    }
+  }
+
+  private void publish() {
+    synchronized (ring) {
+      blockLengths[(int)(numPublished % NUM_BLOCKS)] = fillLength;
+      numPublished++;
+      ring.notifyAll();
+    }
+    fillLength = 0;
+  }
+
+  private void awaitFreeBlock() {
+    // The next block to fill was last used for block numPublished - NUM_BLOCKS, which all hash functions must be done
+    // with
+    synchronized (ring) {
+      while (!failed && !digests.stream()
+        .allMatch(digest -> digest.numConsumed > numPublished - NUM_BLOCKS)) {
+        await();
+      }
+      checkNotFailed();
+    }
+  }
+
+  private void await() {
+    try {
+      ring.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing", e);
+    }
+  }
+
+  private void checkNotFailed() {
+    if (failed) {
+      throw new IllegalStateException("Failed to hash");
+    }
+  }
+
+  private void endHashing() {
+    synchronized (ring) {
+      ended = true;
+      ring.notifyAll();
+      while (!digests.stream()
+        .allMatch(digest -> digest.done)) {
+        await();
+      }
+    }
+  }
+
+  @Override
+  public Collection<EncodedHash> get() {
+    if (started) {
+      if (fillLength > 0) {
+        publish();
+      }
+      endHashing();
+      synchronized (ring) {
+        checkNotFailed();
+      }
+    } else {
+      digests.forEach(digest -> digest.update(currentBlock(), fillLength));
+    }
+    Collection<EncodedHash> result = new ArrayList<>();
+    digests.forEach(digest -> result.add(digest.get()));
+    reset();
+    return result;
+  }
+
+
+  private static final class Digest {
+
+    private final Encoding encoding;
+    private final MessageDigest digester;
+    private long numConsumed;
+    private boolean done;
+
+    Digest(HashFunction hashFunction, Encoding encoding) {
+      this.encoding = Objects.requireNonNull(encoding, "Missing encoding");
+      try {
+        digester = MessageDigest.getInstance(hashFunction.toString());
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("Missing message digest " + hashFunction, e);
+      }
+    }
+
+    void reset() {
+      digester.reset();
+      numConsumed = 0;
+      done = false;
+    }
+
+    void update(byte[] block, int length) {
+      Timer timer = Instrumentation.timer(MetricNames.HASH);
+      long start = timer.start();
+      digester.update(block, 0, length);
+      timer.stop(start);
+      Instrumentation.counter(MetricNames.HASH_BYTES).inc(length);
+    }
+
+    EncodedHash get() {
+      return new EncodedHash(digester.getAlgorithm(), encoding.toString(), encoding.encode(digester.digest()));
+    }
+
+  }
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.opentext.ia.sdk.support.io.ZipWriter.CompressedEntryOutputStream;
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
+
+
+/**
+ * {@linkplain ZipAssembler} that deflates large entries on multiple threads. The content of such an entry is split into
+ * blocks that are deflated concurrently. Each block is primed with the last 32 KB of the previous block as a
+ * dictionary, and all but the last block are ended with a sync flush, so that the compressed blocks together form a
+ * single deflate stream that compresses almost as well as one that's deflated sequentially. The CRC and hash of the
+ * content are calculated while reading the blocks.
+ * <p>
+ * Entries that are smaller than a threshold are deflated on the calling thread, like {@linkplain DefaultZipAssembler}
+ * does, since for those the overhead of coordinating threads outweighs the gain.
+ * </p>
+ */
+public class ParallelDeflateZipAssembler extends DefaultZipAssembler {
+
+  /**
+   * The default minimum size of the content of an entry for it to be deflated on multiple threads.
+   */
+  public static final int DEFAULT_THRESHOLD = 4 * 1024 * 1024;
+  private static final int BLOCK_SIZE = 128 * 1024;
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+  private final int maxInFlight;
+  private final ConcurrentMap<Integer, Queue<Deflater>> deflatersByLevel = new ConcurrentHashMap<>();
+
+  /**
+   * Create an instance that deflates all entries, using the common pool for entries of at least the
+   * {@linkplain #DEFAULT_THRESHOLD default threshold}.
+   */
+  public ParallelDeflateZipAssembler() {
+    this(CompressionPolicy.deflateAll(), ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Create an instance.
+   * @param compressionPolicy The policy that decides how to compress each entry
+   * @param pool The pool that deflates the blocks of large entries
+   * @param threshold The minimum size of the content of an entry for it to be deflated on multiple threads
+   */
+  public ParallelDeflateZipAssembler(CompressionPolicy compressionPolicy, ForkJoinPool pool, int threshold) {
+    super(compressionPolicy);
+    this.pool = Objects.requireNonNull(pool, "Missing pool");
+    this.threshold = threshold;
+    this.maxInFlight = 2 * pool.getParallelism();
+  }
+
+  @Override
+  protected void addDeflatedEntry(String name, int level, InputStream content, HashAssembler hashAssembler)
+      throws IOException {
+    Deque<Block> head = new ArrayDeque<>();
+    long headSize = 0;
+    Block block = Block.read(content);
+    while (!block.isEmpty() && headSize < threshold) {
+      head.add(block);
+      headSize += block.length;
+      block = Block.read(content);
+    }
+    if (block.isEmpty()) {
+      try {
+        super.addDeflatedEntry(name, level, new SequenceInputStream(Collections.enumeration(head.stream()
+          .map(Block::getContent)
+          .collect(Collectors.toList()))), hashAssembler);
+      } finally {
+        head.forEach(Block::release);
+        block.release();
+      }
+    } else {
+      head.add(block);
+      addBlocks(name, level, head, content, hashAssembler);
+    }
+  }
+
+  private void addBlocks(String name, int level, Deque<Block> head, InputStream content, HashAssembler hashAssembler)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    long size = 0;
+    Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>(maxInFlight);
+    Deque<Block> deflating = new ArrayDeque<>(maxInFlight + 1);
+    try {
+      CompressedEntryOutputStream entry = getZipWriter().putCompressedEntry(name);
+      Block previous = null;
+      Block current = head.remove();
+      while (!current.isEmpty()) {
+        Block next = head.isEmpty() ? Block.read(content) : head.remove();
+        crc.update(current.data, 0, current.length);
+        hashAssembler.add(current.data, current.length);
+        size += current.length;
+        pending.add(deflateAsync(current, previous, level, next.isEmpty()));
+        deflating.add(current);
+        if (pending.size() >= maxInFlight) {
+          writeNext(entry, pending, deflating);
+        }
+        previous = current;
+        current = next;
+      }
+      current.release();
+      while (!pending.isEmpty()) {
+        writeNext(entry, pending, deflating);
+      }
+      entry.finish(crc.getValue(), size);
+      deflating.forEach(Block::release);
+    } finally {
+      pending.forEach(block -> block.cancel(false));
+    }
+  }
+
+  private void writeNext(CompressedEntryOutputStream entry, Deque<CompletableFuture<byte[]>> pending,
+      Deque<Block> deflating) throws IOException {
+    entry.write(await(pending.remove()));
+    // A block is no longer needed once the block that uses it as a dictionary is deflated too
+    while (deflating.size() > pending.size() + 1) {
+      deflating.remove()
+        .release();
+    }
+  }
+
+  private CompletableFuture<byte[]> deflateAsync(Block block, Block previous, int level, boolean last) {
+    return CompletableFuture.supplyAsync(() -> deflate(block, previous, level, last), pool);
+  }
+
+  private byte[] deflate(Block block, Block previous, int level, boolean last) {
+    Queue<Deflater> deflaters = deflatersByLevel.computeIfAbsent(level, key -> new ConcurrentLinkedQueue<>());
+    Deflater deflater = deflaters.poll();
+    if (deflater == null) {
+      deflater = new Deflater(level, true);
+    }
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] buffer = pool.acquire(OUTPUT_BUFFER_SIZE);
+    Timer timer = Instrumentation.timer(MetricNames.COMPRESS);
+    long start = timer.start();
+    try {
+      if (previous != null) {
+        int dictionaryLength = Math.min(DICTIONARY_SIZE, previous.length);
+        deflater.setDictionary(previous.data, previous.length - dictionaryLength, dictionaryLength);
+      }
+      deflater.setInput(block.data, 0, block.length);
+      ByteArrayOutputStream result = new ByteArrayOutputStream(block.length / 2);
+      if (last) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          result.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        // A sync flush ends the block on a byte boundary, so the next block's data can simply be appended
+        int numDeflated;
+        do {
+          numDeflated = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          result.write(buffer, 0, numDeflated);
+        } while (numDeflated == buffer.length);
+      }
+      return result.toByteArray();
+    } finally {
+      timer.stop(start);
+      pool.release(buffer);
+      deflater.reset();
+      deflaters.add(deflater);
+    }
+  }
+
+  private byte[] await(CompletableFuture<byte[]> block) throws IOException {
+    try {
+      return block.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while deflating", e);
+    } catch (ExecutionException e) {
+      throw toIoException(e);
+    }
+  }
+
+  private IOException toIoException(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException)cause;
+    }
+    return new IOException("Failed to deflate", cause);
+  }
+
+  /**
+   * Close the ZIP to make it available for use, and free the native resources used for deflating.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      deflatersByLevel.values()
+        .forEach(deflaters -> deflaters.forEach(Deflater::end));
+      deflatersByLevel.clear();
+    }
+  }
+
+
+  private static final class Block {
+
+    private final byte[] data = BufferPool.forCurrentThread()
+      .acquire(BLOCK_SIZE);
+    private int length;
+
+    static Block read(InputStream content) throws IOException {
+      Block result = new Block();
+      int numRead = content.read(result.data);
+      while (numRead > 0) {
+        result.length += numRead;
+        numRead = result.length < result.data.length
+            ? content.read(result.data, result.length, result.data.length - result.length) : -1;
+      }
+      return result;
+    }
+
+    boolean isEmpty() {
+      return length == 0;
+    }
+
+    InputStream getContent() {
+      return new ByteArrayInputStream(data, 0, length);
+    }
+
+    void release() {
+      BufferPool.forCurrentThread()
+        .release(data);
+    }
+
+  }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+
+/**
+ * Buffer that hands data from a writing thread to a reading thread as it's written, like a pipe, without ever holding
+ * more than a fixed amount of it. This allows, for instance, uploading a SIP while it's being assembled, without
+ * storing it on disk first.
+ * <p>
+ * The buffer can be opened for writing and for reading only once, and the two sides must be used by different threads.
+ * The writer blocks when the buffer is full, and the reader blocks when it's empty. When the writer runs into trouble,
+ * it should {@linkplain #fail(Throwable) fail} the buffer, so that the reader gets an exception rather than seeing the
+ * end of the data and mistaking partial data for complete data. When the reader closes its stream before the end of
+ * the data, the writer gets an exception on its next write.
+ * </p>
+ */
+public class PipeBuffer implements DataBuffer {
+
+  /**
+   * The default number of bytes that the buffer holds.
+   */
+  public static final int DEFAULT_CAPACITY = 256 * 1024;
+
+  private final Object lock = new Object();
+  private final byte[] data;
+  private int readPosition;
+  private int numBuffered;
+  private long length;
+  private boolean openedForWriting;
+  private boolean openedForReading;
+  private boolean writerClosed;
+  private boolean readerClosed;
+  private Throwable failure;
+
+  /**
+   * Create an instance that holds the {@linkplain #DEFAULT_CAPACITY default number of bytes}.
+   */
+  public PipeBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create an instance.
+   * @param capacity The number of bytes that the buffer holds before the writer blocks
+   */
+  public PipeBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.data = new byte[capacity];
+  }
+
+  @Override
+  public InputStream openForReading() throws IOException {
+    synchronized (lock) {
+      if (openedForReading) {
+        throw new IOException("Pipe can only be read once");
+      }
+      openedForReading = true;
+    }
+    return new PipeInputStream();
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    synchronized (lock) {
+      if (openedForWriting) {
+        throw new IOException("Pipe can only be written once");
+      }
+      openedForWriting = true;
+    }
+    return new PipeOutputStream();
+  }
+
+  /**
+   * Return the number of bytes written into the buffer so far.
+   * @return The number of bytes written
+   */
+  @Override
+  public long length() {
+    synchronized (lock) {
+      return length;
+    }
+  }
+
+  /**
+   * Abort writing data, so that the reader gets an exception instead of the rest of the data.
+   * @param cause The reason why the data couldn't be written completely
+   */
+  public void fail(Throwable cause) {
+    synchronized (lock) {
+      if (failure == null) {
+        failure = cause;
+      }
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Return whether the reader closed its stream, which means that writing more data fails.
+   * @return Whether the reader closed its stream
+   */
+  public boolean isClosedByReader() {
+    synchronized (lock) {
+      return readerClosed;
+    }
+  }
+
+  @Override
+  public void release() {
+    synchronized (lock) {
+      writerClosed = true;
+      readerClosed = true;
+      lock.notifyAll();
+    }
+  }
+
+  private void await() throws InterruptedIOException {
+    try {
+      lock.wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException result = new InterruptedIOException("Interrupted while waiting on pipe");
+      result.initCause(e);
+      throw result;
+    }
+  }
+
+
+  private final class PipeOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int count) throws IOException {
+      int written = 0;
+      synchronized (lock) {
+        while (written < count) {
+          checkWritable();
+          while (numBuffered == data.length) {
+            await();
+            checkWritable();
+          }
+          int writePosition = (readPosition + numBuffered) % data.length;
+          int numToCopy = Math.min(count - written, Math.min(data.length - numBuffered, data.length - writePosition));
+          System.arraycopy(buffer, offset + written, data, writePosition, numToCopy);
+          numBuffered += numToCopy;
+          length += numToCopy;
+          written += numToCopy;
+          lock.notifyAll();
+        }
+      }
+    }
+
+    private void checkWritable() throws IOException {
+      if (writerClosed) {
+        throw new IOException("Pipe closed");
+      }
+      if (readerClosed) {
+        throw new IOException("Pipe closed by reader");
+      }
+    }
+
+    @Override
+    public void close() {
+      synchronized (lock) {
+        writerClosed = true;
+        lock.notifyAll();
+      }
+    }
+
+  }
+
+
+  private final class PipeInputStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      byte[] buffer = new byte[1];
+      int numRead = read(buffer, 0, 1);
+      return numRead < 0 ? -1 : buffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+      if (count == 0) {
+        return 0;
+      }
+      synchronized (lock) {
+        while (numBuffered == 0) {
+          checkReadable();
+          if (writerClosed) {
+            return -1;
+          }
+          await();
+        }
+        checkReadable();
+        int numToCopy = Math.min(count, Math.min(numBuffered, data.length - readPosition));
+        System.arraycopy(data, readPosition, buffer, offset, numToCopy);
+        readPosition = (readPosition + numToCopy) % data.length;
+        numBuffered -= numToCopy;
+        lock.notifyAll();
+        return numToCopy;
+      }
+    }
+
+    private void checkReadable() throws IOException {
+      if (failure != null) {
+        throw new IOException("Failed to write data into pipe", failure);
+      }
+      if (readerClosed) {
+        throw new IOException("Pipe closed");
+      }
+    }
+
+    @Override
+    public int available() {
+      synchronized (lock) {
+        return numBuffered;
+      }
+    }
+
+    @Override
+    public void close() {
+      synchronized (lock) {
+        readerClosed = true;
+        lock.notifyAll();
+      }
+    }
+
+  }
+
+}
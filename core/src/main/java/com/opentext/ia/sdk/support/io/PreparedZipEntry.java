@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
+
+/**
+ * Content of a ZIP entry that is read, hashed, and compressed before it is {@linkplain ZipAssembler#addPreparedEntry(
+ * String, PreparedZipEntry) added} to a ZIP. Preparing entries is independent of any ZIP, so it can happen on other
+ * threads than the one that assembles the ZIP.
+ */
+public final class PreparedZipEntry {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int PROBE_SIZE = 4 * 1024;
+
+  private final int method;
+  private final long crc;
+  private final long size;
+  private final ByteArrayInputOutputStream data;
+  private final Collection<EncodedHash> hashes;
+
+  private PreparedZipEntry(int method, long crc, long size, ByteArrayInputOutputStream data,
+      Collection<EncodedHash> hashes) {
+    this.method = method;
+    this.crc = crc;
+    this.size = size;
+    this.data = data;
+    this.hashes = hashes;
+  }
+
+  /**
+   * Read the given content, calculate its hashes, and deflate it at the default compression level.
+   * @param content The content to prepare
+   * @param hashAssembler The hasher that calculates the hash of the content. Must not be shared with other threads
+   * @return The prepared entry
+   * @throws IOException When an I/O error occurs
+   */
+  public static PreparedZipEntry deflate(InputStream content, HashAssembler hashAssembler) throws IOException {
+    return prepare(null, null, content, CompressionPolicy.deflateAll(), hashAssembler);
+  }
+
+  /**
+   * Read the given content, calculate its hashes, and compress it the way the given policy decides based on the first
+   * bytes of the content. Content that the policy wants stored is kept as is, with its CRC calculated up front.
+   * @param name The name of the entry to prepare
+   * @param mediaType The media type of the content, or <code>null</code> if unknown
+   * @param content The content to prepare
+   * @param compressionPolicy The policy that decides how to compress the content. Must be safe to use from multiple
+   *          threads when entries are prepared concurrently
+   * @param hashAssembler The hasher that calculates the hash of the content. Must not be shared with other threads
+   * @return The prepared entry
+   * @throws IOException When an I/O error occurs
+   */
+  public static PreparedZipEntry prepare(String name, String mediaType, InputStream content,
+      CompressionPolicy compressionPolicy, HashAssembler hashAssembler) throws IOException {
+    hashAssembler.initialize();
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] buffer = pool.acquire(BUFFER_SIZE);
+    try {
+      int numRead = readProbe(Objects.requireNonNull(content, "Missing content"), buffer);
+      Compression compression = compressionPolicy.compressionFor(name, mediaType, buffer, numRead);
+      if (compression.isStored()) {
+        return store(content, buffer, numRead, hashAssembler);
+      }
+      return deflate(content, buffer, numRead, compression.getLevel(), hashAssembler);
+    } finally {
+      pool.release(buffer);
+    }
+  }
+
+  private static int readProbe(InputStream content, byte[] buffer) throws IOException {
+    int result = content.read(buffer, 0, PROBE_SIZE);
+    if (result == 0) {
+      throw new IllegalArgumentException("Missing content");
+    }
+    while (result > 0 && result < PROBE_SIZE) {
+      int numRead = content.read(buffer, result, PROBE_SIZE - result);
+      if (numRead < 0) {
+        break;
+      }
+      result += numRead;
+    }
+    return Math.max(result, 0);
+  }
+
+  private static PreparedZipEntry store(InputStream content, byte[] buffer, int probed, HashAssembler hashAssembler)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    ByteArrayInputOutputStream stored = new ByteArrayInputOutputStream();
+    long size = 0;
+    int numRead = probed;
+    while (numRead > 0) {
+      hashAssembler.add(buffer, numRead);
+      crc.update(buffer, 0, numRead);
+      stored.write(buffer, 0, numRead);
+      size += numRead;
+      numRead = content.read(buffer);
+    }
+    return new PreparedZipEntry(ZipEntry.STORED, crc.getValue(), size, stored, hashAssembler.get());
+  }
+
+  private static PreparedZipEntry deflate(InputStream content, byte[] buffer, int probed, int level,
+      HashAssembler hashAssembler) throws IOException {
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] output = pool.acquire(BUFFER_SIZE);
+    Deflater deflater = new Deflater(level, true);
+    try {
+      CRC32 crc = new CRC32();
+      ByteArrayInputOutputStream compressed = new ByteArrayInputOutputStream();
+      int numRead = probed;
+      while (numRead > 0) {
+        hashAssembler.add(buffer, numRead);
+        crc.update(buffer, 0, numRead);
+        Timer timer = Instrumentation.timer(MetricNames.COMPRESS);
+        long start = timer.start();
+        deflater.setInput(buffer, 0, numRead);
+        while (!deflater.needsInput()) {
+          compressed.write(output, 0, deflater.deflate(output));
+        }
+        timer.stop(start);
+        numRead = content.read(buffer);
+      }
+      Timer timer = Instrumentation.timer(MetricNames.COMPRESS);
+      long start = timer.start();
+      deflater.finish();
+      while (!deflater.finished()) {
+        compressed.write(output, 0, deflater.deflate(output));
+      }
+      timer.stop(start);
+      return new PreparedZipEntry(ZipEntry.DEFLATED, crc.getValue(), deflater.getBytesRead(), compressed,
+          hashAssembler.get());
+    } finally {
+      deflater.end();
+      pool.release(output);
+    }
+  }
+
+  /**
+   * Return the compression method of the entry.
+   * @return The compression method, either {@linkplain ZipEntry#STORED} or {@linkplain ZipEntry#DEFLATED}
+   */
+  public int getMethod() {
+    return method;
+  }
+
+  /**
+   * Return the CRC-32 checksum of the uncompressed content.
+   * @return The CRC-32 checksum of the uncompressed content
+   */
+  public long getCrc() {
+    return crc;
+  }
+
+  /**
+   * Return the size of the uncompressed content.
+   * @return The size of the uncompressed content
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Return the size of the content as it is stored in the ZIP.
+   * @return The size of the content as it is stored in the ZIP
+   */
+  public long getCompressedSize() {
+    return data.size();
+  }
+
+  /**
+   * Return the hashes calculated over the uncompressed content.
+   * @return The hashes calculated over the uncompressed content
+   */
+  public Collection<EncodedHash> getHashes() {
+    return hashes;
+  }
+
+  /**
+   * Return the uncompressed content.
+   * @return The uncompressed content
+   */
+  public InputStream getContent() {
+    InputStream raw = data.getInputStream();
+    if (method == ZipEntry.STORED) {
+      return raw;
+    }
+    return new InflaterInputStream(raw, new Inflater(true)) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inf.end();
+        }
+      }
+    };
+  }
+
+  void writeTo(OutputStream output) throws IOException {
+    data.writeTo(output);
+  }
+
+}
@@ -8,8 +8,6 @@ import java.io.InputStream;
 import java.util.Objects;
 import java.util.function.Supplier;
 
-import org.apache.commons.io.IOUtils;
-
 /**
  * Provide repeatable access to the same {@linkplain InputStream} by caching it in memory.
  */
@@ -23,7 +21,7 @@ public class RepeatableInputStream implements Supplier<InputStream> {
    * @throws IOException When an I/O error occurs
    */
   public RepeatableInputStream(InputStream source) throws IOException {
-    IOUtils.copy(Objects.requireNonNull(source), provider);
+    IOStreams.copy(Objects.requireNonNull(source), provider);
   }
 
   @Override
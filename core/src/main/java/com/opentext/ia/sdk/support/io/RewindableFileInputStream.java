@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Input stream over a file that {@linkplain #markSupported() supports} {@linkplain #mark(int) mark} and
+ * {@linkplain #reset() reset} without buffering, by moving its position in the file. This allows a file to be sent
+ * again, e.g. when an upload is retried, without reading it into memory.
+ */
+public class RewindableFileInputStream extends InputStream {
+
+  private final FileChannel channel;
+  private long mark;
+
+  /**
+   * Open the given file for reading.
+   * @param path The file to read
+   * @throws IOException When the file can't be opened
+   */
+  public RewindableFileInputStream(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] buffer = new byte[1];
+    int numRead = read(buffer, 0, 1);
+    return numRead < 0 ? -1 : buffer[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    return channel.read(ByteBuffer.wrap(buffer, offset, length));
+  }
+
+  @Override
+  public long skip(long count) throws IOException {
+    long position = channel.position();
+    long skipped = Math.max(0, Math.min(count, channel.size() - position));
+    channel.position(position + skipped);
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int)Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - channel.position()));
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  /**
+   * Remember the current position, so that {@linkplain #reset()} can return to it.
+   * @param readLimit Ignored, since the whole file can always be read again
+   */
+  @Override
+  public synchronized void mark(int readLimit) {
+    try {
+      mark = channel.position();
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  @Override
+  public synchronized void reset() throws IOException {
+    channel.position(mark);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
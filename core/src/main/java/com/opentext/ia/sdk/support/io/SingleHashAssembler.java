@@ -3,11 +3,16 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Collections;
 
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
+
 /**
  * Assemble a single hash.
  */
@@ -46,7 +51,21 @@ public class SingleHashAssembler extends NoHashAssembler {
   @Override
   public void add(byte[] buffer, int length) {
     super.add(buffer, length);
+    Timer timer = Instrumentation.timer(MetricNames.HASH);
+    long start = timer.start();
     digester.update(buffer, 0, length);
+    timer.stop(start);
+    Instrumentation.counter(MetricNames.HASH_BYTES).inc(length);
+  }
+
+  @Override
+  public void add(ByteBuffer buffer) {
+    Timer timer = Instrumentation.timer(MetricNames.HASH);
+    long start = timer.start();
+    digester.update(buffer.duplicate());
+    timer.stop(start);
+    Instrumentation.counter(MetricNames.HASH_BYTES).inc(buffer.remaining());
+    super.add(buffer);
   }
 
   @Override
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffer that stores data in memory until it exceeds a threshold, after which all data is moved to a temporary file.
+ * This combines the speed of a {@linkplain MemoryBuffer} for small amounts of data with the safety of a
+ * {@linkplain FileBuffer} for large amounts. The temporary file is deleted when the buffer is
+ * {@linkplain #release() released}.
+ * <p>
+ * Once data is moved to disk, writes go through a direct buffer from the {@linkplain BufferPool} of the spilling
+ * thread. Buffers that never spill don't need one at all.
+ * </p>
+ */
+public class SpillingBuffer implements DataBuffer {
+
+  /**
+   * The default number of bytes kept in memory.
+   */
+  public static final long DEFAULT_THRESHOLD = 8 * 1024 * 1024;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private final long threshold;
+  private final MemoryBuffer memory;
+  private final OutputStream output = new SpillingOutputStream();
+  private ByteBuffer writeBuffer;
+  private Path file;
+  private FileChannel channel;
+  private long spilled;
+
+  /**
+   * Store data in memory up to the {@linkplain #DEFAULT_THRESHOLD default threshold}.
+   */
+  public SpillingBuffer() {
+    this(DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Store data in memory up to the given threshold.
+   * @param threshold The maximum number of bytes to keep in memory
+   */
+  public SpillingBuffer(long threshold) {
+    this(threshold, MemoryChunkPool.shared());
+  }
+
+  /**
+   * Store data in memory, using chunks from the given pool, up to the given threshold.
+   * @param threshold The maximum number of bytes to keep in memory
+   * @param pool The pool that provides the chunks to store data in memory
+   */
+  public SpillingBuffer(long threshold, MemoryChunkPool pool) {
+    this.threshold = threshold;
+    this.memory = new MemoryBuffer(pool);
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    return output;
+  }
+
+  @Override
+  public synchronized InputStream openForReading() throws IOException {
+    if (channel == null) {
+      return memory.openForReading();
+    }
+    flush();
+    return Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+  }
+
+  @Override
+  public synchronized long length() {
+    if (channel == null) {
+      return memory.length();
+    }
+    return spilled + writeBuffer.position();
+  }
+
+  /**
+   * Return the number of bytes that were moved to disk.
+   * @return The number of bytes that were moved to disk
+   */
+  public synchronized long spilledLength() {
+    return channel == null ? 0 : length();
+  }
+
+  /**
+   * Free the memory and delete the temporary file, if any.
+   */
+  @Override
+  public synchronized void release() {
+    memory.release();
+    if (writeBuffer != null) {
+      BufferPool.forCurrentThread()
+        .release(writeBuffer);
+      writeBuffer = null;
+    }
+    spilled = 0;
+    if (channel != null) {
+      try {
+        channel.close();
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        throw new RuntimeIoException(e);
+      } finally {
+        channel = null;
+        file = null;
+      }
+    }
+  }
+
+  private synchronized void write(byte[] data, int offset, int size) throws IOException {
+    if (channel == null) {
+      if (memory.length() + size <= threshold) {
+        memory.openForWriting()
+          .write(data, offset, size);
+        return;
+      }
+      spill();
+    }
+    if (size > writeBuffer.remaining()) {
+      flush();
+      if (size > writeBuffer.capacity()) {
+        writeFully(ByteBuffer.wrap(data, offset, size));
+        return;
+      }
+    }
+    writeBuffer.put(data, offset, size);
+  }
+
+  private void spill() throws IOException {
+    file = Files.createTempFile(null, null);
+    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    BufferPool pool = BufferPool.forCurrentThread();
+    byte[] chunk = pool.acquire(WRITE_BUFFER_SIZE);
+    try (InputStream stream = memory.openForReading()) {
+      int numRead = stream.read(chunk);
+      while (numRead > 0) {
+        writeFully(ByteBuffer.wrap(chunk, 0, numRead));
+        numRead = stream.read(chunk);
+      }
+    } finally {
+      pool.release(chunk);
+    }
+    memory.release();
+    writeBuffer = pool.acquireDirect(WRITE_BUFFER_SIZE);
+  }
+
+  private void flush() throws IOException {
+    writeBuffer.flip();
+    writeFully(writeBuffer);
+    writeBuffer.clear();
+  }
+
+  private void writeFully(ByteBuffer data) throws IOException {
+    while (data.hasRemaining()) {
+      spilled += channel.write(data);
+    }
+  }
+
+
+  private class SpillingOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int size) throws IOException {
+      SpillingBuffer.this.write(data, offset, size);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      synchronized (SpillingBuffer.this) {
+        if (channel != null) {
+          SpillingBuffer.this.flush();
+        }
+      }
+    }
+
+  }
+
+}
@@ -7,13 +7,16 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 
 /**
  * Assemble a ZIP from entries. The ZIP assembly process consists of the following stages:
  * <ol>
  * <li>{@linkplain #begin(OutputStream) Begin} the assembly process</li>
- * <li>{@linkplain #addEntry(String, InputStream, HashAssembler) Add} entries to the ZIP zero or more times</li>
+ * <li>{@linkplain #addEntry(String, InputStream, HashAssembler) Add} entries to the ZIP zero or more times, or add
+ * {@linkplain #addPreparedEntry(String, PreparedZipEntry) prepared} entries</li>
  * <li>{@linkplain #close() Close} the ZIP</li>
  * </ol>
  */
@@ -36,4 +39,87 @@ public interface ZipAssembler extends Closeable {
    */
   Collection<EncodedHash> addEntry(String name, InputStream content, HashAssembler hashAssembler) throws IOException;
 
+  /**
+   * Add an entry with content of a known media type to the ZIP. Implementations may use the media type to decide how
+   * to compress the entry.
+   * @param name The name of the entry to add
+   * @param mediaType The media type of the entry's content, or <code>null</code> if unknown
+   * @param content The content of the entry to add
+   * @param hashAssembler The hasher to will calculate the hash of the entry's content
+   * @return Any calculated hashes
+   * @throws IOException When an I/O error occurs
+   */
+  default Collection<EncodedHash> addEntry(String name, String mediaType, InputStream content,
+      HashAssembler hashAssembler) throws IOException {
+    return addEntry(name, content, hashAssembler);
+  }
+
+  /**
+   * Add an entry to the ZIP whose content is stored in a file. Implementations may copy the file's content using file
+   * channels rather than streams, to avoid copying it into memory.
+   * @param name The name of the entry to add
+   * @param mediaType The media type of the entry's content, or <code>null</code> if unknown
+   * @param file The file that holds the content of the entry to add
+   * @param hashAssembler The hasher to will calculate the hash of the entry's content
+   * @return Any calculated hashes
+   * @throws IOException When an I/O error occurs
+   */
+  default Collection<EncodedHash> addEntry(String name, String mediaType, Path file, HashAssembler hashAssembler)
+      throws IOException {
+    try (InputStream content = Files.newInputStream(file)) {
+      return addEntry(name, mediaType, content, hashAssembler);
+    }
+  }
+
+  /**
+   * Add an entry to the ZIP whose content was already hashed and compressed. Implementations that can't write
+   * compressed content directly add the uncompressed content instead.
+   * @param name The name of the entry to add
+   * @param entry The prepared content of the entry to add
+   * @return The hashes calculated when the entry was prepared
+   * @throws IOException When an I/O error occurs
+   */
+  default Collection<EncodedHash> addPreparedEntry(String name, PreparedZipEntry entry) throws IOException {
+    try (InputStream content = entry.getContent()) {
+      addEntry(name, content, new NoHashAssembler());
+    }
+    return entry.getHashes();
+  }
+
+  /**
+   * Return the policy that decides how to compress entries. Callers that {@linkplain PreparedZipEntry#prepare(String,
+   * String, InputStream, CompressionPolicy, HashAssembler) prepare} entries use it to compress them the same way this
+   * assembler would.
+   * @return The policy that decides how to compress entries
+   */
+  default CompressionPolicy getCompressionPolicy() {
+    return CompressionPolicy.deflateAll();
+  }
+
+  /**
+   * Return the total size of the content of the entries added so far, before compression.
+   * @return The total size of the content of the entries added so far, or <code>0</code> if unknown
+   */
+  default long getUncompressedSize() {
+    return 0;
+  }
+
+  /**
+   * Return the total size of the content of the entries added so far, after compression.
+   * @return The total size of the compressed content of the entries added so far, or <code>0</code> if unknown
+   */
+  default long getCompressedSize() {
+    return 0;
+  }
+
+  /**
+   * Return the total time spent reading the content of entries that were added {@linkplain #addEntry(String, String,
+   * Path, HashAssembler) from files} so far. Callers that add entries from streams can time reading those themselves.
+   * @return The total time spent reading the content of entries that were added from files so far, in nanoseconds, or
+   *         <code>0</code> if unknown
+   */
+  default long getFileReadNanos() {
+    return 0;
+  }
+
 }
@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import com.opentext.ia.sdk.support.metrics.Instrumentation;
+import com.opentext.ia.sdk.support.metrics.MetricNames;
+import com.opentext.ia.sdk.support.metrics.Timer;
+
+/**
+ * Low-level writer of the ZIP file format. Unlike {@linkplain java.util.zip.ZipOutputStream}, this writer can add
+ * entries whose content was compressed up front, so that the expensive work of compressing can happen elsewhere.
+ * Entries are written using UTF-8 names and switch to ZIP64 extensions where sizes or offsets require it.
+ * <p>
+ * Apart from the bookkeeping that the central directory needs, adding an entry allocates nothing: the stream returned
+ * for deflated entries is reused for the next entry, so it must not be used once it's closed.
+ * </p>
+ */
+final class ZipWriter implements Closeable {
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+  private static final int FLAG_UTF8 = 0x0800;
+  private static final int VERSION_STORED = 10;
+  private static final int VERSION_DEFLATED = 20;
+  private static final int VERSION_ZIP64 = 45;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final int ZIP64_END_SIZE = 44;
+  private static final long MAX_32 = 0xFFFFFFFFL;
+  private static final int MAX_16 = 0xFFFF;
+  private static final int DOS_EPOCH_YEAR = 1980;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Output out;
+  private final WritableByteChannel channel;
+  private final List<Entry> entries = new ArrayList<>();
+  private final Set<String> names = new HashSet<>();
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final byte[] deflateBuffer = new byte[BUFFER_SIZE];
+  private final byte[] scratch = new byte[8];
+  private final long[] zip64Values = new long[3];
+  private final EntryOutputStream entryOutput = new EntryOutputStream();
+  private int numZip64Values;
+  private long dosTimeSecond = -1;
+  private long dosTime;
+  private OutputStream current;
+  private long uncompressedSize;
+  private long compressedSize;
+
+  ZipWriter(OutputStream output) {
+    out = new Output(new BufferedOutputStream(output, BUFFER_SIZE));
+    channel = output instanceof FileOutputStream ? ((FileOutputStream)output).getChannel() : Channels.newChannel(output);
+  }
+
+  /**
+   * Start an entry whose content is compressed while it's being written. The entry is finished by closing the returned
+   * stream.
+   * @param name The name of the entry
+   * @return The stream to write the uncompressed content of the entry to
+   * @throws IOException When an I/O error occurs
+   */
+  OutputStream putDeflatedEntry(String name) throws IOException {
+    return putDeflatedEntry(name, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Start an entry whose content is compressed at the given level while it's being written. The entry is finished by
+   * closing the returned stream.
+   * @param name The name of the entry
+   * @param level The compression level
+   * @return The stream to write the uncompressed content of the entry to
+   * @throws IOException When an I/O error occurs
+   */
+  OutputStream putDeflatedEntry(String name, int level) throws IOException {
+    Entry entry = newEntry(name, ZipEntry.DEFLATED, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+    writeLocalHeader(entry, false);
+    deflater.setLevel(level);
+    current = entryOutput.open(entry);
+    return current;
+  }
+
+  /**
+   * Start an entry whose content is deflated elsewhere. The raw deflate data is written to the returned stream, after
+   * which the entry is finished by {@linkplain CompressedEntryOutputStream#finish(long, long) providing} the CRC and
+   * size of the uncompressed content.
+   * @param name The name of the entry
+   * @return The stream to write the compressed content of the entry to
+   * @throws IOException When an I/O error occurs
+   */
+  CompressedEntryOutputStream putCompressedEntry(String name) throws IOException {
+    Entry entry = newEntry(name, ZipEntry.DEFLATED, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+    writeLocalHeader(entry, false);
+    CompressedEntryOutputStream result = new CompressedEntryOutputStream(entry);
+    current = result;
+    return result;
+  }
+
+  /**
+   * Add an entry whose content is stored without compression. Since the ZIP format requires the CRC and size of such
+   * entries up front, the caller must compute them before adding the entry.
+   * @param name The name of the entry
+   * @param crc The CRC-32 of the content
+   * @param size The number of bytes in the content
+   * @param content The content
+   * @throws IOException When an I/O error occurs
+   */
+  void putStoredEntry(String name, long crc, long size, InputStream content) throws IOException {
+    writeStoredEntryHeader(name, crc, size);
+    long numWritten = 0;
+    int numRead = content.read(deflateBuffer);
+    while (numRead > 0) {
+      out.write(deflateBuffer, 0, numRead);
+      numWritten += numRead;
+      numRead = content.read(deflateBuffer);
+    }
+    if (numWritten != size) {
+      throw invalidEntrySize(size, numWritten);
+    }
+  }
+
+  private void writeStoredEntryHeader(String name, long crc, long size) throws IOException {
+    Entry entry = newEntry(name, ZipEntry.STORED, FLAG_UTF8);
+    entry.crc = crc;
+    entry.size = size;
+    entry.compressedSize = size;
+    writeLocalHeader(entry, true);
+    addToTotals(entry);
+  }
+
+  private static ZipException invalidEntrySize(long expected, long actual) {
+    return new ZipException(String.format("invalid entry size (expected %d but got %d bytes)", expected, actual));
+  }
+
+  /**
+   * Add an entry whose content is stored without compression and is read from a file. The content is transferred
+   * directly from the file to the ZIP, which avoids copying it through memory when the ZIP is written to a file too.
+   * @param name The name of the entry
+   * @param crc The CRC-32 of the content
+   * @param size The number of bytes in the content
+   * @param content The file channel to read the content from, starting at position zero
+   * @throws IOException When an I/O error occurs
+   */
+  void putStoredEntry(String name, long crc, long size, FileChannel content) throws IOException {
+    writeStoredEntryHeader(name, crc, size);
+    out.flush();
+    long numTransferred = 0;
+    while (numTransferred < size) {
+      long numWritten = content.transferTo(numTransferred, size - numTransferred, channel);
+      if (numWritten <= 0) {
+        throw invalidEntrySize(size, numTransferred);
+      }
+      numTransferred += numWritten;
+      out.position += numWritten;
+    }
+  }
+
+  /**
+   * Add an entry whose content has already been prepared.
+   * @param name The name of the entry
+   * @param content The prepared content
+   * @throws IOException When an I/O error occurs
+   */
+  void putPreparedEntry(String name, PreparedZipEntry content) throws IOException {
+    Entry entry = newEntry(name, content.getMethod(), FLAG_UTF8);
+    entry.crc = content.getCrc();
+    entry.size = content.getSize();
+    entry.compressedSize = content.getCompressedSize();
+    writeLocalHeader(entry, true);
+    content.writeTo(out);
+    addToTotals(entry);
+  }
+
+  private void addToTotals(Entry entry) {
+    uncompressedSize += entry.size;
+    compressedSize += entry.compressedSize;
+    Instrumentation.counter(MetricNames.ZIP_ENTRIES).inc();
+    Instrumentation.counter(MetricNames.ZIP_BYTES_UNCOMPRESSED).inc(entry.size);
+    Instrumentation.counter(MetricNames.ZIP_BYTES_COMPRESSED).inc(entry.compressedSize);
+  }
+
+  /**
+   * Return the total size of the content of all finished entries before compression.
+   * @return The total size of the content of all finished entries before compression
+   */
+  long getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+  /**
+   * Return the total size of the content of all finished entries after compression.
+   * @return The total size of the content of all finished entries after compression
+   */
+  long getCompressedSize() {
+    return compressedSize;
+  }
+
+  private Entry newEntry(String name, int method, int flags) throws IOException {
+    if (current != null) {
+      throw new IllegalStateException("Previous entry is still open");
+    }
+    if (!names.add(name)) {
+      throw new ZipException("duplicate entry: " + name);
+    }
+    Entry result = new Entry(name, method, flags, currentDosTime(), out.position);
+    entries.add(result);
+    return result;
+  }
+
+  private long currentDosTime() {
+    long second = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    if (second != dosTimeSecond) {
+      dosTimeSecond = second;
+      dosTime = dosTime(TimeUnit.SECONDS.toMillis(second));
+    }
+    return dosTime;
+  }
+
+  private static long dosTime(long millis) {
+    LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    if (time.getYear() < DOS_EPOCH_YEAR) {
+      return (1 << 21) | (1 << 16);
+    }
+    return (long)(time.getYear() - DOS_EPOCH_YEAR) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+        | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+  }
+
+  private void writeLocalHeader(Entry entry, boolean sizesKnown) throws IOException {
+    numZip64Values = 0;
+    if (sizesKnown && (entry.size >= MAX_32 || entry.compressedSize >= MAX_32)) {
+      zip64Values[numZip64Values++] = entry.size;
+      zip64Values[numZip64Values++] = entry.compressedSize;
+    }
+    writeInt(LOCAL_HEADER_SIGNATURE);
+    writeShort(numZip64Values == 0 ? entry.version() : VERSION_ZIP64);
+    writeShort(entry.flags);
+    writeShort(entry.method);
+    writeInt(entry.dosTime);
+    if (sizesKnown) {
+      writeLocalSizes(entry, numZip64Values > 0);
+    } else {
+      writeLong(0); // CRC and compressed size follow in the data descriptor
+      writeInt(0); // Size follows in the data descriptor
+    }
+    writeShort(entry.name.length);
+    writeShort(extraLength());
+    out.write(entry.name, 0, entry.name.length);
+    writeZip64Extra();
+  }
+
+  private void writeLocalSizes(Entry entry, boolean zip64) throws IOException {
+    writeInt(entry.crc);
+    writeInt(zip64 ? MAX_32 : entry.compressedSize);
+    writeInt(zip64 ? MAX_32 : entry.size);
+  }
+
+  private void writeDataDescriptor(Entry entry) throws IOException {
+    writeInt(DATA_DESCRIPTOR_SIGNATURE);
+    writeInt(entry.crc);
+    if (entry.size >= MAX_32 || entry.compressedSize >= MAX_32) {
+      writeLong(entry.compressedSize);
+      writeLong(entry.size);
+    } else {
+      writeInt(entry.compressedSize);
+      writeInt(entry.size);
+    }
+  }
+
+  private void writeCentralHeader(Entry entry) throws IOException {
+    numZip64Values = 0;
+    addZip64Value(entry.size);
+    addZip64Value(entry.compressedSize);
+    addZip64Value(entry.offset);
+    int version = numZip64Values == 0 ? entry.version() : VERSION_ZIP64;
+    writeInt(CENTRAL_HEADER_SIGNATURE);
+    writeShort(version);
+    writeShort(version);
+    writeShort(entry.flags);
+    writeShort(entry.method);
+    writeInt(entry.dosTime);
+    writeInt(entry.crc);
+    writeInt(Math.min(entry.compressedSize, MAX_32));
+    writeInt(Math.min(entry.size, MAX_32));
+    writeShort(entry.name.length);
+    writeShort(extraLength());
+    writeShort(0); // Comment length
+    writeShort(0); // Disk number start
+    writeShort(0); // Internal attributes
+    writeInt(0); // External attributes
+    writeInt(Math.min(entry.offset, MAX_32));
+    out.write(entry.name, 0, entry.name.length);
+    writeZip64Extra();
+  }
+
+  private void addZip64Value(long value) {
+    if (value >= MAX_32) {
+      zip64Values[numZip64Values++] = value;
+    }
+  }
+
+  private int extraLength() {
+    return numZip64Values == 0 ? 0 : 4 + 8 * numZip64Values;
+  }
+
+  private void writeZip64Extra() throws IOException {
+    if (numZip64Values == 0) {
+      return;
+    }
+    writeShort(ZIP64_EXTRA_ID);
+    writeShort(8 * numZip64Values);
+    for (int i = 0; i < numZip64Values; i++) {
+      writeLong(zip64Values[i]);
+    }
+  }
+
+  private void writeEnd(long centralDirectoryOffset) throws IOException {
+    long centralDirectorySize = out.position - centralDirectoryOffset;
+    int numEntries = entries.size();
+    if (numEntries >= MAX_16 || centralDirectoryOffset >= MAX_32 || centralDirectorySize >= MAX_32) {
+      long zip64EndOffset = out.position;
+      writeInt(ZIP64_END_SIGNATURE);
+      writeLong(ZIP64_END_SIZE);
+      writeShort(VERSION_ZIP64);
+      writeShort(VERSION_ZIP64);
+      writeInt(0); // This disk
+      writeInt(0); // Disk with central directory
+      writeLong(numEntries);
+      writeLong(numEntries);
+      writeLong(centralDirectorySize);
+      writeLong(centralDirectoryOffset);
+      writeInt(ZIP64_LOCATOR_SIGNATURE);
+      writeInt(0); // Disk with ZIP64 end of central directory
+      writeLong(zip64EndOffset);
+      writeInt(1); // Total number of disks
+    }
+    writeInt(END_SIGNATURE);
+    writeShort(0); // This disk
+    writeShort(0); // Disk with central directory
+    writeShort(Math.min(numEntries, MAX_16));
+    writeShort(Math.min(numEntries, MAX_16));
+    writeInt(Math.min(centralDirectorySize, MAX_32));
+    writeInt(Math.min(centralDirectoryOffset, MAX_32));
+    writeShort(0); // Comment length
+  }
+
+  private void writeShort(int value) throws IOException {
+    scratch[0] = (byte)value;
+    scratch[1] = (byte)(value >>> 8);
+    out.write(scratch, 0, 2);
+  }
+
+  private void writeInt(long value) throws IOException {
+    for (int i = 0; i < 4; i++) {
+      scratch[i] = (byte)(value >>> (8 * i));
+    }
+    out.write(scratch, 0, 4);
+  }
+
+  private void writeLong(long value) throws IOException {
+    for (int i = 0; i < 8; i++) {
+      scratch[i] = (byte)(value >>> (8 * i));
+    }
+    out.write(scratch, 0, 8);
+  }
+
+  /**
+   * Write the central directory and close the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (current != null) {
+        current.close();
+      }
+      long centralDirectoryOffset = out.position;
+      for (Entry entry : entries) {
+        writeCentralHeader(entry);
+      }
+      writeEnd(centralDirectoryOffset);
+    } finally {
+      deflater.end();
+      out.close();
+    }
+  }
+
+
+  private static final class Entry {
+
+    private final byte[] name;
+    private final int method;
+    private final int flags;
+    private final long dosTime;
+    private final long offset;
+    private long crc;
+    private long size;
+    private long compressedSize;
+
+    Entry(String name, int method, int flags, long dosTime, long offset) {
+      this.name = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.flags = flags;
+      this.dosTime = dosTime;
+      this.offset = offset;
+    }
+
+    int version() {
+      return method == ZipEntry.STORED ? VERSION_STORED : VERSION_DEFLATED;
+    }
+
+  }
+
+
+  private static final class Output extends OutputStream {
+
+    private final OutputStream delegate;
+    private long position;
+
+    Output(OutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      delegate.write(buffer, offset, length);
+      position += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+  }
+
+
+  /**
+   * Stream to write the raw deflate data of an entry to.
+   */
+  final class CompressedEntryOutputStream extends OutputStream {
+
+    private final Entry entry;
+    private final long start = out.position;
+    private boolean finished;
+
+    CompressedEntryOutputStream(Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      if (finished) {
+        throw new IOException("Entry already finished");
+      }
+      out.write(buffer, offset, length);
+    }
+
+    /**
+     * Finish the entry.
+     * @param crc The CRC-32 of the uncompressed content
+     * @param size The number of bytes in the uncompressed content
+     * @throws IOException When an I/O error occurs
+     */
+    void finish(long crc, long size) throws IOException {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      current = null;
+      entry.crc = crc;
+      entry.size = size;
+      entry.compressedSize = out.position - start;
+      writeDataDescriptor(entry);
+      addToTotals(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!finished) {
+        current = null;
+        throw new IOException("Entry closed before it was finished: " + new String(entry.name, StandardCharsets.UTF_8));
+      }
+    }
+
+  }
+
+
+  private final class EntryOutputStream extends OutputStream {
+
+    private final CRC32 crc = new CRC32();
+    private Entry entry;
+    private long start;
+    private boolean closed = true;
+
+    EntryOutputStream open(Entry newEntry) {
+      entry = newEntry;
+      start = out.position;
+      crc.reset();
+      closed = false;
+      return this;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      if (closed) {
+        throw new IOException("Entry already closed");
+      }
+      crc.update(buffer, offset, length);
+      entry.size += length;
+      Timer timer = Instrumentation.timer(MetricNames.COMPRESS);
+      long compressStart = timer.start();
+      deflater.setInput(buffer, offset, length);
+      while (!deflater.needsInput()) {
+        deflate();
+      }
+      timer.stop(compressStart);
+    }
+
+    private void deflate() throws IOException {
+      int length = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+      if (length > 0) {
+        out.write(deflateBuffer, 0, length);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      current = null;
+      Timer timer = Instrumentation.timer(MetricNames.COMPRESS);
+      long compressStart = timer.start();
+      deflater.finish();
+      while (!deflater.finished()) {
+        deflate();
+      }
+      deflater.reset();
+      timer.stop(compressStart);
+      entry.crc = crc.getValue();
+      entry.compressedSize = out.position - start;
+      writeDataDescriptor(entry);
+      addToTotals(entry);
+    }
+
+  }
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+
+/**
+ * Metric that counts things, like the number of bytes hashed.
+ */
+public interface Counter {
+
+  /**
+   * Increase the count by one.
+   */
+  default void inc() {
+    inc(1);
+  }
+
+  /**
+   * Increase the count by the given amount.
+   * @param delta The amount to increase the count with
+   */
+  void inc(long delta);
+
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+
+/**
+ * Management interface of a {@linkplain Counter} that's published via JMX.
+ */
+public interface CounterMXBean {
+
+  /**
+   * Return the current count.
+   * @return The current count
+   */
+  long getCount();
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+import java.util.Objects;
+
+
+/**
+ * Holder of the registry that the SDK publishes its metrics to. By default, metrics are ignored. Set a registry to
+ * collect them:
+ * <pre>
+ * Instrumentation.setRegistry(new JmxMetricsRegistry());
+ * </pre>
+ * Metrics are looked up in the registry each time they're published, so a new registry takes effect immediately, even
+ * for assemblers and clients that were created before.
+ */
+public final class Instrumentation {
+
+  private static volatile MetricsRegistry registry = MetricsRegistry.noOp();
+
+  private Instrumentation() {
+    // Utility class
+  }
+
+  /**
+   * Return the registry that metrics are published to.
+   * @return The registry that metrics are published to
+   */
+  public static MetricsRegistry registry() {
+    return registry;
+  }
+
+  /**
+   * Set the registry that metrics are published to.
+   * @param newRegistry The registry that metrics are published to
+   */
+  public static void setRegistry(MetricsRegistry newRegistry) {
+    registry = Objects.requireNonNull(newRegistry, "Missing registry");
+  }
+
+  /**
+   * Stop publishing metrics.
+   */
+  public static void disable() {
+    registry = MetricsRegistry.noOp();
+  }
+
+  /**
+   * Return the counter with the given name from the current registry.
+   * @param name The name of the counter
+   * @return The counter with the given name
+   */
+  public static Counter counter(String name) {
+    return registry.counter(name);
+  }
+
+  /**
+   * Return the timer with the given name from the current registry.
+   * @param name The name of the timer
+   * @return The timer with the given name
+   */
+  public static Timer timer(String name) {
+    return registry.timer(name);
+  }
+
+}
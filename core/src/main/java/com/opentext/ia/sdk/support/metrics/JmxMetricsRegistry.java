@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+
+/**
+ * Registry that publishes metrics as MBeans, so that they can be watched with tools like JConsole while SIPs are
+ * assembled and ingested. Each metric is registered the first time it's requested, under the object name
+ * <code>&lt;domain&gt;:type=Counter|Timer,name=&lt;name&gt;</code>. Timers keep a {@linkplain LatencyHistogram
+ * histogram} of durations, so they report percentiles as well as the mean and maximum.
+ */
+public class JmxMetricsRegistry implements MetricsRegistry {
+
+  /**
+   * The default domain of the object names of the MBeans.
+   */
+  public static final String DEFAULT_DOMAIN = "com.opentext.ia.sdk";
+  private static final String COUNTER = "Counter";
+  private static final String TIMER = "Timer";
+
+  private final MBeanServer server;
+  private final String domain;
+  private final ConcurrentMap<String, JmxCounter> counters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, JmxTimer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * Create an instance that registers MBeans with the platform MBean server in the {@linkplain #DEFAULT_DOMAIN
+   * default domain}.
+   */
+  public JmxMetricsRegistry() {
+    this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+  }
+
+  /**
+   * Create an instance.
+   * @param server The server to register MBeans with
+   * @param domain The domain of the object names of the MBeans
+   */
+  public JmxMetricsRegistry(MBeanServer server, String domain) {
+    this.server = Objects.requireNonNull(server, "Missing MBean server");
+    this.domain = Objects.requireNonNull(domain, "Missing domain");
+  }
+
+  @Override
+  public Counter counter(String name) {
+    JmxCounter result = counters.get(name);
+    if (result == null) {
+      result = counters.computeIfAbsent(name, key -> register(new JmxCounter(), CounterMXBean.class, COUNTER, key));
+    }
+    return result;
+  }
+
+  @Override
+  public Timer timer(String name) {
+    JmxTimer result = timers.get(name);
+    if (result == null) {
+      result = timers.computeIfAbsent(name, key -> register(new JmxTimer(), TimerMXBean.class, TIMER, key));
+    }
+    return result;
+  }
+
+  private <M extends T, T> M register(M metric, Class<T> managementInterface, String type, String name) {
+    try {
+      ObjectName objectName = objectName(type, name);
+      StandardMBean mbean = new StandardMBean(managementInterface.cast(metric), managementInterface, true);
+      try {
+        server.registerMBean(mbean, objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        // Left behind by a previous registry; the metrics of this registry take over
+        server.unregisterMBean(objectName);
+        server.registerMBean(mbean, objectName);
+      }
+      return metric;
+    } catch (JMException e) {
+      throw new IllegalStateException("Failed to register MBean for metric " + name, e);
+    }
+  }
+
+  private ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+    return new ObjectName(String.format("%s:type=%s,name=%s", domain, type, name));
+  }
+
+  /**
+   * Unregister the MBeans of all metrics of this registry.
+   */
+  public void unregisterAll() {
+    counters.keySet().forEach(name -> unregister(COUNTER, name));
+    timers.keySet().forEach(name -> unregister(TIMER, name));
+  }
+
+  private void unregister(String type, String name) {
+    try {
+      server.unregisterMBean(objectName(type, name));
+    } catch (InstanceNotFoundException e) {
+      // Already gone
+    } catch (JMException e) {
+      throw new IllegalStateException("Failed to unregister MBean for metric " + name, e);
+    }
+  }
+
+
+  static class JmxCounter implements Counter, CounterMXBean {
+
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void inc(long delta) {
+      count.add(delta);
+    }
+
+    @Override
+    public long getCount() {
+      return count.sum();
+    }
+
+  }
+
+
+  static class JmxTimer implements Timer, TimerMXBean {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Override
+    public void record(long durationNanos) {
+      histogram.record(durationNanos);
+    }
+
+    @Override
+    public long getCount() {
+      return histogram.getCount();
+    }
+
+    @Override
+    public double getTotalMillis() {
+      return histogram.getTotal() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMeanMillis() {
+      long count = histogram.getCount();
+      if (count == 0) {
+        return 0;
+      }
+      return getTotalMillis() / count;
+    }
+
+    @Override
+    public double getMaxMillis() {
+      return histogram.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double get50thPercentileMillis() {
+      return histogram.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double get95thPercentileMillis() {
+      return histogram.getPercentile(95) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double get99thPercentileMillis() {
+      return histogram.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Histogram of durations that can be recorded from multiple threads without locking. Durations are counted in buckets
+ * whose bounds are powers of two nanoseconds, so percentiles are accurate to within a factor of two. That's coarse,
+ * but it takes a fixed, small amount of memory no matter how many durations are recorded, and it's plenty to tell
+ * microseconds from milliseconds from seconds.
+ */
+class LatencyHistogram {
+
+  private static final int NUM_BUCKETS = Long.SIZE;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long durationNanos) {
+    long duration = Math.max(0, durationNanos);
+    buckets.incrementAndGet(bucketOf(duration));
+    count.increment();
+    total.add(duration);
+    if (duration > max.get()) {
+      max.accumulateAndGet(duration, Math::max);
+    }
+  }
+
+  private static int bucketOf(long duration) {
+    // Bucket i holds durations in [2^(i-1), 2^i)
+    return Math.min(NUM_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(duration));
+  }
+
+  long getCount() {
+    return count.sum();
+  }
+
+  long getTotal() {
+    return total.sum();
+  }
+
+  long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Return an upper bound for the given percentile of the recorded durations.
+   * @param percentile The percentile to return, between 0 and 100
+   * @return The upper bound of the bucket that holds the percentile, in nanoseconds, or 0 if nothing was recorded
+   */
+  long getPercentile(double percentile) {
+    long[] counts = new long[NUM_BUCKETS];
+    long numRecorded = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      long numInBucket = buckets.get(i);
+      counts[i] = numInBucket;
+      numRecorded += numInBucket;
+    }
+    if (numRecorded == 0) {
+      return 0;
+    }
+    long rank = (long)Math.ceil(percentile / 100 * numRecorded);
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return Math.min(upperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  private static long upperBound(int bucket) {
+    return bucket == 0 ? 0 : (1L << bucket) - 1;
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Names of the metrics that the SDK publishes.
+ */
+public final class MetricNames {
+
+  /**
+   * Timer for hashing content. Each chunk of content is timed separately for each hash function.
+   */
+  public static final String HASH = "hash";
+  /**
+   * Counter for the number of bytes hashed, counting each hash function separately.
+   */
+  public static final String HASH_BYTES = "hash.bytes";
+  /**
+   * Timer for deflating content. Each chunk of content, or block for parallel deflation, is timed separately.
+   */
+  public static final String COMPRESS = "compress";
+  /**
+   * Counter for the number of bytes of ZIP entries before compression.
+   */
+  public static final String ZIP_BYTES_UNCOMPRESSED = "zip.bytes.uncompressed";
+  /**
+   * Counter for the number of bytes of ZIP entries after compression.
+   */
+  public static final String ZIP_BYTES_COMPRESSED = "zip.bytes.compressed";
+  /**
+   * Counter for the number of ZIP entries written.
+   */
+  public static final String ZIP_ENTRIES = "zip.entries";
+  /**
+   * Timer for rendering the PDI of an AIU.
+   */
+  public static final String PDI_RENDER = "pdi.render";
+  /**
+   * Timer for validating assembled output, like a PDI.
+   */
+  public static final String VALIDATE = "validate";
+  /**
+   * Timer for assembling a SIP, from start to end.
+   */
+  public static final String SIP_ASSEMBLY = "sip.assembly";
+  /**
+   * Counter for the number of AIUs added to SIPs.
+   */
+  public static final String SIP_AIUS = "sip.aius";
+  /**
+   * Counter for the number of digital objects added to SIPs.
+   */
+  public static final String CONTENT_OBJECTS = "content.objects";
+  /**
+   * Counter for the number of digital objects that weren't added to a SIP because they were added before.
+   */
+  public static final String CONTENT_DEDUPLICATED = "content.deduplicated";
+  /**
+   * Timer for uploading a SIP to InfoArchive.
+   */
+  public static final String UPLOAD = "upload";
+
+  /**
+   * The names of all timers.
+   */
+  public static final List<String> TIMERS = Collections.unmodifiableList(Arrays.asList(HASH, COMPRESS, PDI_RENDER,
+      VALIDATE, SIP_ASSEMBLY, UPLOAD));
+  /**
+   * The names of all counters.
+   */
+  public static final List<String> COUNTERS = Collections.unmodifiableList(Arrays.asList(HASH_BYTES,
+      ZIP_BYTES_UNCOMPRESSED, ZIP_BYTES_COMPRESSED, ZIP_ENTRIES, SIP_AIUS, CONTENT_OBJECTS, CONTENT_DEDUPLICATED));
+
+  private MetricNames() {
+    // Constants class
+  }
+
+}
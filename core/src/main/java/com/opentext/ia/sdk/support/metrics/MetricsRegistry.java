@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+
+/**
+ * Place where metrics are published. Implementations must be thread-safe, and should return the same metric every time
+ * a given name is requested.
+ */
+public interface MetricsRegistry {
+
+  /**
+   * Return a registry that ignores all metrics published to it.
+   * @return A registry that ignores all metrics
+   */
+  static MetricsRegistry noOp() {
+    return NoOpMetricsRegistry.INSTANCE;
+  }
+
+  /**
+   * Return the counter with the given name.
+   * @param name The name of the counter
+   * @return The counter with the given name
+   */
+  Counter counter(String name);
+
+  /**
+   * Return the timer with the given name.
+   * @param name The name of the timer
+   * @return The timer with the given name
+   */
+  Timer timer(String name);
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+
+/**
+ * Registry that ignores all metrics. Its timers don't even read the clock, so that publishing metrics costs next to
+ * nothing when no one is interested in them.
+ */
+final class NoOpMetricsRegistry implements MetricsRegistry {
+
+  static final MetricsRegistry INSTANCE = new NoOpMetricsRegistry();
+
+  private static final Counter COUNTER = delta -> {
+    // Ignore
+  };
+  private static final Timer TIMER = new NoOpTimer();
+
+  private NoOpMetricsRegistry() {
+    // Singleton
+  }
+
+  @Override
+  public Counter counter(String name) {
+    return COUNTER;
+  }
+
+  @Override
+  public Timer timer(String name) {
+    return TIMER;
+  }
+
+
+  private static class NoOpTimer implements Timer {
+
+    @Override
+    public long start() {
+      return 0;
+    }
+
+    @Override
+    public void stop(long start) {
+      // Ignore
+    }
+
+    @Override
+    public void record(long durationNanos) {
+      // Ignore
+    }
+
+  }
+
+}
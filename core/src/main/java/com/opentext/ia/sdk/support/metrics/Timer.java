@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+
+/**
+ * Metric that keeps track of how long something takes, like deflating a ZIP entry. Time an operation as follows:
+ * <pre>
+ * Timer timer = Instrumentation.timer(MetricNames.COMPRESS);
+ * long start = timer.start();
+ * try {
+ *   ...
+ * } finally {
+ *   timer.stop(start);
+ * }
+ * </pre>
+ */
+public interface Timer {
+
+  /**
+   * Start timing an operation.
+   * @return The start of the operation, to be passed to {@linkplain #stop(long)}
+   */
+  default long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Stop timing an operation.
+   * @param start The start of the operation, as returned by {@linkplain #start()}
+   */
+  default void stop(long start) {
+    record(System.nanoTime() - start);
+  }
+
+  /**
+   * Record the duration of an operation.
+   * @param durationNanos The duration of the operation, in nanoseconds
+   */
+  void record(long durationNanos);
+
+}
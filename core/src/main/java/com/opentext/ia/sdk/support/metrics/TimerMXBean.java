@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+
+/**
+ * Management interface of a {@linkplain Timer} that's published via JMX. Durations are in milliseconds. Percentiles
+ * are approximate: they're upper bounds that are at most twice the actual value.
+ */
+public interface TimerMXBean {
+
+  /**
+   * Return the number of timed operations.
+   * @return The number of timed operations
+   */
+  long getCount();
+
+  /**
+   * Return the total duration of all timed operations.
+   * @return The total duration of all timed operations
+   */
+  double getTotalMillis();
+
+  /**
+   * Return the mean duration of the timed operations.
+   * @return The mean duration of the timed operations
+   */
+  double getMeanMillis();
+
+  /**
+   * Return the longest duration of the timed operations.
+   * @return The longest duration of the timed operations
+   */
+  double getMaxMillis();
+
+  /**
+   * Return the median duration of the timed operations.
+   * @return The median duration of the timed operations
+   */
+  double get50thPercentileMillis();
+
+  /**
+   * Return the 95th percentile of the durations of the timed operations.
+   * @return The 95th percentile of the durations of the timed operations
+   */
+  double get95thPercentileMillis();
+
+  /**
+   * Return the 99th percentile of the durations of the timed operations.
+   * @return The 99th percentile of the durations of the timed operations
+   */
+  double get99thPercentileMillis();
+
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+
+/**
+ * Support code for publishing metrics about assembly and ingestion, like how long hashing and compression take.
+ * Metrics are published to the {@linkplain com.opentext.ia.sdk.support.metrics.Instrumentation#registry() current
+ * registry}, which does nothing unless one is {@linkplain
+ * com.opentext.ia.sdk.support.metrics.Instrumentation#setRegistry(MetricsRegistry) set}, for instance to a
+ * {@linkplain com.opentext.ia.sdk.support.metrics.JmxMetricsRegistry}. The names of the published metrics are listed
+ * in {@linkplain com.opentext.ia.sdk.support.metrics.MetricNames}.
+ */
+package com.opentext.ia.sdk.support.metrics;
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.api.ContentResult;
+import com.opentext.ia.sdk.client.api.InfoArchiveLinkRelations;
+import com.opentext.ia.sdk.client.impl.ApplicationIngestionResourcesCache;
+import com.opentext.ia.sdk.client.impl.DefaultContentResult;
+import com.opentext.ia.sdk.client.impl.InfoArchiveRestClient;
+import com.opentext.ia.sdk.dto.OrderItem;
+import com.opentext.ia.sdk.support.http.Header;
+import com.opentext.ia.sdk.support.http.MediaTypes;
+import com.opentext.ia.sdk.support.http.Response;
+import com.opentext.ia.sdk.support.http.ResponseFactory;
+import com.opentext.ia.sdk.support.http.UriBuilder;
+import com.opentext.ia.sdk.support.http.rest.Link;
+import com.opentext.ia.sdk.support.http.rest.RestClient;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenDownloadingContent extends TestCase {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final RestClient restClient = mock(RestClient.class);
+  private final ArchiveClient archiveClient = new InfoArchiveRestClient(restClient,
+      new ApplicationIngestionResourcesCache(randomString()));
+  private final Runnable closer = mock(Runnable.class);
+  private final OrderItem orderItem = new OrderItem();
+  private Path target;
+
+  @Before
+  public void init() throws IOException {
+    String uri = randomString();
+    UriBuilder uriBuilder = mock(UriBuilder.class);
+    when(uriBuilder.addParameter(anyString(), anyString())).thenReturn(uriBuilder);
+    when(uriBuilder.build()).thenReturn(uri);
+    when(restClient.uri(anyString())).thenReturn(uriBuilder);
+    Link downloadLink = new Link();
+    downloadLink.setHref(randomString());
+    orderItem.getLinks()
+      .put(InfoArchiveLinkRelations.LINK_DOWNLOAD, downloadLink);
+    target = folder.getRoot()
+      .toPath()
+      .resolve(randomString(8));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void returnContent(InputStream content) throws IOException {
+    Response response = mock(Response.class);
+    when(response.getBody()).thenReturn(content);
+    when(restClient.get(anyString(), anyCollectionOf(Header.class), any(ResponseFactory.class)))
+      .thenAnswer(invocation -> invocation.getArgumentAt(2, ResponseFactory.class)
+        .create(response, closer));
+  }
+
+  @Test
+  public void shouldWriteContentToFile() throws IOException {
+    byte[] content = randomBytes();
+    returnContent(new ByteArrayInputStream(content));
+    Files.write(target, randomBytes());
+
+    long length = archiveClient.downloadOrderContent(orderItem, target);
+
+    assertEquals("Length", content.length, length);
+    assertArrayEquals("Content", content, Files.readAllBytes(target));
+    verify(closer).run();
+  }
+
+  @Test
+  public void shouldRemovePartialFileWhenDownloadFails() throws IOException {
+    IOException failure = new IOException(randomString());
+    returnContent(new FilterInputStream(new ByteArrayInputStream(randomBytes())) {
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (available() == 0) {
+          throw failure;
+        }
+        return super.read(buffer, offset, Math.min(length, 1));
+      }
+    });
+
+    try {
+      archiveClient.downloadOrderContent(orderItem, target);
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertSame("Exception", failure, e);
+    }
+
+    assertFalse("Partial file", Files.exists(target));
+    verify(closer).run();
+  }
+
+  @Test
+  public void shouldStreamContentResultToFile() throws IOException {
+    byte[] content = randomBytes();
+    try (ContentResult contentResult = new DefaultContentResult(randomString(), content.length, MediaTypes.BINARY,
+        new ByteArrayInputStream(content), closer)) {
+      assertEquals("Length", content.length, contentResult.writeTo(target));
+    }
+
+    assertArrayEquals("Content", content, Files.readAllBytes(target));
+  }
+
+}
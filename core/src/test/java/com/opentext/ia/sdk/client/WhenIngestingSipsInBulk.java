@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.api.BulkIngester;
+import com.opentext.ia.sdk.client.api.BulkIngestionResult;
+import com.opentext.ia.sdk.client.api.SipIngestion;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIngestingSipsInBulk extends TestCase {
+
+  private static final String PACKAGING_INFORMATION = "eas_sip.xml";
+  private static final Pattern DSS_AND_SEQNO = Pattern.compile("<id>(.*)</id>.*<seqno>(\\d+)</seqno>",
+      Pattern.DOTALL);
+  private static final String DSS_A = "dss-a";
+  private static final String DSS_B = "dss-b";
+  private static final String AIP_IDS = "AIP IDs";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final ArchiveClient archiveClient = mock(ArchiveClient.class);
+  private final List<String> uploaded = Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void init() throws IOException {
+    doAnswer(invocation -> "aip-" + upload(invocation.getArgumentAt(0, InputStream.class))).when(archiveClient)
+      .ingest(any(InputStream.class));
+    doAnswer(invocation -> "direct-" + upload(invocation.getArgumentAt(0, InputStream.class))).when(archiveClient)
+      .ingestDirect(any(InputStream.class));
+  }
+
+  private String upload(InputStream sip) throws IOException {
+    String result = describe(sip);
+    uploaded.add(result);
+    return result;
+  }
+
+  private static String describe(InputStream sip) throws IOException {
+    try (ZipInputStream zip = new ZipInputStream(sip)) {
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        if (PACKAGING_INFORMATION.equals(entry.getName())) {
+          Matcher matcher = DSS_AND_SEQNO.matcher(IOUtils.toString(zip, StandardCharsets.UTF_8));
+          assertTrue("Packaging information", matcher.find());
+          return matcher.group(1) + '.' + matcher.group(2);
+        }
+      }
+    }
+    return "unknown";
+  }
+
+  @Test
+  public void shouldIngestSipsOfTheSameDssInSequenceOrder() throws IOException {
+    Path a3 = someSip(DSS_A, 3, true);
+    Path b1 = someSip(DSS_B, 1, true);
+    Path a1 = someSip(DSS_A, 1, false);
+    Path a2 = someSip(DSS_A, 2, false);
+
+    BulkIngestionResult result = new BulkIngester(archiveClient, 3, false).ingestAll(Arrays.asList(a3, b1, a1, a2));
+
+    assertTrue("Successful", result.isSuccessful());
+    assertEquals("Uploads of DSS A", Arrays.asList("dss-a.1", "dss-a.2", "dss-a.3"), uploaded.stream()
+      .filter(sip -> sip.startsWith(DSS_A))
+      .collect(Collectors.toList()));
+    List<SipIngestion> ingestions = result.getSipIngestions();
+    assertEquals("SIPs", Arrays.asList(a3, b1, a1, a2), ingestions.stream()
+      .map(SipIngestion::getSip)
+      .collect(Collectors.toList()));
+    assertEquals(AIP_IDS, Arrays.asList("aip-dss-a.3", "aip-dss-b.1", "aip-dss-a.1", "aip-dss-a.2"),
+        result.getAipIds());
+    assertEquals("DSS", DSS_A, ingestions.get(0)
+      .getDssId());
+    assertEquals("Sequence number", 3, ingestions.get(0)
+      .getSequenceNumber());
+    ingestions.forEach(ingestion -> assertTrue("Latency", ingestion.getLatency() > 0));
+    assertTrue("Elapsed", result.getElapsed() > 0);
+  }
+
+  private Path someSip(String dssId, int seqno, boolean last) throws IOException {
+    Path result = folder.newFile()
+      .toPath();
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(result))) {
+      zip.putNextEntry(new ZipEntry("eas_pdi.xml"));
+      zip.write(randomBytes());
+      zip.putNextEntry(new ZipEntry(PACKAGING_INFORMATION));
+      write(zip, String.format("<sip xmlns=\"urn:x-emc:ia:schema:sip:1.0\"><dss><holding>holding</holding>"
+          + "<id>%s</id></dss><seqno>%d</seqno><is_last>%b</is_last></sip>", dssId, seqno, last));
+    }
+    return result;
+  }
+
+  private void write(OutputStream stream, String text) throws IOException {
+    stream.write(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldNotUploadRemainingSipsOfDssAfterFailure() throws IOException {
+    doAnswer(invocation -> {
+      String sip = upload(invocation.getArgumentAt(0, InputStream.class));
+      if ("dss-a.1".equals(sip)) {
+        throw new IOException("Rejected");
+      }
+      return "aip-" + sip;
+    }).when(archiveClient)
+      .ingest(any(InputStream.class));
+
+    BulkIngestionResult result = new BulkIngester(archiveClient, 2, false).ingestAll(Arrays.asList(
+        someSip(DSS_A, 1, false), someSip(DSS_A, 2, true), someSip(DSS_B, 1, true))
+      .stream());
+
+    assertFalse("Successful", result.isSuccessful());
+    assertFalse("Uploaded SIP after failure", uploaded.contains("dss-a.2"));
+    assertEquals(AIP_IDS, Collections.singletonList("aip-dss-b.1"), result.getAipIds());
+    List<SipIngestion> failures = result.getFailures();
+    assertEquals("# failures", 2, failures.size());
+    assertEquals("Failure", "Rejected", failures.get(0)
+      .getFailure()
+      .getMessage());
+    assertTrue("Skipped", failures.get(1)
+      .getFailure() instanceof IllegalStateException);
+  }
+
+  @Test
+  public void shouldIngestDirectOnlySipsThatAreAloneInTheirDss() throws IOException {
+    BulkIngestionResult result = new BulkIngester(archiveClient, 2, true).ingestAll(Arrays.asList(
+        someSip(DSS_A, 1, false), someSip(DSS_A, 2, true), someSip(DSS_B, 1, true)));
+
+    assertEquals(AIP_IDS, Arrays.asList("aip-dss-a.1", "aip-dss-a.2", "direct-dss-b.1"), result.getAipIds());
+  }
+
+  @Test
+  public void shouldUploadNoMoreSipsConcurrentlyThanConfigured() throws IOException {
+    int concurrency = randomInt(1, 3);
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    doAnswer(invocation -> {
+      maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5);
+        return "aip-" + upload(invocation.getArgumentAt(0, InputStream.class));
+      } finally {
+        active.decrementAndGet();
+      }
+    }).when(archiveClient)
+      .ingest(any(InputStream.class));
+    List<Path> sips = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      sips.add(someSip("dss-" + i, 1, true));
+    }
+
+    BulkIngestionResult result = new BulkIngester(archiveClient, concurrency, false).ingestAll(sips.stream());
+
+    assertEquals("# ingested", sips.size(), result.getAipIds()
+      .size());
+    assertTrue("Too many concurrent uploads: " + maxActive.get(), maxActive.get() <= concurrency);
+  }
+
+  @Test
+  public void shouldIngestSipsWithoutPackagingInformation() throws IOException {
+    Path sip = folder.newFile()
+      .toPath();
+    Files.write(sip, randomBytes());
+
+    BulkIngestionResult result = new BulkIngester(archiveClient).ingestAll(Collections.singletonList(sip));
+
+    assertEquals(AIP_IDS, Collections.singletonList("aip-unknown"), result.getAipIds());
+    assertNull("DSS", result.getSipIngestions()
+      .get(0)
+      .getDssId());
+  }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.client.api.AsyncArchiveClient;
+import com.opentext.ia.sdk.client.api.InfoArchiveLinkRelations;
+import com.opentext.ia.sdk.client.impl.ApplicationIngestionResourcesCache;
+import com.opentext.ia.sdk.client.impl.NonBlockingAsyncArchiveClient;
+import com.opentext.ia.sdk.dto.IngestionResponse;
+import com.opentext.ia.sdk.dto.ReceptionResponse;
+import com.opentext.ia.sdk.support.http.AsyncHttpClient;
+import com.opentext.ia.sdk.support.http.BinaryPart;
+import com.opentext.ia.sdk.support.http.Header;
+import com.opentext.ia.sdk.support.http.HttpClient;
+import com.opentext.ia.sdk.support.http.Part;
+import com.opentext.ia.sdk.support.http.rest.Link;
+import com.opentext.ia.sdk.support.http.rest.RestClient;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIngestingWithoutBlocking extends TestCase implements InfoArchiveLinkRelations {
+
+  private static final long MAX_WAIT_SECONDS = 5;
+  private static final String AIP_URI = "http://localhost/aips";
+  private static final String INGEST_DIRECT_URI = "http://localhost/aips/ingest-direct";
+  private static final String INGEST_URI = "http://localhost/aips/received/ingest";
+
+  private final RecordingAsyncHttpClient httpClient = new RecordingAsyncHttpClient();
+  private final AsyncArchiveClient otherOperations = mock(AsyncArchiveClient.class);
+  private final ApplicationIngestionResourcesCache resourceCache = new ApplicationIngestionResourcesCache("app");
+  private final InputStream sip = new ByteArrayInputStream(randomBytes());
+  private AsyncArchiveClient client;
+
+  @Before
+  public void init() {
+    resourceCache.setAipResourceUri(AIP_URI);
+    client = new NonBlockingAsyncArchiveClient(httpClient, new RestClient(mock(HttpClient.class)), resourceCache,
+        otherOperations);
+  }
+
+  @Test
+  public void shouldReceiveAndThenIngest() throws Exception {
+    CompletableFuture<String> aipId = client.ingest(sip);
+
+    assertEquals("# requests before reception", 1, httpClient.requests.size());
+    Request receive = httpClient.requests.get(0);
+    assertEquals("Receive URI", AIP_URI, receive.uri);
+    assertSame("SIP", sip, ((BinaryPart)receive.parts[1]).getData());
+    assertFalse("Done before reception", aipId.isDone());
+
+    receive.response.complete(reception());
+
+    assertEquals("# requests after reception", 2, httpClient.requests.size());
+    Request ingest = httpClient.requests.get(1);
+    assertEquals("Ingest URI", INGEST_URI, ingest.uri);
+    assertEquals("# parts", 0, ingest.parts.length);
+    assertFalse("Done before ingestion", aipId.isDone());
+
+    ingest.response.complete(ingestion("aip"));
+
+    assertEquals("AIP ID", "aip", aipId.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  private ReceptionResponse reception() {
+    ReceptionResponse result = new ReceptionResponse();
+    result.setLinks(Collections.singletonMap(LINK_INGEST, new Link(INGEST_URI)));
+    return result;
+  }
+
+  private IngestionResponse ingestion(String aipId) {
+    IngestionResponse result = new IngestionResponse();
+    result.setAipId(aipId);
+    return result;
+  }
+
+  @Test
+  public void shouldIngestDirectlyInOneRequestWhenSupported() throws Exception {
+    resourceCache.setAipIngestDirectResourceUri(INGEST_DIRECT_URI);
+
+    CompletableFuture<String> aipId = client.ingestDirect(sip);
+
+    assertEquals("# requests", 1, httpClient.requests.size());
+    Request ingestDirect = httpClient.requests.get(0);
+    assertEquals("URI", INGEST_DIRECT_URI, ingestDirect.uri);
+    ingestDirect.response.complete(ingestion("aip"));
+    assertEquals("AIP ID", "aip", aipId.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldFallBackToReceiveAndIngestWhenIngestDirectIsNotSupported() {
+    client.ingestDirect(sip);
+
+    assertEquals("URI", AIP_URI, httpClient.requests.get(0).uri);
+  }
+
+  @Test
+  public void shouldNotIngestWhenReceptionFails() {
+    CompletableFuture<String> aipId = client.ingest(sip);
+
+    httpClient.requests.get(0).response.completeExceptionally(new IOException());
+
+    assertTrue("Failed", aipId.isCompletedExceptionally());
+    assertEquals("# requests", 1, httpClient.requests.size());
+  }
+
+  @Test
+  public void shouldAbortRequestInFlightWhenCancelled() {
+    CompletableFuture<String> aipId = client.ingest(sip);
+    httpClient.requests.get(0).response.complete(reception());
+
+    aipId.cancel(true);
+
+    assertTrue("Ingest aborted", httpClient.requests.get(1).response.isCancelled());
+  }
+
+  @Test
+  public void shouldPassOnOtherOperations() throws IOException {
+    String contentId = randomString();
+
+    client.fetchContent(contentId);
+    client.close();
+
+    verify(otherOperations).fetchContent(contentId);
+    verify(otherOperations).close();
+    assertTrue("HTTP client closed", httpClient.closed);
+  }
+
+
+  private static class Request {
+
+    private final String uri;
+    private final Part[] parts;
+    private final CompletableFuture<Object> response = new CompletableFuture<>();
+
+    Request(String uri, Part[] parts) {
+      this.uri = uri;
+      this.parts = parts;
+    }
+
+  }
+
+
+  private static class RecordingAsyncHttpClient implements AsyncHttpClient {
+
+    private final List<Request> requests = new ArrayList<>();
+    private boolean closed;
+
+    @Override
+    public <T> CompletableFuture<T> post(String uri, Collection<Header> headers, Class<T> type, Part... parts) {
+      Request request = new Request(uri, parts);
+      requests.add(request);
+      CompletableFuture<T> result = new CompletableFuture<>();
+      request.response.whenComplete((value, failure) -> {
+        if (failure == null) {
+          result.complete(type.cast(value));
+        } else {
+          result.completeExceptionally(failure);
+        }
+      });
+      result.whenComplete((value, failure) -> {
+        if (failure != null) {
+          request.response.cancel(false);
+        }
+      });
+      return result;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import com.opentext.ia.sdk.client.api.QueryResult;
+import com.opentext.ia.sdk.client.api.QueryResultReader;
+import com.opentext.ia.sdk.client.impl.DefaultQueryResult;
+import com.opentext.ia.sdk.support.xml.XmlUtil;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenReadingQueryResultsAsStream extends TestCase {
+
+  private static final String NAMESPACE = "urn:test:invoices";
+  private static final String AIU = "invoice";
+  private static final String ID = "id";
+
+  private final Closeable dependentResource = mock(Closeable.class);
+
+  private QueryResult queryResult(String... ids) {
+    return queryResultOf(String.format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<results xmlns=\"%s\"><count>%d</count>%s</results>", NAMESPACE, ids.length, Arrays.stream(ids)
+          .map(id -> String.format("<invoice status=\"paid\"><id>%s</id>"
+              + "<description><![CDATA[<n/a>]]></description></invoice>", id))
+          .collect(Collectors.joining())));
+  }
+
+  private QueryResult queryResultOf(String xml) {
+    return new DefaultQueryResult(0, 0, 0, 0, false,
+        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), dependentResource);
+  }
+
+  @Test
+  public void shouldReturnAiusAsElements() throws IOException {
+    String id = randomString();
+
+    try (QueryResultReader<Element> reader = QueryResultReader.elements(queryResult(id), AIU)) {
+      Element aiu = reader.next();
+
+      assertEquals("Name", AIU, aiu.getLocalName());
+      assertEquals("Namespace", NAMESPACE, aiu.getNamespaceURI());
+      assertEquals("Attribute", "paid", aiu.getAttribute("status"));
+      assertEquals("ID", id, XmlUtil.getFirstChildElement(aiu, ID)
+        .getTextContent());
+      assertEquals("CDATA", "<n/a>", XmlUtil.getFirstChildElement(aiu, "description")
+        .getTextContent());
+      assertFalse("More AIUs", reader.hasNext());
+    }
+  }
+
+  @Test
+  public void shouldMapAiusToCallerType() throws IOException {
+    String[] ids = { randomString(), randomString(), randomString() };
+    List<String> actual;
+
+    try (Stream<String> aius = new QueryResultReader<>(queryResult(ids), AIU,
+        aiu -> XmlUtil.getFirstChildElement(aiu, ID)
+          .getTextContent()).stream()) {
+      actual = aius.collect(Collectors.toList());
+    }
+
+    assertEquals("IDs", Arrays.asList(ids), actual);
+  }
+
+  @Test
+  public void shouldUseChildrenOfDocumentElementWhenNoAiuNameIsGiven() throws IOException {
+    try (QueryResultReader<String> reader = new QueryResultReader<>(queryResult(randomString()), null,
+        Element::getLocalName)) {
+      assertEquals("First", "count", reader.next());
+      assertEquals("Second", AIU, reader.next());
+      assertFalse("More AIUs", reader.hasNext());
+    }
+  }
+
+  @Test
+  public void shouldCloseQueryResultWhenStoppingEarly() throws IOException {
+    try (Stream<Element> aius = QueryResultReader.elements(queryResult(randomString(), randomString()), AIU)
+      .stream()) {
+      assertTrue("AIU", aius.findFirst()
+        .isPresent());
+    }
+
+    verify(dependentResource).close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowOnMalformedResult() throws IOException {
+    try (QueryResultReader<Element> reader = QueryResultReader.elements(
+        queryResultOf("<results><invoice></results>"), AIU)) {
+      reader.forEachRemaining(aiu -> {
+        // Read all AIUs
+      });
+    }
+  }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.impl.ApplicationIngestionResourcesCache;
+import com.opentext.ia.sdk.client.impl.InfoArchiveRestClient;
+import com.opentext.ia.sdk.dto.Row;
+import com.opentext.ia.sdk.dto.SearchComposition;
+import com.opentext.ia.sdk.dto.SearchResult;
+import com.opentext.ia.sdk.dto.SearchResults;
+import com.opentext.ia.sdk.dto.query.SearchQuery;
+import com.opentext.ia.sdk.support.http.MediaTypes;
+import com.opentext.ia.sdk.support.http.rest.Link;
+import com.opentext.ia.sdk.support.http.rest.RestClient;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenStreamingSearchResults extends TestCase {
+
+  private static final String COMPOSITION_URI = "composition";
+  private static final String PAGE_URI = "page-";
+  private static final long MAX_WAIT_SECONDS = 5;
+
+  private final RestClient restClient = mock(RestClient.class);
+  private final ArchiveClient archiveClient = new InfoArchiveRestClient(restClient,
+      new ApplicationIngestionResourcesCache(randomString()));
+  private final SearchComposition searchComposition = new SearchComposition();
+  private final SearchQuery searchQuery = new SearchQuery();
+
+  @Before
+  public void init() throws IOException {
+    searchComposition.setLinks(Collections.singletonMap("self", link(COMPOSITION_URI)));
+    searchQuery.setItems(Collections.emptyList());
+    when(restClient.post(eq(COMPOSITION_URI), eq(SearchResults.class), anyString(), eq(MediaTypes.XML)))
+      .thenReturn(page(1, true));
+    when(restClient.post(eq(PAGE_URI + 2), eq(SearchResults.class), anyString(), eq(MediaTypes.XML)))
+      .thenReturn(page(2, true));
+    when(restClient.post(eq(PAGE_URI + 3), eq(SearchResults.class), anyString(), eq(MediaTypes.XML)))
+      .thenReturn(page(3, false));
+  }
+
+  private Link link(String uri) {
+    Link result = new Link();
+    result.setHref(uri);
+    return result;
+  }
+
+  private SearchResults page(int number, boolean hasNext) {
+    SearchResults result = new SearchResults();
+    if (hasNext) {
+      result.setLinks(Collections.singletonMap("next", link(PAGE_URI + (number + 1))));
+    }
+    SearchResult searchResult = new SearchResult();
+    Row row = new Row();
+    row.setId("row-" + number);
+    searchResult.setRows(Collections.singletonList(row));
+    result.addResult(searchResult);
+    return result;
+  }
+
+  @Test
+  public void shouldReturnRowsOfAllPagesInOrder() throws IOException {
+    List<String> ids;
+    try (Stream<Row> rows = archiveClient.searchRows(searchQuery, searchComposition)) {
+      ids = rows.map(Row::getId)
+        .collect(Collectors.toList());
+    }
+
+    assertEquals("Rows", Arrays.asList("row-1", "row-2", "row-3"), ids);
+  }
+
+  @Test
+  public void shouldFetchNextPageWhileCurrentPageIsProcessed() throws Exception {
+    CountDownLatch prefetched = new CountDownLatch(1);
+    when(restClient.post(eq(PAGE_URI + 2), eq(SearchResults.class), anyString(), eq(MediaTypes.XML)))
+      .thenAnswer(invocation -> {
+        prefetched.countDown();
+        return page(2, false);
+      });
+
+    try (Stream<SearchResults> pages = archiveClient.searchPages(searchQuery, searchComposition)) {
+      Iterator<SearchResults> iterator = pages.iterator();
+      iterator.next();
+
+      assertTrue("Next page not fetched in background", prefetched.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+      assertEquals("Second page", "row-2", iterator.next()
+        .getRows()
+        .get(0)
+        .getId());
+      assertFalse("More pages", iterator.hasNext());
+    }
+  }
+
+  @Test
+  public void shouldNotFetchRemainingPagesWhenStoppingEarly() throws IOException {
+    try (Stream<Row> rows = archiveClient.searchRows(searchQuery, searchComposition)) {
+      assertEquals("First row", "row-1", rows.findFirst()
+        .get()
+        .getId());
+    }
+
+    verify(restClient, never()).post(eq(PAGE_URI + 3), eq(SearchResults.class), anyString(), anyString());
+  }
+
+  @Test
+  public void shouldThrowWhenFetchingPageFails() throws IOException {
+    IOException failure = new IOException(randomString());
+    when(restClient.post(eq(PAGE_URI + 2), eq(SearchResults.class), anyString(), eq(MediaTypes.XML)))
+      .thenThrow(failure);
+
+    try (Stream<Row> rows = archiveClient.searchRows(searchQuery, searchComposition)) {
+      rows.count();
+      fail("Missing exception");
+    } catch (RuntimeIoException e) {
+      assertSame("Cause", failure, e.getCause());
+    }
+  }
+
+}
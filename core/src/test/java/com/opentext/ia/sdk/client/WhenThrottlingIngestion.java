@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.impl.ThrottledArchiveClient;
+import com.opentext.ia.sdk.dto.ReceptionResponse;
+import com.opentext.ia.sdk.support.datetime.Clock;
+import com.opentext.ia.sdk.support.http.AdaptiveConcurrencyLimit;
+import com.opentext.ia.sdk.support.http.HttpException;
+import com.opentext.ia.sdk.support.io.RewindableFileInputStream;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenThrottlingIngestion extends TestCase {
+
+  private static final int MAX_RETRIES = 3;
+  private static final String AIP_ID = "aip";
+  private static final String UPLOADS = "Uploads";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final ArchiveClient archiveClient = mock(ArchiveClient.class);
+  private final ReceptionResponse reception = new ReceptionResponse();
+  private final Clock clock = mock(Clock.class);
+  private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 8);
+  private final ThrottledArchiveClient client = new ThrottledArchiveClient(archiveClient, limit, MAX_RETRIES, clock);
+  private final List<byte[]> uploads = Collections.synchronizedList(new ArrayList<>());
+  private byte[] sip;
+
+  @Before
+  public void init() throws IOException {
+    sip = randomBytes();
+    when(archiveClient.ingestReceived(reception)).thenReturn(AIP_ID);
+  }
+
+  @Test
+  public void shouldRetryWhenServerIsUnavailable() throws IOException {
+    failing(new HttpException(503, "Unavailable"), 2);
+
+    try (InputStream stream = sipFile()) {
+      assertEquals("AIP ID", AIP_ID, client.ingest(stream));
+    }
+
+    assertEquals(UPLOADS, 3, uploads.size());
+    uploads.forEach(upload -> assertArrayEquals("SIP", sip, upload));
+    verify(clock, times(2)).sleep(anyLong(), eq(TimeUnit.MILLISECONDS));
+    assertTrue("Limit not lowered", limit.getLimit() < 4);
+    assertEquals("In flight", 0, limit.getInFlight());
+  }
+
+  private void failing(IOException failure, int times) throws IOException {
+    int[] remaining = { times };
+    doAnswer(invocation -> {
+      uploads.add(IOUtils.toByteArray(invocation.getArgumentAt(0, InputStream.class)));
+      if (remaining[0]-- > 0) {
+        throw failure;
+      }
+      return reception;
+    }).when(archiveClient)
+      .receive(any(InputStream.class));
+  }
+
+  private InputStream sipFile() throws IOException {
+    Path file = folder.newFile()
+      .toPath();
+    Files.write(file, sip);
+    return new RewindableFileInputStream(file);
+  }
+
+  @Test
+  public void shouldRetryWhenConnectingTimesOut() throws IOException {
+    failing(new HttpException(500, new ConnectTimeoutException()), 1);
+
+    try (InputStream stream = sipFile()) {
+      assertEquals("AIP ID", AIP_ID, client.ingest(stream));
+    }
+
+    assertEquals(UPLOADS, 2, uploads.size());
+    assertArrayEquals("Retried SIP", sip, uploads.get(1));
+  }
+
+  @Test
+  public void shouldNotRetryWhenReadingResponseTimesOut() throws IOException {
+    failing(new HttpException(500, new SocketTimeoutException()), 1);
+
+    try (InputStream stream = sipFile()) {
+      client.ingest(stream);
+      fail("Missing exception");
+    } catch (HttpException e) {
+      assertTrue("Cause", e.getCause() instanceof SocketTimeoutException);
+    }
+    assertEquals(UPLOADS, 1, uploads.size());
+    verify(archiveClient, never()).ingestReceived(any(ReceptionResponse.class));
+  }
+
+  @Test
+  public void shouldRetryIngestOfReceivedSipWithoutUploadingAgain() throws IOException {
+    failing(new HttpException(503, "Unavailable"), 0);
+    when(archiveClient.ingestReceived(reception)).thenThrow(new HttpException(503, "Unavailable"))
+      .thenReturn(AIP_ID);
+
+    try (InputStream stream = sipFile()) {
+      assertEquals("AIP ID", AIP_ID, client.ingest(stream));
+    }
+
+    assertEquals(UPLOADS, 1, uploads.size());
+    verify(archiveClient, times(2)).ingestReceived(reception);
+  }
+
+  @Test
+  public void shouldRetryFilesWhenTransportClosesStream() throws IOException {
+    int[] remaining = { 1 };
+    doAnswer(invocation -> {
+      try (InputStream stream = invocation.getArgumentAt(0, InputStream.class)) {
+        uploads.add(IOUtils.toByteArray(stream));
+      }
+      if (remaining[0]-- > 0) {
+        throw new HttpException(503, "Unavailable");
+      }
+      return reception;
+    }).when(archiveClient)
+      .receive(any(InputStream.class));
+
+    try (InputStream stream = sipFile()) {
+      assertEquals("AIP ID", AIP_ID, client.ingest(stream));
+    }
+
+    assertEquals(UPLOADS, 2, uploads.size());
+    assertArrayEquals("Retried SIP", sip, uploads.get(1));
+  }
+
+  @Test
+  public void shouldGiveUpAfterMaximumNumberOfRetries() throws IOException {
+    HttpException failure = new HttpException(429, "Too many requests");
+    failing(failure, MAX_RETRIES + 1);
+
+    try (InputStream stream = sipFile()) {
+      client.ingest(stream);
+      fail("Missing exception");
+    } catch (HttpException e) {
+      assertSame("Exception", failure, e);
+    }
+    assertEquals(UPLOADS, MAX_RETRIES + 1, uploads.size());
+  }
+
+  @Test
+  public void shouldNotRetryOtherFailures() throws IOException {
+    failing(new HttpException(400, "Bad request"), 1);
+
+    try (InputStream stream = sipFile()) {
+      client.ingest(stream);
+      fail("Missing exception");
+    } catch (HttpException e) {
+      assertEquals("Status", 400, e.getStatusCode());
+    }
+    assertEquals(UPLOADS, 1, uploads.size());
+    assertEquals("Limit", 4, limit.getLimit());
+  }
+
+  @Test
+  public void shouldNotRetryStreamsThatCantBeRewoundWithoutBuffering() throws IOException {
+    failing(new HttpException(503, "Unavailable"), 1);
+
+    try {
+      client.ingest(new BufferedInputStream(new ByteArrayInputStream(sip)));
+      fail("Missing exception");
+    } catch (HttpException e) {
+      assertEquals("Status", 503, e.getStatusCode());
+    }
+    assertEquals(UPLOADS, 1, uploads.size());
+  }
+
+  @Test
+  public void shouldPassOtherOperationsOn() throws IOException {
+    client.fetchContent(AIP_ID);
+
+    verify(archiveClient).fetchContent(AIP_ID);
+    verifyNoMoreInteractions(archiveClient);
+  }
+
+}
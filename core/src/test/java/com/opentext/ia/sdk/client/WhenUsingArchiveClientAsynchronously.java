@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.client;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.client.api.AsyncArchiveClient;
+import com.opentext.ia.sdk.client.api.ContentResult;
+import com.opentext.ia.sdk.client.impl.DispatchingAsyncArchiveClient;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenUsingArchiveClientAsynchronously extends TestCase {
+
+  private static final long MAX_WAIT_SECONDS = 5;
+
+  private final ArchiveClient archiveClient = mock(ArchiveClient.class);
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch interrupted = new CountDownLatch(1);
+  private AsyncArchiveClient client;
+
+  @After
+  public void done() throws IOException {
+    if (client != null) {
+      client.close();
+    }
+  }
+
+  @Test
+  public void shouldCompleteWithResultOfOperation() throws Exception {
+    client = new DispatchingAsyncArchiveClient(archiveClient);
+    int numSips = randomInt(2, 10);
+    when(archiveClient.ingest(any(InputStream.class))).thenAnswer(invocation -> "aip-" + Thread.currentThread()
+      .getName());
+    List<CompletableFuture<String>> aipIds = new ArrayList<>();
+
+    for (int i = 0; i < numSips; i++) {
+      aipIds.add(client.ingest(new ByteArrayInputStream(randomBytes())));
+    }
+
+    for (CompletableFuture<String> aipId : aipIds) {
+      assertTrue("AIP ID", aipId.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS)
+        .startsWith("aip-"));
+    }
+    verify(archiveClient, times(numSips)).ingest(any(InputStream.class));
+  }
+
+  @Test
+  public void shouldCompleteExceptionallyWhenOperationFails() throws Exception {
+    client = new DispatchingAsyncArchiveClient(archiveClient);
+    IOException failure = new IOException(randomString());
+    when(archiveClient.fetchContent(anyString())).thenThrow(failure);
+
+    try {
+      client.fetchContent(randomString())
+        .get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+      fail("Missing exception");
+    } catch (ExecutionException e) {
+      assertSame("Cause", failure, e.getCause());
+    }
+  }
+
+  @Test
+  public void shouldInterruptOperationWhenCancelled() throws Exception {
+    client = new DispatchingAsyncArchiveClient(archiveClient);
+    blockIngestion();
+    CompletableFuture<String> aipId = client.ingest(new ByteArrayInputStream(randomBytes()));
+    assertTrue("Not started", started.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+
+    assertTrue("Cancelled", aipId.cancel(true));
+
+    assertTrue("Not interrupted", interrupted.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+    assertTrue("Completed exceptionally", aipId.isCompletedExceptionally());
+  }
+
+  private void blockIngestion() throws IOException {
+    when(archiveClient.ingest(any(InputStream.class))).thenAnswer(invocation -> {
+      started.countDown();
+      try {
+        Thread.sleep(TimeUnit.SECONDS.toMillis(MAX_WAIT_SECONDS));
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return null;
+    });
+  }
+
+  @Test
+  public void shouldTimeOutSlowOperations() throws Exception {
+    client = new DispatchingAsyncArchiveClient(archiveClient, 1, 50, TimeUnit.MILLISECONDS);
+    blockIngestion();
+
+    CompletableFuture<String> aipId = client.ingest(new ByteArrayInputStream(randomBytes()));
+
+    try {
+      aipId.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+      fail("Missing exception");
+    } catch (ExecutionException e) {
+      assertTrue("Cause", e.getCause() instanceof TimeoutException);
+    }
+    assertTrue("Not interrupted", interrupted.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldCloseResultsThatArriveAfterTimeout() throws Exception {
+    client = new DispatchingAsyncArchiveClient(archiveClient, 1, 50, TimeUnit.MILLISECONDS);
+    ContentResult late = mock(ContentResult.class);
+    CountDownLatch proceed = new CountDownLatch(1);
+    when(archiveClient.fetchContent(anyString())).thenAnswer(invocation -> {
+      // Like blocking I/O, ignore interrupts
+      boolean waiting = true;
+      while (waiting) {
+        try {
+          proceed.await();
+          waiting = false;
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+      }
+      return late;
+    });
+
+    CompletableFuture<ContentResult> content = client.fetchContent(randomString());
+    try {
+      content.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+      fail("Missing exception");
+    } catch (ExecutionException e) {
+      assertTrue("Cause", e.getCause() instanceof TimeoutException);
+    }
+    proceed.countDown();
+
+    verify(late, timeout(TimeUnit.SECONDS.toMillis(MAX_WAIT_SECONDS))).close();
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.ByteArrayInputOutputStream;
+import com.opentext.ia.sdk.support.io.Compression;
+import com.opentext.ia.sdk.support.io.CompressionPolicy;
+import com.opentext.ia.sdk.support.io.DefaultZipAssembler;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.sdk.support.io.ZipAssembler;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenAssemblingContentInParallel extends TestCase {
+
+  private static final int NUM_DIGITAL_OBJECTS = 25;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final List<byte[]> contents = new ArrayList<>();
+  private final DigitalObjectsExtraction<String> extraction = prefix -> {
+    List<DigitalObject> result = new ArrayList<>();
+    for (int i = 0; i < contents.size(); i++) {
+      result.add(DigitalObject.fromBytes(prefix + i, contents.get(i)));
+    }
+    return result.iterator();
+  };
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldAddDigitalObjectsInOrderWithSameContentInfoAsSequentialAssembly() throws IOException {
+    for (int i = 0; i < NUM_DIGITAL_OBJECTS; i++) {
+      contents.add(randomBytes());
+    }
+    ContentAssembler<String> sequential = ContentAssembler.noDedup(extraction, new SingleHashAssembler());
+    ContentAssembler<String> parallel = ContentAssembler.noDedupInParallel(extraction, SingleHashAssembler::new,
+        executor, 3);
+    Counters sequentialMetrics = new Counters();
+    Counters parallelMetrics = new Counters();
+    ByteArrayInputOutputStream parallelZip = new ByteArrayInputOutputStream();
+
+    Map<String, ContentInfo> expected = assemble(sequential, new ByteArrayInputOutputStream(), sequentialMetrics);
+    Map<String, ContentInfo> actual = assemble(parallel, parallelZip, parallelMetrics);
+
+    assertEquals("Content info", expected, actual);
+    assertEquals("# digital objects", sequentialMetrics.get(SipMetrics.NUM_DIGITAL_OBJECTS),
+        parallelMetrics.get(SipMetrics.NUM_DIGITAL_OBJECTS));
+    assertEquals("Size of digital objects", sequentialMetrics.get(SipMetrics.SIZE_DIGITAL_OBJECTS),
+        parallelMetrics.get(SipMetrics.SIZE_DIGITAL_OBJECTS));
+    try (ZipInputStream unzip = new ZipInputStream(parallelZip.getInputStream())) {
+      for (int i = 0; i < NUM_DIGITAL_OBJECTS; i++) {
+        ZipEntry entry = unzip.getNextEntry();
+        assertNotNull("Missing entry #" + i, entry);
+        assertEquals("Entry #" + i, "ri" + i, entry.getName());
+        assertArrayEquals("Content #" + i, contents.get(i), IOUtils.toByteArray(unzip));
+      }
+      assertNull("Additional entries", unzip.getNextEntry());
+    }
+  }
+
+  private Map<String, ContentInfo> assemble(ContentAssembler<String> contentAssembler,
+      ByteArrayInputOutputStream output, Counters metrics) throws IOException {
+    return assemble(contentAssembler, new DefaultZipAssembler(), output, metrics);
+  }
+
+  private Map<String, ContentInfo> assemble(ContentAssembler<String> contentAssembler, ZipAssembler zipAssembler,
+      ByteArrayInputOutputStream output, Counters metrics) throws IOException {
+    try (ZipAssembler zip = zipAssembler) {
+      zip.begin(output);
+      contentAssembler.begin(zip, metrics);
+      return contentAssembler.addContentsOf("ri");
+    }
+  }
+
+  @Test
+  public void shouldCompressDigitalObjectsTheWayTheZipAssemblerWould() throws IOException {
+    contents.add(randomBytes());
+    ContentAssembler<String> parallel = ContentAssembler.noDedupInParallel(extraction, SingleHashAssembler::new,
+        executor, 3);
+    ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
+
+    assemble(parallel, new DefaultZipAssembler(CompressionPolicy.always(Compression.STORED)), output, new Counters());
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      ZipEntry entry = unzip.getNextEntry();
+      assertEquals("Method", ZipEntry.STORED, entry.getMethod());
+      assertArrayEquals("Content", contents.get(0), IOUtils.toByteArray(unzip));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldPropagateErrorsWhilePreparingContent() throws IOException {
+    ContentAssembler<String> parallel = ContentAssembler.noDedupInParallel(prefix -> {
+      List<DigitalObject> result = new ArrayList<>();
+      result.add(DigitalObject.fromSupplier(prefix, () -> new InputStream() {
+        @Override
+        public int read() throws IOException {
+          throw new IOException("Unreadable");
+        }
+      }));
+      return result.iterator();
+    }, SingleHashAssembler::new, executor);
+    assemble(parallel, new ByteArrayInputOutputStream(), new Counters());
+  }
+
+}
@@ -10,6 +10,7 @@ import static org.mockito.Mockito.*;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -95,6 +96,18 @@ public class WhenAssemblingSips extends XmlTestCase {
     assertEquals(SipMetrics.SIZE_SIP.toString(), pdiSize + 3 * digitalObjectSize + packagingInformationSize,
         metrics.sipSize());
     assertEquals(SipMetrics.SIZE_SIP_FILE.toString(), buffer.length(), metrics.sipFileSize());
+    assertTrue(SipMetrics.SIZE_UNCOMPRESSED.toString(), metrics.uncompressedSize() > 0);
+    assertTrue(SipMetrics.SIZE_COMPRESSED.toString(), metrics.compressedSize() > 0);
+    assertTrue(SipMetrics.TIME_CONTENT_READ, metrics.contentReadTime() > 0);
+    assertTrue(SipMetrics.TIME_CONTENT_HASH, metrics.contentHashTime() > 0);
+    assertTrue(SipMetrics.TIME_ZIP_WRITE, metrics.zipWriteTime() > 0);
+    assertTrue(SipMetrics.TIME_PDI_ADD, metrics.pdiAddTime() > 0);
+    assertTrue(SipMetrics.TIME_PDI_VALIDATION, metrics.pdiValidationTime() > 0);
+    assertTrue(SipMetrics.TIME_PDI_ZIP, metrics.pdiZipTime() > 0);
+    assertTrue(SipMetrics.TIME_PACKAGING_INFORMATION, metrics.packagingInformationTime() > 0);
+    long phasesTime = metrics.contentReadTime() + metrics.contentHashTime() + metrics.zipWriteTime()
+        + metrics.pdiAddTime() + metrics.pdiValidationTime() + metrics.pdiZipTime() + metrics.packagingInformationTime();
+    assertTrue("Phases take longer than assembly", TimeUnit.NANOSECONDS.toMillis(phasesTime) <= time);
   }
 
   private long getPackagingInformationSize(PackagingInformation packagingInformationPrototype, long numAius,
@@ -208,4 +221,28 @@ public class WhenAssemblingSips extends XmlTestCase {
     assertEquals(SipMetrics.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
   }
 
+  @Test
+  public void shouldReportPdiSpilledToDisk() throws IOException {
+    int pdiSize = randomInt(64, 313);
+    Assembler<HashedContents<Object>> pdiAssembler = mock(Assembler.class);
+    doAnswer(invocation -> {
+      invocation.getArgumentAt(0, DataBuffer.class)
+        .openForWriting()
+        .write(new byte[pdiSize]);
+      return null;
+    }).when(pdiAssembler)
+      .start(any(DataBuffer.class));
+    HashAssembler noHashAssembler = new NoHashAssembler();
+    SipAssembler<Object> sipAssembler = SipAssembler.forPdiAndContentWithHashing(somePackagingInformation(),
+        pdiAssembler, noHashAssembler, () -> new SpillingBuffer(pdiSize / 2), ContentAssembler.ignoreContent());
+
+    sipAssembler.start(new MemoryBuffer());
+    sipAssembler.add(new Object());
+    sipAssembler.end();
+
+    SipMetrics metrics = sipAssembler.getMetrics();
+    assertEquals(SipMetrics.SIZE_PDI_SPILLED.toString(), pdiSize, metrics.pdiSpilledSize());
+    assertEquals(SipMetrics.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
+  }
+
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.test.TestCase;
+
+
+@SuppressWarnings("unchecked")
+public class WhenAssemblingSipsInParallelBatches extends TestCase {
+
+  private static final int NUM_WORKERS = 3;
+  private static final int MAX_AIUS_PER_SIP = 4;
+  private static final long MAX_WAIT_MS = 5000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final List<PackagingInformation> packagingInformations = new ArrayList<>();
+
+  @Test
+  public void shouldNumberSipsAcrossWorkersAndMarkOnlyTheLastOne() throws IOException {
+    int numObjects = 50;
+    ParallelBatchSipAssembler<String> batcher = newBatcher(null);
+
+    for (int i = 0; i < numObjects; i++) {
+      batcher.add(randomString());
+    }
+    batcher.end();
+    Collection<FileGenerationMetrics> sips = batcher.getSipsMetrics();
+
+    assertEquals("# SIPs", packagingInformations.size(), sips.size());
+    assertEquals("# AIUs", numObjects, sips.stream()
+      .mapToLong(sip -> ((SipMetrics)sip.getMetrics()).numAius())
+      .sum());
+    sips.forEach(sip -> assertTrue("Too many AIUs in SIP",
+        ((SipMetrics)sip.getMetrics()).numAius() <= MAX_AIUS_PER_SIP));
+    for (int i = 0; i < packagingInformations.size(); i++) {
+      PackagingInformation packagingInformation = packagingInformations.get(i);
+      assertEquals("Sequence number", i + 1, packagingInformation.getSequenceNumber());
+      assertEquals("Last #" + (i + 1), i == packagingInformations.size() - 1, packagingInformation.isLast());
+    }
+  }
+
+  private ParallelBatchSipAssembler<String> newBatcher(Function<String, ?> routingKey) {
+    return newBatcher(routingKey, this::newFile);
+  }
+
+  private ParallelBatchSipAssembler<String> newBatcher(Function<String, ?> routingKey, Supplier<File> fileSupplier) {
+    PackagingInformationFactory factory = new RecordingPackagingInformationFactory(
+        new DefaultPackagingInformationFactory(somePackagingInformation()));
+    return new ParallelBatchSipAssembler<>(
+        sharedFactory -> SipAssembler.forPdi(sharedFactory, (Assembler<HashedContents<String>>)mock(Assembler.class)),
+        factory, SipSegmentationStrategy.byMaxAius(MAX_AIUS_PER_SIP), fileSupplier, NUM_WORKERS, routingKey);
+  }
+
+  private PackagingInformation somePackagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+      .holding(randomString(64))
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+  }
+
+  private File newFile() {
+    try {
+      return folder.newFile();
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  @Test
+  public void shouldRouteDomainObjectsWithTheSameKeyToTheSameWorker() throws IOException {
+    ParallelBatchSipAssembler<String> batcher = newBatcher(domainObject -> "same");
+
+    for (int i = 0; i < MAX_AIUS_PER_SIP; i++) {
+      batcher.add(randomString());
+    }
+    batcher.end();
+
+    assertEquals("# SIPs", 1, batcher.getSipsMetrics()
+      .size());
+    assertTrue("Last", packagingInformations.get(0)
+      .isLast());
+  }
+
+  @Test
+  public void shouldUseDifferentFilesForAllSips() throws IOException {
+    ParallelBatchSipAssembler<String> batcher = newBatcher(null);
+
+    for (int i = 0; i < 2 * NUM_WORKERS * MAX_AIUS_PER_SIP; i++) {
+      batcher.add(randomString());
+    }
+    batcher.end();
+
+    Set<File> files = batcher.getSipsMetrics()
+      .stream()
+      .map(FileGenerationMetrics::getFile)
+      .collect(Collectors.toSet());
+    assertEquals("# files", batcher.getSipsMetrics()
+      .size(), files.size());
+  }
+
+  @Test
+  public void shouldStopAllWorkersWhenAssemblyFails() throws IOException, InterruptedException {
+    Set<Thread> threadsBefore = Thread.getAllStackTraces()
+      .keySet();
+    ParallelBatchSipAssembler<String> batcher = newBatcher(null, () -> {
+      throw new RuntimeIoException(new IOException("Disk full"));
+    });
+    batcher.add(randomString());
+
+    try {
+      batcher.end();
+      fail("Missing exception");
+    } catch (IllegalStateException e) {
+      assertTrue("Cause", e.getCause() instanceof RuntimeIoException);
+    }
+
+    assertWorkersStopped(threadsBefore);
+  }
+
+  private void assertWorkersStopped(Set<Thread> threadsBefore) throws InterruptedException {
+    for (Thread thread : Thread.getAllStackTraces()
+      .keySet()) {
+      if (!threadsBefore.contains(thread) && !thread.isDaemon()) {
+        thread.join(MAX_WAIT_MS);
+        assertFalse("Worker still running: " + thread.getName(), thread.isAlive());
+      }
+    }
+  }
+
+  @Test
+  public void shouldStopAllWorkersWhenInterruptedWhileEnding() throws IOException, InterruptedException {
+    Set<Thread> threadsBefore = Thread.getAllStackTraces()
+      .keySet();
+    ParallelBatchSipAssembler<String> batcher = newBatcher(null);
+    for (int i = 0; i < 2 * NUM_WORKERS; i++) {
+      batcher.add(randomString());
+    }
+
+    Thread.currentThread()
+      .interrupt();
+    try {
+      batcher.end();
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertTrue("Interrupted", e.getCause() instanceof InterruptedException);
+    } finally {
+      Thread.interrupted();
+    }
+
+    assertWorkersStopped(threadsBefore);
+  }
+
+  private class RecordingPackagingInformationFactory implements PackagingInformationFactory {
+
+    private final PackagingInformationFactory decorated;
+
+    RecordingPackagingInformationFactory(PackagingInformationFactory decorated) {
+      this.decorated = decorated;
+    }
+
+    @Override
+    public PackagingInformation newInstance(long aiuCount, Optional<EncodedHash> pdiHash) {
+      PackagingInformation result = decorated.newInstance(aiuCount, pdiHash);
+      packagingInformations.add(result);
+      return result;
+    }
+
+    @Override
+    public void setFinalSipInDss(boolean finalSipInDss) {
+      decorated.setFinalSipInDss(finalSipInDss);
+    }
+
+  }
+
+}
@@ -4,18 +4,25 @@
 package com.opentext.ia.sdk.sip;
 
 import static java.util.Objects.requireNonNull;
+import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.opentext.ia.sdk.support.io.DataBuffer;
 import com.opentext.ia.sdk.support.io.MemoryBuffer;
 import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.sdk.support.io.SpillingBuffer;
 import com.opentext.ia.sdk.support.test.validation.SipFileValidator;
 
 
@@ -31,6 +38,8 @@ public class WhenAssemblingSipsWithDedup extends XmlTestCase {
   private static final String CONTENT_3 = "file3.txt";
   private static final String CONTENT_2 = "file2.txt";
   private static final String CONTENT_1 = "file1.txt";
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
   private DigitalObjectsExtraction<TestObject> contentsExtraction;
   private PackagingInformation prototype;
   private PdiAssembler<TestObject> pdiAssembler;
@@ -223,4 +232,108 @@ public class WhenAssemblingSipsWithDedup extends XmlTestCase {
       .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2)
       .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
   }
+
+  @Test
+  public void withDedupOnHashShouldSpoolLargeContentToDisk() throws IOException {
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2, OBJECT_ID_3);
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+
+    sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), 16,
+        () -> new SpillingBuffer(1))).assertFileCount(2 + 2)
+          .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1)
+          .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2);
+  }
+
+  @Test
+  public void withDedupOnHashShouldNotSpoolContentOfFiles() throws IOException {
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2, OBJECT_ID_3);
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    DigitalObjectsExtraction<TestObject> fileExtraction = t -> t.getContentId()
+      .stream()
+      .map(cid -> DigitalObject.fromPath(cid, resourceFile(contentIdToResourceName.get(cid))))
+      .collect(Collectors.toList())
+      .iterator();
+
+    sip(ContentAssembler.withDedupOnHash(fileExtraction, new SingleHashAssembler(), 16, () -> {
+      throw new AssertionError("Spooled content of file");
+    })).assertFileCount(2 + 2)
+      .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1)
+      .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2);
+  }
+
+  @Test
+  public void withDedupOnHashAndContentIndexShouldReferToContentInPreviousSips() throws IOException {
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    try (ContentIndex index = new MappedContentIndex(temporaryFolder.getRoot()
+      .toPath())) {
+      ContentAssembler<TestObject> contentAssembler = ContentAssembler.withDedupOnHash(contentsExtraction,
+          new SingleHashAssembler(), index, ContentIndexHitPolicy.REFERENCE);
+      domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2);
+      sip(contentAssembler).assertFileCount(2 + 2);
+
+      domainObjects = objects(OBJECT_ID_3, OBJECT_ID_4);
+      FileGenerationMetrics generated = new FileGenerator<TestObject>(sipAssembler(contentAssembler))
+        .generate(domainObjects);
+      new SipFileValidator(this, generated.getFile()).assertFileCount(2 + 1)
+        .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
+      SipMetrics metrics = (SipMetrics)generated.getMetrics();
+      assertEquals("# lookups", 2, metrics.contentIndexLookups());
+      assertEquals("# hits", 1, metrics.contentIndexHits());
+      assertEquals("Hit rate", 0.5, metrics.contentIndexHitRate(), 0.001);
+      assertEquals("Index size", 3, metrics.contentIndexSize());
+    }
+  }
+
+  @Test
+  public void withDedupOnHashAndContentIndexShouldOnlyReferToContentOfCommittedSips() throws IOException {
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    contentIdToResourceName.put(OBJECT_ID_4, CONTENT_2);
+    try (ContentIndex index = new MappedContentIndex(temporaryFolder.getRoot()
+      .toPath())) {
+      ContentAssembler<TestObject> contentAssembler = ContentAssembler.withDedupOnHash(contentsExtraction,
+          new SingleHashAssembler(), index, ContentIndexHitPolicy.REFERENCE);
+      SipAssembler<TestObject> sipAssembler = sipAssembler(contentAssembler);
+      sipAssembler.start(buffer);
+      sipAssembler.add(object(OBJECT_ID_1));
+      sipAssembler.end(false);
+      assertEquals("Index size before commit", 0, index.size());
+      sipAssembler.discardContent();
+
+      sipAssembler.start(new MemoryBuffer());
+      sipAssembler.add(object(OBJECT_ID_2));
+      sipAssembler.end(false);
+      sipAssembler.commitContent();
+      assertEquals("Index size after commit", 1, index.size());
+
+      domainObjects = objects(OBJECT_ID_3, OBJECT_ID_4);
+      sip(contentAssembler).assertFileCount(2 + 1)
+        .assertContentFileIdenticalTo(OBJECT_ID_3, CONTENT_1);
+    }
+  }
+
+  @Test
+  public void withDedupOnHashAndContentIndexShouldIncludeContentInPreviousSipsWhenRequested() throws IOException {
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    try (ContentIndex index = new MappedContentIndex(temporaryFolder.getRoot()
+      .toPath())) {
+      ContentAssembler<TestObject> contentAssembler = ContentAssembler.withDedupOnHash(contentsExtraction,
+          new SingleHashAssembler(), index, ContentIndexHitPolicy.INCLUDE);
+      domainObjects = objects(OBJECT_ID_1);
+      sip(contentAssembler).assertFileCount(2 + 1);
+
+      domainObjects = objects(OBJECT_ID_3);
+      sip(contentAssembler).assertFileCount(2 + 1)
+        .assertContentFileIdenticalTo(OBJECT_ID_3, CONTENT_1);
+    }
+  }
+
+  private Path resourceFile(String resourceName) {
+    try {
+      return Paths.get(getClass().getResource(resourceName)
+        .toURI());
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
 }
@@ -5,9 +5,11 @@ package com.opentext.ia.sdk.sip;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
@@ -26,7 +28,11 @@ public class WhenExtractingDigitalObjects extends TestCase {
 
   @Test
   public void shouldExtractFromFile() throws IOException {
-    assertDigitalObject(DigitalObject.fromFile(referenceInformation, file(folder, content)));
+    File file = file(folder, content);
+    DigitalObject digitalObject = DigitalObject.fromFile(referenceInformation, file);
+
+    assertDigitalObject(digitalObject);
+    assertEquals("Path", file.toPath(), digitalObject.getPath());
   }
 
   private void assertDigitalObject(DigitalObject actual) throws IOException {
@@ -43,7 +49,21 @@ public class WhenExtractingDigitalObjects extends TestCase {
 
   @Test
   public void shouldExtractFromBytes() throws IOException {
-    assertDigitalObject(DigitalObject.fromBytes(referenceInformation, content));
+    DigitalObject digitalObject = DigitalObject.fromBytes(referenceInformation, content);
+
+    assertDigitalObject(digitalObject);
+    assertNull("Path", digitalObject.getPath());
+  }
+
+  @Test
+  public void shouldKeepPathWhenAddingMediaType() throws IOException {
+    Path path = file(folder, content).toPath();
+    DigitalObject digitalObject = DigitalObject.fromPath(referenceInformation, path)
+      .withMediaType("text/plain");
+
+    assertDigitalObject(digitalObject);
+    assertEquals("Path", path, digitalObject.getPath());
+    assertEquals("Media type", "text/plain", digitalObject.getMediaType());
   }
 
   @Test
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIndexingContent extends TestCase {
+
+  private static final String REFERENCE_INFORMATION = "Reference information";
+  private static final String SIZE = "Size";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  private Path directory;
+
+  @Before
+  public void init() {
+    directory = temporaryFolder.getRoot()
+      .toPath();
+  }
+
+  @Test
+  public void shouldFindIndexedContent() throws IOException {
+    Collection<EncodedHash> hashes = someHashes();
+    String ri = randomString();
+
+    try (ContentIndex index = new MappedContentIndex(directory)) {
+      assertNull("Found before put", index.get(hashes));
+
+      index.put(hashes, ri);
+
+      assertEquals(REFERENCE_INFORMATION, ri, index.get(hashes));
+      assertNull("Found other content", index.get(someHashes()));
+      assertEquals(SIZE, 1, index.size());
+    }
+  }
+
+  private Collection<EncodedHash> someHashes() {
+    return Collections.singletonList(new EncodedHash("SHA-256", "base64", randomString(44)));
+  }
+
+  @Test
+  public void shouldIgnoreOrderOfHashes() throws IOException {
+    EncodedHash sha1 = new EncodedHash("SHA-1", "hex", randomString(40));
+    EncodedHash sha256 = new EncodedHash("SHA-256", "hex", randomString(64));
+    String ri = randomString();
+
+    try (ContentIndex index = new MappedContentIndex(directory)) {
+      index.put(Arrays.asList(sha1, sha256), ri);
+
+      assertEquals(REFERENCE_INFORMATION, ri, index.get(Arrays.asList(sha256, sha1)));
+    }
+  }
+
+  @Test
+  public void shouldKeepFirstReferenceInformation() throws IOException {
+    Collection<EncodedHash> hashes = someHashes();
+    String ri = randomString();
+
+    try (ContentIndex index = new MappedContentIndex(directory)) {
+      index.put(hashes, ri);
+      index.put(hashes, randomString());
+
+      assertEquals(REFERENCE_INFORMATION, ri, index.get(hashes));
+      assertEquals(SIZE, 1, index.size());
+    }
+  }
+
+  @Test
+  public void shouldSurviveReopening() throws IOException {
+    Collection<EncodedHash> hashes = someHashes();
+    String ri = randomString();
+    try (ContentIndex index = new MappedContentIndex(directory)) {
+      index.put(hashes, ri);
+    }
+
+    try (ContentIndex index = new MappedContentIndex(directory)) {
+      assertEquals(REFERENCE_INFORMATION, ri, index.get(hashes));
+      assertEquals(SIZE, 1, index.size());
+    }
+  }
+
+  @Test
+  public void shouldGrowBeyondExpectedNumberOfEntries() throws IOException {
+    int numEntries = 5000;
+    try (ContentIndex index = new MappedContentIndex(directory, 10)) {
+      for (int i = 0; i < numEntries; i++) {
+        index.put(hashesFor(i), Integer.toString(i));
+      }
+
+      assertEquals(SIZE, numEntries, index.size());
+      for (int i = 0; i < numEntries; i++) {
+        assertEquals("Reference information #" + i, Integer.toString(i), index.get(hashesFor(i)));
+      }
+    }
+    try (ContentIndex index = new MappedContentIndex(directory)) {
+      assertEquals("Reference information after reopening", "42", index.get(hashesFor(42)));
+    }
+  }
+
+  @Test
+  public void shouldDeleteOldHashTablesWhenGrowing() throws IOException {
+    try (ContentIndex index = new MappedContentIndex(directory, 10)) {
+      for (int i = 0; i < 5000; i++) {
+        index.put(hashesFor(i), Integer.toString(i));
+      }
+    }
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals("Hash table files", 1, files.filter(file -> file.getFileName()
+        .toString()
+        .endsWith(".idx"))
+        .count());
+    }
+  }
+
+  private Collection<EncodedHash> hashesFor(int value) {
+    return Collections.singletonList(new EncodedHash("SHA-256", "hex", Integer.toHexString(value)));
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectOtherFiles() throws IOException {
+    Files.write(directory.resolve("hashes.0.idx"), new byte[1024]);
+
+    new MappedContentIndex(directory).close();
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIndexingContentInfo extends TestCase {
+
+  private static final String CONTENT_INFO = "Content info";
+
+  private final ContentInfoIndex index = new ContentInfoIndex(16, true);
+
+  @Test
+  public void shouldFindContentInfoByReferenceInformation() {
+    ContentInfo contentInfo = someContentInfo();
+
+    index.put(contentInfo);
+
+    assertEquals(CONTENT_INFO, contentInfo, index.get(contentInfo.getReferenceInformation()));
+    assertNull("Found other content info", index.get(randomString()));
+    assertEquals("Size", 1, index.size());
+  }
+
+  private ContentInfo someContentInfo() {
+    return new ContentInfo(randomString(), Arrays.asList(new EncodedHash("SHA-1", "hex", randomString(40)),
+        new EncodedHash("SHA-256", "base64", randomString(44))));
+  }
+
+  @Test
+  public void shouldFindReferenceInformationByHashes() {
+    ContentInfo contentInfo = someContentInfo();
+
+    index.put(contentInfo);
+
+    assertEquals("Reference information", contentInfo.getReferenceInformation(),
+        index.referenceInformationFor(contentInfo.getContentHashes()));
+    assertNull("Found other content", index.referenceInformationFor(someContentInfo().getContentHashes()));
+    assertNull("Found content for unknown hash function", index.referenceInformationFor(
+        Collections.singletonList(new EncodedHash("MD5", "hex", randomString(32)))));
+  }
+
+  @Test
+  public void shouldSupportContentWithoutHashes() {
+    ContentInfo contentInfo = new ContentInfo(randomString(), Collections.emptyList());
+
+    index.put(contentInfo);
+
+    assertEquals(CONTENT_INFO, contentInfo, index.get(contentInfo.getReferenceInformation()));
+  }
+
+  @Test
+  public void shouldForgetContentInfoWhenCleared() {
+    ContentInfo contentInfo = someContentInfo();
+    index.put(contentInfo);
+
+    index.clear();
+
+    assertNull("Content info after clear", index.get(contentInfo.getReferenceInformation()));
+    assertNull("Reference information after clear", index.referenceInformationFor(contentInfo.getContentHashes()));
+    assertEquals("Size", 0, index.size());
+  }
+
+  @Test
+  public void shouldRetainMemoryWhenCleared() {
+    for (int i = 0; i < 100_000; i++) {
+      index.put(contentInfoFor(i));
+    }
+    long memoryUsed = index.memoryUsed();
+
+    index.clear();
+
+    assertEquals("Memory retained", memoryUsed, index.memoryUsed());
+    for (int i = 0; i < 100_000; i++) {
+      index.put(contentInfoFor(i));
+    }
+    assertEquals("Memory used", memoryUsed, index.memoryUsed());
+  }
+
+  @Test
+  public void shouldNotGrowWhenAddingSameContentInfoAgain() {
+    ContentInfo contentInfo = someContentInfo();
+    index.put(contentInfo);
+    long memoryUsed = index.memoryUsed();
+
+    for (int i = 0; i < 100_000; i++) {
+      index.put(new ContentInfo(contentInfo.getReferenceInformation(), i % 2 == 0
+          ? contentInfo.getContentHashes() : someContentInfo().getContentHashes()));
+    }
+
+    assertEquals("Memory used", memoryUsed, index.memoryUsed());
+    assertEquals("Size", 1, index.size());
+  }
+
+  @Test
+  public void shouldReplaceContentInfoForSameReferenceInformation() {
+    ContentInfo contentInfo = someContentInfo();
+    index.put(contentInfo);
+    ContentInfo replacement = new ContentInfo(contentInfo.getReferenceInformation(),
+        someContentInfo().getContentHashes());
+
+    index.put(replacement);
+
+    assertEquals(CONTENT_INFO, replacement, index.get(contentInfo.getReferenceInformation()));
+    assertEquals("Reference information", replacement.getReferenceInformation(),
+        index.referenceInformationFor(replacement.getContentHashes()));
+    assertNull("Found replaced content", index.referenceInformationFor(contentInfo.getContentHashes()));
+    assertEquals("Size", 1, index.size());
+  }
+
+  @Test
+  public void shouldHoldManyEntriesOffHeap() {
+    ContentInfoIndex offHeapIndex = new ContentInfoIndex(16, true, true, ContentInfoIndex.UNBOUNDED);
+    int numEntries = 100_000;
+
+    for (int i = 0; i < numEntries; i++) {
+      offHeapIndex.put(contentInfoFor(i));
+    }
+
+    assertEquals("Size", numEntries, offHeapIndex.size());
+    for (int i = 0; i < numEntries; i += 997) {
+      ContentInfo expected = contentInfoFor(i);
+      assertEquals(CONTENT_INFO, expected, offHeapIndex.get(expected.getReferenceInformation()));
+      assertEquals("Reference information", expected.getReferenceInformation(),
+          offHeapIndex.referenceInformationFor(expected.getContentHashes()));
+    }
+  }
+
+  private ContentInfo contentInfoFor(int value) {
+    Collection<EncodedHash> hashes = Collections.singletonList(new EncodedHash("SHA-256", "hex",
+        Integer.toHexString(value)));
+    return new ContentInfo("ri-" + value, hashes);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotGrowBeyondMaximumSize() {
+    ContentInfoIndex boundedIndex = new ContentInfoIndex(16, false, false, 2 * 1024 * 1024);
+
+    for (int i = 0; i < 1_000_000; i++) {
+      boundedIndex.put(contentInfoFor(i));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotLookUpHashesWhenTheyAreNotIndexed() {
+    new ContentInfoIndex(16, false).referenceInformationFor(someContentInfo().getContentHashes());
+  }
+
+}
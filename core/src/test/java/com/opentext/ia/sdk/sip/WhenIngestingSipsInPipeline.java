@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.test.TestCase;
+
+
+@SuppressWarnings("unchecked")
+public class WhenIngestingSipsInPipeline extends TestCase {
+
+  private static final String NUM_RESULTS = "# results";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final ArchiveClient archiveClient = mock(ArchiveClient.class);
+  private final List<SipIngestionResult> results = Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void init() throws IOException {
+    when(archiveClient.ingest(any(InputStream.class))).thenAnswer(invocation -> {
+      InputStream sip = invocation.getArgumentAt(0, InputStream.class);
+      return "aip-" + IOUtils.toString(sip, "UTF-8");
+    });
+  }
+
+  @Test
+  public void shouldIngestSipsAndDeleteTheirFiles() throws IOException {
+    FileGenerationMetrics sip1 = someSip("1");
+    FileGenerationMetrics sip2 = someSip("2");
+
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, results::add)) {
+      pipeline.submit(sip1);
+      pipeline.submit(sip2);
+    }
+
+    assertEquals(NUM_RESULTS, 2, results.size());
+    results.forEach(result -> {
+      assertTrue("Ingested", result.isIngested());
+      assertNull("Failure", result.getFailure());
+      assertFalse("SIP file not deleted", result.getSip()
+        .getFile()
+        .exists());
+    });
+    assertResult(sip1, "aip-1");
+    assertResult(sip2, "aip-2");
+  }
+
+  private FileGenerationMetrics someSip(String content) throws IOException {
+    File file = folder.newFile();
+    Files.write(file.toPath(), content.getBytes("UTF-8"));
+    return new FileGenerationMetrics(file, new SipMetrics(new Counters()));
+  }
+
+  private void assertResult(FileGenerationMetrics sip, String expectedAipId) {
+    SipIngestionResult result = results.stream()
+      .filter(candidate -> candidate.getSip() == sip)
+      .findAny()
+      .orElseThrow(() -> new AssertionError("Missing result for " + sip.getFile()));
+    assertEquals("AIP ID", expectedAipId, result.getAipId());
+  }
+
+  @Test
+  public void shouldReportFailuresAndKeepTheirFiles() throws IOException {
+    IOException failure = new IOException(randomString());
+    doThrow(failure).when(archiveClient)
+      .ingest(any(InputStream.class));
+    FileGenerationMetrics sip = someSip(randomString());
+
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, results::add)) {
+      pipeline.submit(sip);
+    }
+
+    assertEquals(NUM_RESULTS, 1, results.size());
+    SipIngestionResult result = results.get(0);
+    assertFalse("Ingested", result.isIngested());
+    assertSame("Failure", failure, result.getFailure());
+    assertNull("AIP ID", result.getAipId());
+    assertTrue("SIP file deleted", sip.getFile()
+      .exists());
+  }
+
+  @Test
+  public void shouldIngestDirectlyWhenAsked() throws IOException {
+    when(archiveClient.ingestDirect(any(InputStream.class))).thenReturn("direct");
+
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, true, 1, 0, results::add)) {
+      pipeline.submit(someSip(randomString()));
+    }
+
+    assertEquals("AIP ID", "direct", results.get(0)
+      .getAipId());
+    verify(archiveClient, never()).ingest(any(InputStream.class));
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldIngestSipsOfSameDssInSequenceNumberOrder() throws IOException {
+    List<String> uploaded = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocation -> {
+      String sip = labelOf(invocation.getArgumentAt(0, InputStream.class));
+      Thread.sleep(randomInt(0, 5));
+      uploaded.add(sip);
+      return "aip-" + sip;
+    }).when(archiveClient)
+      .ingest(any(InputStream.class));
+
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, false, 4, 8, results::add)) {
+      for (int seqno = 1; seqno <= 5; seqno++) {
+        pipeline.submit(someSip("a", seqno, seqno == 5));
+        pipeline.submit(someSip("b", seqno, seqno == 5));
+      }
+    }
+
+    assertEquals(NUM_RESULTS, 10, results.size());
+    results.forEach(result -> assertTrue("Ingested", result.isIngested()));
+    for (String dss : new String[] { "a", "b" }) {
+      List<String> actual = new ArrayList<>();
+      uploaded.stream()
+        .filter(sip -> sip.startsWith(dss + '.'))
+        .forEach(actual::add);
+      assertEquals("Order of DSS " + dss, Arrays.asList(dss + ".1", dss + ".2", dss + ".3", dss + ".4", dss + ".5"),
+          actual);
+    }
+  }
+
+  private String labelOf(InputStream sip) throws IOException {
+    try (ZipInputStream zip = new ZipInputStream(sip)) {
+      return zip.getNextEntry()
+        .getName();
+    }
+  }
+
+  private FileGenerationMetrics someSip(String dssId, int seqno, boolean last) throws IOException {
+    File file = folder.newFile();
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file.toPath()))) {
+      zip.putNextEntry(new ZipEntry(dssId + '.' + seqno));
+      zip.putNextEntry(new ZipEntry("eas_sip.xml"));
+      zip.write(String.format("<sip xmlns=\"urn:x-emc:ia:schema:sip:1.0\"><dss><holding>holding</holding>"
+          + "<id>%s</id></dss><seqno>%d</seqno><is_last>%b</is_last></sip>", dssId, seqno, last)
+        .getBytes(StandardCharsets.UTF_8));
+    }
+    return new FileGenerationMetrics(file, new SipMetrics(new Counters()));
+  }
+
+  @Test
+  public void shouldNotUploadRemainingSipsOfDssAfterFailure() throws IOException {
+    List<String> uploaded = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocation -> {
+      String sip = labelOf(invocation.getArgumentAt(0, InputStream.class));
+      uploaded.add(sip);
+      if ("a.1".equals(sip)) {
+        throw new IOException("Rejected");
+      }
+      return "aip-" + sip;
+    }).when(archiveClient)
+      .ingest(any(InputStream.class));
+    FileGenerationMetrics skipped = someSip("a", 2, true);
+
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, false, 2, 2, results::add)) {
+      pipeline.submit(someSip("a", 1, false));
+      pipeline.submit(skipped);
+      pipeline.submit(someSip("b", 1, true));
+    }
+
+    assertEquals(NUM_RESULTS, 3, results.size());
+    assertEquals("Uploaded", new HashSet<>(Arrays.asList("a.1", "b.1")), new HashSet<>(uploaded));
+    SipIngestionResult result = results.stream()
+      .filter(candidate -> candidate.getSip() == skipped)
+      .findAny()
+      .get();
+    assertFalse("Ingested", result.isIngested());
+    assertTrue("Failure", result.getFailure() instanceof IllegalStateException);
+    assertTrue("SIP file deleted", skipped.getFile()
+      .exists());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectIngestingSipsOfMultiSipDssDirectly() throws IOException {
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, true, 1, 0, results::add)) {
+      pipeline.submit(someSip("a", 1, false));
+    }
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldBlockWhenTooManySipsAreWaiting() throws Exception {
+    CountDownLatch uploading = new CountDownLatch(1);
+    CountDownLatch proceed = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      uploading.countDown();
+      proceed.await();
+      return randomString();
+    }).when(archiveClient)
+      .ingest(any(InputStream.class));
+    ExecutorService submitter = Executors.newSingleThreadExecutor();
+    try (SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, false, 1, 1, results::add)) {
+      pipeline.submit(someSip(randomString()));
+      uploading.await();
+      pipeline.submit(someSip(randomString()));
+      FileGenerationMetrics third = someSip(randomString());
+
+      Future<?> blocked = submitter.submit(() -> {
+        pipeline.submit(third);
+        return null;
+      });
+
+      assertFalse("Didn't block", waitFor(blocked));
+      proceed.countDown();
+      assertTrue("Still blocked", waitFor(blocked));
+    } finally {
+      submitter.shutdownNow();
+    }
+    assertEquals(NUM_RESULTS, 3, results.size());
+  }
+
+  private boolean waitFor(Future<?> future) throws Exception {
+    try {
+      future.get(200, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      return false;
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotAcceptSipsWhenClosed() throws IOException {
+    SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, results::add);
+    pipeline.close();
+
+    pipeline.submit(someSip(randomString()));
+  }
+
+  @Test
+  public void shouldIngestSipsOfBatchAsTheyAreAssembled() throws IOException {
+    SipAssembler<String> sipAssembler = SipAssembler.forPdi(somePackagingInformation(),
+        (Assembler<HashedContents<String>>)mock(Assembler.class));
+    SipSegmentationStrategy<String> segmentationStrategy = SipSegmentationStrategy.byMaxAius(1);
+    SipIngestionPipeline pipeline = new SipIngestionPipeline(archiveClient, results::add);
+    IngestingBatchSipAssembler<String> batcher =
+        new IngestingBatchSipAssembler<>(sipAssembler, segmentationStrategy, this::newFile, pipeline);
+
+    batcher.add(randomString());
+    batcher.add(randomString());
+    batcher.add(randomString());
+    batcher.end();
+
+    assertEquals("# SIPs", 3, batcher.getSipsMetrics()
+      .size());
+    assertEquals(NUM_RESULTS, 3, results.size());
+    results.forEach(result -> assertTrue("Ingested", result.isIngested()));
+    assertEquals("# files left", 0, folder.getRoot()
+      .listFiles().length);
+  }
+
+  private PackagingInformation somePackagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+      .holding(randomString(64))
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+  }
+
+  private File newFile() {
+    try {
+      return folder.newFile();
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+}
@@ -5,6 +5,10 @@ package com.opentext.ia.sdk.sip;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 
 
@@ -31,4 +35,54 @@ public class WhenMaintainingCounters {
     assertEquals("Reset bar", 0, counters.get(TestMetrics.BAR));
   }
 
+  @Test
+  public void shouldReflectChangesInView() {
+    Counters view = counters.view();
+
+    counters.inc(SipMetrics.NUM_AIUS);
+    counters.set(TestMetrics.FOO, 42);
+
+    assertEquals("Known metric", 1, view.get(SipMetrics.NUM_AIUS));
+    assertEquals("Custom metric", 42, view.get(TestMetrics.FOO));
+  }
+
+  @Test
+  public void shouldNotReflectChangesInSnapshot() {
+    counters.inc(SipMetrics.NUM_AIUS);
+    counters.inc(TestMetrics.FOO);
+
+    Counters snapshot = counters.forReading();
+    counters.inc(SipMetrics.NUM_AIUS);
+    counters.inc(TestMetrics.FOO);
+
+    assertEquals("Known metric", 1, snapshot.get(SipMetrics.NUM_AIUS));
+    assertEquals("Custom metric", 1, snapshot.get(TestMetrics.FOO));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldNotAllowChangesThroughView() {
+    counters.view()
+      .inc(SipMetrics.NUM_AIUS);
+  }
+
+  @Test
+  public void shouldCountConcurrently() throws InterruptedException {
+    int numThreads = 4;
+    int numIncrements = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      executor.execute(() -> {
+        for (int j = 0; j < numIncrements; j++) {
+          counters.inc(SipMetrics.NUM_DIGITAL_OBJECTS);
+          counters.inc(TestMetrics.BAR);
+        }
+      });
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    assertEquals("Known metric", numThreads * numIncrements, counters.get(SipMetrics.NUM_DIGITAL_OBJECTS));
+    assertEquals("Custom metric", numThreads * numIncrements, counters.get(TestMetrics.BAR));
+  }
+
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+
+import com.opentext.ia.sdk.client.api.ArchiveClient;
+import com.opentext.ia.test.TestCase;
+
+
+@SuppressWarnings("unchecked")
+public class WhenStreamingSipsIntoIngestion extends TestCase {
+
+  private static final List<String> SIP_ENTRIES = Arrays.asList("eas_pdi.xml", "eas_sip.xml");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final ArchiveClient archiveClient = mock(ArchiveClient.class);
+  private final List<byte[]> uploaded = new ArrayList<>();
+  private final List<String> domainObjects = Arrays.asList(randomString(), randomString(), randomString());
+  private SipAssembler<String> assembler;
+  private StreamingSipIngester<String> ingester;
+
+  @Before
+  public void init() {
+    assembler = SipAssembler.forPdi(somePackagingInformation(),
+        (Assembler<HashedContents<String>>)mock(Assembler.class));
+  }
+
+  private PackagingInformation somePackagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+      .holding(randomString(64))
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+  }
+
+  @After
+  public void done() {
+    if (ingester != null) {
+      ingester.close();
+    }
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldUploadSipWhileAssemblingIt() throws IOException {
+    String aipId = randomString();
+    when(archiveClient.ingestDirect(any(InputStream.class))).thenAnswer(invocation -> {
+      uploaded.add(IOUtils.toByteArray(invocation.getArgumentAt(0, InputStream.class)));
+      return aipId;
+    });
+    ingester = new StreamingSipIngester<>(assembler, archiveClient);
+
+    assertEquals("AIP ID", aipId, ingester.ingest(domainObjects));
+
+    assertEquals("# uploads", 1, uploaded.size());
+    assertEquals("Entries", SIP_ENTRIES,
+        entriesOf(uploaded.get(0)));
+    assertEquals("# AIUs", domainObjects.size(), assembler.getMetrics()
+      .numAius());
+    assertEquals("SIP size", uploaded.get(0).length, assembler.getMetrics()
+      .sipFileSize());
+  }
+
+  private List<String> entriesOf(byte[] sip) throws IOException {
+    List<String> result = new ArrayList<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(sip))) {
+      for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+        result.add(entry.getName());
+      }
+    }
+    return result;
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldFallBackToFileWhenStreamingFails() throws IOException {
+    String aipId = randomString();
+    AtomicInteger numCalls = new AtomicInteger();
+    when(archiveClient.ingestDirect(any(InputStream.class))).thenAnswer(invocation -> {
+      InputStream sip = invocation.getArgumentAt(0, InputStream.class);
+      if (numCalls.incrementAndGet() == 1) {
+        sip.read();
+        throw new IOException("Connection reset");
+      }
+      uploaded.add(IOUtils.toByteArray(sip));
+      return aipId;
+    });
+    File dir = folder.newFolder();
+    ingester = new StreamingSipIngester<>(assembler, archiveClient, dir);
+
+    assertEquals("AIP ID", aipId, ingester.ingest(domainObjects));
+
+    assertEquals("Entries", SIP_ENTRIES,
+        entriesOf(uploaded.get(0)));
+    assertEquals("# files left", 0, dir.listFiles().length);
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldCommitContentOnlyOnceSipIsIngested() throws IOException {
+    ContentAssembler<String> contentAssembler = mock(ContentAssembler.class);
+    when(archiveClient.ingestDirect(any(InputStream.class))).thenAnswer(invocation -> {
+      IOUtils.toByteArray(invocation.getArgumentAt(0, InputStream.class));
+      verify(contentAssembler, never()).commit();
+      return randomString();
+    });
+    ingester = new StreamingSipIngester<>(assemblerWith(contentAssembler), archiveClient);
+
+    ingester.ingest(domainObjects);
+
+    verify(contentAssembler).commit();
+    verify(contentAssembler, never()).discard();
+  }
+
+  private SipAssembler<String> assemblerWith(ContentAssembler<String> contentAssembler) {
+    return SipAssembler.forPdiAndContent(somePackagingInformation(),
+        (Assembler<HashedContents<String>>)mock(Assembler.class), contentAssembler);
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldDiscardContentOfSipThatFailedToIngest() throws IOException {
+    ContentAssembler<String> contentAssembler = mock(ContentAssembler.class);
+    AtomicInteger numCalls = new AtomicInteger();
+    when(archiveClient.ingestDirect(any(InputStream.class))).thenAnswer(invocation -> {
+      IOUtils.toByteArray(invocation.getArgumentAt(0, InputStream.class));
+      if (numCalls.incrementAndGet() == 1) {
+        throw new IOException("Rejected");
+      }
+      return randomString();
+    });
+    ingester = new StreamingSipIngester<>(assemblerWith(contentAssembler), archiveClient, folder.newFolder());
+
+    ingester.ingest(domainObjects);
+
+    InOrder inOrder = inOrder(contentAssembler);
+    inOrder.verify(contentAssembler).discard();
+    inOrder.verify(contentAssembler).begin(any(), any());
+    inOrder.verify(contentAssembler).commit();
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldKeepFileWhenFallbackFails() throws IOException {
+    doThrow(new IOException(randomString())).when(archiveClient)
+      .ingestDirect(any(InputStream.class));
+    File dir = folder.newFolder();
+    ingester = new StreamingSipIngester<>(assembler, archiveClient, dir);
+
+    try {
+      ingester.ingest(domainObjects);
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertEquals("Streaming failure", 1, e.getSuppressed().length);
+    }
+
+    assertEquals("# files left", 1, dir.listFiles().length);
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldAbortUploadWhenAssemblyFails() throws IOException {
+    List<Exception> uploadFailures = new ArrayList<>();
+    when(archiveClient.ingestDirect(any(InputStream.class))).thenAnswer(invocation -> {
+      try {
+        IOUtils.toByteArray(invocation.getArgumentAt(0, InputStream.class));
+      } catch (IOException e) {
+        uploadFailures.add(e);
+        throw e;
+      }
+      return randomString();
+    });
+    IllegalStateException failure = new IllegalStateException(randomString());
+    Iterable<String> failingDomainObjects = () -> new Iterator<String>() {
+
+      private int numReturned;
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public String next() {
+        if (numReturned++ == 2) {
+          throw failure;
+        }
+        return randomString();
+      }
+
+    };
+    ingester = new StreamingSipIngester<>(assembler, archiveClient);
+
+    try {
+      ingester.ingest(failingDomainObjects);
+      fail("Missing exception");
+    } catch (IllegalStateException e) {
+      assertSame("Failure", failure, e);
+      assertEquals("# upload failures", 1, uploadFailures.size());
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenAdaptingConcurrencyLimit extends TestCase {
+
+  private static final long LATENCY = 1_000_000;
+  private static final String LIMIT = "Limit";
+
+  private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10);
+
+  @Test
+  public void shouldGrowWhileRequestsSucceedAtStableLatency() throws InterruptedException {
+    for (int i = 0; i < 20; i++) {
+      long[] tickets = acquire(limit.getLimit());
+      for (long ticket : tickets) {
+        limit.onSuccess(ticket, LATENCY);
+      }
+    }
+
+    assertEquals(LIMIT, 10, limit.getLimit());
+  }
+
+  private long[] acquire(int count) throws InterruptedException {
+    long[] result = new long[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = limit.acquire();
+    }
+    return result;
+  }
+
+  @Test
+  public void shouldNotGrowWhenMostOfTheLimitIsUnused() throws InterruptedException {
+    for (int i = 0; i < 20; i++) {
+      limit.onSuccess(limit.acquire(), LATENCY);
+    }
+
+    assertEquals(LIMIT, 4, limit.getLimit());
+  }
+
+  @Test
+  public void shouldHalveOnceWhenRequestsSentTogetherAreOverloaded() throws InterruptedException {
+    long[] tickets = acquire(4);
+
+    for (long ticket : tickets) {
+      limit.onOverload(ticket);
+    }
+
+    assertEquals(LIMIT, 2, limit.getLimit());
+    assertEquals("In flight", 0, limit.getInFlight());
+  }
+
+  @Test
+  public void shouldKeepHalvingWhileOverloaded() throws InterruptedException {
+    for (int i = 0; i < 3; i++) {
+      limit.onOverload(limit.acquire());
+    }
+
+    assertEquals(LIMIT, 1, limit.getLimit());
+  }
+
+  @Test
+  public void shouldBackOffWhenLatencyRises() throws InterruptedException {
+    limit.onSuccess(limit.acquire(), LATENCY);
+
+    for (int i = 0; i < 10; i++) {
+      limit.onSuccess(limit.acquire(), 10 * LATENCY);
+    }
+
+    assertTrue("Limit not lowered", limit.getLimit() < 4);
+  }
+
+  @Test
+  public void shouldBlockWhileLimitIsReached() throws InterruptedException {
+    long[] tickets = acquire(4);
+    AtomicLong ticket = new AtomicLong(-1);
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter = new Thread(() -> {
+      try {
+        ticket.set(limit.acquire());
+        acquired.countDown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    waiter.start();
+
+    assertFalse("Acquired beyond limit", acquired.await(50, TimeUnit.MILLISECONDS));
+    limit.onFailure(tickets[0]);
+    assertTrue("Not acquired after release", acquired.await(5, TimeUnit.SECONDS));
+    assertEquals("Ticket", 4, ticket.get());
+  }
+
+}
@@ -79,6 +79,22 @@ public class WhenWorkingWithHttp extends TestCase {
         new ByteArrayInputStream(expected)));
   }
 
+  @Test
+  public void shouldReleaseConnectionWhenBinaryResponseIsClosed() throws Exception {
+    ApacheHttpClient singleConnectionClient = new ApacheHttpClient(1, 1);
+    try {
+      for (int i = 0; i < 3; i++) {
+        byte[] expected = randomBytes();
+        try (InputStream actual = singleConnectionClient.post(uri, headers, InputStream.class,
+            new ByteArrayInputStream(expected))) {
+          assertEquals("First byte", expected[0] & 0xFF, actual.read());
+        }
+      }
+    } finally {
+      singleConnectionClient.close();
+    }
+  }
+
   private void assertResponse(String message, byte[] expected, InputStream actual) throws IOException, ArrayComparisonFailure {
     ByteArrayOutputStream output = new ByteArrayOutputStream();
     IOUtils.copy(actual, output);
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http.apache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.http.BinaryPart;
+import com.opentext.ia.sdk.support.http.Header;
+import com.opentext.ia.sdk.support.http.HttpException;
+import com.opentext.ia.sdk.support.http.TextPart;
+import com.opentext.ia.test.TestCase;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+
+public class WhenMakingAsyncHttpCallsUsingApache extends TestCase {
+
+  private static final long MAX_WAIT_SECONDS = 10;
+
+  private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+  private HttpServer server;
+  private String uri;
+  private ApacheAsyncHttpClient httpClient;
+
+  @Before
+  public void init() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(serverThreads);
+    server.start();
+    uri = "http://localhost:" + server.getAddress()
+      .getPort() + "/sips";
+  }
+
+  @After
+  public void done() {
+    if (httpClient != null) {
+      httpClient.close();
+    }
+    server.stop(0);
+    serverThreads.shutdownNow();
+  }
+
+  @Test
+  public void shouldPostMultipartForm() throws Exception {
+    httpClient = new ApacheAsyncHttpClient();
+    String text = randomString();
+    String data = randomString();
+    String[] request = new String[3];
+    server.createContext("/sips", exchange -> {
+      request[0] = exchange.getRequestHeaders()
+        .getFirst("Content-Type");
+      request[1] = exchange.getRequestHeaders()
+        .getFirst(Header.ACCEPT);
+      request[2] = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+      respond(exchange, 200, "{ \"aipId\": \"aip\" }");
+    });
+
+    String response = httpClient.post(uri, Collections.singletonList(new Header(Header.ACCEPT, "application/json")),
+        String.class, new TextPart("text", text), new BinaryPart("data", stream(data), "data.bin"))
+      .get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+
+    assertEquals("Response", "{ \"aipId\": \"aip\" }", response);
+    assertTrue("Content type", request[0].startsWith("multipart/form-data; boundary="));
+    assertEquals("Accept", "application/json", request[1]);
+    String boundary = request[0].substring(request[0].indexOf('=') + 1);
+    assertEquals("Body", String.format("--%1$s\r\n"
+        + "Content-Disposition: form-data; name=\"text\"\r\nContent-Type: text/plain\r\n\r\n%2$s\r\n"
+        + "--%1$s\r\n"
+        + "Content-Disposition: form-data; name=\"data\"; filename=\"data.bin\"\r\n"
+        + "Content-Type: application/octect-stream\r\n\r\n%3$s\r\n"
+        + "--%1$s--\r\n", boundary, text, data), request[2]);
+  }
+
+  private InputStream stream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @Test
+  public void shouldMapJsonResponse() throws Exception {
+    httpClient = new ApacheAsyncHttpClient();
+    server.createContext("/sips", exchange -> respond(exchange, 200, "{ \"name\": \"aip\", \"unknown\": 42 }"));
+
+    Response response = httpClient.post(uri, Collections.emptyList(), Response.class)
+      .get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+
+    assertEquals("Name", "aip", response.getName());
+  }
+
+  @Test
+  public void shouldFailWithStatusOfErrorResponse() throws Exception {
+    httpClient = new ApacheAsyncHttpClient();
+    server.createContext("/sips", exchange -> respond(exchange, 503, "Busy"));
+
+    try {
+      httpClient.post(uri, Collections.emptyList(), String.class, new TextPart("text", randomString()))
+        .get(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+      fail("Missing exception");
+    } catch (ExecutionException e) {
+      assertTrue("Cause", e.getCause() instanceof HttpException);
+      assertEquals("Status", 503, ((HttpException)e.getCause()).getStatusCode());
+    }
+  }
+
+  @Test
+  public void shouldHaveAllRequestsInFlightWithoutWaitingForAny() throws Exception {
+    int numRequests = randomInt(50, 100);
+    httpClient = new ApacheAsyncHttpClient(numRequests);
+    CountDownLatch arrived = new CountDownLatch(numRequests);
+    CountDownLatch respond = new CountDownLatch(1);
+    server.createContext("/sips", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        IOUtils.toByteArray(exchange.getRequestBody());
+        arrived.countDown();
+        try {
+          respond.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread()
+            .interrupt();
+        }
+        respond(exchange, 200, "ok");
+      }
+    });
+    List<CompletableFuture<String>> responses = new ArrayList<>();
+
+    for (int i = 0; i < numRequests; i++) {
+      responses.add(httpClient.post(uri, Collections.emptyList(), String.class,
+          new BinaryPart("sip", stream(randomString()), "IASIP.zip")));
+    }
+
+    assertTrue("All requests in flight", arrived.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+    respond.countDown();
+    for (CompletableFuture<String> response : responses) {
+      assertEquals("Response", "ok", response.get(MAX_WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+  }
+
+
+  public static class Response {
+
+    private String name;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.http.rest;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+
+import com.opentext.ia.sdk.support.http.Header;
+import com.opentext.ia.sdk.support.http.Response;
+import com.opentext.ia.sdk.support.http.ResponseFactory;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenDownloadingInRanges extends TestCase {
+
+  private static final String URI = "content";
+  private static final int NUM_CONNECTIONS = 3;
+  private static final int SEGMENT_SIZE = 1000;
+  private static final long MAX_WAIT_SECONDS = 5;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final RestClient restClient = mock(RestClient.class);
+  private final RangedDownloader downloader = new RangedDownloader(restClient, NUM_CONNECTIONS, SEGMENT_SIZE);
+  private final byte[] content = new byte[randomInt(5 * SEGMENT_SIZE, 10 * SEGMENT_SIZE)];
+  private final CountDownLatch segmentsInFlight = new CountDownLatch(NUM_CONNECTIONS);
+  private final AtomicBoolean concurrent = new AtomicBoolean(true);
+  private boolean honorRange = true;
+  private long truncatedSegment = -1;
+  private Path target;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void init() throws IOException {
+    ThreadLocalRandom.current()
+      .nextBytes(content);
+    target = folder.getRoot()
+      .toPath()
+      .resolve(randomString(8));
+    when(restClient.get(eq(URI), anyCollectionOf(Header.class), any(ResponseFactory.class)))
+      .thenAnswer(this::serve);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object serve(InvocationOnMock invocation) throws InterruptedException {
+    int start = 0;
+    int end = content.length - 1;
+    String contentRange = null;
+    for (Header header : (Collection<Header>)invocation.getArgumentAt(1, Collection.class)) {
+      if (honorRange && Header.RANGE.equals(header.getName())) {
+        String[] range = header.getValue()
+          .substring("bytes=".length())
+          .split("-");
+        start = Integer.parseInt(range[0]);
+        end = Math.min(Integer.parseInt(range[1]), content.length - 1);
+        contentRange = String.format("bytes %d-%d/%d", start, end, content.length);
+      }
+    }
+    if (start > 0) {
+      segmentsInFlight.countDown();
+      if (!segmentsInFlight.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS)) {
+        concurrent.set(false);
+      }
+    }
+    int length = start == truncatedSegment ? (end - start) / 2 : end - start + 1;
+    return invocation.getArgumentAt(2, ResponseFactory.class)
+      .create(new FakeResponse(contentRange, new ByteArrayInputStream(content, start, length)), () -> { });
+  }
+
+  @Test
+  public void shouldDownloadSegmentsConcurrently() throws IOException {
+    long length = downloader.download(URI, target, null);
+
+    assertEquals("Length", content.length, length);
+    assertArrayEquals("Content", content, Files.readAllBytes(target));
+    assertTrue("Segments fetched concurrently", concurrent.get());
+    verify(restClient, times((content.length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)).get(eq(URI),
+        anyCollectionOf(Header.class), any());
+  }
+
+  @Test
+  public void shouldFallBackToSingleRequestWhenServerIgnoresRange() throws IOException {
+    honorRange = false;
+
+    long length = downloader.download(URI, target, null);
+
+    assertEquals("Length", content.length, length);
+    assertArrayEquals("Content", content, Files.readAllBytes(target));
+    verify(restClient).get(eq(URI), anyCollectionOf(Header.class), any());
+  }
+
+  @Test
+  public void shouldAcceptContentWithExpectedHash() throws IOException {
+    downloader.download(URI, target, hashOf(content));
+
+    assertArrayEquals("Content", content, Files.readAllBytes(target));
+  }
+
+  private EncodedHash hashOf(byte[] bytes) {
+    HashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    hashAssembler.add(bytes, bytes.length);
+    return hashAssembler.get()
+      .iterator()
+      .next();
+  }
+
+  @Test
+  public void shouldRejectContentWithUnexpectedHash() throws IOException {
+    try {
+      downloader.download(URI, target, hashOf(randomBytes()));
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertTrue("Message", e.getMessage()
+        .contains("Hash"));
+    }
+
+    assertFalse("File kept", Files.exists(target));
+  }
+
+  @Test
+  public void shouldFailWhenSegmentIsIncomplete() throws IOException {
+    truncatedSegment = 2 * SEGMENT_SIZE;
+
+    try {
+      downloader.download(URI, target, null);
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertTrue("Message", e.getMessage()
+        .contains("offset " + truncatedSegment));
+    }
+
+    assertFalse("File kept", Files.exists(target));
+  }
+
+
+  private static class FakeResponse implements Response {
+
+    private final String contentRange;
+    private final InputStream body;
+
+    FakeResponse(String contentRange, InputStream body) {
+      this.contentRange = contentRange;
+      this.body = body;
+    }
+
+    @Override
+    public String getHeaderValue(String name, String defaultValue) {
+      return Header.CONTENT_RANGE.equals(name) && contentRange != null ? contentRange : defaultValue;
+    }
+
+    @Override
+    public boolean getHeaderValue(String name, boolean defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public int getHeaderValue(String name, int defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public long getHeaderValue(String name, long defaultValue) {
+      return defaultValue;
+    }
+
+    @Override
+    public InputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public void close() {
+      // Nothing to release
+    }
+
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenBufferingDataInMemory extends TestCase {
+
+  private static final int CHUNK_SIZE = 16;
+
+  private final MemoryChunkPool pool = new MemoryChunkPool(CHUNK_SIZE, 100);
+  private final DataBuffer buffer = new MemoryBuffer(pool);
+
+  @Test
+  public void shouldReadWrittenDataAcrossChunks() throws IOException {
+    byte[] expected = new byte[5 * CHUNK_SIZE + randomInt(1, CHUNK_SIZE - 1)];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte)randomInt(255);
+    }
+
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(expected[0]);
+      stream.write(expected, 1, expected.length - 1);
+    }
+
+    assertEquals("Length", expected.length, buffer.length());
+    try (InputStream stream = buffer.openForReading()) {
+      assertArrayEquals("Read bytes", expected, IOUtils.toByteArray(stream));
+    }
+  }
+
+  @Test
+  public void shouldReturnChunksToPoolOnRelease() throws IOException {
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(new byte[3 * CHUNK_SIZE]);
+    }
+
+    buffer.release();
+
+    assertEquals("Length", 0, buffer.length());
+    assertEquals("# pooled chunks", 3, pool.getNumPooledChunks());
+  }
+
+  @Test
+  public void shouldReuseReleasedChunks() throws IOException {
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(new byte[2 * CHUNK_SIZE]);
+    }
+    buffer.release();
+    DataBuffer next = new MemoryBuffer(pool);
+
+    try (OutputStream stream = next.openForWriting()) {
+      stream.write(new byte[CHUNK_SIZE + 1]);
+    }
+
+    assertEquals("# pooled chunks", 0, pool.getNumPooledChunks());
+  }
+
+  @Test
+  public void shouldNotPoolMoreThanMaximumNumberOfChunks() throws IOException {
+    MemoryChunkPool smallPool = new MemoryChunkPool(CHUNK_SIZE, 1);
+    DataBuffer smallBuffer = new MemoryBuffer(smallPool);
+    try (OutputStream stream = smallBuffer.openForWriting()) {
+      stream.write(new byte[2 * CHUNK_SIZE]);
+    }
+
+    smallBuffer.release();
+
+    assertEquals("# pooled chunks", 1, smallPool.getNumPooledChunks());
+  }
+
+}
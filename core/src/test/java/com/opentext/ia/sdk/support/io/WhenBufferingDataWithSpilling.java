@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenBufferingDataWithSpilling extends TestCase {
+
+  private static final int THRESHOLD = 100;
+
+  private final SpillingBuffer buffer = new SpillingBuffer(THRESHOLD);
+
+  @Test
+  public void shouldKeepSmallAmountsOfDataInMemory() throws IOException {
+    byte[] expected = someBytes(THRESHOLD);
+
+    write(expected);
+
+    assertEquals("Length", expected.length, buffer.length());
+    assertEquals("Spilled", 0, buffer.spilledLength());
+    assertArrayEquals("Read bytes", expected, read());
+  }
+
+  private byte[] someBytes(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)randomInt(255);
+    }
+    return result;
+  }
+
+  private void write(byte[] data) throws IOException {
+    try (OutputStream stream = buffer.openForWriting()) {
+      stream.write(data, 0, data.length / 2);
+      stream.write(data[data.length / 2]);
+      stream.write(data, data.length / 2 + 1, data.length - data.length / 2 - 1);
+    }
+  }
+
+  private byte[] read() throws IOException {
+    try (InputStream stream = buffer.openForReading()) {
+      return IOUtils.toByteArray(stream);
+    }
+  }
+
+  @Test
+  public void shouldSpillLargeAmountsOfDataToDisk() throws IOException {
+    byte[] expected = someBytes(3 * THRESHOLD);
+
+    write(expected);
+
+    assertEquals("Length", expected.length, buffer.length());
+    assertEquals("Spilled", expected.length, buffer.spilledLength());
+    assertArrayEquals("Read bytes", expected, read());
+  }
+
+  @Test
+  public void shouldDiscardDataOnRelease() throws IOException {
+    write(someBytes(2 * THRESHOLD));
+
+    buffer.release();
+
+    assertEquals("Length", 0, buffer.length());
+    assertEquals("Spilled", 0, buffer.spilledLength());
+  }
+
+}
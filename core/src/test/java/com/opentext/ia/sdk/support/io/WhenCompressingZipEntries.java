@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenCompressingZipEntries extends TestCase {
+
+  private static final int CONTENT_SIZE = 100 * 1024;
+
+  private final ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
+  private final byte[] text = text();
+  private final byte[] noise = noise();
+
+  private byte[] text() {
+    StringBuilder result = new StringBuilder(CONTENT_SIZE);
+    while (result.length() < CONTENT_SIZE) {
+      result.append("The quick brown fox jumps over the lazy dog. ");
+    }
+    return result.toString()
+      .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private byte[] noise() {
+    byte[] result = new byte[CONTENT_SIZE];
+    new Random().nextBytes(result);
+    return result;
+  }
+
+  @Test
+  public void shouldStoreEntriesWithCompressedExtensions() {
+    CompressionPolicy policy = CompressionPolicy.storeByExtension(Collections.singletonList("jpg"),
+        CompressionPolicy.deflateAll());
+
+    assertEquals("jpg", Compression.STORED, policy.compressionFor("photo.JPG", null, text, text.length));
+    assertEquals("txt", Compression.DEFLATED, policy.compressionFor("note.txt", null, text, text.length));
+  }
+
+  @Test
+  public void shouldStoreEntriesWithCompressedMediaTypes() {
+    CompressionPolicy policy = CompressionPolicy.storeCompressed(Compression.deflated(Deflater.BEST_SPEED));
+
+    assertTrue("image/png", policy.compressionFor("ri", "image/png", text, text.length)
+      .isStored());
+    assertEquals("text/plain", Deflater.BEST_SPEED, policy.compressionFor("ri", "text/plain", text, text.length)
+      .getLevel());
+  }
+
+  @Test
+  public void shouldStoreEntriesWithHighEntropy() {
+    CompressionPolicy policy = CompressionPolicy.storeCompressed(Compression.DEFLATED);
+
+    assertTrue("Noise", policy.compressionFor("ri", null, noise, noise.length)
+      .isStored());
+    assertFalse("Text", policy.compressionFor("ri", null, text, text.length)
+      .isStored());
+    assertFalse("Empty", policy.compressionFor("ri", null, new byte[0], 0)
+      .isStored());
+  }
+
+  @Test
+  public void shouldWriteStoredAndDeflatedEntries() throws IOException {
+    ZipAssembler zip = new DefaultZipAssembler(CompressionPolicy.storeCompressed(Compression.DEFLATED));
+
+    zip.begin(output);
+    zip.addEntry("text", new ByteArrayInputStream(text), new NoHashAssembler());
+    zip.addEntry("noise", new ByteArrayInputStream(noise), new NoHashAssembler());
+    zip.addEntry("empty", "image/jpeg", new ByteArrayInputStream(new byte[0]), new NoHashAssembler());
+    zip.close();
+
+    assertEquals("Uncompressed size", text.length + noise.length, zip.getUncompressedSize());
+    assertTrue("Compressed size", zip.getCompressedSize() < zip.getUncompressedSize());
+    assertTrue("Stored size", zip.getCompressedSize() >= noise.length);
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "text", ZipEntry.DEFLATED, text);
+      assertEntry(unzip, "noise", ZipEntry.STORED, noise);
+      assertEntry(unzip, "empty", ZipEntry.STORED, new byte[0]);
+      assertNull("Additional zip entries", unzip.getNextEntry());
+    }
+  }
+
+  private void assertEntry(ZipInputStream unzip, String name, int method, byte[] content) throws IOException {
+    ZipEntry entry = unzip.getNextEntry();
+    assertNotNull("Missing entry " + name, entry);
+    assertEquals("Name", name, entry.getName());
+    assertEquals("Method of " + name, method, entry.getMethod());
+    assertArrayEquals("Content of " + name, content, IOUtils.toByteArray(unzip));
+  }
+
+  @Test
+  public void shouldHashContentOfStoredEntries() throws IOException {
+    ZipAssembler zip = new DefaultZipAssembler(CompressionPolicy.always(Compression.STORED));
+    HashAssembler hashAssembler = new SingleHashAssembler();
+
+    zip.begin(output);
+    String actual = zip.addEntry("ri", new ByteArrayInputStream(noise), hashAssembler)
+      .iterator()
+      .next()
+      .getValue();
+    zip.close();
+
+    HashAssembler expected = new SingleHashAssembler();
+    expected.initialize();
+    expected.add(noise, noise.length);
+    assertEquals("Hash", expected.get()
+      .iterator()
+      .next()
+      .getValue(), actual);
+    assertEquals("# bytes hashed", noise.length, hashAssembler.numBytesHashed());
+  }
+
+  @Test
+  public void shouldDeflateEntriesAtDifferentLevels() throws IOException {
+    ZipAssembler zip = new DefaultZipAssembler((name, mediaType, firstBlock, length) ->
+        Compression.deflated(name.startsWith("fast") ? Deflater.BEST_SPEED : Deflater.BEST_COMPRESSION));
+
+    zip.begin(output);
+    zip.addEntry("fast1", new ByteArrayInputStream(text), new NoHashAssembler());
+    zip.addEntry("best1", new ByteArrayInputStream(text), new NoHashAssembler());
+    zip.addEntry("fast2", new ByteArrayInputStream(text), new NoHashAssembler());
+    zip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "fast1", ZipEntry.DEFLATED, text);
+      assertEntry(unzip, "best1", ZipEntry.DEFLATED, text);
+      assertEntry(unzip, "fast2", ZipEntry.DEFLATED, text);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidCompressionLevel() {
+    Compression.deflated(Deflater.BEST_COMPRESSION + 1);
+  }
+
+}
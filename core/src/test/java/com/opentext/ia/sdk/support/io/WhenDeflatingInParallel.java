@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenDeflatingInParallel extends TestCase {
+
+  private static final int THRESHOLD = 256 * 1024;
+  private static final String[] WORDS = { "archive", "information", "package", "submission", "dissemination",
+      "preservation", "description", "content", "retention", "holding" };
+
+  private final ForkJoinPool pool = new ForkJoinPool(4);
+
+  @After
+  public void after() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void shouldWriteSingleDeflateStreamForLargeEntries() throws IOException {
+    byte[] large = text(THRESHOLD * 5 + 12345);
+    byte[] small = text(THRESHOLD / 2);
+    ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
+    ZipAssembler zip = new ParallelDeflateZipAssembler(CompressionPolicy.deflateAll(), pool, THRESHOLD);
+
+    zip.begin(output);
+    Collection<EncodedHash> actual = zip.addEntry("large", new ByteArrayInputStream(large),
+        new SingleHashAssembler());
+    zip.addEntry("small", new ByteArrayInputStream(small), new NoHashAssembler());
+    zip.close();
+
+    assertEquals("Hash", hashOf(large), actual);
+    assertEquals("Uncompressed size", large.length + small.length, zip.getUncompressedSize());
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "large", large);
+      assertEntry(unzip, "small", small);
+      assertNull("Additional zip entries", unzip.getNextEntry());
+    }
+  }
+
+  private byte[] text(int length) {
+    Random random = new Random(length);
+    StringBuilder result = new StringBuilder(length + 16);
+    while (result.length() < length) {
+      result.append(WORDS[random.nextInt(WORDS.length)])
+        .append(random.nextInt(1000))
+        .append(' ');
+    }
+    result.setLength(length);
+    return result.toString()
+      .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private Collection<EncodedHash> hashOf(byte[] content) {
+    HashAssembler result = new SingleHashAssembler();
+    result.initialize();
+    result.add(content, content.length);
+    return result.get();
+  }
+
+  private void assertEntry(ZipInputStream unzip, String name, byte[] content) throws IOException {
+    ZipEntry entry = unzip.getNextEntry();
+    assertNotNull("Missing entry " + name, entry);
+    assertEquals("Name", name, entry.getName());
+    assertArrayEquals("Content of " + name, content, IOUtils.toByteArray(unzip));
+  }
+
+  @Test
+  public void shouldCompressAlmostAsWellAsSequentialDeflate() throws IOException {
+    byte[] content = text(THRESHOLD * 8);
+
+    long parallel = compressedSize(new ParallelDeflateZipAssembler(CompressionPolicy.deflateAll(), pool, THRESHOLD),
+        content);
+    long sequential = compressedSize(new DefaultZipAssembler(), content);
+
+    assertTrue("Parallel compressed size " + parallel + " vs " + sequential, parallel < sequential * 1.01);
+  }
+
+  private long compressedSize(ZipAssembler zip, byte[] content) throws IOException {
+    zip.begin(new ByteArrayInputOutputStream());
+    zip.addEntry("ri", new ByteArrayInputStream(content), new NoHashAssembler());
+    zip.close();
+    return zip.getCompressedSize();
+  }
+
+  @Test
+  public void shouldHonorCompressionPolicy() throws IOException {
+    byte[] content = text(THRESHOLD * 2);
+    ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
+    ZipAssembler zip = new ParallelDeflateZipAssembler(CompressionPolicy.always(Compression.STORED), pool, THRESHOLD);
+
+    zip.begin(output);
+    zip.addEntry("ri", new ByteArrayInputStream(content), new NoHashAssembler());
+    zip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEquals("Method", ZipEntry.STORED, unzip.getNextEntry()
+        .getMethod());
+      assertArrayEquals("Content", content, IOUtils.toByteArray(unzip));
+    }
+  }
+
+}
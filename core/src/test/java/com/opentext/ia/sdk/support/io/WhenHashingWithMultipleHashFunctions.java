@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenHashingWithMultipleHashFunctions extends TestCase {
+
+  private static final int LARGE_CONTENT_SIZE = 3 * 1024 * 1024 + 17;
+  private static final String HASHES = "Hashes";
+
+  private final Map<HashFunction, Encoding> encodingsByHashFunction = new LinkedHashMap<>();
+  private final HashAssembler hashAssembler;
+
+  public WhenHashingWithMultipleHashFunctions() {
+    encodingsByHashFunction.put(HashFunction.SHA256, Encoding.BASE64);
+    encodingsByHashFunction.put(HashFunction.MD5, Encoding.HEX);
+    encodingsByHashFunction.put(HashFunction.SHA1, Encoding.HEX);
+    hashAssembler = new MultiHashAssembler(encodingsByHashFunction);
+  }
+
+  @Test
+  public void shouldAssembleHashesOfSmallContent() {
+    byte[] content = randomBytes();
+
+    hashAssembler.initialize();
+    hashAssembler.add(content, content.length);
+
+    assertEquals(HASHES, expectedHashes(content), hashAssembler.get());
+  }
+
+  private Collection<EncodedHash> expectedHashes(byte[] content) {
+    Collection<EncodedHash> result = new ArrayList<>();
+    encodingsByHashFunction.forEach((hashFunction, encoding) -> {
+      HashAssembler single = new SingleHashAssembler(hashFunction, encoding);
+      single.initialize();
+      single.add(content, content.length);
+      result.addAll(single.get());
+    });
+    return result;
+  }
+
+  @Test
+  public void shouldAssembleHashesOfLargeContent() {
+    byte[] content = largeContent();
+
+    hashAssembler.initialize();
+    int offset = 0;
+    while (offset < content.length) {
+      int length = Math.min(10_000, content.length - offset);
+      byte[] chunk = new byte[length];
+      System.arraycopy(content, offset, chunk, 0, length);
+      hashAssembler.add(chunk, length);
+      offset += length;
+    }
+
+    assertEquals(HASHES, expectedHashes(content), hashAssembler.get());
+    assertEquals("# bytes hashed", content.length, hashAssembler.numBytesHashed());
+  }
+
+  private byte[] largeContent() {
+    byte[] result = new byte[LARGE_CONTENT_SIZE];
+    new Random().nextBytes(result);
+    return result;
+  }
+
+  @Test
+  public void shouldAssembleHashesOfByteBuffers() {
+    byte[] content = largeContent();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+    buffer.put(content)
+      .flip();
+
+    hashAssembler.initialize();
+    hashAssembler.add(buffer);
+
+    assertFalse("Buffer not consumed", buffer.hasRemaining());
+    assertEquals(HASHES, expectedHashes(content), hashAssembler.get());
+    assertEquals("# bytes hashed", content.length, hashAssembler.numBytesHashed());
+  }
+
+  @Test
+  public void shouldStartOverWhenInitialized() {
+    List<byte[]> contents = new ArrayList<>();
+    contents.add(largeContent());
+    contents.add(randomBytes());
+    contents.add(largeContent());
+
+    for (byte[] content : contents) {
+      hashAssembler.initialize();
+      hashAssembler.add(content, content.length);
+      assertEquals(HASHES, expectedHashes(content), hashAssembler.get());
+    }
+  }
+
+  @Test
+  public void shouldAbandonHashingWhenInitializedBeforeGettingHashes() {
+    byte[] abandoned = largeContent();
+    hashAssembler.initialize();
+    hashAssembler.add(abandoned, abandoned.length);
+
+    byte[] content = randomBytes();
+    hashAssembler.initialize();
+    hashAssembler.add(content, content.length);
+
+    assertEquals(HASHES, expectedHashes(content), hashAssembler.get());
+  }
+
+}
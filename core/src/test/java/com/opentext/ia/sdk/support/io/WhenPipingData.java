@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenPipingData extends TestCase {
+
+  private static final int CAPACITY = 100;
+
+  private final PipeBuffer pipe = new PipeBuffer(CAPACITY);
+  private final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+  @After
+  public void done() {
+    writer.shutdownNow();
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldHandDataFromWriterToReader() throws Exception {
+    byte[] expected = randomBytes(10 * CAPACITY + randomInt(CAPACITY));
+
+    Future<?> written = writer.submit(() -> {
+      try (OutputStream output = pipe.openForWriting()) {
+        output.write(expected);
+      }
+      return null;
+    });
+    byte[] actual;
+    try (InputStream input = pipe.openForReading()) {
+      actual = IOUtils.toByteArray(input);
+    }
+    written.get();
+
+    assertArrayEquals("Data", expected, actual);
+    assertEquals("Length", expected.length, pipe.length());
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)randomInt(256);
+    }
+    return result;
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldFailReaderWhenWriterFails() throws IOException {
+    IOException failure = new IOException(randomString());
+    try (OutputStream output = pipe.openForWriting()) {
+      output.write(randomBytes(CAPACITY / 2));
+    }
+    pipe.fail(failure);
+
+    try (InputStream input = pipe.openForReading()) {
+      IOUtils.toByteArray(input);
+      fail("Reader didn't fail");
+    } catch (IOException e) {
+      assertSame("Cause", failure, e.getCause());
+    }
+  }
+
+  @Test(timeout = 10_000)
+  public void shouldFailWriterWhenReaderCloses() throws Exception {
+    Future<?> written = writer.submit(() -> {
+      try (OutputStream output = pipe.openForWriting()) {
+        output.write(randomBytes(10 * CAPACITY));
+      }
+      return null;
+    });
+    try (InputStream input = pipe.openForReading()) {
+      assertTrue("Read", input.read() >= 0);
+    }
+
+    try {
+      written.get();
+      fail("Writer didn't fail");
+    } catch (ExecutionException e) {
+      assertTrue("Cause", e.getCause() instanceof IOException);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldOnlyReadOnce() throws IOException {
+    pipe.openForReading();
+
+    pipe.openForReading();
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldOnlyWriteOnce() throws IOException {
+    pipe.openForWriting();
+
+    pipe.openForWriting();
+  }
+
+}
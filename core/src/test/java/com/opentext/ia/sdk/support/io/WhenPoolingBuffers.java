@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenPoolingBuffers extends TestCase {
+
+  private static final int SIZE = 1000;
+
+  private final BufferPool pool = BufferPool.forCurrentThread();
+
+  @Test
+  public void shouldAcquireBuffersOfAtLeastTheRequestedSize() {
+    byte[] heap = pool.acquire(SIZE);
+    ByteBuffer direct = pool.acquireDirect(SIZE);
+
+    assertEquals("Heap size", 1024, heap.length);
+    assertEquals("Direct capacity", 1024, direct.capacity());
+    assertTrue("Direct", direct.isDirect());
+  }
+
+  @Test
+  public void shouldReuseReleasedBuffers() {
+    byte[] heap = pool.acquire(SIZE);
+    pool.release(heap);
+    ByteBuffer direct = pool.acquireDirect(SIZE);
+    direct.put(randomBytes());
+    pool.release(direct);
+
+    assertSame("Heap", heap, pool.acquire(SIZE));
+    ByteBuffer reused = pool.acquireDirect(SIZE);
+    assertSame("Direct", direct, reused);
+    assertEquals("Position", 0, reused.position());
+    assertEquals("Limit", reused.capacity(), reused.limit());
+  }
+
+  @Test
+  public void shouldNotPoolLargeBuffers() {
+    byte[] large = pool.acquire(BufferPool.MAX_POOLED_SIZE + 1);
+    pool.release(large);
+
+    assertEquals("Size", BufferPool.MAX_POOLED_SIZE + 1, large.length);
+    assertNotSame("Large buffer is pooled", large, pool.acquire(BufferPool.MAX_POOLED_SIZE + 1));
+  }
+
+  @Test
+  public void shouldNotShareBuffersBetweenThreads() throws InterruptedException, ExecutionException {
+    byte[] released = pool.acquire(SIZE);
+    pool.release(released);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      byte[] acquired = executor.submit(() -> BufferPool.forCurrentThread()
+        .acquire(SIZE))
+        .get();
+      assertNotSame("Buffer from other thread", released, acquired);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldCopyStreamsUsingPooledBuffers() throws IOException {
+    byte[] content = new byte[3 * SIZE * SIZE];
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    long numCopied = IOStreams.copy(new ByteArrayInputStream(content), output);
+
+    assertEquals("# bytes copied", content.length, numCopied);
+    assertArrayEquals("Content", content, output.toByteArray());
+  }
+
+}
@@ -79,6 +79,67 @@ public class WhenZipping extends TestCase {
     assertEquals("Hash", expected, actual);
   }
 
+  @Test
+  public void shouldAddPreparedEntries() throws IOException {
+    String name = someName();
+    byte[] content = randomBytes();
+    Collection<EncodedHash> expected = Collections.singletonList(someHash());
+    HashAssembler hashAssembler = mock(HashAssembler.class);
+    when(hashAssembler.get()).thenReturn(expected);
+    PreparedZipEntry entry = PreparedZipEntry.deflate(new ByteArrayInputStream(content), hashAssembler);
+
+    zip.begin(output);
+    Collection<EncodedHash> actual = zip.addPreparedEntry(name, entry);
+    zip.close();
+
+    assertEquals("Hash", expected, actual);
+    assertEquals("Size", content.length, entry.getSize());
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      ZipEntry zipEntry = unzip.getNextEntry();
+      assertNotNull("Missing entry", zipEntry);
+      assertEquals("Zip entry", name, zipEntry.getName());
+      assertArrayEquals("Zip content", content, IOUtils.toByteArray(unzip));
+      assertNull("Additional zip entries", unzip.getNextEntry());
+    }
+  }
+
+  @Test
+  public void shouldPrepareEntriesTheWayThePolicyDecides() throws IOException {
+    String stored = someName() + ".jpg";
+    String deflated = someName() + ".txt";
+    byte[] content = new byte[10 * 1024];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte)(i % 7);
+    }
+    CompressionPolicy policy = CompressionPolicy.storeByExtension(Collections.singletonList("jpg"),
+        CompressionPolicy.always(Compression.deflated(9)));
+    PreparedZipEntry storedEntry = PreparedZipEntry.prepare(stored, null, new ByteArrayInputStream(content), policy,
+        new NoHashAssembler());
+    PreparedZipEntry deflatedEntry = PreparedZipEntry.prepare(deflated, null, new ByteArrayInputStream(content),
+        policy, new NoHashAssembler());
+
+    assertEquals("Stored method", ZipEntry.STORED, storedEntry.getMethod());
+    assertEquals("Stored size", content.length, storedEntry.getCompressedSize());
+    assertEquals("Deflated method", ZipEntry.DEFLATED, deflatedEntry.getMethod());
+    assertTrue("Deflated size", deflatedEntry.getCompressedSize() < content.length);
+    zip.begin(output);
+    zip.addPreparedEntry(stored, storedEntry);
+    zip.addPreparedEntry(deflated, deflatedEntry);
+    zip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      ZipEntry zipEntry = unzip.getNextEntry();
+      assertEquals("Zip entry #1", stored, zipEntry.getName());
+      assertEquals("Zip method #1", ZipEntry.STORED, zipEntry.getMethod());
+      assertArrayEquals("Zip content #1", content, IOUtils.toByteArray(unzip));
+      zipEntry = unzip.getNextEntry();
+      assertEquals("Zip entry #2", deflated, zipEntry.getName());
+      assertEquals("Zip method #2", ZipEntry.DEFLATED, zipEntry.getMethod());
+      assertArrayEquals("Zip content #2", content, IOUtils.toByteArray(unzip));
+      assertNull("Additional zip entries", unzip.getNextEntry());
+    }
+  }
+
   private EncodedHash someHash() {
     return new EncodedHash(someName(), someName(), someName());
   }
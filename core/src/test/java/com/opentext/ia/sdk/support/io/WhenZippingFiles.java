@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenZippingFiles extends TestCase {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final byte[] content = randomBytes();
+
+  @Test
+  public void shouldTransferStoredEntriesFromFileToFile() throws IOException {
+    assertZippedFile(CompressionPolicy.always(Compression.STORED), ZipEntry.STORED);
+  }
+
+  private void assertZippedFile(CompressionPolicy compressionPolicy, int method) throws IOException {
+    Path source = file(folder, content).toPath();
+    File zipFile = folder.newFile();
+    ZipAssembler zip = new DefaultZipAssembler(compressionPolicy);
+    HashAssembler hashAssembler = new SingleHashAssembler();
+
+    Collection<EncodedHash> actual;
+    try (FileOutputStream output = new FileOutputStream(zipFile)) {
+      zip.begin(output);
+      zip.addEntry("first", new FileInputStream(source.toFile()), new NoHashAssembler());
+      actual = zip.addEntry("second", null, source, hashAssembler);
+      zip.close();
+    }
+
+    assertEquals("Hash", hashOf(content), actual);
+    assertEquals("# bytes hashed", content.length, hashAssembler.numBytesHashed());
+    assertTrue("File read time", zip.getFileReadNanos() > 0);
+    try (ZipInputStream unzip = new ZipInputStream(new FileInputStream(zipFile))) {
+      assertEntry(unzip, "first", method);
+      assertEntry(unzip, "second", method);
+      assertNull("Additional zip entries", unzip.getNextEntry());
+    }
+  }
+
+  private Collection<EncodedHash> hashOf(byte[] data) {
+    HashAssembler result = new SingleHashAssembler();
+    result.initialize();
+    result.add(data, data.length);
+    return result.get();
+  }
+
+  private void assertEntry(ZipInputStream unzip, String name, int method) throws IOException {
+    ZipEntry entry = unzip.getNextEntry();
+    assertNotNull("Missing entry " + name, entry);
+    assertEquals("Name", name, entry.getName());
+    assertEquals("Method", method, entry.getMethod());
+    assertArrayEquals("Content of " + name, content, IOUtils.toByteArray(unzip));
+  }
+
+  @Test
+  public void shouldDeflateEntriesFromFile() throws IOException {
+    assertZippedFile(CompressionPolicy.deflateAll(), ZipEntry.DEFLATED);
+  }
+
+  @Test
+  public void shouldTransferStoredEntriesFromFileToStream() throws IOException {
+    Path source = file(folder, content).toPath();
+    ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
+    ZipAssembler zip = new DefaultZipAssembler(CompressionPolicy.always(Compression.STORED));
+
+    zip.begin(output);
+    zip.addEntry("ri", null, source, new NoHashAssembler());
+    zip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "ri", ZipEntry.STORED);
+    }
+  }
+
+  @Test
+  public void shouldHashByteBuffersLikeArrays() {
+    HashAssembler hashAssembler = new SingleHashAssembler();
+    hashAssembler.initialize();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+    buffer.put(content);
+    buffer.flip();
+
+    hashAssembler.add(buffer);
+
+    assertEquals("Hash", hashOf(content), hashAssembler.get());
+    assertFalse("Buffer not consumed", buffer.hasRemaining());
+  }
+
+  @Test
+  public void shouldReadContentOfEntriesFromFileWithDefaultImplementation() throws IOException {
+    Path source = file(folder, content).toPath();
+    ZipAssembler zip = new ZipAssembler() {
+      private byte[] added;
+
+      @Override
+      public void begin(OutputStream output) {
+        added = null;
+      }
+
+      @Override
+      public Collection<EncodedHash> addEntry(String name, InputStream stream, HashAssembler hashAssembler)
+          throws IOException {
+        added = IOUtils.toByteArray(stream);
+        return hashOf(added);
+      }
+
+      @Override
+      public void close() {
+        assertArrayEquals("Content", content, added);
+      }
+    };
+
+    zip.begin(null);
+    assertEquals("Hash", hashOf(content), zip.addEntry("ri", "text/plain", source, new NoHashAssembler()));
+    zip.close();
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.metrics;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.Encoding;
+import com.opentext.ia.sdk.support.io.HashFunction;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenPublishingMetrics extends TestCase {
+
+  private static final String DOMAIN = "test";
+  private static final String COUNT = "Count";
+
+  private final MBeanServer server = MBeanServerFactory.newMBeanServer();
+  private JmxMetricsRegistry registry;
+
+  @Before
+  public void init() {
+    registry = new JmxMetricsRegistry(server, DOMAIN);
+  }
+
+  @After
+  public void done() {
+    Instrumentation.disable();
+    registry.unregisterAll();
+  }
+
+  @Test
+  public void shouldIgnoreMetricsByDefault() {
+    Timer timer = Instrumentation.timer(MetricNames.HASH);
+
+    assertSame("Registry", MetricsRegistry.noOp(), Instrumentation.registry());
+    assertEquals("Start", 0, timer.start());
+  }
+
+  @Test
+  public void shouldReturnSameMetricForSameName() {
+    String name = randomString();
+
+    assertSame("Counter", registry.counter(name), registry.counter(name));
+    assertSame("Timer", registry.timer(name), registry.timer(name));
+  }
+
+  @Test
+  public void shouldPublishCountersAsMBeans() throws JMException {
+    String name = randomString();
+    int delta = randomInt(1, 100);
+
+    Counter counter = registry.counter(name);
+    counter.inc();
+    counter.inc(delta);
+
+    assertEquals(COUNT, 1L + delta, server.getAttribute(objectName("Counter", name), COUNT));
+  }
+
+  private ObjectName objectName(String type, String name) throws JMException {
+    return new ObjectName(String.format("%s:type=%s,name=%s", DOMAIN, type, name));
+  }
+
+  @Test
+  public void shouldPublishTimersAsMBeans() throws JMException {
+    String name = randomString();
+
+    Timer timer = registry.timer(name);
+    for (int i = 1; i <= 100; i++) {
+      timer.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    ObjectName objectName = objectName("Timer", name);
+    assertEquals(COUNT, 100L, server.getAttribute(objectName, COUNT));
+    assertEquals("Total", 5050.0, (double)server.getAttribute(objectName, "TotalMillis"), 0.001);
+    assertEquals("Mean", 50.5, (double)server.getAttribute(objectName, "MeanMillis"), 0.001);
+    assertEquals("Max", 100.0, (double)server.getAttribute(objectName, "MaxMillis"), 0.001);
+    assertPercentile(50, (double)server.getAttribute(objectName, "50thPercentileMillis"));
+    assertPercentile(95, (double)server.getAttribute(objectName, "95thPercentileMillis"));
+    assertPercentile(99, (double)server.getAttribute(objectName, "99thPercentileMillis"));
+  }
+
+  private void assertPercentile(double expected, double actual) {
+    // Percentiles are upper bounds of power-of-two buckets of nanoseconds
+    assertTrue("Percentile " + expected + " too small: " + actual, actual >= expected);
+    assertTrue("Percentile " + expected + " too large: " + actual, actual <= Math.min(2 * expected, 100));
+  }
+
+  @Test
+  public void shouldRecordElapsedTime() throws InterruptedException {
+    Timer timer = registry.timer(randomString());
+
+    long start = timer.start();
+    Thread.sleep(5);
+    timer.stop(start);
+
+    assertTrue("Elapsed time", ((TimerMXBean)timer).getMaxMillis() >= 5);
+  }
+
+  @Test
+  public void shouldReportZerosForUnusedTimer() {
+    TimerMXBean timer = (TimerMXBean)registry.timer(randomString());
+
+    assertEquals(COUNT, 0, timer.getCount());
+    assertEquals("Mean", 0, timer.getMeanMillis(), 0);
+    assertEquals("Percentile", 0, timer.get99thPercentileMillis(), 0);
+  }
+
+  @Test
+  public void shouldTakeOverMBeansOfPreviousRegistry() throws JMException {
+    String name = randomString();
+    registry.counter(name)
+      .inc();
+
+    registry = new JmxMetricsRegistry(server, DOMAIN);
+    registry.counter(name)
+      .inc(2);
+
+    assertEquals(COUNT, 2L, server.getAttribute(objectName("Counter", name), COUNT));
+  }
+
+  @Test
+  public void shouldPublishMetricsOfSdk() {
+    byte[] content = randomBytes();
+    Instrumentation.setRegistry(registry);
+
+    SingleHashAssembler hashAssembler = new SingleHashAssembler(HashFunction.SHA256, Encoding.BASE64);
+    hashAssembler.initialize();
+    hashAssembler.add(content, content.length);
+
+    assertEquals("Bytes hashed", content.length,
+        ((CounterMXBean)registry.counter(MetricNames.HASH_BYTES)).getCount());
+    assertEquals("# hashes", 1, ((TimerMXBean)registry.timer(MetricNames.HASH)).getCount());
+  }
+
+}